@@ -2,19 +2,60 @@ package healthcare.model;
 
 import healthcare.exceptions.*;
 import healthcare.utils.*;
+import healthcare.database.CommandJournal;
 import healthcare.database.DatabaseManager;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * CareHome class - Main business logic class for the healthcare system.
  * Implements Singleton pattern and manages all core functionality.
  * Demonstrates encapsulation, polymorphism, and composition.
+ *
+ * Thread safety: staff and patients live in concurrent maps, and every bed change
+ * happens while holding the lock stripe of the bed's room. Moves lock both rooms'
+ * stripes in ascending stripe order, so moves between different rooms run in
+ * parallel without deadlocking. Shift changes are made under the staff member's own
+ * lock (see Staff), which is taken before the state lock, so code holding the state lock
+ * must not change a registered staff member's shifts.
+ *
+ * Readers that only need to display state should use getSnapshot(), which returns an
+ * immutable view that is republished after every change.
+ *
+ * Persistence: every state-changing call appends a small record to a command journal
+ * and returns once that record is on disk. saveData() writes a binary snapshot of the whole
+ * state (see SnapshotCodec) and starts a new journal; loadData() reads the snapshot and
+ * replays the journal records written after it. Ward layout changes are not journaled,
+ * they are kept by the next snapshot. If the journal cannot be written, the change
+ * that found out throws IllegalStateException and the care home becomes read-only:
+ * every later change is refused before it is made (see isReadOnly()).
+ *
+ * A care home opened with loadData() also saves itself in the background 5 seconds
+ * after the first unsaved change (see AutosaveScheduler), taking in every change made
+ * in the meantime, so the journal stays short without anyone calling saveData().
  */
-public class CareHome implements Serializable {
+public class CareHome implements Serializable, RoomListener, StaffListener {
+    private static final long serialVersionUID = 1L;
+
     private static CareHome instance;
 
     // Core data structures using generics
@@ -22,17 +63,68 @@ public class CareHome implements Serializable {
     private Map<String, Patient> patients;
     private List<Ward> wards;
 
+    // Lookup indexes (bedId -> Bed, bedId -> Room, wardId -> Ward, username -> Staff), rebuilt after loading
+    private transient Map<String, Staff> staffByUsername;
+    private transient StaffDirectory staffDirectory;
+    private transient RosterIndex rosterIndex;
+    private transient ComplianceTracker compliance;
+    private transient Map<String, Bed> bedIndex;
+    private transient Map<String, Room> bedRoomIndex;
+    private transient Map<String, Ward> wardIndex;
+    private transient BedAllocator bedAllocator;
+
+    // Current immutable view plus where each ward/room sits in it
+    private transient AtomicReference<CareHomeSnapshot> snapshot;
+    private transient Map<String, Integer> wardPositions;
+    private transient Map<Room, int[]> roomPositions;
+
+    // Lock stripes guarding bed changes, chosen by room ID
+    private static final int LOCK_STRIPES = 64;
+    private transient ReentrantLock[] roomLocks;
+
+    // Changes hold the read lock while they update state and queue their journal record;
+    // snapshots take the write lock so they see a state that matches a journal position
+    private transient ReentrantReadWriteLock stateLock;
+
+    // Command journal, null when running without persistence (tests, benchmarks)
+    private transient CommandJournal journal;
+    private transient Path dataDir;
+
+    // Background snapshots, null when running without persistence; saveLock keeps saves in order
+    private transient AutosaveScheduler autosave;
+    private transient ReentrantLock saveLock;
+
+    // Time source for roster checks; tests can replace it with a fixed clock
+    private transient volatile Clock clock;
+
     // Mark as transient so it is NOT serialized
     private transient AuditLogger auditLogger;
     private transient DatabaseManager databaseManager;
 
     // Data files
-    private static final String DATA_FILE = "data/carehome_data.ser";
-    private static final String BACKUP_FILE = "data/carehome_backup.ser";
+    private static final String DATA_DIR = "data";
+    private static final String SNAPSHOT_FILE = "carehome_snapshot.dat";
+    private static final String JOURNAL_FILE = "carehome_journal.log";
+    private static final long AUTOSAVE_DELAY_MILLIS = 5000;
+
+    // Password checks run on this small pool so a burst of logins cannot freeze the UI;
+    // attempts beyond the queue are refused instead of piling up
+    private static final int LOGIN_THREADS = 2;
+    private static final int LOGIN_QUEUE = 32;
+    private static final ThreadPoolExecutor LOGIN_EXECUTOR = createLoginExecutor();
+
+    // Checked against when a username is unknown, so both cases take as long
+    private static final String UNKNOWN_USER_HASH = PasswordHasher.hash("unknown-user");
 
     private CareHome() {
+        this(true);
+    }
+
+    private CareHome(boolean withDefaultWards) {
         initializeDataStructures();
-        initializeWards();
+        if (withDefaultWards) {
+            initializeWards();
+        }
         this.auditLogger = AuditLogger.getInstance();
 
         // Initialize database - creates healthcare.db file
@@ -52,10 +144,33 @@ public class CareHome implements Serializable {
         return instance;
     }
 
+    /**
+     * Create a CareHome that is not registered as the singleton.
+     * Used by tests and benchmarks that need their own ward layout.
+     */
+    public static CareHome newStandaloneInstance() {
+        return new CareHome();
+    }
+
     private void initializeDataStructures() {
-        this.staffMembers = new HashMap<>();
-        this.patients = new HashMap<>();
-        this.wards = new ArrayList<>();
+        this.staffMembers = new ConcurrentHashMap<>();
+        this.staffByUsername = new ConcurrentHashMap<>();
+        this.staffDirectory = new StaffDirectory();
+        this.rosterIndex = new RosterIndex();
+        this.compliance = new ComplianceTracker();
+        this.patients = new ConcurrentHashMap<>();
+        this.roomLocks = createRoomLocks();
+        this.stateLock = new ReentrantReadWriteLock();
+        this.clock = Clock.systemDefaultZone();
+        this.saveLock = new ReentrantLock();
+        this.wards = new CopyOnWriteArrayList<>();
+        this.bedIndex = new ConcurrentHashMap<>();
+        this.bedRoomIndex = new ConcurrentHashMap<>();
+        this.wardIndex = new ConcurrentHashMap<>();
+        this.bedAllocator = new BedAllocator();
+        this.snapshot = new AtomicReference<>(CareHomeSnapshot.empty());
+        this.wardPositions = new ConcurrentHashMap<>();
+        this.roomPositions = Collections.synchronizedMap(new IdentityHashMap<>());
     }
 
     private void initializeWards() {
@@ -66,7 +181,7 @@ public class CareHome implements Serializable {
         ward1.addRoom(new Room("W1-R4", "W1", 3));
         ward1.addRoom(new Room("W1-R5", "W1", 2));
         ward1.addRoom(new Room("W1-R6", "W1", 4));
-        wards.add(ward1);
+        addWard(ward1);
 
         Ward ward2 = new Ward("W2", "Intensive Care Ward");
         ward2.addRoom(new Room("W2-R1", "W2", 3));
@@ -75,133 +190,524 @@ public class CareHome implements Serializable {
         ward2.addRoom(new Room("W2-R4", "W2", 2));
         ward2.addRoom(new Room("W2-R5", "W2", 1));
         ward2.addRoom(new Room("W2-R6", "W2", 3));
-        wards.add(ward2);
+        addWard(ward2);
+    }
+
+    // WARD MANAGEMENT
+
+    /**
+     * Register a ward and index all of its rooms and beds.
+     * Rooms added to the ward afterwards must go through addRoom so the indexes stay in sync.
+     */
+    public synchronized void addWard(Ward ward) {
+        if (wardIndex.containsKey(ward.getWardId())) {
+            throw new IllegalArgumentException("Ward " + ward.getWardId() + " already exists");
+        }
+        int wardPos = wards.size();
+        wards.add(ward);
+        wardIndex.put(ward.getWardId(), ward);
+        wardPositions.put(ward.getWardId(), wardPos);
+        List<Room> rooms = ward.getRooms();
+        for (int i = 0; i < rooms.size(); i++) {
+            indexRoom(rooms.get(i), wardPos, i);
+        }
+        CareHomeSnapshot.WardView view = CareHomeSnapshot.WardView.of(ward);
+        snapshot.updateAndGet(current -> current.withWard(wardPos, view));
+        markDirty();
+    }
+
+    /**
+     * Add a room to an existing ward and index its beds.
+     */
+    public synchronized void addRoom(String wardId, Room room) {
+        Ward ward = wardIndex.get(wardId);
+        if (ward == null) {
+            throw new IllegalArgumentException("Ward " + wardId + " not found");
+        }
+        int wardPos = wardPositions.get(wardId);
+        int roomPos = ward.getRooms().size();
+        ward.addRoom(room);
+        indexRoom(room, wardPos, roomPos);
+        CareHomeSnapshot.RoomView view = CareHomeSnapshot.RoomView.of(room);
+        snapshot.updateAndGet(current -> current.withRoom(wardPos, roomPos, view));
+        markDirty();
+    }
+
+    public Ward getWard(String wardId) {
+        return wardIndex.get(wardId);
+    }
+
+    private void indexRoom(Room room, int wardPos, int roomPos) {
+        for (Bed bed : room.getBeds()) {
+            bedIndex.put(bed.getBedId(), bed);
+            bedRoomIndex.put(bed.getBedId(), room);
+        }
+        roomPositions.put(room, new int[]{wardPos, roomPos});
+        room.setListener(this);
+        bedAllocator.addRoom(room);
+    }
+
+    // Called while the room's lock is held, so the room is read consistently
+    @Override
+    public void roomChanged(Room room) {
+        bedAllocator.roomChanged(room);
+        int[] pos = roomPositions.get(room);
+        if (pos != null) {
+            CareHomeSnapshot.RoomView view = CareHomeSnapshot.RoomView.of(room);
+            snapshot.updateAndGet(current -> current.withRoom(pos[0], pos[1], view));
+        }
+    }
+
+    // SNAPSHOTS
+
+    /**
+     * Current immutable view of the care home. Never blocks and never copies;
+     * compare getVersion() with a previous snapshot to skip redundant work.
+     */
+    public CareHomeSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // Republish one patient, or drop them once discharged. The patient is read again on
+    // every try, so after concurrent changes the last publish to succeed sees all of them.
+    private void publishPatient(String patientId) {
+        snapshot.updateAndGet(current -> {
+            Patient patient = patients.get(patientId);
+            return patient != null ? current.withPatient(CareHomeSnapshot.PatientView.of(patient))
+                    : current.withoutPatient(patientId);
+        });
+    }
+
+    private void publishStaff(String staffId) {
+        snapshot.updateAndGet(current -> {
+            Staff staff = staffMembers.get(staffId);
+            return staff != null ? current.withStaffMember(CareHomeSnapshot.StaffView.of(staff))
+                    : current.withoutStaffMember(staffId);
+        });
     }
 
     // STAFF MANAGEMENT
 
     public void addStaff(Staff staff, String managerId) throws StaffNotAuthorizedException {
+        checkWritable();
         Staff manager = staffMembers.get(managerId);
-        if (manager == null || !manager.canPerformAction("add_staff")) {
-            throw new StaffNotAuthorizedException(managerId, "add_staff", manager != null ? manager.getStaffType() : "Unknown");
+        if (manager == null || !manager.canPerformAction(Action.ADD_STAFF)) {
+            throw new StaffNotAuthorizedException(managerId, Action.ADD_STAFF.getName(), manager != null ? manager.getStaffType() : "Unknown");
+        }
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            seq = registerStaff(staff);
+        } finally {
+            stateLock.readLock().unlock();
         }
-        staffMembers.put(staff.getId(), staff);
+        commit(seq);
         auditLogger.logAction(managerId, "ADD_STAFF", "Added " + staff.getStaffType() + " " + staff.getName() + " (ID: " + staff.getId() + ")");
     }
 
+    // Caller holds the state read lock
+    private long registerStaff(Staff staff) {
+        staff.setListener(this);
+        Staff previous = staffMembers.put(staff.getId(), staff);
+        if (previous != null) {
+            staffDirectory.remove(previous);
+            rosterIndex.remove(previous);
+            compliance.remove(previous);
+            if (previous.getUsername() != null) {
+                staffByUsername.remove(previous.getUsername(), previous);
+            }
+        }
+        staffDirectory.add(staff);
+        rosterIndex.update(staff);
+        compliance.update(staff);
+        if (staff.getUsername() != null) {
+            staffByUsername.put(staff.getUsername(), staff);
+        }
+        publishStaff(staff.getId());
+        return record(JournalRecords.ADD_STAFF, out -> JournalRecords.writeStaff(out, staff));
+    }
+
+    @Override
+    public void beforeShiftsChange(Staff staff) {
+        if (staffMembers.get(staff.getId()) == staff) {
+            checkWritable();
+        }
+    }
+
+    // Staff calls this and datedShiftsChanged holding its own lock, so one staff member's
+    // changes are indexed and journaled in the order they were made
+    @Override
+    public void shiftsChanged(Staff staff) {
+        if (staffMembers.get(staff.getId()) != staff) {
+            return;
+        }
+        staffDirectory.update(staff);
+        rosterIndex.update(staff);
+        compliance.update(staff);
+        publishStaff(staff.getId());
+        if (journal == null) {
+            return;
+        }
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            // Record the whole week so replaying the record is idempotent
+            seq = record(JournalRecords.SET_SHIFTS, out -> {
+                JournalRecords.writeString(out, staff.getId());
+                JournalRecords.writeShifts(out, staff.getWeeklyShifts());
+            });
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        commit(seq);
+    }
+
+    @Override
+    public void datedShiftsChanged(Staff staff, LocalDate weekStart) {
+        if (journal == null || staffMembers.get(staff.getId()) != staff) {
+            return;
+        }
+        long week = DatedShifts.weekOf(weekStart);
+        DatedShifts weeks = staff.getDatedShifts();
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            // Record the week's full set of changes so replaying the record is idempotent
+            seq = record(JournalRecords.SET_WEEK_CHANGES, out -> {
+                JournalRecords.writeString(out, staff.getId());
+                out.writeLong(week);
+                out.writeLong(weeks.getAdded(week));
+                out.writeLong(weeks.getRemoved(week));
+            });
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        commit(seq);
+    }
+
+    @Override
+    public void usernameChanged(Staff staff, String oldUsername) {
+        if (staffMembers.get(staff.getId()) != staff) {
+            return;
+        }
+        if (oldUsername != null) {
+            staffByUsername.remove(oldUsername, staff);
+        }
+        if (staff.getUsername() != null) {
+            staffByUsername.put(staff.getUsername(), staff);
+        }
+        publishStaff(staff.getId());
+    }
+
+    /**
+     * Check a username and password. Runs on the calling thread and takes a few
+     * milliseconds (password hashing); UI code should use authenticateStaffAsync.
+     * @return the staff member, or null if the username or password is wrong
+     */
     public Staff authenticateStaff(String username, String password) {
-        return staffMembers.values().stream()
-                .filter(staff -> staff.getUsername().equals(username) && staff.getPassword().equals(password))
-                .findFirst()
-                .orElse(null);
+        Staff staff = username != null ? staffByUsername.get(username) : null;
+        if (staff == null) {
+            PasswordHasher.verify(password, UNKNOWN_USER_HASH);
+            return null;
+        }
+        return staff.checkPassword(password) ? staff : null;
+    }
+
+    /**
+     * Check a username and password on the login worker pool.
+     * The future fails if too many logins are already waiting.
+     */
+    public CompletableFuture<Staff> authenticateStaffAsync(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> authenticateStaff(username, password), LOGIN_EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Too many login attempts at once, please try again"));
+        }
     }
 
+    private static ThreadPoolExecutor createLoginExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(LOGIN_THREADS, LOGIN_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(LOGIN_QUEUE), runnable -> {
+                    Thread thread = new Thread(runnable, "login-verifier");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Staff of one type ("Nurse", "Doctor" or "Manager"); an immutable list kept by the staff directory.
+     */
     public List<Staff> getStaffByType(String staffType) {
-        return staffMembers.values().stream()
-                .filter(staff -> staff.getStaffType().equals(staffType))
-                .collect(Collectors.toList());
+        return staffDirectory.getByType(staffType);
+    }
+
+    /**
+     * Staff of one type with at least one shift on a day ("MON", "TUE", ...).
+     */
+    public List<Staff> getStaffRosteredOn(String staffType, String day) {
+        return staffDirectory.getRosteredOn(staffType, day);
+    }
+
+    /**
+     * Nurses and doctors on duty at a time; only the day of week and time of day matter.
+     */
+    public Set<Staff> getStaffOnDutyAt(LocalDateTime time) {
+        return rosterIndex.onDutyAt(time);
+    }
+
+    /**
+     * Nurses and doctors on duty at any point from one time up to (not including) another.
+     */
+    public Set<Staff> getStaffOnDutyBetween(LocalDateTime from, LocalDateTime to) {
+        return rosterIndex.onDutyBetween(from, to);
+    }
+
+    /**
+     * Staff of one type on duty at a time.
+     */
+    public List<Staff> getStaffOnDutyAt(String staffType, LocalDateTime time) {
+        List<Staff> result = new ArrayList<>();
+        for (Staff staff : rosterIndex.onDutyAt(time)) {
+            if (staff.getStaffType().equals(staffType)) {
+                result.add(staff);
+            }
+        }
+        return result;
+    }
+
+    // LOCKING
+
+    private static ReentrantLock[] createRoomLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private int stripeOf(Room room) {
+        int h = room.getRoomId().hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private ReentrantLock lockRoom(Room room) {
+        ReentrantLock lock = roomLocks[stripeOf(room)];
+        lock.lock();
+        return lock;
+    }
+
+    // Lock two rooms in stripe order so concurrent two-bed moves cannot deadlock
+    private ReentrantLock[] lockRooms(Room first, Room second) {
+        int a = stripeOf(first);
+        int b = second != null ? stripeOf(second) : a;
+        if (a == b) {
+            roomLocks[a].lock();
+            return new ReentrantLock[]{roomLocks[a]};
+        }
+        ReentrantLock low = roomLocks[Math.min(a, b)];
+        ReentrantLock high = roomLocks[Math.max(a, b)];
+        low.lock();
+        high.lock();
+        return new ReentrantLock[]{high, low};
+    }
+
+    private static void unlock(ReentrantLock... locks) {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
     }
 
     // PATIENT MANAGEMENT
 
     public void addPatient(Patient patient, String bedId, String staffId)
             throws BedOccupiedException, StaffNotAuthorizedException, StaffNotRosteredException {
+        checkWritable();
         Staff staff = staffMembers.get(staffId);
-        if (staff == null || !staff.canPerformAction("add_patient")) {
-            throw new StaffNotAuthorizedException(staffId, "add_patient", staff != null ? staff.getStaffType() : "Unknown");
+        if (staff == null || !staff.canPerformAction(Action.ADD_PATIENT)) {
+            throw new StaffNotAuthorizedException(staffId, Action.ADD_PATIENT.getName(), staff != null ? staff.getStaffType() : "Unknown");
         }
         Bed bed = findBed(bedId);
         if (bed == null) {
             throw new IllegalArgumentException("Bed " + bedId + " not found");
         }
-        Room foundRoom = null;
-        outerloop:
-        for (Ward ward : wards) {
-            for (Room room : ward.getRooms()) {
-                for (Bed b : room.getBeds()) {
-                    if (b.getBedId().equals(bedId)) {
-                        foundRoom = room;
-                        break outerloop;
-                    }
-                }
-            }
-        }
+        Room foundRoom = bedRoomIndex.get(bedId);
         if (foundRoom == null) {
             throw new IllegalArgumentException("Room for bed " + bedId + " not found");
         }
         String newGender = patient.getGender();
-        for (Bed b : foundRoom.getBeds()) {
-            if (b.isOccupied()) {
-                Patient p = patients.get(b.getPatientId());
-                if (p != null && !p.getGender().equals(newGender)) {
-                    throw new IllegalArgumentException(
-                            "Cannot assign to room: only one gender allowed per room. Existing: " + p.getGender() + ", Attempted: " + newGender);
+        long seq;
+        stateLock.readLock().lock();
+        ReentrantLock lock = lockRoom(foundRoom);
+        try {
+            if (!foundRoom.canAcceptGender(newGender)) {
+                throw new IllegalArgumentException(
+                        "Cannot assign to room: only one gender allowed per room. Existing: " + foundRoom.getRoomGender() + ", Attempted: " + newGender);
+            }
+            checkIsolation(foundRoom, patient, false);
+            if (bed.isOccupied()) {
+                throw new BedOccupiedException(bedId, bed.getPatientId(), patient.getId());
+            }
+            seq = placePatient(patient, bed);
+        } finally {
+            lock.unlock();
+            stateLock.readLock().unlock();
+        }
+        commit(seq);
+        auditLogger.logAction(staffId, "ADD_PATIENT", "Added patient " + patient.getName() + " to bed " + bedId);
+    }
+
+    /**
+     * Admit a patient to the best vacant bed that satisfies the room rules.
+     * The bed is chosen and reserved in one step, so it cannot be taken in between.
+     * @param wardId ward to admit into, or null for any ward
+     * @return ID of the assigned bed
+     * @throws IllegalStateException if no suitable bed is vacant
+     */
+    public String admitPatient(Patient patient, String wardId, String staffId) throws StaffNotAuthorizedException {
+        checkWritable();
+        Staff staff = staffMembers.get(staffId);
+        if (staff == null || !staff.canPerformAction(Action.ADD_PATIENT)) {
+            throw new StaffNotAuthorizedException(staffId, Action.ADD_PATIENT.getName(), staff != null ? staff.getStaffType() : "Unknown");
+        }
+        if (wardId != null && !wardIndex.containsKey(wardId)) {
+            throw new IllegalArgumentException("Ward " + wardId + " not found");
+        }
+        Bed bed = null;
+        long seq = 0;
+        stateLock.readLock().lock();
+        try {
+            while (bed == null) {
+                Bed candidate = bedAllocator.findBestBed(patient.getGender(), patient.requiresIsolation(), wardId);
+                if (candidate == null) {
+                    throw new IllegalStateException("No vacant bed available for patient " + patient.getId() +
+                            " (gender " + patient.getGender() + (patient.requiresIsolation() ? ", isolation" : "") + ")");
+                }
+                Room room = bedRoomIndex.get(candidate.getBedId());
+                ReentrantLock lock = lockRoom(room);
+                try {
+                    // Another terminal may have taken the room since the lookup; if so, look again
+                    boolean stillSuitable = !candidate.isOccupied() && room.canAcceptGender(patient.getGender())
+                            && isolationAllows(room, patient, false);
+                    if (stillSuitable) {
+                        seq = placePatient(patient, candidate);
+                        bed = candidate;
+                    }
+                } finally {
+                    lock.unlock();
                 }
             }
+        } finally {
+            stateLock.readLock().unlock();
         }
-        if (bed.isOccupied()) {
-            throw new BedOccupiedException(bedId, bed.getPatientId(), patient.getId());
+        commit(seq);
+        auditLogger.logAction(staffId, "ADD_PATIENT", "Added patient " + patient.getName() + " to bed " + bed.getBedId());
+        return bed.getBedId();
+    }
+
+    // An isolation patient needs a room to themselves, and nobody joins a room holding one.
+    // alreadyInRoom: the patient is moving within the room, so their own bed does not count.
+    // Caller holds the room's lock.
+    private static boolean isolationAllows(Room room, Patient patient, boolean alreadyInRoom) {
+        int others = room.getOccupiedBeds() - (alreadyInRoom ? 1 : 0);
+        return patient.requiresIsolation() ? others == 0 : !room.hasIsolationPatient();
+    }
+
+    private static void checkIsolation(Room room, Patient patient, boolean alreadyInRoom) {
+        if (!isolationAllows(room, patient, alreadyInRoom)) {
+            throw new IllegalArgumentException(patient.requiresIsolation()
+                    ? "Cannot assign to room " + room.getRoomId() + ": patient " + patient.getId() + " needs isolation and the room is not empty"
+                    : "Cannot assign to room " + room.getRoomId() + ": it holds a patient in isolation");
         }
-        bed.assignPatient(patient.getId());
-        patient.setBedId(bedId);
+    }
+
+    // Caller holds the state read lock and the bed's room lock (replay runs single-threaded)
+    private long placePatient(Patient patient, Bed bed) {
+        bed.assignPatient(patient);
+        patient.setBedId(bed.getBedId());
         patients.put(patient.getId(), patient);
-        auditLogger.logAction(staffId, "ADD_PATIENT", "Added patient " + patient.getName() + " to bed " + bedId);
+        publishPatient(patient.getId());
+        return record(JournalRecords.ADD_PATIENT, out -> {
+            JournalRecords.writePatient(out, patient);
+            JournalRecords.writeString(out, bed.getBedId());
+        });
     }
 
     public void movePatient(String patientId, String newBedId, String nurseId)
             throws BedOccupiedException, StaffNotAuthorizedException, StaffNotRosteredException {
+        checkWritable();
         Staff staff = staffMembers.get(nurseId);
-        if (staff == null || !staff.canPerformAction("move_patient")) {
-            throw new StaffNotAuthorizedException(nurseId, "move_patient", staff != null ? staff.getStaffType() : "Unknown");
+        if (staff == null || !staff.canPerformAction(Action.MOVE_PATIENT)) {
+            throw new StaffNotAuthorizedException(nurseId, Action.MOVE_PATIENT.getName(), staff != null ? staff.getStaffType() : "Unknown");
         }
         // ROSTER CHECK for nurse
-        if (!staff.isRosteredNow()) {
-            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(), "You are not rostered (scheduled) to work at this day/time.");
+        if (!staff.isRosteredNow(clock)) {
+            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(clock), "You are not rostered (scheduled) to work at this day/time.");
         }
         Patient patient = patients.get(patientId);
         if (patient == null) {
             throw new IllegalArgumentException("Patient " + patientId + " not found");
         }
-        Bed currentBed = findBed(patient.getBedId());
         Bed newBed = findBed(newBedId);
         if (newBed == null) {
             throw new IllegalArgumentException("Bed " + newBedId + " not found");
         }
-        Room foundRoom = null;
-        outerloop:
-        for (Ward ward : wards) {
-            for (Room room : ward.getRooms()) {
-                for (Bed b : room.getBeds()) {
-                    if (b.getBedId().equals(newBedId)) {
-                        foundRoom = room;
-                        break outerloop;
-                    }
-                }
-            }
-        }
+        Room foundRoom = bedRoomIndex.get(newBedId);
         if (foundRoom == null) {
             throw new IllegalArgumentException("Room for bed " + newBedId + " not found");
         }
         String newGender = patient.getGender();
-        for (Bed b : foundRoom.getBeds()) {
-            if (b.isOccupied()) {
-                Patient p = patients.get(b.getPatientId());
-                if (p != null && !p.getGender().equals(newGender)) {
-                    throw new IllegalArgumentException(
-                            "Cannot move patient to room: only one gender allowed per room. Existing: " + p.getGender() + ", Attempted: " + newGender);
+        Bed currentBed;
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            while (true) {
+                String currentBedId = patient.getBedId();
+                currentBed = findBed(currentBedId);
+                ReentrantLock[] locks = lockRooms(foundRoom, findRoomForBed(currentBedId));
+                try {
+                    // Retry if the patient was moved by another terminal before we got the locks
+                    if (!Objects.equals(currentBedId, patient.getBedId())) {
+                        continue;
+                    }
+                    if (patients.get(patientId) != patient) {
+                        throw new IllegalArgumentException("Patient " + patientId + " not found");
+                    }
+                    if (!foundRoom.canAcceptGender(newGender)) {
+                        throw new IllegalArgumentException(
+                                "Cannot move patient to room: only one gender allowed per room. Existing: " + foundRoom.getRoomGender() + ", Attempted: " + newGender);
+                    }
+                    checkIsolation(foundRoom, patient, currentBed != null && currentBed.getRoom() == foundRoom);
+                    if (newBed.isOccupied()) {
+                        throw new BedOccupiedException(newBedId, newBed.getPatientId(), patientId);
+                    }
+                    seq = relocatePatient(patient, currentBed, newBed);
+                    break;
+                } finally {
+                    unlock(locks);
                 }
             }
+        } finally {
+            stateLock.readLock().unlock();
         }
-        if (newBed.isOccupied()) {
-            throw new BedOccupiedException(newBedId, newBed.getPatientId(), patientId);
-        }
+        commit(seq);
+        auditLogger.logAction(nurseId, "MOVE_PATIENT", "Moved patient " + patient.getName() + " from " +
+                (currentBed != null ? currentBed.getBedId() : "unknown") + " to " + newBedId);
+    }
+
+    // Caller holds the state read lock and both rooms' locks
+    private long relocatePatient(Patient patient, Bed currentBed, Bed newBed) {
         if (currentBed != null) {
             currentBed.vacateBed();
         }
-        newBed.assignPatient(patientId);
-        patient.setBedId(newBedId);
-        auditLogger.logAction(nurseId, "MOVE_PATIENT", "Moved patient " + patient.getName() + " from " +
-                (currentBed != null ? currentBed.getBedId() : "unknown") + " to " + newBedId);
+        newBed.assignPatient(patient);
+        patient.setBedId(newBed.getBedId());
+        publishPatient(patient.getId());
+        return record(JournalRecords.MOVE_PATIENT, out -> {
+            JournalRecords.writeString(out, patient.getId());
+            JournalRecords.writeString(out, newBed.getBedId());
+        });
     }
 
     // ═══════════════════════════════════════════════════════════════
@@ -220,6 +726,7 @@ public class CareHome implements Serializable {
      */
     public void dischargePatient(String patientId, String dischargeReason, String dischargeNotes, String staffId)
             throws StaffNotAuthorizedException, IllegalArgumentException {
+        checkWritable();
 
         // Check if staff exists and is a Manager
         Staff staff = staffMembers.get(staffId);
@@ -227,10 +734,10 @@ public class CareHome implements Serializable {
             throw new IllegalArgumentException("Staff not found: " + staffId);
         }
 
-        if (!staff.canPerformAction("discharge_patient")) {
+        if (!staff.canPerformAction(Action.DISCHARGE_PATIENT)) {
             throw new StaffNotAuthorizedException(
                     staffId,
-                    "discharge_patient",
+                    Action.DISCHARGE_PATIENT.getName(),
                     staff.getStaffType()
             );
         }
@@ -258,14 +765,32 @@ public class CareHome implements Serializable {
             // Continue with discharge even if archiving fails (optional: throw exception instead)
         }
 
-        // Free up the bed
-        Bed bed = findBed(bedId);
-        if (bed != null) {
-            bed.vacateBed();
+        // Free up the bed and remove from active patients
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            while (true) {
+                Room room = findRoomForBed(bedId);
+                ReentrantLock lock = room != null ? lockRoom(room) : null;
+                try {
+                    // Retry with the new room if the patient was moved before we got the lock
+                    if (!Objects.equals(bedId, patient.getBedId())) {
+                        bedId = patient.getBedId();
+                        continue;
+                    }
+                    seq = removePatient(patient);
+                    break;
+                } finally {
+                    if (lock != null) {
+                        lock.unlock();
+                    }
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
         }
 
-        // Remove from active patients
-        patients.remove(patientId);
+        commit(seq);
 
         // Log the discharge
         auditLogger.logAction(staffId, "DISCHARGE_PATIENT",
@@ -275,57 +800,114 @@ public class CareHome implements Serializable {
         System.out.println("✅ Patient " + patientName + " discharged successfully from bed " + bedId);
     }
 
+    // Caller holds the state read lock and the lock of the patient's room
+    private long removePatient(Patient patient) {
+        Bed bed = findBed(patient.getBedId());
+        if (bed != null && patient.getId().equals(bed.getPatientId())) {
+            bed.vacateBed();
+        }
+        patients.remove(patient.getId());
+        publishPatient(patient.getId());
+        return record(JournalRecords.DISCHARGE_PATIENT, out -> JournalRecords.writeString(out, patient.getId()));
+    }
+
     // PRESCRIPTION MANAGEMENT
 
     public void addPrescription(String patientId, Prescription prescription, String doctorId)
             throws StaffNotAuthorizedException, StaffNotRosteredException {
+        checkWritable();
         Staff staff = staffMembers.get(doctorId);
-        if (staff == null || !staff.canPerformAction("add_prescription")) {
-            throw new StaffNotAuthorizedException(doctorId, "add_prescription", staff != null ? staff.getStaffType() : "Unknown");
+        if (staff == null || !staff.canPerformAction(Action.ADD_PRESCRIPTION)) {
+            throw new StaffNotAuthorizedException(doctorId, Action.ADD_PRESCRIPTION.getName(), staff != null ? staff.getStaffType() : "Unknown");
         }
         // ROSTER CHECK for doctor
-        if (!staff.isRosteredNow()) {
-            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(), "You are not rostered (scheduled) to work at this day/time.");
+        if (!staff.isRosteredNow(clock)) {
+            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(clock), "You are not rostered (scheduled) to work at this day/time.");
         }
         Patient patient = patients.get(patientId);
         if (patient == null) {
             throw new IllegalArgumentException("Patient " + patientId + " not found");
         }
-        patient.addPrescription(prescription);
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            seq = appendPrescription(patient, prescription);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        commit(seq);
         auditLogger.logAction(doctorId, "ADD_PRESCRIPTION", "Added prescription " + prescription.getPrescriptionId() + " for patient " + patient.getName());
     }
 
     public void administerMedication(String patientId, MedicationRecord record, String nurseId)
             throws StaffNotAuthorizedException, StaffNotRosteredException {
+        checkWritable();
         Staff staff = staffMembers.get(nurseId);
-        if (staff == null || !staff.canPerformAction("administer_medication")) {
-            throw new StaffNotAuthorizedException(nurseId, "administer_medication", staff != null ? staff.getStaffType() : "Unknown");
+        if (staff == null || !staff.canPerformAction(Action.ADMINISTER_MEDICATION)) {
+            throw new StaffNotAuthorizedException(nurseId, Action.ADMINISTER_MEDICATION.getName(), staff != null ? staff.getStaffType() : "Unknown");
         }
         // ROSTER CHECK for nurse
-        if (!staff.isRosteredNow()) {
-            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(), "You are not rostered (scheduled) to work at this day/time.");
+        if (!staff.isRosteredNow(clock)) {
+            throw new StaffNotRosteredException(staff.getId(), LocalDateTime.now(clock), "You are not rostered (scheduled) to work at this day/time.");
         }
         Patient patient = patients.get(patientId);
         if (patient == null) {
             throw new IllegalArgumentException("Patient " + patientId + " not found");
         }
         record.setAdministered(true);
-        patient.addMedicationRecord(record);
+        long seq;
+        stateLock.readLock().lock();
+        try {
+            seq = appendMedicationRecord(patient, record);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        commit(seq);
         auditLogger.logAction(nurseId, "ADMINISTER_MEDICATION", "Administered " + record.getMedicationName() + " to patient " + patient.getName());
     }
 
+    // Caller holds the state read lock; the patient lock keeps journal order equal to list order
+    private long appendPrescription(Patient patient, Prescription prescription) {
+        synchronized (patient) {
+            patient.addPrescription(prescription);
+            publishPatient(patient.getId());
+            return record(JournalRecords.ADD_PRESCRIPTION, out -> {
+                JournalRecords.writeString(out, patient.getId());
+                JournalRecords.writePrescription(out, prescription);
+            });
+        }
+    }
+
+    private long appendMedicationRecord(Patient patient, MedicationRecord medicationRecord) {
+        synchronized (patient) {
+            patient.addMedicationRecord(medicationRecord);
+            publishPatient(patient.getId());
+            return record(JournalRecords.ADMINISTER_MEDICATION, out -> {
+                JournalRecords.writeString(out, patient.getId());
+                JournalRecords.writeMedicationRecord(out, medicationRecord);
+            });
+        }
+    }
+
     // QUERY METHODS
 
     public Patient getPatient(String patientId) {
         return patients.get(patientId);
     }
 
+    /**
+     * Set the clock used to check whether staff are rostered (e.g. a fixed clock in tests).
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
     public Staff getStaff(String staffId) {
         return staffMembers.get(staffId);
     }
 
     public List<Ward> getWards() {
-        return new ArrayList<>(wards);
+        return Collections.unmodifiableList(wards);
     }
 
     public List<Patient> getAllPatients() {
@@ -337,22 +919,31 @@ public class CareHome implements Serializable {
     }
 
     public Bed findBed(String bedId) {
-        for (Ward ward : wards) {
-            for (Bed bed : ward.getAllBeds()) {
-                if (bed.getBedId().equals(bedId)) {
-                    return bed;
-                }
-            }
-        }
-        return null;
+        return bedId == null ? null : bedIndex.get(bedId);
+    }
+
+    public Room findRoomForBed(String bedId) {
+        return bedId == null ? null : bedRoomIndex.get(bedId);
+    }
+
+    /**
+     * Suggest the best vacant bed for a patient without reserving it.
+     * @param wardId ward to search, or null for any ward
+     */
+    public Bed findBestBed(String gender, boolean requiresIsolation, String wardId) {
+        return bedAllocator.findBestBed(gender, requiresIsolation, wardId);
     }
 
     public List<Bed> getAvailableBeds() {
         List<Bed> availableBeds = new ArrayList<>();
         for (Ward ward : wards) {
-            for (Bed bed : ward.getAllBeds()) {
-                if (!bed.isOccupied()) {
-                    availableBeds.add(bed);
+            if (ward.getAvailableBeds() == 0) continue;
+            for (Room room : ward.getRooms()) {
+                if (room.getAvailableBeds() == 0) continue;
+                for (Bed bed : room.getBeds()) {
+                    if (!bed.isOccupied()) {
+                        availableBeds.add(bed);
+                    }
                 }
             }
         }
@@ -360,200 +951,464 @@ public class CareHome implements Serializable {
     }
 
     // SHIFT MANAGEMENT
-    public void checkCompliance() throws IllegalStateException {
-        for (Staff staff : staffMembers.values()) {
-            if (staff instanceof Nurse) {
-                int totalShifts = staff.getTotalWeeklyShifts();
-                if (totalShifts != 7) {
-                    throw new IllegalStateException("Nurse " + staff.getId() + " does not have exactly 7 shifts assigned.");
-                }
-                for (String day : Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN")) {
-                    if (staff.getShiftsForDay(day).size() > 1) {
-                        throw new IllegalStateException("Nurse " + staff.getId() + " has more than one shift on " + day);
-                    }
-                    int dailyHours = staff.getDailyHours(day);
-                    if (dailyHours > 8) {
-                        throw new IllegalStateException("Nurse " + staff.getId() + " exceeds 8 hours on " + day);
-                    }
-                }
-            }
-            if (staff instanceof Doctor) {
-                int weeklyHours = staff.getTotalWeeklyHours(1);
-                if (weeklyHours < 7) {
-                    throw new IllegalStateException("Doctor " + staff.getId() + " does not have 7 hours assigned.");
-                }
-                for (String day : Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN")) {
-                    if (staff.getShiftsForDay(day).size() < 1) {
-                        throw new IllegalStateException("Doctor " + staff.getId() + " does not have a shift on " + day);
-                    }
-                }
+    /**
+     * Replace every nurse's and doctor's shifts with a generated week: one shift per
+     * nurse per day, both shifts covered every day and every doctor on every day.
+     * @param budgetMillis how long the solver may search for a better week
+     * @throws IllegalArgumentException if there are too few nurses or no doctors
+     * @throws IllegalStateException if no covering week was found in time
+     */
+    public RosterSolver.Roster generateRoster(String managerId, long budgetMillis) throws StaffNotAuthorizedException {
+        checkWritable();
+        requireShiftManager(managerId);
+        List<Staff> nurses = staffDirectory.getByType("Nurse");
+        List<Staff> doctors = staffDirectory.getByType("Doctor");
+        List<String> nurseIds = new ArrayList<>();
+        List<String> doctorIds = new ArrayList<>();
+        nurses.forEach(staff -> nurseIds.add(staff.getId()));
+        doctors.forEach(staff -> doctorIds.add(staff.getId()));
+
+        RosterSolver.Roster roster = new ShiftScheduler().generateRoster(nurseIds, doctorIds, 1, budgetMillis,
+                Runtime.getRuntime().availableProcessors());
+        for (Staff staff : nurses) {
+            staff.setWeeklyShifts(roster.getShifts().get(staff.getId()));
+        }
+        for (Staff staff : doctors) {
+            staff.setWeeklyShifts(roster.getShifts().get(staff.getId()));
+        }
+        auditLogger.logAction(managerId, "GENERATE_ROSTER", "Generated shifts for " + nurses.size() + " nurses and "
+                + doctors.size() + " doctors (" + roster.getTurnarounds() + " late-to-early turnarounds)");
+        return roster;
+    }
+
+    // CALENDAR ROSTER
+
+    /**
+     * Add a shift for one date only (e.g. cover for someone on leave); the weekly
+     * pattern is unchanged.
+     */
+    public void assignShiftOn(String managerId, String staffId, LocalDate date, ShiftSlot slot) throws StaffNotAuthorizedException {
+        checkWritable();
+        requireShiftManager(managerId);
+        findStaff(staffId).assignShift(date, slot);
+        auditLogger.logAction(managerId, "ASSIGN_DATED_SHIFT", "Assigned " + slot.getLabel() + " on " + date + " to " + staffId);
+    }
+
+    /**
+     * Give a staff member a date off; all of their shifts that day are dropped.
+     */
+    public void grantLeave(String managerId, String staffId, LocalDate date) throws StaffNotAuthorizedException {
+        checkWritable();
+        requireShiftManager(managerId);
+        findStaff(staffId).setOnLeave(date);
+        auditLogger.logAction(managerId, "GRANT_LEAVE", "Granted leave on " + date + " to " + staffId);
+    }
+
+    /**
+     * Move one shift on one date from a staff member to another.
+     * @throws IllegalArgumentException if the first does not work that shift or the
+     *         second cannot take it; nothing is changed then
+     */
+    public void swapShift(String managerId, String fromStaffId, String toStaffId, LocalDate date, ShiftSlot slot)
+            throws StaffNotAuthorizedException {
+        checkWritable();
+        requireShiftManager(managerId);
+        Staff from = findStaff(fromStaffId);
+        Staff to = findStaff(toStaffId);
+        synchronized (from) {
+            // Checked and removed under the staff member's lock, so two swaps cannot both take the shift
+            if (!from.hasShift(date, slot)) {
+                throw new IllegalArgumentException(fromStaffId + " does not work " + slot.getLabel() + " on " + date);
             }
+            from.removeShift(date, slot);
         }
+        try {
+            to.assignShift(date, slot);
+        } catch (IllegalArgumentException e) {
+            from.assignShift(date, slot);
+            throw e;
+        }
+        auditLogger.logAction(managerId, "SWAP_SHIFT", "Moved " + slot.getLabel() + " on " + date + " from "
+                + fromStaffId + " to " + toStaffId);
+    }
+
+    /**
+     * How many staff of a type work each shift on each of the days dates from a date,
+     * with leave and swaps applied.
+     */
+    public CalendarRoster.Coverage getCoverage(String staffType, LocalDate from, int days) {
+        return CalendarRoster.coverage(staffDirectory.getByType(staffType), from, days);
+    }
+
+    /**
+     * The nurse and doctor shift rules checked against the calendar week containing a date.
+     */
+    public List<ComplianceTracker.Violation> getComplianceViolations(LocalDate date) {
+        return CalendarRoster.checkWeek(staffDirectory.getAll(), date);
+    }
+
+    private void requireShiftManager(String managerId) throws StaffNotAuthorizedException {
+        Staff manager = staffMembers.get(managerId);
+        if (manager == null || !manager.canPerformAction(Action.MANAGE_SHIFTS)) {
+            throw new StaffNotAuthorizedException(managerId, Action.MANAGE_SHIFTS.getName(), manager != null ? manager.getStaffType() : "Unknown");
+        }
+    }
+
+    private Staff findStaff(String staffId) {
+        Staff staff = staffMembers.get(staffId);
+        if (staff == null) {
+            throw new IllegalArgumentException("Staff " + staffId + " not found");
+        }
+        return staff;
+    }
+
+    /**
+     * Throw if any nurse or doctor breaks the shift rules. Reads the violations the
+     * compliance tracker keeps up to date, so it does not rescan every roster.
+     */
+    public void checkCompliance() throws IllegalStateException {
+        ComplianceTracker.Violation violation = compliance.firstViolation();
+        if (violation != null) {
+            throw new IllegalStateException(violation.getMessage());
+        }
+    }
+
+    /**
+     * Check every staff member from scratch on the ForkJoin common pool and return all
+     * violations in staff order. getComplianceViolations() gives the same violations
+     * from the tracker without rechecking anyone.
+     */
+    public List<ComplianceTracker.Violation> evaluateCompliance() {
+        return ComplianceEvaluator.evaluateParallel(staffDirectory.getAll());
+    }
+
+    /**
+     * Every current shift rule violation; an immutable list.
+     */
+    public List<ComplianceTracker.Violation> getComplianceViolations() {
+        return compliance.getViolations();
     }
 
     // ---------------- NEW IMPROVED COMPLIANCE REPORT ----------------
 
     public String generateComplianceReport() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("\n");
-        sb.append("╔════════════════════════════════════════════════════════════════════════════════════════════╗\n");
-        sb.append("║                        STAFF SHIFT COMPLIANCE REPORT                                       ║\n");
-        sb.append("╚════════════════════════════════════════════════════════════════════════════════════════════╝\n\n");
-
-        // NURSES SECTION
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        sb.append("NURSES - Required: 7 shifts per week (one 8-hour shift per day)\n");
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n\n");
-
-        for (Staff staff : staffMembers.values()) {
-            if (staff instanceof Nurse) {
-                String[] weekDays = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-                String[] shortDays = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
-                int totalShifts = 0;
-                int totalHours = 0;
-                boolean hasViolations = false;
-
-                sb.append("┌─ ").append(staff.getName()).append(" (").append(staff.getId()).append(")\n");
-
-                for (int i = 0; i < weekDays.length; i++) {
-                    List<String> shifts = staff.getShiftsForDay(shortDays[i]);
-                    int shiftCount = shifts != null ? shifts.size() : 0;
-                    totalShifts += shiftCount;
-
-                    sb.append("│  ").append(weekDays[i]).append(": ");
-
-                    if (shiftCount == 0) {
-                        sb.append("No shift assigned");
-                    } else if (shiftCount == 1) {
-                        sb.append(shifts.get(0)).append(" (8 hours)");
-                        totalHours += 8;
-                    } else {
-                        sb.append("⚠ VIOLATION - Multiple shifts: ");
-                        sb.append(String.join(", ", shifts));
-                        hasViolations = true;
-                        totalHours += (shiftCount * 8);
-                    }
-                    sb.append("\n");
-                }
+        return complianceReport(false).render();
+    }
 
-                // Check compliance
-                boolean compliant = (totalShifts == 7) && !hasViolations;
+    /**
+     * The compliance report for every nurse and doctor, rendered as it is written or
+     * paged through rather than built up front.
+     * @param nonCompliantOnly list only the staff who break a shift rule
+     */
+    public ComplianceReport complianceReport(boolean nonCompliantOnly) {
+        return new ComplianceReport(staffDirectory.getByType("Nurse"), staffDirectory.getByType("Doctor"),
+                nonCompliantOnly ? staff -> !compliance.getViolations(staff).isEmpty() : staff -> true);
+    }
 
-                sb.append("│\n");
-                sb.append("│  Total Shifts: ").append(totalShifts).append(" / 7 required\n");
-                sb.append("│  Total Hours: ").append(totalHours).append(" hours\n");
-                sb.append("│  Status: ");
-                if (compliant) {
-                    sb.append("✓ COMPLIANT\n");
-                } else {
-                    sb.append("✗ NON-COMPLIANT");
-                    if (totalShifts != 7) {
-                        sb.append(" (Wrong number of shifts)");
-                    }
-                    if (hasViolations) {
-                        sb.append(" (Multiple shifts per day)");
-                    }
-                    sb.append("\n");
-                }
-                sb.append("└─────────────────────────────────────────────────────────────────────────────\n\n");
-            }
-        }
+    // DATA PERSISTENCE
 
-        // DOCTORS SECTION
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        sb.append("DOCTORS - Required: Minimum 7 hours per week (at least 1 hour per day)\n");
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n\n");
+    // Queue a journal record; call while still holding the locks that ordered the change
+    private long record(byte type, JournalRecords.Body body) {
+        return journal == null ? 0 : journal.enqueue(type, JournalRecords.encode(body));
+    }
 
-        for (Staff staff : staffMembers.values()) {
-            if (staff instanceof Doctor) {
-                String[] weekDays = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-                String[] shortDays = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
-                int totalHours = 0;
-                int daysWorked = 0;
+    // Wait until a queued record is on disk; records queued together share one fsync
+    private void commit(long seq) {
+        if (journal == null || seq == 0) {
+            return;
+        }
+        try {
+            journal.awaitDurable(seq);
+        } catch (IOException e) {
+            throw new IllegalStateException("Change " + seq + " could not be saved: " + e.getMessage(), e);
+        }
+        markDirty();
+    }
 
-                sb.append("┌─ ").append(staff.getName()).append(" (").append(staff.getId()).append(")\n");
+    // Refuse changes once the journal has failed, before anything is changed in memory
+    private void checkWritable() {
+        CommandJournal current = journal;
+        IOException failure = current != null ? current.getFailure() : null;
+        if (failure != null) {
+            throw new IllegalStateException("Changes cannot be saved (read-only): " + failure.getMessage(), failure);
+        }
+    }
 
-                for (int i = 0; i < weekDays.length; i++) {
-                    List<String> shifts = staff.getShiftsForDay(shortDays[i]);
-                    int shiftCount = shifts != null ? shifts.size() : 0;
-                    totalHours += shiftCount;
+    /**
+     * True once the journal has failed; every change is then refused until restart.
+     */
+    public boolean isReadOnly() {
+        CommandJournal current = journal;
+        return current != null && current.getFailure() != null;
+    }
 
-                    sb.append("│  ").append(weekDays[i]).append(": ");
+    // Ask for a background snapshot once the current burst of changes is over
+    private void markDirty() {
+        AutosaveScheduler current = autosave;
+        if (current != null) {
+            current.markDirty();
+        }
+    }
 
-                    if (shiftCount == 0) {
-                        sb.append("No shift assigned");
-                    } else {
-                        sb.append(shiftCount).append(" hour").append(shiftCount > 1 ? "s" : "");
-                        daysWorked++;
-                    }
-                    sb.append("\n");
+    // Re-apply one journal record. Permission checks and audit entries
+    // already happened when the change was first made, so they are skipped here.
+    private void applyRecord(long seq, byte type, byte[] payload) throws IOException {
+        DataInputStream in = JournalRecords.decode(payload);
+        switch (type) {
+            case JournalRecords.ADD_STAFF:
+                registerStaff(JournalRecords.readStaff(in));
+                break;
+            case JournalRecords.SET_SHIFTS: {
+                Staff staff = staffMembers.get(JournalRecords.readString(in));
+                Map<String, List<String>> shifts = JournalRecords.readShifts(in);
+                if (staff != null) {
+                    staff.setWeeklyShifts(shifts);
                 }
+                break;
+            }
+            case JournalRecords.SET_WEEK_CHANGES: {
+                Staff staff = staffMembers.get(JournalRecords.readString(in));
+                long week = in.readLong();
+                long added = in.readLong();
+                long removed = in.readLong();
+                if (staff != null) {
+                    staff.setWeekChanges(week, added, removed);
+                }
+                break;
+            }
+            case JournalRecords.ADD_PATIENT: {
+                Patient patient = JournalRecords.readPatient(in);
+                Bed bed = findBed(JournalRecords.readString(in));
+                if (bed == null || bed.isOccupied()) {
+                    skipRecord(seq, "no free bed for patient " + patient.getId());
+                } else {
+                    placePatient(patient, bed);
+                }
+                break;
+            }
+            case JournalRecords.MOVE_PATIENT: {
+                Patient patient = patients.get(JournalRecords.readString(in));
+                Bed bed = findBed(JournalRecords.readString(in));
+                if (patient == null || bed == null || bed.isOccupied()) {
+                    skipRecord(seq, "cannot move patient");
+                } else {
+                    relocatePatient(patient, findBed(patient.getBedId()), bed);
+                }
+                break;
+            }
+            case JournalRecords.DISCHARGE_PATIENT: {
+                Patient patient = patients.get(JournalRecords.readString(in));
+                if (patient != null) {
+                    removePatient(patient);
+                }
+                break;
+            }
+            case JournalRecords.ADD_PRESCRIPTION: {
+                Patient patient = patients.get(JournalRecords.readString(in));
+                Prescription prescription = JournalRecords.readPrescription(in);
+                if (patient != null) {
+                    appendPrescription(patient, prescription);
+                }
+                break;
+            }
+            case JournalRecords.ADMINISTER_MEDICATION: {
+                Patient patient = patients.get(JournalRecords.readString(in));
+                MedicationRecord medicationRecord = JournalRecords.readMedicationRecord(in);
+                if (patient != null) {
+                    appendMedicationRecord(patient, medicationRecord);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type + " (record " + seq + ")");
+        }
+    }
 
-                boolean compliant = (totalHours >= 7) && (daysWorked >= 7);
+    private static void skipRecord(long seq, String reason) {
+        System.err.println("⚠ Warning: Skipping journal record " + seq + ": " + reason);
+    }
 
-                sb.append("│\n");
-                sb.append("│  Days Worked: ").append(daysWorked).append(" / 7 required\n");
-                sb.append("│  Total Hours: ").append(totalHours).append(" / 7 minimum required\n");
-                sb.append("│  Status: ");
-                if (compliant) {
-                    sb.append("✓ COMPLIANT\n");
-                } else {
-                    sb.append("✗ NON-COMPLIANT");
-                    if (totalHours < 7) {
-                        sb.append(" (Insufficient hours)");
-                    }
-                    if (daysWorked < 7) {
-                        sb.append(" (Not working all 7 days)");
-                    }
-                    sb.append("\n");
+    /**
+     * Write a snapshot of the whole care home and start a new journal.
+     * Changes are already on disk once their method returns, so this only keeps
+     * the journal (and therefore startup replay) short.
+     *
+     * Changes are blocked only while the state is encoded in memory; the file is
+     * written afterwards, while the old journal segment still covers it.
+     *
+     * An explicit save (e.g. at shutdown) is audited; background autosaves are not,
+     * since they happen every few seconds of activity and record no user action.
+     */
+    public void saveData() throws IOException {
+        writeSnapshot();
+        auditLogger.logAction("SYSTEM", "SAVE_DATA", "Saved all system data");
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path dir = dataDir != null ? dataDir : Paths.get(DATA_DIR);
+        saveLock.lock();
+        try {
+            ByteBuffer encoded;
+            CommandJournal current;
+            stateLock.writeLock().lock();
+            try {
+                current = journal;
+                long seq = current != null ? current.getLastSeq() : 0;
+                encoded = SnapshotCodec.encode(seq, wards, staffMembers.values(), patients.values());
+                if (current != null) {
+                    current.rotate();
                 }
-                sb.append("└─────────────────────────────────────────────────────────────────────────────\n\n");
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            if (current == null && (Files.exists(dir.resolve(JOURNAL_FILE)) || Files.exists(dir.resolve(JOURNAL_FILE + ".prev")))) {
+                // Another care home's snapshot and journal: this one did not load them, so keep them
+                // (and stop their journal being replayed on top of our snapshot)
+                moveAside(dir, "superseded");
+            }
+            SnapshotCodec.write(dir.resolve(SNAPSHOT_FILE), encoded);
+            if (current != null) {
+                current.dropPreviousSegment();
             }
+        } finally {
+            saveLock.unlock();
         }
+    }
 
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        sb.append("End of Compliance Report\n");
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+    /**
+     * Save in the background without waiting (e.g. on logout). Falls back to
+     * saving on the calling thread when there is no autosave.
+     * @return completes when the snapshot is on disk
+     */
+    public Future<?> requestSave() throws IOException {
+        AutosaveScheduler current = autosave;
+        if (current != null) {
+            auditLogger.logAction("SYSTEM", "SAVE_DATA", "Requested a save of all system data");
+            return current.requestSave();
+        }
+        saveData();
+        return CompletableFuture.completedFuture(null);
+    }
 
-        return sb.toString();
+    /**
+     * Background save statistics, or null when this care home does not autosave.
+     */
+    public AutosaveScheduler getAutosave() {
+        return autosave;
     }
 
-    // DATA PERSISTENCE
+    /**
+     * Load the care home from the data directory and make it the singleton.
+     * Returns the current instance if it is already journaling (e.g. after a logout).
+     */
+    public static synchronized CareHome loadData() throws IOException {
+        if (instance != null && instance.journal != null) {
+            return instance;
+        }
+        instance = recover(Paths.get(DATA_DIR));
+        return instance;
+    }
 
-    public void saveData() throws IOException {
-        File dataFile = new File(DATA_FILE);
-        if (dataFile.exists()) {
-            dataFile.renameTo(new File(BACKUP_FILE));
+    /**
+     * Rebuild a care home from the snapshot and journal in a directory, then keep
+     * journaling every change to it. The instance is not registered as the singleton.
+     * If the files cannot be read they are renamed (".unreadable-" plus the time) before
+     * the error is thrown, so a later save cannot overwrite them and a second call
+     * starts an empty care home beside them.
+     */
+    public static CareHome recover(Path dir) throws IOException {
+        try {
+            return open(dir);
+        } catch (IOException | RuntimeException e) {
+            // Keep the unreadable files for inspection and so no later save overwrites them
+            try {
+                moveAside(dir, "unreadable");
+            } catch (IOException moveError) {
+                e.addSuppressed(moveError);
+            }
+            throw e instanceof IOException ? (IOException) e : new IOException("Could not load data from " + dir, e);
         }
-        new File("data").mkdirs();
+    }
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(this);
+    private static CareHome open(Path dir) throws IOException {
+        SnapshotCodec.Contents contents = SnapshotCodec.read(dir.resolve(SNAPSHOT_FILE));
+        CareHome careHome = new CareHome(contents == null);
+        careHome.dataDir = dir;
+        long snapshotSeq = 0;
+        if (contents != null) {
+            careHome.install(contents);
+            snapshotSeq = contents.getJournalSeq();
         }
-        auditLogger.logAction("SYSTEM", "SAVE_DATA", "Saved all system data");
+        careHome.journal = CommandJournal.open(dir.resolve(JOURNAL_FILE), snapshotSeq, careHome::applyRecord);
+        careHome.autosave = new AutosaveScheduler("carehome-autosave", AUTOSAVE_DELAY_MILLIS, careHome::writeSnapshot);
+        return careHome;
     }
 
-    public static CareHome loadData() throws IOException, ClassNotFoundException {
-        File dataFile = new File(DATA_FILE);
-        if (!dataFile.exists()) {
-            return getInstance();
+    // Rename the snapshot and journal files in a directory so nothing replays or overwrites them
+    private static void moveAside(Path dir, String reason) throws IOException {
+        String suffix = "." + reason + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        for (String name : new String[]{SNAPSHOT_FILE, JOURNAL_FILE, JOURNAL_FILE + ".prev"}) {
+            Path file = dir.resolve(name);
+            if (Files.exists(file)) {
+                Path target = dir.resolve(name + suffix);
+                Files.move(file, target);
+                System.err.println("⚠ Warning: Moved " + file + " to " + target);
+            }
         }
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            instance = (CareHome) ois.readObject();
-            instance.auditLogger = AuditLogger.getInstance();
+    }
 
-            // Re-initialize database manager after deserialization
-            try {
-                instance.databaseManager = DatabaseManager.getInstance(); // ← FIXED: Use getInstance()
-            } catch (Exception e) {
-                System.err.println("⚠ Warning: Could not re-initialize database: " + e.getMessage());
+    // Load snapshot contents into a care home that has no wards yet
+    private void install(SnapshotCodec.Contents contents) {
+        for (Ward ward : contents.getWards()) {
+            addWard(ward);
+        }
+        for (Staff staff : contents.getStaff()) {
+            registerStaff(staff);
+        }
+        for (Patient patient : contents.getPatients()) {
+            Bed bed = findBed(patient.getBedId());
+            if (bed != null && !bed.isOccupied()) {
+                placePatient(patient, bed);
+            } else {
+                System.err.println("⚠ Warning: Patient " + patient.getId() + " has no free bed " + patient.getBedId() + " in the snapshot");
+                patients.put(patient.getId(), patient);
+                publishPatient(patient.getId());
             }
+        }
+    }
 
-            return instance;
+    /**
+     * Number of journal fsyncs so far (0 without a journal); used to watch group commit.
+     */
+    public long getJournalCommitCount() {
+        CommandJournal current = journal;
+        return current != null ? current.getCommitCount() : 0;
+    }
+
+    /**
+     * Stop autosaving, then flush and close the journal. Later changes are kept in memory only.
+     */
+    public void closeJournal() throws IOException {
+        AutosaveScheduler current = autosave;
+        if (current != null) {
+            // Outside the state lock, since a running save needs it to finish
+            current.close();
+            autosave = null;
+        }
+        stateLock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            stateLock.writeLock().unlock();
         }
     }
 
     public void createSampleData() {
+        long seq = 0;
+        stateLock.readLock().lock();
         try {
             // ═══════════════════════════════════════════════════════════════
             // CREATE SAMPLE STAFF (only if no staff exists)
@@ -561,19 +1416,13 @@ public class CareHome implements Serializable {
 
             if (staffMembers.isEmpty()) {
                 Manager manager = new Manager("MGR001", "John Manager", "manager@carehome.com", "0123456789", "admin", "admin123");
-                staffMembers.put(manager.getId(), manager);
 
                 Doctor doctor1 = new Doctor("DOC001", "Dr. Sarah Wilson", "sarah@carehome.com", "0123456788", "doctor1", "doc123", "General Medicine");
                 Doctor doctor2 = new Doctor("DOC002", "Dr. Mike Johnson", "mike@carehome.com", "0123456787", "doctor2", "doc123", "Cardiology");
-                staffMembers.put(doctor1.getId(), doctor1);
-                staffMembers.put(doctor2.getId(), doctor2);
 
                 Nurse nurse1 = new Nurse("NUR001", "Emma Thompson", "emma@carehome.com", "0123456786", "nurse1", "nur123", "RN");
                 Nurse nurse2 = new Nurse("NUR002", "James Brown", "james@carehome.com", "0123456785", "nurse2", "nur123", "LPN");
                 Nurse nurse3 = new Nurse("NUR003", "Lisa Davis", "lisa@carehome.com", "0123456784", "nurse3", "nur123", "RN");
-                staffMembers.put(nurse1.getId(), nurse1);
-                staffMembers.put(nurse2.getId(), nurse2);
-                staffMembers.put(nurse3.getId(), nurse3);
 
                 // Assign only ONE shift per day for nurses (as per requirement)
                 for (Nurse nurse : Arrays.asList(nurse1, nurse2, nurse3)) {
@@ -588,6 +1437,10 @@ public class CareHome implements Serializable {
                     }
                 }
 
+                // Register once the shifts are set so each staff member is a single journal record
+                for (Staff staff : Arrays.asList(manager, doctor1, doctor2, nurse1, nurse2, nurse3)) {
+                    seq = registerStaff(staff);
+                }
                 auditLogger.logAction("SYSTEM", "CREATE_SAMPLE_DATA", "Created sample staff and shift assignments");
                 System.out.println("✅ Created sample staff");
             }
@@ -673,54 +1526,42 @@ public class CareHome implements Serializable {
                 // Patient 1 - W1-R1-B1 (Female only room)
                 Bed bed1 = findBed("W1-R1-B1");
                 if (bed1 != null && !bed1.isOccupied()) {
-                    bed1.assignPatient("PAT001");
-                    patient1.setBedId("W1-R1-B1");
-                    patients.put("PAT001", patient1);
+                    seq = placePatient(patient1, bed1);
                     System.out.println("   ✓ Added Alice Johnson (F) to W1-R1-B1");
                 }
 
                 // Patient 2 - W1-R2-B1 (Male only room - DIFFERENT from W1-R1)
                 Bed bed2 = findBed("W1-R2-B1");
                 if (bed2 != null && !bed2.isOccupied()) {
-                    bed2.assignPatient("PAT002");
-                    patient2.setBedId("W1-R2-B1");
-                    patients.put("PAT002", patient2);
+                    seq = placePatient(patient2, bed2);
                     System.out.println("   ✓ Added Bob Smith (M) to W1-R2-B1");
                 }
 
                 // Patient 3 - W1-R3-B1 (Female, isolation - single bed room)
                 Bed bed3 = findBed("W1-R3-B1");
                 if (bed3 != null && !bed3.isOccupied()) {
-                    bed3.assignPatient("PAT003");
-                    patient3.setBedId("W1-R3-B1");
-                    patients.put("PAT003", patient3);
+                    seq = placePatient(patient3, bed3);
                     System.out.println("   ✓ Added Carol White (F) to W1-R3-B1 [ISOLATION]");
                 }
 
                 // Patient 4 - W1-R4-B1 (Male only room)
                 Bed bed4 = findBed("W1-R4-B1");
                 if (bed4 != null && !bed4.isOccupied()) {
-                    bed4.assignPatient("PAT004");
-                    patient4.setBedId("W1-R4-B1");
-                    patients.put("PAT004", patient4);
+                    seq = placePatient(patient4, bed4);
                     System.out.println("   ✓ Added David Brown (M) to W1-R4-B1");
                 }
 
                 // Patient 5 - W1-R5-B1 (Female only room)
                 Bed bed5 = findBed("W1-R5-B1");
                 if (bed5 != null && !bed5.isOccupied()) {
-                    bed5.assignPatient("PAT005");
-                    patient5.setBedId("W1-R5-B1");
-                    patients.put("PAT005", patient5);
+                    seq = placePatient(patient5, bed5);
                     System.out.println("   ✓ Added Emma Davis (F) to W1-R5-B1");
                 }
 
                 // Patient 6 - W2-R2-B1 (Male, isolation - single bed room)
                 Bed bed6 = findBed("W2-R2-B1");
                 if (bed6 != null && !bed6.isOccupied()) {
-                    bed6.assignPatient("PAT006");
-                    patient6.setBedId("W2-R2-B1");
-                    patients.put("PAT006", patient6);
+                    seq = placePatient(patient6, bed6);
                     System.out.println("   ✓ Added Frank Miller (M) to W2-R2-B1 [ISOLATION]");
                 }
 
@@ -728,16 +1569,16 @@ public class CareHome implements Serializable {
                 Prescription prescription1 = new Prescription("RX001", "PAT001", "DOC001", "Blood pressure management");
                 prescription1.addMedication(new Medication("Amlodipine", "5mg", "Once daily", "08:00", "Take with water"));
                 prescription1.addMedication(new Medication("Lisinopril", "10mg", "Once daily", "08:00", "Take in the morning"));
-                patient1.addPrescription(prescription1);
+                seq = appendPrescription(patient1, prescription1);
 
                 Prescription prescription2 = new Prescription("RX002", "PAT002", "DOC002", "Diabetes management");
                 prescription2.addMedication(new Medication("Metformin", "500mg", "Twice daily", "08:00, 20:00", "Take with meals"));
                 prescription2.addMedication(new Medication("Insulin", "20 units", "Before meals", "07:00, 12:00, 18:00", "Inject subcutaneously"));
-                patient2.addPrescription(prescription2);
+                seq = appendPrescription(patient2, prescription2);
 
                 Prescription prescription3 = new Prescription("RX003", "PAT003", "DOC001", "Antibiotic treatment");
                 prescription3.addMedication(new Medication("Amoxicillin", "500mg", "Three times daily", "08:00, 14:00, 20:00", "Take with food"));
-                patient3.addPrescription(prescription3);
+                seq = appendPrescription(patient3, prescription3);
 
                 System.out.println("✅ Created 6 sample patients with prescriptions (gender-segregated rooms)!");
                 auditLogger.logAction("SYSTEM", "CREATE_SAMPLE_PATIENTS",
@@ -747,6 +1588,9 @@ public class CareHome implements Serializable {
         } catch (Exception e) {
             System.err.println("❌ Error creating sample data: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            stateLock.readLock().unlock();
         }
+        commit(seq);
     }
 }
@@ -2,6 +2,8 @@ package healthcare.database;
 
 import healthcare.model.*;
 import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditQuery;
+import healthcare.utils.AuditStore;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -13,13 +15,35 @@ import java.util.List;
  * Implements data archiving for audit purposes as required by regulations.
  * Singleton pattern to ensure single database connection instance.
  */
-public class DatabaseManager {
+public class DatabaseManager implements AuditStore {
     private static final String DB_URL = "jdbc:sqlite:data/healthcare.db";
+    // How long a connection waits for the other one to finish writing
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final String INSERT_AUDIT_SQL =
+            "INSERT INTO audit_log (id, staff_id, action, details, timestamp) VALUES (?, ?, ?, ?, ?)";
+
     private static DatabaseManager instance;
+    private final String url;
     private Connection connection;
 
+    // Audit records are saved on their own connection, in one transaction per batch, so a
+    // batch never shares a transaction with archiving on the main connection
+    private final Object auditLock = new Object();
+    private Connection auditConnection;
+    private PreparedStatement insertAudit;
+    private long auditFlushCount;
+    private long auditRowCount;
+    private long auditFlushNanos;
+    private int lastAuditFlushSize;
+    private long lastAuditFlushNanos;
+
     // Package-private constructor (allows CareHome to instantiate)
     DatabaseManager() {
+        this(DB_URL);
+    }
+
+    private DatabaseManager(String url) {
+        this.url = url;
         initializeDatabase();
     }
 
@@ -33,6 +57,21 @@ public class DatabaseManager {
         return instance;
     }
 
+    /**
+     * Open a DatabaseManager on another database file, not registered as the singleton.
+     * Used by benchmarks and tests.
+     */
+    public static DatabaseManager newStandaloneInstance(java.nio.file.Path dbFile) {
+        return new DatabaseManager("jdbc:sqlite:" + dbFile);
+    }
+
+    /**
+     * Whether the database connection could be opened.
+     */
+    public boolean isAvailable() {
+        return connection != null && insertAudit != null;
+    }
+
     /**
      * Initialize database and create necessary tables
      */
@@ -46,8 +85,13 @@ public class DatabaseManager {
 
             // Load SQLite JDBC driver
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DB_URL);
+            connection = DriverManager.getConnection(url);
+            setBusyTimeout(connection);
             createTables();
+            auditConnection = DriverManager.getConnection(url);
+            setBusyTimeout(auditConnection);
+            auditConnection.setAutoCommit(false);
+            insertAudit = auditConnection.prepareStatement(INSERT_AUDIT_SQL);
             System.out.println("Database initialized successfully");
         } catch (Exception e) {
             System.err.println("Database initialization error: " + e.getMessage());
@@ -55,6 +99,12 @@ public class DatabaseManager {
         }
     }
 
+    private static void setBusyTimeout(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+        }
+    }
+
     /**
      * Create database tables for audit and archival purposes
      */
@@ -69,6 +119,11 @@ public class DatabaseManager {
                 "details TEXT, " +
                 "timestamp TEXT NOT NULL)";
         stmt.execute(auditTable);
+        // Indexes for audit queries (findAuditRecords); each entry also carries the row id,
+        // so a query reads matching rows newest first without sorting
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_staff_time ON audit_log (staff_id, timestamp)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_action_time ON audit_log (action, timestamp)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_time ON audit_log (timestamp)");
 
         // Patient archive table (main patient info on discharge)
         String patientArchive = "CREATE TABLE IF NOT EXISTS discharged_patients (" +
@@ -252,17 +307,188 @@ public class DatabaseManager {
      * Save audit log to database
      */
     public void saveAuditLog(AuditLogger.AuditRecord record) {
-        String sql = "INSERT INTO audit_log (staff_id, action, details, timestamp) VALUES (?, ?, ?, ?)";
+        saveAuditLogs(List.of(record));
+    }
+
+    /**
+     * Save audit records as one JDBC batch in one transaction, reusing a prepared
+     * statement, so the cost of a commit is shared by the whole batch.
+     * If the batch fails it is rolled back and none of it is saved.
+     * @return false if the batch was rolled back
+     */
+    @Override
+    public boolean saveAuditLogs(List<AuditLogger.AuditRecord> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        synchronized (auditLock) {
+            long start = System.nanoTime();
+            try {
+                for (AuditLogger.AuditRecord record : records) {
+                    // Records numbered by AuditTrail keep their ID, so memory and database agree
+                    if (record.getId() > 0) {
+                        insertAudit.setLong(1, record.getId());
+                    } else {
+                        insertAudit.setNull(1, Types.INTEGER);
+                    }
+                    insertAudit.setString(2, record.getStaffId());
+                    insertAudit.setString(3, record.getAction());
+                    insertAudit.setString(4, record.getDetails());
+                    insertAudit.setString(5, record.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    insertAudit.addBatch();
+                }
+                insertAudit.executeBatch();
+                auditConnection.commit();
+            } catch (SQLException e) {
+                System.err.println("Error saving " + records.size() + " audit log records: " + e.getMessage());
+                try {
+                    insertAudit.clearBatch();
+                    auditConnection.rollback();
+                } catch (SQLException rollbackError) {
+                    System.err.println("Error rolling back audit log batch: " + rollbackError.getMessage());
+                }
+                return false;
+            }
+            long elapsed = System.nanoTime() - start;
+            auditFlushCount++;
+            auditRowCount += records.size();
+            auditFlushNanos += elapsed;
+            lastAuditFlushSize = records.size();
+            lastAuditFlushNanos = elapsed;
+        }
+        return true;
+    }
+
+    /**
+     * Audit batch statistics: how many batches and rows were saved, the average time
+     * per batch, and the size and time of the last one.
+     */
+    public String getAuditFlushStats() {
+        synchronized (auditLock) {
+            return String.format("%d batches, %d rows, %.2f ms per batch; last %d rows in %.2f ms",
+                    auditFlushCount, auditRowCount,
+                    auditFlushCount == 0 ? 0.0 : auditFlushNanos / 1e6 / auditFlushCount,
+                    lastAuditFlushSize, lastAuditFlushNanos / 1e6);
+        }
+    }
+
+    public long getAuditFlushCount() {
+        synchronized (auditLock) {
+            return auditFlushCount;
+        }
+    }
+
+    public long getAuditRowCount() {
+        synchronized (auditLock) {
+            return auditRowCount;
+        }
+    }
+
+    public int getLastAuditFlushSize() {
+        synchronized (auditLock) {
+            return lastAuditFlushSize;
+        }
+    }
+
+    public long getLastAuditFlushNanos() {
+        synchronized (auditLock) {
+            return lastAuditFlushNanos;
+        }
+    }
+
+    @Override
+    public List<AuditLogger.AuditRecord> getAuditRecordsBefore(long beforeId, int limit) {
+        List<AuditLogger.AuditRecord> records = new ArrayList<>();
+        String sql = "SELECT * FROM audit_log WHERE id < ? ORDER BY id DESC LIMIT ?";
 
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, record.getStaffId());
-            pstmt.setString(2, record.getAction());
-            pstmt.setString(3, record.getDetails());
-            pstmt.setString(4, record.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            pstmt.executeUpdate();
+            pstmt.setLong(1, beforeId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(readAuditRecord(rs));
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("Error saving audit log: " + e.getMessage());
+            System.err.println("Error retrieving audit records: " + e.getMessage());
         }
+
+        return records;
+    }
+
+    /**
+     * Audit records matching a query, newest first, read through the staff, action or
+     * time index. The cursor is turned into a timestamp bound as well as an ID bound,
+     * so each page starts where the last one ended instead of skipping over it.
+     */
+    @Override
+    public List<AuditLogger.AuditRecord> findAuditRecords(AuditQuery query, long beforeId, int limit) {
+        if (query.getStaffId() == null && query.getAction() == null
+                && query.getFrom() == null && query.getTo() == null) {
+            return getAuditRecordsBefore(beforeId, limit);
+        }
+        List<AuditLogger.AuditRecord> records = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM audit_log WHERE id < ?");
+        List<String> params = new ArrayList<>();
+        if (query.getStaffId() != null) {
+            sql.append(" AND staff_id = ?");
+            params.add(query.getStaffId());
+        }
+        if (query.getAction() != null) {
+            sql.append(" AND action = ?");
+            params.add(query.getAction());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND timestamp >= ?");
+            params.add(query.getFrom().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND timestamp < ?");
+            params.add(query.getTo().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+        // Nothing below the cursor is newer than the record just below it
+        sql.append(" AND timestamp <= COALESCE((SELECT timestamp FROM audit_log WHERE id < ? ORDER BY id DESC LIMIT 1), '')");
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            pstmt.setLong(index++, beforeId);
+            for (String param : params) {
+                pstmt.setString(index++, param);
+            }
+            pstmt.setLong(index++, beforeId);
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(readAuditRecord(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving audit records: " + e.getMessage());
+        }
+
+        return records;
+    }
+
+    @Override
+    public long getLastAuditId() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM audit_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error retrieving audit records: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static AuditLogger.AuditRecord readAuditRecord(ResultSet rs) throws SQLException {
+        return new AuditLogger.AuditRecord(
+                rs.getLong("id"),
+                rs.getString("staff_id"),
+                rs.getString("action"),
+                rs.getString("details"),
+                LocalDateTime.parse(rs.getString("timestamp"), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        );
     }
 
     /**
@@ -276,15 +502,7 @@ public class DatabaseManager {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                String staffId = rs.getString("staff_id");
-                String action = rs.getString("action");
-                String details = rs.getString("details");
-                LocalDateTime timestamp = LocalDateTime.parse(
-                        rs.getString("timestamp"),
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-
-                records.add(new AuditLogger.AuditRecord(staffId, action, details, timestamp));
+                records.add(readAuditRecord(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving audit records: " + e.getMessage());
@@ -390,6 +608,12 @@ public class DatabaseManager {
      */
     public void closeConnection() {
         try {
+            synchronized (auditLock) {
+                if (auditConnection != null && !auditConnection.isClosed()) {
+                    insertAudit.close();
+                    auditConnection.close();
+                }
+            }
             if (connection != null && !connection.isClosed()) {
                 connection.close();
                 System.out.println("Database connection closed");
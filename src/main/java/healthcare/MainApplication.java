@@ -12,6 +12,10 @@ import healthcare.model.CareHome;
  * Entry point for the Healthcare System GUI application.
  */
 public class MainApplication extends Application {
+    // Loading only builds wards, staff and patient details (history is decoded on demand),
+    // so it should fit in this time however much history has built up
+    private static final long STARTUP_BUDGET_MILLIS = 500;
+
     private CareHome careHome;
     private Stage primaryStage;
 
@@ -38,7 +42,12 @@ public class MainApplication extends Application {
     private void initializeCareHome() {
         try {
             // Try to load existing data
+            long start = System.nanoTime();
             careHome = CareHome.loadData();
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            if (loadMillis > STARTUP_BUDGET_MILLIS) {
+                System.err.println("⚠ Warning: Loading data took " + loadMillis + " ms (budget " + STARTUP_BUDGET_MILLIS + " ms)");
+            }
 
             // If no existing data, create sample data
             if (careHome.getAllStaff().isEmpty()) {
@@ -46,9 +55,17 @@ public class MainApplication extends Application {
             }
 
         } catch (Exception e) {
-            // If loading fails, create new instance with sample data
-            careHome = CareHome.getInstance();
-            careHome.createSampleData();
+            // loadData() has moved the unreadable files aside, so start afresh next to them
+            System.err.println("⚠ Error loading data: " + e.getMessage());
+            try {
+                careHome = CareHome.loadData();
+            } catch (Exception retryError) {
+                System.err.println("⚠ Error starting a new data directory: " + retryError.getMessage());
+                careHome = CareHome.getInstance();
+            }
+            if (careHome.getAllStaff().isEmpty()) {
+                careHome.createSampleData();
+            }
         }
     }
 
@@ -139,6 +156,7 @@ public class MainApplication extends Application {
         try {
             if (careHome != null) {
                 careHome.saveData();
+                careHome.closeJournal();
             }
         } catch (Exception e) {
             System.err.println("Error saving data on shutdown: " + e.getMessage());
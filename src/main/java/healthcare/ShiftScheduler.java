@@ -89,6 +89,37 @@ public class ShiftScheduler {
         return new ArrayList<>();
     }
 
+    /**
+     * Build a whole week for the given nurses and doctors with RosterSolver and keep it
+     * as their shifts here, one entry per day from MON to SUN.
+     * @param minPerShift nurses needed on each shift of each day
+     * @param budgetMillis how long to search for a better week
+     * @param threads number of searches to run in parallel
+     * @throws IllegalStateException if no week covering every shift was found in time
+     */
+    public RosterSolver.Roster generateRoster(List<String> nurseIds, List<String> doctorIds, int minPerShift,
+                                              long budgetMillis, int threads) {
+        RosterSolver.Roster roster = new RosterSolver(minPerShift).solve(nurseIds, doctorIds, budgetMillis, threads);
+        if (!roster.isCovered()) {
+            throw new IllegalStateException("No roster covering every shift was found within " + budgetMillis + " ms");
+        }
+        for (String nurseId : nurseIds) {
+            nurseShifts.put(nurseId, weekOf(roster, nurseId));
+        }
+        for (String doctorId : doctorIds) {
+            doctorShifts.put(doctorId, weekOf(roster, doctorId));
+        }
+        return roster;
+    }
+
+    private static List<String> weekOf(RosterSolver.Roster roster, String staffId) {
+        List<String> week = new ArrayList<>();
+        for (List<String> shifts : roster.getShifts().get(staffId).values()) {
+            week.addAll(shifts);
+        }
+        return week;
+    }
+
     /**
      * Check compliance with shift regulations
      */
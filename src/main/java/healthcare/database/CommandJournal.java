@@ -0,0 +1,353 @@
+package healthcare.database;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * CommandJournal is an append-only log of state changes.
+ * Every record gets a sequence number; a snapshot remembers the last sequence number
+ * it contains, so startup loads the snapshot and replays only the records after it.
+ *
+ * Record layout: int length | int crc32 | long seq | byte type | payload
+ * (length counts the bytes after the crc, the crc covers seq, type and payload).
+ *
+ * Writes use group commit: enqueue() only hands the record to a background writer,
+ * which writes everything queued so far and forces it to disk with a single fsync.
+ * Callers then wait in awaitDurable() for their sequence number, so many concurrent
+ * changes share one fsync instead of paying for one each.
+ *
+ * When a snapshot is taken the journal is rotated: the current file becomes the
+ * previous segment (suffix ".prev") and new records go to a fresh file. The previous
+ * segment is deleted once the snapshot is on disk, so a crash while the snapshot is
+ * being written still leaves every record needed to rebuild the state.
+ *
+ * If a write or fsync fails, the journal stops: the writer thread exits, and every
+ * later enqueue() and awaitDurable() throws rather than accepting records that would
+ * never reach the disk.
+ */
+public class CommandJournal implements Closeable {
+
+    /**
+     * Receives records read back from the journal in sequence order.
+     */
+    public interface RecordHandler {
+        void apply(long seq, byte type, byte[] payload) throws IOException;
+    }
+
+    private static final int HEADER_SIZE = 8;          // length + crc
+    private static final int BODY_PREFIX = 9;          // seq + type
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    private final Path path;
+    private final Path previousPath;
+    private final Thread writer;
+    private FileChannel channel;    // guarded by lock; only replaced while the writer is idle
+
+    private final Object lock = new Object();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long lastSeq;       // last sequence number handed out
+    private long durableSeq;    // last sequence number forced to disk
+    private IOException failure;
+    private boolean closed;
+    private long commitCount;
+    private long recordCount;
+
+    private CommandJournal(Path path, FileChannel channel, long lastSeq) {
+        this.path = path;
+        this.previousPath = previousSegment(path);
+        this.channel = channel;
+        this.lastSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        this.writer = new Thread(this::writeLoop, "command-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Open (or create) a journal, replaying every record newer than the snapshot,
+     * first from the previous segment (if a snapshot did not finish) and then from the
+     * current file. A torn or corrupt record at the end (e.g. from a crash mid-write) is cut off.
+     * Records must follow on from the snapshot without a gap in their sequence numbers.
+     * @param snapshotSeq sequence number already covered by the loaded snapshot
+     * @throws IOException if a record is missing (e.g. the previous segment stops at a corrupt
+     *         record but the current file goes on), since the state would be incomplete
+     */
+    public static CommandJournal open(Path path, long snapshotSeq, RecordHandler handler) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long[] lastSeq = {snapshotSeq};
+        replay(previousSegment(path), lastSeq, handler);
+        long validEnd = replay(path, lastSeq, handler);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > validEnd) {
+            System.err.println("⚠ Warning: Discarding " + (channel.size() - validEnd) + " unreadable bytes at the end of " + path);
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        CommandJournal journal = new CommandJournal(path, channel, lastSeq[0]);
+        journal.writer.start();
+        return journal;
+    }
+
+    private static Path previousSegment(Path path) {
+        return path.resolveSibling(path.getFileName() + ".prev");
+    }
+
+    // Apply records newer than lastSeq[0] and advance it; returns the length of the readable part
+    private static long replay(Path path, long[] lastSeq, RecordHandler handler) throws IOException {
+        long validEnd = 0;
+        if (!Files.exists(path)) {
+            return validEnd;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < BODY_PREFIX || length > MAX_RECORD) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException torn) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                long seq = buffer.getLong();
+                byte type = buffer.get();
+                if (seq > lastSeq[0]) {
+                    if (seq != lastSeq[0] + 1) {
+                        throw new IOException("Journal records " + (lastSeq[0] + 1) + " to " + (seq - 1)
+                                + " are missing before record " + seq + " in " + path);
+                    }
+                    byte[] payload = new byte[buffer.remaining()];
+                    buffer.get(payload);
+                    handler.apply(seq, type, payload);
+                    lastSeq[0] = seq;
+                }
+                validEnd += HEADER_SIZE + length;
+            }
+        }
+        return validEnd;
+    }
+
+    /**
+     * Queue a record for writing and return its sequence number.
+     * Does not wait for the disk; call awaitDurable() with the returned number for that.
+     */
+    public long enqueue(byte type, byte[] payload) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Journal " + path + " is closed");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Journal " + path + " failed: " + failure.getMessage(), failure);
+            }
+            long seq = ++lastSeq;
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + BODY_PREFIX + payload.length);
+            record.putInt(BODY_PREFIX + payload.length);
+            record.putInt(0);
+            record.putLong(seq);
+            record.put(type);
+            record.put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), HEADER_SIZE, BODY_PREFIX + payload.length);
+            record.putInt(4, (int) crc.getValue());
+            record.flip();
+            pending.add(record);
+            lock.notifyAll();
+            return seq;
+        }
+    }
+
+    /**
+     * Block until the record with the given sequence number (and all before it) is on disk.
+     */
+    public void awaitDurable(long seq) throws IOException {
+        synchronized (lock) {
+            while (durableSeq < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for journal commit");
+                }
+            }
+            if (durableSeq < seq) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Move every record written so far into the previous segment and continue in a new file.
+     * Call when a snapshot has captured the state up to getLastSeq(); once the snapshot is on
+     * disk, dropPreviousSegment() removes the records it covers.
+     * The caller must stop new records from being enqueued while this runs.
+     */
+    public void rotate() throws IOException {
+        long seq;
+        synchronized (lock) {
+            seq = lastSeq;
+        }
+        awaitDurable(seq);
+        synchronized (lock) {
+            if (!pending.isEmpty() || durableSeq != lastSeq) {
+                throw new IllegalStateException("Journal records were added during a snapshot");
+            }
+            channel.close();
+            if (Files.exists(previousPath)) {
+                // The last snapshot never finished, so its records are still needed: append ours to them
+                try (FileChannel previous = FileChannel.open(previousPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                     FileChannel current = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = current.size();
+                    while (position < size) {
+                        position += current.transferTo(position, size - position, previous);
+                    }
+                    previous.force(true);
+                }
+            } else {
+                Files.move(path, previousPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+    }
+
+    /**
+     * Delete the previous segment after a snapshot covering it has been written.
+     */
+    public void dropPreviousSegment() throws IOException {
+        Files.deleteIfExists(previousPath);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long batchSeq;
+            FileChannel out;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Nothing would write the records queued from now on
+                        failure = new InterruptedIOException("Journal writer was interrupted");
+                        lock.notifyAll();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchSeq = lastSeq;
+                pending = new ArrayList<>();
+                out = channel;
+            }
+            try {
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= out.write(buffers);
+                }
+                out.force(false);
+                synchronized (lock) {
+                    durableSeq = batchSeq;
+                    commitCount++;
+                    recordCount += batch.size();
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                System.err.println("⚠ Error writing journal " + path + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * The error that stopped the journal, or null while it is working.
+     */
+    public IOException getFailure() {
+        synchronized (lock) {
+            return failure;
+        }
+    }
+
+    public long getLastSeq() {
+        synchronized (lock) {
+            return lastSeq;
+        }
+    }
+
+    /** Number of fsyncs done so far. */
+    public long getCommitCount() {
+        synchronized (lock) {
+            return commitCount;
+        }
+    }
+
+    /** Number of records written so far; divided by getCommitCount() gives the group commit size. */
+    public long getRecordCount() {
+        synchronized (lock) {
+            return recordCount;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Write out everything queued, then stop the writer thread and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            channel.close();
+        }
+    }
+}
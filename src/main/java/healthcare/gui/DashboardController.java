@@ -1,6 +1,8 @@
 package healthcare.gui;
 
 import javafx.animation.KeyFrame;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
 import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,11 +17,15 @@ import healthcare.model.*;
 import healthcare.exceptions.*;
 import healthcare.utils.ValidationUtils;
 import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditTrail;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controls the main dashboard UI after login.
@@ -27,6 +33,14 @@ import java.util.Optional;
  */
 public class DashboardController {
 
+    // How long "Generate Week" lets the roster solver search
+    private static final long ROSTER_BUDGET_MILLIS = 2000;
+    // Staff per page when streaming the compliance report into a text area
+    private static final int REPORT_STAFF_PER_PAGE = 50;
+    private static final String REPORT_PAGES_KEY = "reportPages";
+    // Audit records shown at a time; "Load Older" fetches the next page
+    private static final int AUDIT_PAGE_SIZE = 200;
+
     // UI components linked from the FXML file
     @FXML private MenuBar menuBar;
     @FXML private Menu staffMenu, patientMenu, shiftMenu, reportMenu;
@@ -52,6 +66,9 @@ public class DashboardController {
     private String moveFromPatientId = null;
     private boolean complianceMenuAdded = false;
 
+    // Snapshot version the bed grid was last drawn from (-1 = never drawn)
+    private long renderedSnapshotVersion = -1;
+
     @FXML
     private void initialize() {
         setupUI();
@@ -175,7 +192,7 @@ public class DashboardController {
     @FXML
     private void handleAdministerMedication() {
         // Nurses can record when they give medication to patients
-        if (!currentStaff.canPerformAction("administer_medication")) {
+        if (!currentStaff.canPerformAction(Action.ADMINISTER_MEDICATION)) {
             showError("Only nurses can administer medication");
             return;
         }
@@ -298,35 +315,37 @@ public class DashboardController {
 
     @FXML
     private void handleCheckCompliance() {
-        // Generate and display the shift compliance report
+        // Show the shift compliance report a page at a time: the first page straight
+        // away and the rest as the FX thread gets to it, so a big staff list does not
+        // freeze the window while the whole report is built
         try {
-            String report = mainApp.getCareHome().generateComplianceReport();
-
-            if (report == null || report.trim().isEmpty()) {
-                String message = "No compliance data available.\n\nPlease ensure nurses have assigned shifts in the system.";
-                detailsArea.setText(message);
-                showInfo(message);
-                updateStatus("No compliance data found.");
-            } else {
-                detailsArea.setText(report);
-
-                // Show it in a popup too for easier reading
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Compliance Report");
-                alert.setHeaderText("Staff Shift Compliance Check");
+            detailsArea.clear();
+            streamReport(mainApp.getCareHome().complianceReport(false).pages(REPORT_STAFF_PER_PAGE), detailsArea);
 
-                TextArea textArea = new TextArea(report);
-                textArea.setEditable(false);
-                textArea.setWrapText(false);
-                textArea.setMaxWidth(Double.MAX_VALUE);
-                textArea.setMaxHeight(Double.MAX_VALUE);
-
-                alert.getDialogPane().setContent(textArea);
-                alert.getDialogPane().setPrefSize(900, 400);
-                alert.showAndWait();
+            // Show it in a popup too for easier reading, optionally just the problems
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Compliance Report");
+            alert.setHeaderText("Staff Shift Compliance Check");
 
-                updateStatus("Compliance report generated.");
-            }
+            TextArea textArea = new TextArea();
+            textArea.setEditable(false);
+            textArea.setWrapText(false);
+            textArea.setMaxWidth(Double.MAX_VALUE);
+            textArea.setMaxHeight(Double.MAX_VALUE);
+            VBox.setVgrow(textArea, Priority.ALWAYS);
+
+            CheckBox nonCompliantOnly = new CheckBox("Show non-compliant staff only");
+            nonCompliantOnly.setOnAction(e -> {
+                textArea.clear();
+                streamReport(mainApp.getCareHome().complianceReport(nonCompliantOnly.isSelected())
+                        .pages(REPORT_STAFF_PER_PAGE), textArea);
+            });
+            streamReport(mainApp.getCareHome().complianceReport(false).pages(REPORT_STAFF_PER_PAGE), textArea);
+
+            alert.getDialogPane().setContent(new VBox(10, nonCompliantOnly, textArea));
+            alert.getDialogPane().setPrefSize(900, 400);
+            updateStatus("Compliance report generated.");
+            alert.showAndWait();
         } catch (Exception e) {
             String errorMsg = "Error: " + e.getMessage() + "\n\nStack trace:\n";
             e.printStackTrace();
@@ -336,28 +355,37 @@ public class DashboardController {
         }
     }
 
+    private void streamReport(Iterator<String> pages, TextArea target) {
+        // Remember which report the area shows, so an older one still streaming stops
+        target.getProperties().put(REPORT_PAGES_KEY, pages);
+        appendNextPage(pages, target);
+    }
+
+    private void appendNextPage(Iterator<String> pages, TextArea target) {
+        // One page per pass of the FX thread
+        if (target.getProperties().get(REPORT_PAGES_KEY) != pages || !pages.hasNext()) {
+            return;
+        }
+        target.appendText(pages.next());
+        Platform.runLater(() -> appendNextPage(pages, target));
+    }
+
     @FXML
     private void handleViewAuditLog() {
-        // Display all system actions logged in the audit trail
+        // Display the system actions logged in the audit trail, newest first, a page at a time
         try {
             AuditLogger auditLogger = AuditLogger.getInstance();
-            List<AuditLogger.AuditRecord> records = auditLogger.getAllAuditRecords();
+            AuditTrail.AuditPage page = auditLogger.getPage(AuditTrail.LATEST, AUDIT_PAGE_SIZE);
 
             StringBuilder auditReport = new StringBuilder();
             auditReport.append("AUDIT LOG\n");
             auditReport.append("=========\n\n");
-            auditReport.append("Total Records: ").append(records.size()).append("\n\n");
+            auditReport.append("Total Records: ").append(auditLogger.getRecordCount()).append("\n\n");
 
-            if (records.isEmpty()) {
+            if (page.getRecords().isEmpty()) {
                 auditReport.append("No audit records found.\n");
             } else {
-                for (AuditLogger.AuditRecord record : records) {
-                    auditReport.append("[").append(record.getTimestamp()).append("]\n");
-                    auditReport.append("Staff ID: ").append(record.getStaffId()).append("\n");
-                    auditReport.append("Action: ").append(record.getAction()).append("\n");
-                    auditReport.append("Details: ").append(record.getDetails()).append("\n");
-                    auditReport.append("---\n");
-                }
+                appendAuditRecords(auditReport, page.getRecords());
             }
 
             detailsArea.setText(auditReport.toString());
@@ -373,6 +401,33 @@ public class DashboardController {
             textArea.setMaxWidth(Double.MAX_VALUE);
             textArea.setMaxHeight(Double.MAX_VALUE);
 
+            // Older pages are appended without closing the popup
+            ButtonType olderType = new ButtonType("Load Older", ButtonBar.ButtonData.LEFT);
+            alert.getButtonTypes().add(olderType);
+            Button olderButton = (Button) alert.getDialogPane().lookupButton(olderType);
+            olderButton.setDisable(!page.hasMore());
+            long[] cursor = {page.getNextCursor()};
+            olderButton.addEventFilter(ActionEvent.ACTION, event -> {
+                event.consume();
+                // Older pages may wait on the database, so fetch them off the FX thread
+                olderButton.setDisable(true);
+                long from = cursor[0];
+                CompletableFuture.supplyAsync(() -> auditLogger.getPage(from, AUDIT_PAGE_SIZE))
+                        .whenComplete((older, error) -> Platform.runLater(() -> {
+                            if (error != null) {
+                                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                                showError("Could not load older audit records: " + cause.getMessage());
+                                olderButton.setDisable(false);
+                                return;
+                            }
+                            StringBuilder more = new StringBuilder();
+                            appendAuditRecords(more, older.getRecords());
+                            textArea.appendText(more.toString());
+                            cursor[0] = older.getNextCursor();
+                            olderButton.setDisable(!older.hasMore());
+                        }));
+            });
+
             alert.getDialogPane().setContent(textArea);
             alert.getDialogPane().setPrefSize(800, 600);
             alert.showAndWait();
@@ -383,13 +438,28 @@ public class DashboardController {
         }
     }
 
+    private static void appendAuditRecords(StringBuilder sb, List<AuditLogger.AuditRecord> records) {
+        for (AuditLogger.AuditRecord record : records) {
+            sb.append("[").append(record.getTimestamp()).append("]\n");
+            sb.append("Staff ID: ").append(record.getStaffId()).append("\n");
+            sb.append("Action: ").append(record.getAction()).append("\n");
+            sb.append("Details: ").append(record.getDetails()).append("\n");
+            sb.append("---\n");
+        }
+    }
+
     @FXML
     private void refreshBedDisplay() {
         // Rebuild the visual grid showing all beds in all wards
+        // Skip the rebuild if nothing has changed since the last time we drew it
+        CareHomeSnapshot snapshot = mainApp.getCareHome().getSnapshot();
+        if (snapshot.getVersion() == renderedSnapshotVersion) {
+            updateStatus("Bed display is up to date");
+            return;
+        }
         bedDisplayGrid.getChildren().clear();
-        List<Ward> wards = mainApp.getCareHome().getWards();
         int row = 0;
-        for (Ward ward : wards) {
+        for (CareHomeSnapshot.WardView ward : snapshot.getWards()) {
             // Add ward name as a header
             Label wardLabel = new Label(ward.getWardName());
             wardLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
@@ -397,13 +467,13 @@ public class DashboardController {
             row++;
 
             // Add rooms and beds under each ward
-            for (Room room : ward.getRooms()) {
+            for (CareHomeSnapshot.RoomView room : ward.getRooms()) {
                 Label roomLabel = new Label(room.getRoomId());
                 roomLabel.setStyle("-fx-font-weight: bold;");
                 bedDisplayGrid.add(roomLabel, 0, row);
                 int col = 1;
-                for (Bed bed : room.getBeds()) {
-                    Rectangle bedRect = createBedRectangle(bed);
+                for (CareHomeSnapshot.BedView bed : room.getBeds()) {
+                    Rectangle bedRect = createBedRectangle(bed, snapshot);
                     bedDisplayGrid.add(bedRect, col, row);
                     col++;
                 }
@@ -411,15 +481,16 @@ public class DashboardController {
             }
             row++;
         }
+        renderedSnapshotVersion = snapshot.getVersion();
         updateStatus("Bed display refreshed");
     }
 
-    private Rectangle createBedRectangle(Bed bed) {
+    private Rectangle createBedRectangle(CareHomeSnapshot.BedView bed, CareHomeSnapshot snapshot) {
         // Create a colored rectangle to represent each bed
         // Blue = male, pink = female, white = empty
         Rectangle rect = new Rectangle(80, 40);
         if (bed.isOccupied()) {
-            Patient patient = mainApp.getCareHome().getPatient(bed.getPatientId());
+            CareHomeSnapshot.PatientView patient = snapshot.getPatient(bed.getPatientId());
             if (patient != null) {
                 Color color = patient.getGender().equals("M") ? Color.LIGHTBLUE : Color.LIGHTPINK;
                 rect.setFill(color);
@@ -453,7 +524,7 @@ public class DashboardController {
         return rect;
     }
 
-    private void handleBedClick(Bed bed) {
+    private void handleBedClick(CareHomeSnapshot.BedView bed) {
         // Show patient details or bed options depending on if occupied
         if (bed.isOccupied()) {
             showPatientDetails(bed.getPatientId());
@@ -496,7 +567,7 @@ public class DashboardController {
         }
     }
 
-    private void showBedOptions(Bed bed) {
+    private void showBedOptions(CareHomeSnapshot.BedView bed) {
         detailsArea.setText("Empty bed: " + bed.getBedId() + "\n\n" +
                 "Available actions:\n" +
                 "- Add new patient (Manager only)\n" +
@@ -506,7 +577,7 @@ public class DashboardController {
     @FXML
     private void handleAddPatient() {
         // Open the dialog to admit a new patient
-        if (!currentStaff.canPerformAction("add_patient")) {
+        if (!currentStaff.canPerformAction(Action.ADD_PATIENT)) {
             showError("You don't have permission to add patients");
             return;
         }
@@ -519,9 +590,14 @@ public class DashboardController {
                         data.patientId, data.name, data.email, data.phone,
                         data.dateOfBirth, data.gender, data.medicalCondition, data.requiresIsolation
                 );
-                mainApp.getCareHome().addPatient(patient, data.bedId, currentStaffId);
+                String bedId = data.bedId;
+                if (bedId == null) {
+                    bedId = mainApp.getCareHome().admitPatient(patient, null, currentStaffId);
+                } else {
+                    mainApp.getCareHome().addPatient(patient, bedId, currentStaffId);
+                }
                 refreshBedDisplay();
-                showSuccess("Patient added successfully");
+                showSuccess("Patient added successfully to bed " + bedId);
             } catch (Exception e) {
                 showError("Failed to add patient: " + e.getMessage());
             }
@@ -531,7 +607,7 @@ public class DashboardController {
     @FXML
     private void handleAddPrescription() {
         // Doctors can create prescriptions for patients
-        if (!currentStaff.canPerformAction("add_prescription")) {
+        if (!currentStaff.canPerformAction(Action.ADD_PRESCRIPTION)) {
             showError("Only doctors can add prescriptions");
             return;
         }
@@ -562,7 +638,7 @@ public class DashboardController {
     @FXML
     private void handleMovePatient() {
         // Enable the two-click move mode (select patient, then destination bed)
-        if (!currentStaff.canPerformAction("move_patient")) {
+        if (!currentStaff.canPerformAction(Action.MOVE_PATIENT)) {
             showError("You don't have permission to move patients");
             return;
         }
@@ -594,7 +670,7 @@ public class DashboardController {
     @FXML
     private void handleDischargePatient() {
         // Only managers can discharge patients
-        if (!currentStaff.canPerformAction("discharge_patient")) {
+        if (!currentStaff.canPerformAction(Action.DISCHARGE_PATIENT)) {
             showError("Only managers can discharge patients");
             return;
         }
@@ -743,7 +819,7 @@ public class DashboardController {
     @FXML
     private void handleAddStaff() {
         // Managers can add new staff members to the system
-        if (!currentStaff.canPerformAction("add_staff")) {
+        if (!currentStaff.canPerformAction(Action.ADD_STAFF)) {
             showError("Only managers can add staff");
             return;
         }
@@ -782,17 +858,10 @@ public class DashboardController {
         StringBuilder report = new StringBuilder();
         report.append("SYSTEM REPORT\n");
         report.append("=============\n\n");
-        List<Patient> patients = mainApp.getCareHome().getAllPatients();
-        report.append("Total Patients: ").append(patients.size()).append("\n");
-        List<Staff> staff = mainApp.getCareHome().getAllStaff();
-        report.append("Total Staff: ").append(staff.size()).append("\n");
-        int totalBeds = 0;
-        int occupiedBeds = 0;
-        for (Ward ward : mainApp.getCareHome().getWards()) {
-            totalBeds += ward.getTotalBeds();
-            occupiedBeds += (ward.getTotalBeds() - ward.getAvailableBeds());
-        }
-        report.append("Bed Occupancy: ").append(occupiedBeds).append("/").append(totalBeds).append("\n\n");
+        CareHomeSnapshot snapshot = mainApp.getCareHome().getSnapshot();
+        report.append("Total Patients: ").append(snapshot.getPatients().size()).append("\n");
+        report.append("Total Staff: ").append(snapshot.getStaff().size()).append("\n");
+        report.append("Bed Occupancy: ").append(snapshot.getOccupiedBeds()).append("/").append(snapshot.getTotalBeds()).append("\n\n");
         report.append("RECENT AUDIT LOG:\n");
         report.append("(Audit log entries would be displayed here)\n");
         detailsArea.setText(report.toString());
@@ -873,9 +942,14 @@ public class DashboardController {
         dialog.getDialogPane().setContent(content);
 
         ButtonType assignButton = new ButtonType("Assign Shift", ButtonBar.ButtonData.OK_DONE);
-        dialog.getDialogPane().getButtonTypes().addAll(assignButton, ButtonType.CLOSE);
+        ButtonType generateButton = new ButtonType("Generate Week", ButtonBar.ButtonData.LEFT);
+        dialog.getDialogPane().getButtonTypes().addAll(assignButton, generateButton, ButtonType.CLOSE);
 
         dialog.setResultConverter(button -> {
+            if (button == generateButton) {
+                generateRoster();
+                return "generated";
+            }
             if (button == assignButton) {
                 Staff selected = staffCombo.getValue();
                 if (selected == null) {
@@ -912,10 +986,18 @@ public class DashboardController {
                                 " to replace.\n\nPlease select 'Assign New Shift' instead.");
                         return null;
                     }
-                    selected.clearShiftsForDay(day);
                 }
 
-                selected.assignShift(day, shift);
+                try {
+                    if (action.equals("Replace Existing Shift")) {
+                        selected.clearShiftsForDay(day);
+                    }
+                    selected.assignShift(day, shift);
+                } catch (IllegalStateException e) {
+                    // The care home turned read-only after a save failure and refused the change
+                    showError("Failed to save shift: " + e.getMessage());
+                    return null;
+                }
 
                 String message = action.equals("Replace Existing Shift") ?
                         "Shift replaced for " : "Shift assigned to ";
@@ -927,6 +1009,26 @@ public class DashboardController {
         dialog.showAndWait();
     }
 
+    private void generateRoster() {
+        // The solver searches for a couple of seconds, so keep it off the UI thread
+        String managerId = currentStaff.getId();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return mainApp.getCareHome().generateRoster(managerId, ROSTER_BUDGET_MILLIS);
+            } catch (StaffNotAuthorizedException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((roster, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showError("Could not generate the roster: " + cause.getMessage());
+            } else {
+                showSuccess("Generated a week of shifts for all nurses and doctors (" +
+                        roster.getTurnarounds() + " late-to-early turnarounds).");
+            }
+        }));
+    }
+
     private void updateExistingShiftInfo(Staff staff, String day, Label label) {
         // Show what shifts are currently assigned for the selected day
         if (staff == null || day == null) {
@@ -943,10 +1045,10 @@ public class DashboardController {
 
     @FXML
     private void handleLogout() {
-        // Save everything and go back to login screen
+        // Save everything in the background and go back to login screen
         try {
             stopClock();
-            mainApp.getCareHome().saveData();
+            mainApp.getCareHome().requestSave();
             mainApp.start(mainApp.getPrimaryStage());
         } catch (Exception e) {
             showError("Error during logout: " + e.getMessage());
@@ -1,5 +1,6 @@
 package healthcare.gui;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import healthcare.model.Staff;
@@ -61,20 +62,30 @@ public class LoginController {
             return;
         }
 
-        try {
-            // Authenticate user
-            Staff staff = mainApp.getCareHome().authenticateStaff(username, password);
-
-            if (staff != null) {
-                // Login successful - go to dashboard
-                mainApp.showMainDashboard(staff.getId());
-            } else {
-                showError("Invalid username or password");
-            }
+        // Authenticate on a worker thread (password hashing is slow on purpose)
+        // and come back to the FX thread with the result
+        setBusy(true);
+        mainApp.getCareHome().authenticateStaffAsync(username, password)
+                .whenComplete((staff, error) -> Platform.runLater(() -> {
+                    setBusy(false);
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        showError("Login failed: " + cause.getMessage());
+                    } else if (staff != null) {
+                        // Login successful - go to dashboard
+                        mainApp.showMainDashboard(staff.getId());
+                    } else {
+                        showError("Invalid username or password");
+                    }
+                }));
+    }
 
-        } catch (Exception e) {
-            showError("Login failed: " + e.getMessage());
-        }
+    /**
+     * Block another login attempt while one is being checked
+     */
+    private void setBusy(boolean busy) {
+        loginButton.setDisable(busy);
+        passwordField.setDisable(busy);
     }
 
     /**
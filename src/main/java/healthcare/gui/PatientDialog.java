@@ -13,6 +13,9 @@ import java.util.List;
  */
 public class PatientDialog extends Dialog<PatientDialog.PatientData> {
 
+    // Bed option that lets the system pick the best bed for the patient
+    public static final String AUTO_ASSIGN_BED = "Auto-assign best bed";
+
     public static class PatientData {
         public String patientId;
         public String name;
@@ -22,7 +25,7 @@ public class PatientDialog extends Dialog<PatientDialog.PatientData> {
         public String gender;
         public String medicalCondition;
         public boolean requiresIsolation;
-        public String bedId;
+        public String bedId; // null means auto-assign
     }
 
     public PatientDialog(List<Bed> availableBeds) {
@@ -41,7 +44,9 @@ public class PatientDialog extends Dialog<PatientDialog.PatientData> {
         CheckBox isolationCheck = new CheckBox();
         ComboBox<String> bedCombo = new ComboBox<>();
 
-        // Populate bed combo
+        // Populate bed combo (auto-assign is the default choice)
+        bedCombo.getItems().add(AUTO_ASSIGN_BED);
+        bedCombo.setValue(AUTO_ASSIGN_BED);
         for (Bed bed : availableBeds) {
             bedCombo.getItems().add(bed.getBedId());
         }
@@ -95,7 +100,7 @@ public class PatientDialog extends Dialog<PatientDialog.PatientData> {
                 data.gender = genderCombo.getValue();
                 data.medicalCondition = conditionField.getText().trim();
                 data.requiresIsolation = isolationCheck.isSelected();
-                data.bedId = bedCombo.getValue();
+                data.bedId = AUTO_ASSIGN_BED.equals(bedCombo.getValue()) ? null : bedCombo.getValue();
                 return data;
             }
             return null;
@@ -0,0 +1,66 @@
+package healthcare.model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actions that need permission. Each role keeps its permissions as a bitmask
+ * of these (see Staff.canPerformAction), so a check is a single bit test.
+ */
+public enum Action {
+    CHECK_PATIENT,
+    ADD_PATIENT,
+    MOVE_PATIENT,
+    DISCHARGE_PATIENT,
+    ADD_PRESCRIPTION,
+    ADMINISTER_MEDICATION,
+    ADD_STAFF,
+    MANAGE_SHIFTS;
+
+    private static final Map<String, Action> BY_NAME = new HashMap<>();
+
+    static {
+        for (Action action : values()) {
+            BY_NAME.put(action.getName(), action);
+        }
+    }
+
+    private final long bit = 1L << ordinal();
+    private final String name = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * The string form used by the older API, e.g. "administer_medication"
+     */
+    public String getName() { return name; }
+
+    long bit() { return bit; }
+
+    /**
+     * Look up an action by its string form, ignoring case.
+     * @return the action, or null if there is no such action
+     */
+    public static Action fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        Action action = BY_NAME.get(name);
+        return action != null ? action : BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Combine actions into a permission bitmask.
+     */
+    public static long mask(Action... actions) {
+        long mask = 0;
+        for (Action action : actions) {
+            mask |= action.bit;
+        }
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -5,13 +5,22 @@ import java.io.Serializable;
 /**
  * Bed class represents individual beds in the healthcare facility.
  * Each bed can be occupied by at most one patient.
+ * Occupancy changes are reported to the owning room so its counters stay current.
  */
 public class Bed implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String bedId;
     private String roomId;
     private String wardId;
     private boolean isOccupied;
     private String patientId; // null if bed is vacant
+    private String occupantGender; // null if vacant or unknown
+    private boolean occupantRequiresIsolation;
+
+    // Owning room and position within it, re-linked by Room after construction or deserialization
+    private transient Room room;
+    private transient int slot;
 
     public Bed(String bedId, String roomId, String wardId) {
         this.bedId = bedId;
@@ -32,22 +41,53 @@ public class Bed implements Serializable {
     public void setWardId(String wardId) { this.wardId = wardId; }
 
     public boolean isOccupied() { return isOccupied; }
-    public void setOccupied(boolean occupied) { this.isOccupied = occupied; }
 
     public String getPatientId() { return patientId; }
-    public void setPatientId(String patientId) { 
-        this.patientId = patientId; 
-        this.isOccupied = (patientId != null);
+
+    public String getOccupantGender() { return occupantGender; }
+    public boolean occupantRequiresIsolation() { return occupantRequiresIsolation; }
+
+    public Room getRoom() { return room; }
+    int getSlot() { return slot; }
+    void setRoom(Room room, int slot) {
+        this.room = room;
+        this.slot = slot;
+    }
+
+    public void assignPatient(Patient patient) {
+        assignPatient(patient.getId(), patient.getGender(), patient.requiresIsolation());
     }
 
-    public void assignPatient(String patientId) {
+    // Gender and isolation are required so the room keeps enforcing its gender and isolation rules
+    public void assignPatient(String patientId, String gender, boolean requiresIsolation) {
+        beforeChange();
         this.patientId = patientId;
+        this.occupantGender = gender;
+        this.occupantRequiresIsolation = requiresIsolation;
         this.isOccupied = true;
+        afterChange();
     }
 
     public void vacateBed() {
+        beforeChange();
         this.patientId = null;
+        this.occupantGender = null;
+        this.occupantRequiresIsolation = false;
         this.isOccupied = false;
+        afterChange();
+    }
+
+    private void beforeChange() {
+        if (room != null) {
+            room.removeOccupant(this);
+        }
+    }
+
+    private void afterChange() {
+        if (room != null) {
+            room.addOccupant(this);
+            room.fireRoomChanged();
+        }
     }
 
     @Override
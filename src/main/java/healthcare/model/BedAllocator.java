@@ -0,0 +1,122 @@
+package healthcare.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BedAllocator keeps bitsets of rooms that can take another patient, grouped by
+ * whether they are empty (by room size) or open to male/female patients.
+ * Rooms report occupancy changes through RoomListener, so finding a bed is a
+ * couple of bitset scans instead of a walk over every bed in the care home.
+ *
+ * Allocation policy:
+ * - Isolation patients get an empty room, smallest room first.
+ * - Other patients fill a partly occupied room of their gender first (never one
+ *   holding an isolation patient), then an empty room, largest room first.
+ */
+public class BedAllocator implements RoomListener {
+
+    // Bitsets over the rooms of one scope (whole care home or a single ward)
+    private static final class RoomSets {
+        private final List<Room> rooms = new ArrayList<>();
+        private final TreeMap<Integer, BitSet> emptyBySize = new TreeMap<>();
+        private final BitSet openMale = new BitSet();
+        private final BitSet openFemale = new BitSet();
+
+        int add(Room room) {
+            rooms.add(room);
+            emptyBySize.computeIfAbsent(room.getBedCount(), size -> new BitSet());
+            return rooms.size() - 1;
+        }
+
+        void update(int index, Room room) {
+            BitSet empty = emptyBySize.get(room.getBedCount());
+            empty.clear(index);
+            openMale.clear(index);
+            openFemale.clear(index);
+            if (room.getAvailableBeds() == 0) {
+                return;
+            }
+            if (room.getOccupiedBeds() == 0) {
+                empty.set(index);
+            } else if (!room.hasIsolationPatient()) {
+                if (room.canAcceptGender("M")) openMale.set(index);
+                if (room.canAcceptGender("F")) openFemale.set(index);
+            }
+        }
+
+        Room find(String gender, boolean requiresIsolation) {
+            if (requiresIsolation) {
+                return firstEmpty(emptyBySize);
+            }
+            BitSet open = "M".equals(gender) ? openMale : "F".equals(gender) ? openFemale : null;
+            if (open != null) {
+                int index = open.nextSetBit(0);
+                if (index >= 0) {
+                    return rooms.get(index);
+                }
+            }
+            return firstEmpty(emptyBySize.descendingMap());
+        }
+
+        private Room firstEmpty(Map<Integer, BitSet> bySize) {
+            for (BitSet empty : bySize.values()) {
+                int index = empty.nextSetBit(0);
+                if (index >= 0) {
+                    return rooms.get(index);
+                }
+            }
+            return null;
+        }
+    }
+
+    private final RoomSets allRooms = new RoomSets();
+    private final Map<String, RoomSets> wardRooms = new HashMap<>();
+    // room -> {index in allRooms, index in its ward's RoomSets}
+    private final Map<Room, int[]> roomIndexes = new IdentityHashMap<>();
+
+    /**
+     * Start tracking a room. Called by CareHome when a room is indexed.
+     */
+    public synchronized void addRoom(Room room) {
+        if (roomIndexes.containsKey(room)) {
+            return;
+        }
+        RoomSets ward = wardRooms.computeIfAbsent(room.getWardId(), id -> new RoomSets());
+        int[] indexes = {allRooms.add(room), ward.add(room)};
+        roomIndexes.put(room, indexes);
+        refresh(room, indexes);
+    }
+
+    @Override
+    public synchronized void roomChanged(Room room) {
+        int[] indexes = roomIndexes.get(room);
+        if (indexes != null) {
+            refresh(room, indexes);
+        }
+    }
+
+    private void refresh(Room room, int[] indexes) {
+        allRooms.update(indexes[0], room);
+        wardRooms.get(room.getWardId()).update(indexes[1], room);
+    }
+
+    /**
+     * Find the best vacant bed for a patient without reserving it.
+     * @param wardId ward to search, or null for any ward
+     * @return the bed, or null if no bed satisfies the constraints
+     */
+    public synchronized Bed findBestBed(String gender, boolean requiresIsolation, String wardId) {
+        RoomSets scope = wardId == null ? allRooms : wardRooms.get(wardId);
+        if (scope == null) {
+            return null;
+        }
+        Room room = scope.find(gender, requiresIsolation);
+        return room == null ? null : room.firstFreeBed();
+    }
+}
@@ -0,0 +1,126 @@
+package healthcare.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CalendarRoster answers questions about real dates rather than the repeating week:
+ * how many staff cover each shift over the next N days, who works a shift on a date,
+ * and whether a calendar week meets the shift rules.
+ *
+ * Each staff member's week is their weekly pattern with the leave, swaps and extra
+ * shifts recorded for that calendar week applied (see DatedShifts), one long per week.
+ * A range query reads one long per staff member per week it spans and counts its bits,
+ * so a month of coverage costs about five lookups per staff member.
+ */
+public final class CalendarRoster {
+    private static final ShiftSlot[] SLOTS = ShiftSlot.values();
+
+    private CalendarRoster() {}
+
+    /**
+     * Number of staff on each shift for each date of a range.
+     */
+    public static final class Coverage {
+        private final LocalDate from;
+        private final int days;
+        // counts[day * SLOTS.length + slot ordinal]
+        private final int[] counts;
+
+        Coverage(LocalDate from, int days) {
+            this.from = from;
+            this.days = days;
+            this.counts = new int[days * SLOTS.length];
+        }
+
+        public LocalDate getFrom() { return from; }
+        public int getDays() { return days; }
+
+        public int get(LocalDate date, ShiftSlot slot) {
+            long offset = date.toEpochDay() - from.toEpochDay();
+            if (offset < 0 || offset >= days) {
+                throw new IllegalArgumentException(date + " is outside the coverage range");
+            }
+            return counts[(int) offset * SLOTS.length + slot.ordinal()];
+        }
+
+        /**
+         * The dates on which fewer than minimum staff work a shift, in date order.
+         */
+        public List<LocalDate> getDatesBelow(ShiftSlot slot, int minimum) {
+            List<LocalDate> dates = new ArrayList<>();
+            for (int d = 0; d < days; d++) {
+                if (counts[d * SLOTS.length + slot.ordinal()] < minimum) {
+                    dates.add(from.plusDays(d));
+                }
+            }
+            return dates;
+        }
+    }
+
+    /**
+     * Count the staff on each shift for the days dates starting at from.
+     */
+    public static Coverage coverage(Collection<Staff> staff, LocalDate from, int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("days must not be negative");
+        }
+        Coverage coverage = new Coverage(from, days);
+        if (days == 0) {
+            return coverage;
+        }
+        long firstWeek = DatedShifts.weekOf(from);
+        long lastWeek = DatedShifts.weekOf(from.plusDays(days - 1));
+        int firstDay = DatedShifts.dayOf(from);
+        for (Staff member : staff) {
+            for (long week = firstWeek; week <= lastWeek; week++) {
+                long bits = member.getWeekBits(week);
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int slot = bit % 8;
+                    if (slot >= SLOTS.length) {
+                        continue;
+                    }
+                    // Days from the start of the range
+                    long offset = (week - firstWeek) * 7 + bit / 8 - firstDay;
+                    if (offset >= 0 && offset < days) {
+                        coverage.counts[(int) offset * SLOTS.length + slot]++;
+                    }
+                }
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * The staff who work a shift on a date, in the order given.
+     */
+    public static List<Staff> onShift(Collection<Staff> staff, LocalDate date, ShiftSlot slot) {
+        List<Staff> working = new ArrayList<>();
+        for (Staff member : staff) {
+            if (member.hasShift(date, slot)) {
+                working.add(member);
+            }
+        }
+        return working;
+    }
+
+    /**
+     * Check the calendar week containing a date against the weekly shift rules (the
+     * same ones ComplianceTracker applies to the pattern). Violation days are the
+     * day names of that week ("MON" = its Monday).
+     */
+    public static List<ComplianceTracker.Violation> checkWeek(Collection<Staff> staff, LocalDate date) {
+        long week = DatedShifts.weekOf(date);
+        List<ComplianceTracker.Violation> found = new ArrayList<>();
+        int[] counts = new int[7];
+        for (Staff member : staff) {
+            member.countWeek(week, counts);
+            ComplianceTracker.check(member, counts, found);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,325 @@
+package healthcare.model;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the care home's wards, rooms, beds, patients and staff.
+ * CareHome publishes a new snapshot after every change. Unchanged wards and rooms are
+ * shared with the previous snapshot, so a bed change only rebuilds one room and one ward.
+ * Readers get the current snapshot with a single volatile read and never block writers;
+ * the version number lets them skip work when nothing has changed.
+ *
+ * Patients and staff are published as immutable PatientView and StaffView copies, one
+ * per change to that person (including new prescriptions and medication records), in
+ * PersistentMaps that share every other entry with the previous snapshot.
+ */
+public final class CareHomeSnapshot {
+    private final long version;
+    private final List<WardView> wards;
+    private final PersistentMap<String, PatientView> patients;
+    private final PersistentMap<String, StaffView> staff;
+
+    private CareHomeSnapshot(long version, List<WardView> wards, PersistentMap<String, PatientView> patients,
+                             PersistentMap<String, StaffView> staff) {
+        this.version = version;
+        this.wards = wards;
+        this.patients = patients;
+        this.staff = staff;
+    }
+
+    static CareHomeSnapshot empty() {
+        return new CareHomeSnapshot(0, Collections.emptyList(), PersistentMap.empty(), PersistentMap.empty());
+    }
+
+    public long getVersion() { return version; }
+    public List<WardView> getWards() { return wards; }
+    public Map<String, PatientView> getPatients() { return patients; }
+    public Map<String, StaffView> getStaff() { return staff; }
+    public PatientView getPatient(String patientId) { return patients.get(patientId); }
+    public StaffView getStaffMember(String staffId) { return staff.get(staffId); }
+
+    public int getTotalBeds() {
+        int total = 0;
+        for (WardView ward : wards) total += ward.totalBeds;
+        return total;
+    }
+
+    public int getOccupiedBeds() {
+        int occupied = 0;
+        for (WardView ward : wards) occupied += ward.occupiedBeds;
+        return occupied;
+    }
+
+    // Replace the ward at wardPos, or append it when wardPos == number of wards
+    CareHomeSnapshot withWard(int wardPos, WardView ward) {
+        return new CareHomeSnapshot(version + 1, replace(wards, wardPos, ward), patients, staff);
+    }
+
+    // Replace the room at roomPos of one ward, or append it when roomPos == number of rooms
+    CareHomeSnapshot withRoom(int wardPos, int roomPos, RoomView room) {
+        return withWard(wardPos, wards.get(wardPos).withRoom(roomPos, room));
+    }
+
+    CareHomeSnapshot withPatient(PatientView patient) {
+        return new CareHomeSnapshot(version + 1, wards, patients.plus(patient.getId(), patient), staff);
+    }
+
+    CareHomeSnapshot withoutPatient(String patientId) {
+        PersistentMap<String, PatientView> updated = patients.minus(patientId);
+        return updated == patients ? this : new CareHomeSnapshot(version + 1, wards, updated, staff);
+    }
+
+    CareHomeSnapshot withStaffMember(StaffView member) {
+        return new CareHomeSnapshot(version + 1, wards, patients, staff.plus(member.getId(), member));
+    }
+
+    CareHomeSnapshot withoutStaffMember(String staffId) {
+        PersistentMap<String, StaffView> updated = staff.minus(staffId);
+        return updated == staff ? this : new CareHomeSnapshot(version + 1, wards, patients, updated);
+    }
+
+    private static <T> List<T> replace(List<T> list, int pos, T item) {
+        List<T> copy = new ArrayList<>(list.size() + 1);
+        copy.addAll(list);
+        if (pos == list.size()) {
+            copy.add(item);
+        } else {
+            copy.set(pos, item);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Immutable view of a ward and its rooms.
+     */
+    public static final class WardView {
+        private final String wardId;
+        private final String wardName;
+        private final List<RoomView> rooms;
+        private final int totalBeds;
+        private final int occupiedBeds;
+
+        private WardView(String wardId, String wardName, List<RoomView> rooms) {
+            this.wardId = wardId;
+            this.wardName = wardName;
+            this.rooms = rooms;
+            int total = 0;
+            int occupied = 0;
+            for (RoomView room : rooms) {
+                total += room.beds.size();
+                occupied += room.occupiedBeds;
+            }
+            this.totalBeds = total;
+            this.occupiedBeds = occupied;
+        }
+
+        static WardView of(Ward ward) {
+            List<RoomView> rooms = new ArrayList<>();
+            for (Room room : ward.getRooms()) {
+                rooms.add(RoomView.of(room));
+            }
+            return new WardView(ward.getWardId(), ward.getWardName(), Collections.unmodifiableList(rooms));
+        }
+
+        WardView withRoom(int roomPos, RoomView room) {
+            return new WardView(wardId, wardName, replace(rooms, roomPos, room));
+        }
+
+        public String getWardId() { return wardId; }
+        public String getWardName() { return wardName; }
+        public List<RoomView> getRooms() { return rooms; }
+        public int getTotalBeds() { return totalBeds; }
+        public int getOccupiedBeds() { return occupiedBeds; }
+        public int getAvailableBeds() { return totalBeds - occupiedBeds; }
+    }
+
+    /**
+     * Immutable view of a room and its beds.
+     */
+    public static final class RoomView {
+        private final String roomId;
+        private final String wardId;
+        private final List<BedView> beds;
+        private final int occupiedBeds;
+        private final String roomGender;
+
+        private RoomView(String roomId, String wardId, List<BedView> beds, int occupiedBeds, String roomGender) {
+            this.roomId = roomId;
+            this.wardId = wardId;
+            this.beds = beds;
+            this.occupiedBeds = occupiedBeds;
+            this.roomGender = roomGender;
+        }
+
+        // Caller must hold the room's lock so the beds are read consistently
+        static RoomView of(Room room) {
+            List<BedView> beds = new ArrayList<>(room.getBedCount());
+            for (Bed bed : room.getBeds()) {
+                beds.add(new BedView(bed));
+            }
+            return new RoomView(room.getRoomId(), room.getWardId(), Collections.unmodifiableList(beds),
+                    room.getOccupiedBeds(), room.getRoomGender());
+        }
+
+        public String getRoomId() { return roomId; }
+        public String getWardId() { return wardId; }
+        public List<BedView> getBeds() { return beds; }
+        public int getOccupiedBeds() { return occupiedBeds; }
+        public int getAvailableBeds() { return beds.size() - occupiedBeds; }
+        public String getRoomGender() { return roomGender; }
+    }
+
+    /**
+     * Immutable view of a single bed.
+     */
+    public static final class BedView {
+        private final String bedId;
+        private final String roomId;
+        private final String wardId;
+        private final String patientId;
+        private final String occupantGender;
+
+        private BedView(Bed bed) {
+            this.bedId = bed.getBedId();
+            this.roomId = bed.getRoomId();
+            this.wardId = bed.getWardId();
+            this.patientId = bed.isOccupied() ? bed.getPatientId() : null;
+            this.occupantGender = bed.getOccupantGender();
+        }
+
+        public String getBedId() { return bedId; }
+        public String getRoomId() { return roomId; }
+        public String getWardId() { return wardId; }
+        public String getPatientId() { return patientId; }
+        public String getOccupantGender() { return occupantGender; }
+        public boolean isOccupied() { return patientId != null; }
+    }
+
+    /**
+     * Immutable copy of a patient's details, bed and clinical history.
+     * A history still undecoded in a loaded snapshot is decoded (into this view's own
+     * lists) the first time it is read, so publishing a view never decodes it.
+     */
+    public static final class PatientView {
+        private final String id;
+        private final String name;
+        private final String email;
+        private final String phone;
+        private final LocalDate dateOfBirth;
+        private final String gender;
+        private final String medicalCondition;
+        private final boolean requiresIsolation;
+        private final String bedId;
+        private volatile List<Prescription> prescriptions;
+        private volatile List<MedicationRecord> medicationHistory;
+        private volatile Patient.LazyHistory lazyHistory;
+
+        private PatientView(Patient patient) {
+            this.id = patient.getId();
+            this.name = patient.getName();
+            this.email = patient.getEmail();
+            this.phone = patient.getPhone();
+            this.dateOfBirth = patient.getDateOfBirth();
+            this.gender = patient.getGender();
+            this.medicalCondition = patient.getMedicalCondition();
+            this.requiresIsolation = patient.requiresIsolation();
+            this.bedId = patient.getBedId();
+            // Every change to the history decodes it first, so an undecoded history is current
+            Patient.LazyHistory lazy = patient.getLazyHistory();
+            if (lazy != null) {
+                this.lazyHistory = lazy;
+            } else {
+                // Both lists are replaced, never changed, by the patient
+                this.prescriptions = patient.getPrescriptions();
+                this.medicationHistory = patient.getMedicationHistory();
+            }
+        }
+
+        static PatientView of(Patient patient) {
+            return new PatientView(patient);
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public String getPhone() { return phone; }
+        public LocalDate getDateOfBirth() { return dateOfBirth; }
+        public String getGender() { return gender; }
+        public String getMedicalCondition() { return medicalCondition; }
+        public boolean requiresIsolation() { return requiresIsolation; }
+        public String getBedId() { return bedId; }
+
+        public int getAge() {
+            return Period.between(dateOfBirth, LocalDate.now()).getYears();
+        }
+
+        public List<Prescription> getPrescriptions() {
+            loadHistory();
+            return prescriptions;
+        }
+
+        public List<MedicationRecord> getMedicationHistory() {
+            loadHistory();
+            return medicationHistory;
+        }
+
+        private void loadHistory() {
+            if (lazyHistory == null) {
+                return;
+            }
+            synchronized (this) {
+                Patient.LazyHistory source = lazyHistory;
+                if (source == null) {
+                    return;
+                }
+                List<Prescription> decodedPrescriptions = new ArrayList<>();
+                List<MedicationRecord> decodedHistory = new ArrayList<>();
+                source.decodeInto(decodedPrescriptions, decodedHistory);
+                this.prescriptions = Collections.unmodifiableList(decodedPrescriptions);
+                this.medicationHistory = Collections.unmodifiableList(decodedHistory);
+                this.lazyHistory = null;
+            }
+        }
+    }
+
+    /**
+     * Immutable copy of a staff member's details and weekly shift pattern.
+     */
+    public static final class StaffView {
+        private final String id;
+        private final String name;
+        private final String email;
+        private final String phone;
+        private final String username;
+        private final String staffType;
+        private final Map<String, List<String>> weeklyShifts;
+
+        private StaffView(Staff staff) {
+            this.id = staff.getId();
+            this.name = staff.getName();
+            this.email = staff.getEmail();
+            this.phone = staff.getPhone();
+            this.username = staff.getUsername();
+            this.staffType = staff.getStaffType();
+            // Read-only and rebuilt by the staff member on every change, so it can be shared
+            this.weeklyShifts = staff.getWeeklyShifts();
+        }
+
+        static StaffView of(Staff staff) {
+            return new StaffView(staff);
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public String getPhone() { return phone; }
+        public String getUsername() { return username; }
+        public String getStaffType() { return staffType; }
+        public Map<String, List<String>> getWeeklyShifts() { return weeklyShifts; }
+    }
+}
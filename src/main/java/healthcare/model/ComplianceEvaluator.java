@@ -0,0 +1,99 @@
+package healthcare.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ComplianceEvaluator checks the shift rules for a whole list of staff at once and
+ * returns every violation, not just the first.
+ *
+ * evaluateParallel() cuts the list into chunks and splits the chunks in halves on a
+ * ForkJoinPool until each task has one chunk to check. Each chunk's violations go in
+ * its own slot, and the slots are joined once at the end in list order. Every chunk
+ * is checked with the same rules as evaluate(), so both return the same violations
+ * in the same order.
+ *
+ * Use it for one-off checks of large pools (e.g. several sites at once); CareHome's
+ * own staff are kept checked all along by the ComplianceTracker.
+ */
+public final class ComplianceEvaluator {
+    // Staff per chunk; big enough that splitting costs little next to checking
+    private static final int THRESHOLD = 2048;
+
+    private ComplianceEvaluator() {}
+
+    /**
+     * Check every staff member on the calling thread.
+     */
+    public static List<ComplianceTracker.Violation> evaluate(List<Staff> staff) {
+        List<ComplianceTracker.Violation> found = new ArrayList<>();
+        checkRange(staff, 0, staff.size(), found);
+        return found;
+    }
+
+    /**
+     * Check every staff member on the common ForkJoinPool.
+     */
+    public static List<ComplianceTracker.Violation> evaluateParallel(List<Staff> staff) {
+        return evaluateParallel(staff, ForkJoinPool.commonPool());
+    }
+
+    public static List<ComplianceTracker.Violation> evaluateParallel(List<Staff> staff, ForkJoinPool pool) {
+        if (staff.size() <= THRESHOLD) {
+            return evaluate(staff);
+        }
+        int chunks = (staff.size() + THRESHOLD - 1) / THRESHOLD;
+        // One slot per chunk, filled in by the task that checks it
+        List<List<ComplianceTracker.Violation>> results = new ArrayList<>(Collections.nCopies(chunks, null));
+        pool.invoke(new EvaluateTask(staff, results, 0, chunks));
+        int total = 0;
+        for (List<ComplianceTracker.Violation> chunk : results) {
+            total += chunk.size();
+        }
+        List<ComplianceTracker.Violation> found = new ArrayList<>(total);
+        for (List<ComplianceTracker.Violation> chunk : results) {
+            found.addAll(chunk);
+        }
+        return found;
+    }
+
+    private static void checkRange(List<Staff> staff, int from, int to, List<ComplianceTracker.Violation> found) {
+        int[] counts = new int[7];
+        for (int i = from; i < to; i++) {
+            Staff member = staff.get(i);
+            ComplianceTracker.check(member, ComplianceTracker.countShifts(member, counts), found);
+        }
+    }
+
+    // Checks chunks [from, to) of the staff list into their result slots
+    private static final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Staff> staff;
+        private final List<List<ComplianceTracker.Violation>> results;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(List<Staff> staff, List<List<ComplianceTracker.Violation>> results, int from, int to) {
+            this.staff = staff;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                List<ComplianceTracker.Violation> found = new ArrayList<>();
+                checkRange(staff, from * THRESHOLD, Math.min(staff.size(), (from + 1) * THRESHOLD), found);
+                results.set(from, found);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(staff, results, from, middle), new EvaluateTask(staff, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package healthcare.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * ComplianceReport renders the staff shift compliance report one staff member at a
+ * time, so it never has to hold the whole report in memory.
+ *
+ * - writeTo() streams the report to any Appendable (a Writer, a StringBuilder, ...)
+ * - pages() hands it out a few staff members at a time; each page is rendered only
+ *   when asked for, so a screen can show the first page straight away
+ * - render() builds the whole report as one String, as generateComplianceReport() did
+ *
+ * A report made with nonCompliantOnly lists only the staff who break a rule.
+ */
+public class ComplianceReport {
+    private static final String[] WEEK_DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    private static final String[] SHORT_DAYS = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    private static final String RULE = "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n";
+    private static final String STAFF_END = "└─────────────────────────────────────────────────────────────────────────────\n\n";
+
+    private final List<Staff> nurses;
+    private final List<Staff> doctors;
+    private final Predicate<Staff> include;
+
+    /**
+     * @param include which staff to list; the others are skipped
+     */
+    ComplianceReport(List<Staff> nurses, List<Staff> doctors, Predicate<Staff> include) {
+        this.nurses = nurses;
+        this.doctors = doctors;
+        this.include = include;
+    }
+
+    /**
+     * Stream the whole report to an Appendable.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        Iterator<String> pages = pages(1);
+        while (pages.hasNext()) {
+            out.append(pages.next());
+        }
+    }
+
+    /**
+     * The whole report as one String.
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The report in pages of up to staffPerPage staff members each. The title and
+     * section headings go on the page with the staff that follow them, and the last
+     * page ends with the footer. Pages are rendered as they are asked for.
+     */
+    public Iterator<String> pages(int staffPerPage) {
+        if (staffPerPage < 1) {
+            throw new IllegalArgumentException("A page needs room for at least one staff member");
+        }
+        return new Iterator<String>() {
+            // 0 = title, 1 = nurses, 2 = doctors, 3 = footer, 4 = done
+            private int section;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return section < 4;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                StringBuilder page = new StringBuilder();
+                int listed = 0;
+                while (section < 4 && listed < staffPerPage) {
+                    switch (section) {
+                        case 0:
+                            appendTitle(page);
+                            appendNurseHeading(page);
+                            section = 1;
+                            break;
+                        case 1:
+                        case 2: {
+                            List<Staff> staffList = section == 1 ? nurses : doctors;
+                            if (index == staffList.size()) {
+                                index = 0;
+                                section++;
+                                if (section == 2) {
+                                    appendDoctorHeading(page);
+                                }
+                                break;
+                            }
+                            Staff staff = staffList.get(index++);
+                            if (include.test(staff)) {
+                                if (section == 1) {
+                                    appendNurse(page, staff);
+                                } else {
+                                    appendDoctor(page, staff);
+                                }
+                                listed++;
+                            }
+                            break;
+                        }
+                        default:
+                            appendFooter(page);
+                            section = 4;
+                    }
+                }
+                return page.toString();
+            }
+        };
+    }
+
+    private static void appendTitle(StringBuilder sb) {
+        sb.append("\n");
+        sb.append("╔════════════════════════════════════════════════════════════════════════════════════════════╗\n");
+        sb.append("║                        STAFF SHIFT COMPLIANCE REPORT                                       ║\n");
+        sb.append("╚════════════════════════════════════════════════════════════════════════════════════════════╝\n\n");
+    }
+
+    private static void appendNurseHeading(StringBuilder sb) {
+        sb.append(RULE);
+        sb.append("NURSES - Required: 7 shifts per week (one 8-hour shift per day)\n");
+        sb.append(RULE).append("\n");
+    }
+
+    private static void appendDoctorHeading(StringBuilder sb) {
+        sb.append(RULE);
+        sb.append("DOCTORS - Required: Minimum 7 hours per week (at least 1 hour per day)\n");
+        sb.append(RULE).append("\n");
+    }
+
+    private static void appendFooter(StringBuilder sb) {
+        sb.append(RULE);
+        sb.append("End of Compliance Report\n");
+        sb.append(RULE);
+    }
+
+    private static void appendNurse(StringBuilder sb, Staff staff) {
+        int totalShifts = 0;
+        int totalHours = 0;
+        boolean hasViolations = false;
+
+        sb.append("┌─ ").append(staff.getName()).append(" (").append(staff.getId()).append(")\n");
+
+        for (int i = 0; i < WEEK_DAYS.length; i++) {
+            List<String> shifts = staff.getShiftsForDay(SHORT_DAYS[i]);
+            int shiftCount = shifts.size();
+            totalShifts += shiftCount;
+
+            sb.append("│  ").append(WEEK_DAYS[i]).append(": ");
+
+            if (shiftCount == 0) {
+                sb.append("No shift assigned");
+            } else if (shiftCount == 1) {
+                sb.append(shifts.get(0)).append(" (8 hours)");
+                totalHours += 8;
+            } else {
+                sb.append("⚠ VIOLATION - Multiple shifts: ");
+                sb.append(String.join(", ", shifts));
+                hasViolations = true;
+                totalHours += (shiftCount * 8);
+            }
+            sb.append("\n");
+        }
+
+        // Check compliance
+        boolean compliant = (totalShifts == 7) && !hasViolations;
+
+        sb.append("│\n");
+        sb.append("│  Total Shifts: ").append(totalShifts).append(" / 7 required\n");
+        sb.append("│  Total Hours: ").append(totalHours).append(" hours\n");
+        sb.append("│  Status: ");
+        if (compliant) {
+            sb.append("✓ COMPLIANT\n");
+        } else {
+            sb.append("✗ NON-COMPLIANT");
+            if (totalShifts != 7) {
+                sb.append(" (Wrong number of shifts)");
+            }
+            if (hasViolations) {
+                sb.append(" (Multiple shifts per day)");
+            }
+            sb.append("\n");
+        }
+        sb.append(STAFF_END);
+    }
+
+    private static void appendDoctor(StringBuilder sb, Staff staff) {
+        int totalHours = 0;
+        int daysWorked = 0;
+
+        sb.append("┌─ ").append(staff.getName()).append(" (").append(staff.getId()).append(")\n");
+
+        for (int i = 0; i < WEEK_DAYS.length; i++) {
+            int shiftCount = staff.getShiftCount(SHORT_DAYS[i]);
+            totalHours += shiftCount;
+
+            sb.append("│  ").append(WEEK_DAYS[i]).append(": ");
+
+            if (shiftCount == 0) {
+                sb.append("No shift assigned");
+            } else {
+                sb.append(shiftCount).append(" hour").append(shiftCount > 1 ? "s" : "");
+                daysWorked++;
+            }
+            sb.append("\n");
+        }
+
+        boolean compliant = (totalHours >= 7) && (daysWorked >= 7);
+
+        sb.append("│\n");
+        sb.append("│  Days Worked: ").append(daysWorked).append(" / 7 required\n");
+        sb.append("│  Total Hours: ").append(totalHours).append(" / 7 minimum required\n");
+        sb.append("│  Status: ");
+        if (compliant) {
+            sb.append("✓ COMPLIANT\n");
+        } else {
+            sb.append("✗ NON-COMPLIANT");
+            if (totalHours < 7) {
+                sb.append(" (Insufficient hours)");
+            }
+            if (daysWorked < 7) {
+                sb.append(" (Not working all 7 days)");
+            }
+            sb.append("\n");
+        }
+        sb.append(STAFF_END);
+    }
+}
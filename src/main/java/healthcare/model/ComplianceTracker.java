@@ -0,0 +1,241 @@
+package healthcare.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ComplianceTracker keeps the result of the shift rules up to date as shifts change,
+ * so checking compliance reads the current violations instead of rescanning every
+ * staff member's week.
+ *
+ * Rules:
+ * - Nurses: exactly 7 shifts a week, at most one (8 hours) per day
+ * - Doctors: at least 7 hours a week, with a shift every day
+ *
+ * CareHome calls update() whenever a staff member is registered or their shifts
+ * change. An update recounts that one staff member's seven days (without copying
+ * their shift lists) and re-files their violations, so its cost does not depend on
+ * how many staff there are.
+ */
+public class ComplianceTracker {
+    private static final List<String> DAYS = Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+    private static final int NURSE_WEEKLY_SHIFTS = 7;
+    private static final int NURSE_MAX_DAILY_SHIFTS = 1;
+    private static final int DOCTOR_WEEKLY_HOURS = 7;
+
+    /**
+     * The shift rules a violation can break.
+     */
+    public enum Rule {
+        NURSE_WEEKLY_SHIFTS,    // exactly 7 shifts a week
+        NURSE_DAILY_SHIFTS,     // at most one shift a day
+        DOCTOR_WEEKLY_HOURS,    // at least 7 hours a week
+        DOCTOR_DAILY_SHIFT      // a shift every day
+    }
+
+    /**
+     * One broken rule. The day is null for rules about the whole week.
+     */
+    public static final class Violation {
+        private final Staff staff;
+        private final Rule rule;
+        private final String day;
+        private final String message;
+
+        Violation(Staff staff, Rule rule, String day, String message) {
+            this.staff = staff;
+            this.rule = rule;
+            this.day = day;
+            this.message = message;
+        }
+
+        public Staff getStaff() { return staff; }
+        public String getStaffId() { return staff.getId(); }
+        public Rule getRule() { return rule; }
+        public String getDay() { return day; }
+        public String getMessage() { return message; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Violation)) return false;
+            Violation other = (Violation) o;
+            return staff == other.staff && rule == other.rule && Objects.equals(day, other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(staff), rule, day);
+        }
+
+        @Override
+        public String toString() { return message; }
+    }
+
+    private final Object lock = new Object();
+    // Shifts per day (MON first) of every tracked staff member
+    private final Map<Staff, int[]> shiftCounts = new HashMap<>();
+    // Staff with at least one violation, in the order they became non-compliant
+    private final Map<Staff, List<Violation>> violations = new LinkedHashMap<>();
+    private final Map<String, Set<Staff>> violationsByDay = new HashMap<>();
+    private volatile List<Violation> view = List.of();
+
+    /**
+     * Recount a staff member's shifts and re-check their rules.
+     */
+    public void update(Staff staff) {
+        synchronized (lock) {
+            int[] counts = countShifts(staff, new int[DAYS.size()]);
+            List<Violation> found = new ArrayList<>();
+            check(staff, counts, found);
+            shiftCounts.put(staff, counts);
+            file(staff, found);
+        }
+    }
+
+    /**
+     * Stop tracking a staff member.
+     */
+    public void remove(Staff staff) {
+        synchronized (lock) {
+            shiftCounts.remove(staff);
+            file(staff, List.of());
+        }
+    }
+
+    // Fill counts (one per day, MON first) with a staff member's shifts
+    static int[] countShifts(Staff staff, int[] counts) {
+        for (int d = 0; d < counts.length; d++) {
+            counts[d] = staff.getShiftCount(DAYS.get(d));
+        }
+        return counts;
+    }
+
+    /**
+     * Add every rule a staff member breaks to found, week rules first and then day by day.
+     */
+    static void check(Staff staff, int[] counts, List<Violation> found) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        if (staff instanceof Nurse) {
+            if (total != NURSE_WEEKLY_SHIFTS) {
+                found.add(new Violation(staff, Rule.NURSE_WEEKLY_SHIFTS, null, "Nurse " + staff.getId() + " does not have exactly 7 shifts assigned."));
+            }
+            for (int d = 0; d < counts.length; d++) {
+                if (counts[d] > NURSE_MAX_DAILY_SHIFTS) {
+                    found.add(new Violation(staff, Rule.NURSE_DAILY_SHIFTS, DAYS.get(d), "Nurse " + staff.getId() + " has more than one shift on " + DAYS.get(d)));
+                }
+            }
+        } else if (staff instanceof Doctor) {
+            // Doctor shifts are one hour each
+            if (total < DOCTOR_WEEKLY_HOURS) {
+                found.add(new Violation(staff, Rule.DOCTOR_WEEKLY_HOURS, null, "Doctor " + staff.getId() + " does not have 7 hours assigned."));
+            }
+            for (int d = 0; d < counts.length; d++) {
+                if (counts[d] < 1) {
+                    found.add(new Violation(staff, Rule.DOCTOR_DAILY_SHIFT, DAYS.get(d), "Doctor " + staff.getId() + " does not have a shift on " + DAYS.get(d)));
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void file(Staff staff, List<Violation> found) {
+        List<Violation> previous = found.isEmpty() ? violations.remove(staff) : violations.put(staff, found);
+        if (previous == null && found.isEmpty()) {
+            return;
+        }
+        if (previous != null) {
+            for (Violation violation : previous) {
+                if (violation.day != null) {
+                    violationsByDay.get(violation.day).remove(staff);
+                }
+            }
+        }
+        for (Violation violation : found) {
+            if (violation.day != null) {
+                violationsByDay.computeIfAbsent(violation.day, k -> new LinkedHashSet<>()).add(staff);
+            }
+        }
+        view = null;
+    }
+
+    // LOOKUPS
+
+    public boolean isCompliant() {
+        synchronized (lock) {
+            return violations.isEmpty();
+        }
+    }
+
+    /**
+     * The first violation found, or null if everyone complies.
+     */
+    public Violation firstViolation() {
+        synchronized (lock) {
+            Iterator<List<Violation>> it = violations.values().iterator();
+            return it.hasNext() ? it.next().get(0) : null;
+        }
+    }
+
+    /**
+     * Every current violation; an immutable list rebuilt only after a change.
+     */
+    public List<Violation> getViolations() {
+        List<Violation> current = view;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (view == null) {
+                List<Violation> all = new ArrayList<>();
+                violations.values().forEach(all::addAll);
+                view = Collections.unmodifiableList(all);
+            }
+            return view;
+        }
+    }
+
+    public List<Violation> getViolations(Staff staff) {
+        synchronized (lock) {
+            return List.copyOf(violations.getOrDefault(staff, List.of()));
+        }
+    }
+
+    /**
+     * Staff breaking a rule about one day ("MON", "TUE", ...).
+     */
+    public Set<Staff> getViolatorsOn(String day) {
+        synchronized (lock) {
+            return Set.copyOf(violationsByDay.getOrDefault(day, Set.of()));
+        }
+    }
+
+    public int getNonCompliantCount() {
+        synchronized (lock) {
+            return violations.size();
+        }
+    }
+
+    /**
+     * Shifts on a day as last counted, or 0 for staff that are not tracked.
+     */
+    public int getShiftCount(Staff staff, String day) {
+        synchronized (lock) {
+            int[] counts = shiftCounts.get(staff);
+            int d = DAYS.indexOf(day);
+            return counts == null || d < 0 ? 0 : counts[d];
+        }
+    }
+}
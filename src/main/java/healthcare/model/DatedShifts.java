@@ -0,0 +1,123 @@
+package healthcare.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * DatedShifts holds one staff member's changes to their weekly pattern for particular
+ * calendar weeks (leave, swaps, extra shifts). Weeks are numbered from the Monday of
+ * 1970-01-01's week, and each changed week stores two shift masks in the same layout
+ * as Staff's weekly bits (one byte per day, one bit per ShiftSlot):
+ * - added:   slots worked that week on top of the pattern
+ * - removed: pattern slots not worked that week; LEAVE_DAY marks a whole day off
+ * A week's shifts are (pattern & ~removed) | added, so weeks nobody changed cost
+ * nothing and later changes to the pattern still show up around the changes.
+ *
+ * The weeks are kept as three parallel sorted arrays and looked up by binary search.
+ * A week whose changes cancel out is dropped.
+ * Serializable so Staff can still be written with Java serialization.
+ */
+final class DatedShifts implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Top bit of a day's byte in removed: the whole day is off, free-form shifts included
+    static final int LEAVE_BIT = 7;
+    static final long LEAVE_DAY = 0xFF;
+
+    private static final int EPOCH_DAY_OF_WEEK = 3;   // 1970-01-01 was a Thursday (Monday = 0)
+
+    private long[] weeks = new long[4];
+    private long[] added = new long[4];
+    private long[] removed = new long[4];
+    private int size;
+
+    static long weekOf(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay() + EPOCH_DAY_OF_WEEK, 7);
+    }
+
+    // Monday = 0 ... Sunday = 6
+    static int dayOf(LocalDate date) {
+        return Math.floorMod(date.toEpochDay() + EPOCH_DAY_OF_WEEK, 7);
+    }
+
+    static LocalDate weekStart(long week) {
+        return LocalDate.ofEpochDay(week * 7 - EPOCH_DAY_OF_WEEK);
+    }
+
+    /**
+     * The week's slots given the weekly pattern's slots.
+     */
+    long apply(long week, long pattern) {
+        int i = Arrays.binarySearch(weeks, 0, size, week);
+        return i < 0 ? pattern : (pattern & ~removed[i]) | added[i];
+    }
+
+    long getAdded(long week) {
+        int i = Arrays.binarySearch(weeks, 0, size, week);
+        return i < 0 ? 0 : added[i];
+    }
+
+    long getRemoved(long week) {
+        int i = Arrays.binarySearch(weeks, 0, size, week);
+        return i < 0 ? 0 : removed[i];
+    }
+
+    /**
+     * Replace a week's changes; both masks 0 goes back to the pattern.
+     */
+    void set(long week, long addedBits, long removedBits) {
+        int i = Arrays.binarySearch(weeks, 0, size, week);
+        if (addedBits == 0 && removedBits == 0) {
+            if (i >= 0) {
+                int tail = size - i - 1;
+                System.arraycopy(weeks, i + 1, weeks, i, tail);
+                System.arraycopy(added, i + 1, added, i, tail);
+                System.arraycopy(removed, i + 1, removed, i, tail);
+                size--;
+            }
+            return;
+        }
+        if (i < 0) {
+            i = -i - 1;
+            if (size == weeks.length) {
+                weeks = Arrays.copyOf(weeks, size * 2);
+                added = Arrays.copyOf(added, size * 2);
+                removed = Arrays.copyOf(removed, size * 2);
+            }
+            int tail = size - i;
+            System.arraycopy(weeks, i, weeks, i + 1, tail);
+            System.arraycopy(added, i, added, i + 1, tail);
+            System.arraycopy(removed, i, removed, i + 1, tail);
+            weeks[i] = week;
+            size++;
+        }
+        added[i] = addedBits;
+        removed[i] = removedBits;
+    }
+
+    DatedShifts copy() {
+        DatedShifts copy = new DatedShifts();
+        copy.weeks = Arrays.copyOf(weeks, weeks.length);
+        copy.added = Arrays.copyOf(added, added.length);
+        copy.removed = Arrays.copyOf(removed, removed.length);
+        copy.size = size;
+        return copy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long weekAt(int index) {
+        return weeks[index];
+    }
+
+    long addedAt(int index) {
+        return added[index];
+    }
+
+    long removedAt(int index) {
+        return removed[index];
+    }
+}
@@ -6,6 +6,10 @@ package healthcare.model;
  * Inherits isRosteredNow() from Staff, so roster checks work for doctors.
  */
 public class Doctor extends Staff {
+    private static final long serialVersionUID = 1L;
+
+    private static final long PERMISSIONS = Action.mask(Action.CHECK_PATIENT, Action.ADD_PRESCRIPTION);
+
     private String specialization;
 
     public Doctor(String id, String name, String email, String phone, String username, String password, String specialization) {
@@ -17,17 +21,8 @@ public class Doctor extends Staff {
     public void setSpecialization(String specialization) { this.specialization = specialization; }
 
     @Override
-    public boolean canPerformAction(String action) {
-        switch (action.toLowerCase()) {
-            case "check_patient":
-            case "add_prescription":
-                return true;
-            case "administer_medication":
-            case "move_patient":
-                return false;
-            default:
-                return false;
-        }
+    protected long permissions() {
+        return PERMISSIONS;
     }
 
     // No need to override isRosteredNow() - inherited from Staff
@@ -0,0 +1,240 @@
+package healthcare.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of the records CareHome writes to its command journal.
+ * Each record holds only what the change needs (IDs plus any new object),
+ * so its size does not depend on how much history the care home has.
+ */
+final class JournalRecords {
+    static final byte ADD_STAFF = 1;
+    static final byte SET_SHIFTS = 2;
+    static final byte ADD_PATIENT = 3;
+    static final byte MOVE_PATIENT = 4;
+    static final byte DISCHARGE_PATIENT = 5;
+    static final byte ADD_PRESCRIPTION = 6;
+    static final byte ADMINISTER_MEDICATION = 7;
+    static final byte SET_WEEK_CHANGES = 8;
+
+    private JournalRecords() {}
+
+    /**
+     * Writes the body of one record.
+     */
+    interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    static byte[] encode(Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            body.write(out);
+        } catch (IOException e) {
+            // Cannot happen when writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static DataInputStream decode(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    // STAFF
+
+    static void writeStaff(DataOutputStream out, Staff staff) throws IOException {
+        writeString(out, staff.getStaffType());
+        writeString(out, staff.getId());
+        writeString(out, staff.getName());
+        writeString(out, staff.getEmail());
+        writeString(out, staff.getPhone());
+        writeString(out, staff.getUsername());
+        writeString(out, staff.getPasswordHash());
+        if (staff instanceof Doctor) {
+            writeString(out, ((Doctor) staff).getSpecialization());
+        } else if (staff instanceof Nurse) {
+            writeString(out, ((Nurse) staff).getCertification());
+        } else {
+            writeString(out, null);
+        }
+        writeShifts(out, staff.getWeeklyShifts());
+        writeWeekChanges(out, staff.getDatedShifts());
+    }
+
+    static Staff readStaff(DataInputStream in) throws IOException {
+        String type = readString(in);
+        String id = readString(in);
+        String name = readString(in);
+        String email = readString(in);
+        String phone = readString(in);
+        String username = readString(in);
+        String passwordHash = readString(in);
+        String detail = readString(in);
+        Staff staff;
+        if ("Doctor".equals(type)) {
+            staff = new Doctor(id, name, email, phone, username, null, detail);
+        } else if ("Nurse".equals(type)) {
+            staff = new Nurse(id, name, email, phone, username, null, detail);
+        } else if ("Manager".equals(type)) {
+            staff = new Manager(id, name, email, phone, username, null);
+        } else {
+            throw new IOException("Unknown staff type " + type);
+        }
+        staff.setPasswordHash(passwordHash);
+        staff.setWeeklyShifts(readShifts(in));
+        // Records written before calendar weeks existed end here
+        if (in.available() > 0) {
+            readWeekChanges(in, staff);
+        }
+        return staff;
+    }
+
+    static void writeShifts(DataOutputStream out, Map<String, List<String>> shifts) throws IOException {
+        out.writeInt(shifts.size());
+        for (Map.Entry<String, List<String>> day : shifts.entrySet()) {
+            writeString(out, day.getKey());
+            out.writeInt(day.getValue().size());
+            for (String slot : day.getValue()) {
+                writeString(out, slot);
+            }
+        }
+    }
+
+    static Map<String, List<String>> readShifts(DataInputStream in) throws IOException {
+        int days = in.readInt();
+        Map<String, List<String>> shifts = new HashMap<>();
+        for (int i = 0; i < days; i++) {
+            String day = readString(in);
+            int count = in.readInt();
+            List<String> slots = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                slots.add(readString(in));
+            }
+            shifts.put(day, slots);
+        }
+        return shifts;
+    }
+
+    // Leave, swaps and extra shifts of particular calendar weeks (see DatedShifts)
+    static void writeWeekChanges(DataOutputStream out, DatedShifts weeks) throws IOException {
+        int count = weeks == null ? 0 : weeks.size();
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(weeks.weekAt(i));
+            out.writeLong(weeks.addedAt(i));
+            out.writeLong(weeks.removedAt(i));
+        }
+    }
+
+    static void readWeekChanges(DataInputStream in, Staff staff) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            staff.setWeekChanges(in.readLong(), in.readLong(), in.readLong());
+        }
+    }
+
+    // PATIENTS
+
+    static void writePatient(DataOutputStream out, Patient patient) throws IOException {
+        writeString(out, patient.getId());
+        writeString(out, patient.getName());
+        writeString(out, patient.getEmail());
+        writeString(out, patient.getPhone());
+        out.writeLong(patient.getDateOfBirth().toEpochDay());
+        writeString(out, patient.getGender());
+        writeString(out, patient.getMedicalCondition());
+        out.writeBoolean(patient.requiresIsolation());
+    }
+
+    static Patient readPatient(DataInputStream in) throws IOException {
+        return new Patient(readString(in), readString(in), readString(in), readString(in),
+                LocalDate.ofEpochDay(in.readLong()), readString(in), readString(in), in.readBoolean());
+    }
+
+    static void writePrescription(DataOutputStream out, Prescription prescription) throws IOException {
+        writeString(out, prescription.getPrescriptionId());
+        writeString(out, prescription.getPatientId());
+        writeString(out, prescription.getDoctorId());
+        writeDateTime(out, prescription.getPrescriptionDate());
+        writeString(out, prescription.getNotes());
+        List<Medication> medications = prescription.getMedications();
+        out.writeInt(medications.size());
+        for (Medication medication : medications) {
+            writeString(out, medication.getMedicationName());
+            writeString(out, medication.getDosage());
+            writeString(out, medication.getFrequency());
+            writeString(out, medication.getAdministrationTime());
+            writeString(out, medication.getInstructions());
+        }
+    }
+
+    static Prescription readPrescription(DataInputStream in) throws IOException {
+        Prescription prescription = new Prescription(readString(in), readString(in), readString(in), null);
+        prescription.setPrescriptionDate(readDateTime(in));
+        prescription.setNotes(readString(in));
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            prescription.addMedication(new Medication(readString(in), readString(in), readString(in),
+                    readString(in), readString(in)));
+        }
+        return prescription;
+    }
+
+    static void writeMedicationRecord(DataOutputStream out, MedicationRecord record) throws IOException {
+        writeString(out, record.getRecordId());
+        writeString(out, record.getPatientId());
+        writeString(out, record.getNurseId());
+        writeString(out, record.getMedicationName());
+        writeString(out, record.getDosageGiven());
+        writeDateTime(out, record.getAdministrationTime());
+        writeString(out, record.getNotes());
+        out.writeBoolean(record.isAdministered());
+    }
+
+    static MedicationRecord readMedicationRecord(DataInputStream in) throws IOException {
+        MedicationRecord record = new MedicationRecord(readString(in), readString(in), readString(in),
+                readString(in), readString(in));
+        record.setAdministrationTime(readDateTime(in));
+        record.setNotes(readString(in));
+        record.setAdministered(in.readBoolean());
+        return record;
+    }
+
+    // PRIMITIVES
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
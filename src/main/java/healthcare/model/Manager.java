@@ -1,5 +1,7 @@
 package healthcare.model;
 
+import java.time.DayOfWeek;
+
 /**
  * Manager class that extends Staff.
  * Managers can perform all administrative tasks including:
@@ -13,39 +15,38 @@ package healthcare.model;
  * - Administer medication (Nurse only)
  */
 public class Manager extends Staff {
+    private static final long serialVersionUID = 1L;
+
+    // Everything except the clinical actions reserved for doctors and nurses
+    private static final long PERMISSIONS = Action.mask(Action.values())
+            & ~Action.mask(Action.ADD_PRESCRIPTION, Action.ADMINISTER_MEDICATION);
 
     public Manager(String id, String name, String email, String phone, String username, String password) {
         super(id, name, email, phone, username, password, "Manager");
     }
 
     @Override
-    public boolean canPerformAction(String action) {
-        // Explicit manager permissions (positive check for clarity)
-        switch (action.toLowerCase()) {
-            case "add_staff":
-            case "add_patient":
-            case "discharge_patient":  // ← NEW: Explicitly allow discharge
-            case "move_patient":       // Managers can move patients
-            case "manage_shifts":
-                return true;
-
-            // Block actions reserved for Doctor/Nurse
-            case "add_prescription":      // Doctor only
-            case "administer_medication": // Nurse only
-                return false;
-
-            // Default: allow (managers have broad permissions)
-            default:
-                return true;
-        }
+    protected long permissions() {
+        return PERMISSIONS;
+    }
+
+    @Override
+    protected boolean allowsUnknownActions() {
+        // Managers have broad permissions
+        return true;
     }
 
     @Override
-    public boolean isRosteredNow() {
+    public boolean isRosteredAt(DayOfWeek day, int hour) {
         // Managers are always considered on duty
         return true;
     }
 
+    @Override
+    protected boolean isRosteredAtHour(long epochHour) {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Manager{id='" + id + "', name='" + name + "'}";
@@ -6,6 +6,8 @@ import java.io.Serializable;
  * Medication class represents individual medication details within a prescription.
  */
 public class Medication implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String medicationName;
     private String dosage;
     private String frequency; // e.g., "twice daily", "every 8 hours"
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
  * Used for audit trails and compliance tracking.
  */
 public class MedicationRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String recordId;
     private String patientId;
     private String nurseId;
@@ -6,6 +6,10 @@ package healthcare.model;
  * Inherits isRosteredNow() from Staff, so roster checks work for nurses.
  */
 public class Nurse extends Staff {
+    private static final long serialVersionUID = 1L;
+
+    private static final long PERMISSIONS = Action.mask(Action.CHECK_PATIENT, Action.ADMINISTER_MEDICATION, Action.MOVE_PATIENT);
+
     private String certification;
 
     public Nurse(String id, String name, String email, String phone, String username, String password, String certification) {
@@ -17,17 +21,8 @@ public class Nurse extends Staff {
     public void setCertification(String certification) { this.certification = certification; }
 
     @Override
-    public boolean canPerformAction(String action) {
-        switch (action.toLowerCase()) {
-            case "check_patient":
-            case "administer_medication":
-            case "move_patient":
-                return true;
-            case "add_prescription":
-                return false;
-            default:
-                return false;
-        }
+    protected long permissions() {
+        return PERMISSIONS;
     }
 
     // No need to override isRosteredNow() - inherited from Staff
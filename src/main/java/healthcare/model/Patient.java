@@ -1,9 +1,12 @@
 package healthcare.model;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -11,13 +14,25 @@ import java.util.List;
  * Represents residents in the healthcare facility.
  */
 public class Patient extends Person implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private LocalDate dateOfBirth;
     private String gender; // "M" or "F"
     private String medicalCondition;
     private boolean requiresIsolation;
     private String bedId; // Current bed assignment
-    private List<Prescription> prescriptions;
-    private List<MedicationRecord> medicationHistory;
+    private volatile List<Prescription> prescriptions;
+    private volatile List<MedicationRecord> medicationHistory;
+
+    // Set while the clinical history is still undecoded in a loaded snapshot
+    private transient volatile LazyHistory lazyHistory;
+
+    /**
+     * Clinical history that is decoded on first access.
+     */
+    interface LazyHistory {
+        void decodeInto(List<Prescription> prescriptions, List<MedicationRecord> medicationHistory);
+    }
 
     public Patient(String id, String name, String email, String phone, LocalDate dateOfBirth, String gender, String medicalCondition, boolean requiresIsolation) {
         super(id, name, email, phone);
@@ -25,8 +40,8 @@ public class Patient extends Person implements Serializable {
         this.gender = gender.toUpperCase();
         this.medicalCondition = medicalCondition;
         this.requiresIsolation = requiresIsolation;
-        this.prescriptions = new ArrayList<>();
-        this.medicationHistory = new ArrayList<>();
+        this.prescriptions = Collections.emptyList();
+        this.medicationHistory = Collections.emptyList();
     }
 
     // Getters and Setters
@@ -45,11 +60,63 @@ public class Patient extends Person implements Serializable {
     public String getBedId() { return bedId; }
     public void setBedId(String bedId) { this.bedId = bedId; }
 
-    public List<Prescription> getPrescriptions() { return new ArrayList<>(prescriptions); }
-    public void addPrescription(Prescription prescription) { this.prescriptions.add(prescription); }
+    // Copy-on-write: getters return the current read-only list without copying,
+    // adds swap in a new list so readers never see a list change under them
+    public List<Prescription> getPrescriptions() {
+        loadHistory();
+        return prescriptions;
+    }
+
+    public synchronized void addPrescription(Prescription prescription) {
+        loadHistory();
+        this.prescriptions = append(prescriptions, prescription);
+    }
+
+    public List<MedicationRecord> getMedicationHistory() {
+        loadHistory();
+        return medicationHistory;
+    }
+
+    public synchronized void addMedicationRecord(MedicationRecord record) {
+        loadHistory();
+        this.medicationHistory = append(medicationHistory, record);
+    }
+
+    void setLazyHistory(LazyHistory lazyHistory) { this.lazyHistory = lazyHistory; }
 
-    public List<MedicationRecord> getMedicationHistory() { return new ArrayList<>(medicationHistory); }
-    public void addMedicationRecord(MedicationRecord record) { this.medicationHistory.add(record); }
+    // The undecoded history, or null once it has been decoded (lets a snapshot copy it as is)
+    LazyHistory getLazyHistory() { return lazyHistory; }
+
+    private void loadHistory() {
+        if (lazyHistory == null) {
+            return;
+        }
+        synchronized (this) {
+            LazyHistory source = lazyHistory;
+            if (source == null) {
+                return;
+            }
+            List<Prescription> decodedPrescriptions = new ArrayList<>();
+            List<MedicationRecord> decodedHistory = new ArrayList<>();
+            source.decodeInto(decodedPrescriptions, decodedHistory);
+            this.prescriptions = Collections.unmodifiableList(decodedPrescriptions);
+            this.medicationHistory = Collections.unmodifiableList(decodedHistory);
+            // Cleared last, so a reader that sees null also sees the decoded lists
+            this.lazyHistory = null;
+        }
+    }
+
+    private static <T> List<T> append(List<T> list, T item) {
+        List<T> copy = new ArrayList<>(list.size() + 1);
+        copy.addAll(list);
+        copy.add(item);
+        return Collections.unmodifiableList(copy);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        loadHistory();
+        out.defaultWriteObject();
+    }
 
     public int getAge() {
         return Period.between(dateOfBirth, LocalDate.now()).getYears();
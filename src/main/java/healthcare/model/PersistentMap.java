@@ -0,0 +1,328 @@
+package healthcare.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable hash map that shares structure with the map it was derived from.
+ * Keys sit in a trie of 32-way branches indexed by five bits of the key's hash at a
+ * time, so plus() and minus() copy only the branches on the path to one key (a few
+ * small arrays) and every other branch is shared. Lookups walk the same path.
+ * Keys whose whole hash is equal share a collision node.
+ *
+ * Used for the patient and staff maps of CareHomeSnapshot, so publishing a change to
+ * one patient costs O(log N) rather than a copy of every patient.
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<>(null, 0);
+
+    // A Branch, or null when the map is empty
+    private final Branch root;
+    private final int size;
+
+    private PersistentMap(Branch root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * This map with key mapped to value. Returns this map if it already holds that mapping.
+     */
+    PersistentMap<K, V> plus(K key, V value) {
+        Entry<K, V> entry = new Entry<>(hash(key), key, value);
+        boolean added = !containsKey(key);
+        Branch start = root != null ? root : new Branch(0, new Object[0]);
+        Branch updated = (Branch) put(start, 0, entry);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentMap<>(updated, added ? size + 1 : size);
+    }
+
+    /**
+     * This map without key. Returns this map if it does not hold key.
+     */
+    PersistentMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Object updated = remove(root, 0, hash(key), key);
+        if (updated == root) {
+            return this;
+        }
+        // The root stays a branch; it only goes away with the last key
+        return updated == null ? empty() : new PersistentMap<>((Branch) updated, size - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<K, V> entry = find(key);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        // Spread the high bits down, as HashMap does, so the first levels are well used
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<K, V> find(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.slots[Integer.bitCount(branch.bitmap & (bit - 1))];
+            shift += BITS;
+        }
+        if (node instanceof Entry) {
+            Entry<K, V> entry = (Entry<K, V>) node;
+            return entry.hash == hash && Objects.equals(entry.getKey(), key) ? entry : null;
+        }
+        if (node instanceof Collision) {
+            for (Entry<?, ?> entry : ((Collision) node).entries) {
+                if (entry.hash == hash && Objects.equals(entry.getKey(), key)) {
+                    return (Entry<K, V>) entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Node with the entry added or replaced; the same node if nothing changed
+    private static Object put(Object node, int shift, Entry<?, ?> entry) {
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = 1 << ((entry.hash >>> shift) & MASK);
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            if ((branch.bitmap & bit) == 0) {
+                return new Branch(branch.bitmap | bit, insert(branch.slots, index, entry));
+            }
+            Object child = branch.slots[index];
+            Object updated = put(child, shift + BITS, entry);
+            return updated == child ? branch : new Branch(branch.bitmap, replace(branch.slots, index, updated));
+        }
+        if (node instanceof Entry) {
+            Entry<?, ?> existing = (Entry<?, ?>) node;
+            if (existing.hash == entry.hash && Objects.equals(existing.getKey(), entry.getKey())) {
+                return Objects.equals(existing.getValue(), entry.getValue()) ? existing : entry;
+            }
+            if (existing.hash == entry.hash) {
+                return new Collision(entry.hash, new Entry<?, ?>[]{existing, entry});
+            }
+            return split(existing, existing.hash, entry, shift);
+        }
+        Collision collision = (Collision) node;
+        if (collision.hash != entry.hash) {
+            return split(collision, collision.hash, entry, shift);
+        }
+        Entry<?, ?>[] entries = collision.entries;
+        for (int i = 0; i < entries.length; i++) {
+            if (Objects.equals(entries[i].getKey(), entry.getKey())) {
+                if (Objects.equals(entries[i].getValue(), entry.getValue())) {
+                    return collision;
+                }
+                Entry<?, ?>[] copy = entries.clone();
+                copy[i] = entry;
+                return new Collision(collision.hash, copy);
+            }
+        }
+        Entry<?, ?>[] copy = Arrays.copyOf(entries, entries.length + 1);
+        copy[entries.length] = entry;
+        return new Collision(collision.hash, copy);
+    }
+
+    // Branches holding an existing leaf and a new entry whose hashes differ
+    // (they agree below shift, so they part within the 32 bits)
+    private static Branch split(Object leaf, int leafHash, Entry<?, ?> entry, int shift) {
+        int leafBits = (leafHash >>> shift) & MASK;
+        int entryBits = (entry.hash >>> shift) & MASK;
+        if (leafBits == entryBits) {
+            return new Branch(1 << leafBits, new Object[]{split(leaf, leafHash, entry, shift + BITS)});
+        }
+        Object[] slots = leafBits < entryBits ? new Object[]{leaf, entry} : new Object[]{entry, leaf};
+        return new Branch((1 << leafBits) | (1 << entryBits), slots);
+    }
+
+    // Node without the key; the same node if it was not there, null if nothing is left
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((branch.bitmap & bit) == 0) {
+                return branch;
+            }
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            Object child = branch.slots[index];
+            Object updated = remove(child, shift + BITS, hash, key);
+            if (updated == child) {
+                return branch;
+            }
+            if (updated == null) {
+                if (branch.bitmap == bit) {
+                    return null;
+                }
+                Object[] slots = delete(branch.slots, index);
+                // A branch left with one leaf is replaced by the leaf (never the root)
+                if (shift > 0 && slots.length == 1 && !(slots[0] instanceof Branch)) {
+                    return slots[0];
+                }
+                return new Branch(branch.bitmap & ~bit, slots);
+            }
+            if (shift > 0 && branch.slots.length == 1 && !(updated instanceof Branch)) {
+                return updated;
+            }
+            return new Branch(branch.bitmap, replace(branch.slots, index, updated));
+        }
+        if (node instanceof Entry) {
+            Entry<?, ?> entry = (Entry<?, ?>) node;
+            return entry.hash == hash && Objects.equals(entry.getKey(), key) ? null : entry;
+        }
+        Collision collision = (Collision) node;
+        if (collision.hash != hash) {
+            return collision;
+        }
+        Entry<?, ?>[] entries = collision.entries;
+        for (int i = 0; i < entries.length; i++) {
+            if (Objects.equals(entries[i].getKey(), key)) {
+                if (entries.length == 2) {
+                    return entries[1 - i];
+                }
+                Entry<?, ?>[] copy = new Entry<?, ?>[entries.length - 1];
+                System.arraycopy(entries, 0, copy, 0, i);
+                System.arraycopy(entries, i + 1, copy, i, entries.length - i - 1);
+                return new Collision(hash, copy);
+            }
+        }
+        return collision;
+    }
+
+    private static Object[] insert(Object[] slots, int index, Object item) {
+        Object[] copy = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, copy, 0, index);
+        copy[index] = item;
+        System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+        return copy;
+    }
+
+    private static Object[] replace(Object[] slots, int index, Object item) {
+        Object[] copy = slots.clone();
+        copy[index] = item;
+        return copy;
+    }
+
+    private static Object[] delete(Object[] slots, int index) {
+        Object[] copy = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, copy, 0, index);
+        System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+        return copy;
+    }
+
+    private static final class Entry<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+        final int hash;
+
+        Entry(int hash, K key, V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    // Slots for the set bits of bitmap, in bit order: Entry, Collision or Branch
+    private static final class Branch {
+        final int bitmap;
+        final Object[] slots;
+
+        Branch(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // Two or more entries whose keys have the same hash
+    private static final class Collision {
+        final int hash;
+        final Entry<?, ?>[] entries;
+
+        Collision(int hash, Entry<?, ?>[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+    }
+
+    // Depth-first walk over the trie
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        EntryIterator(Branch root) {
+            if (root != null) {
+                pending.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            while (!pending.isEmpty()) {
+                Object node = pending.pop();
+                if (node instanceof Entry) {
+                    return (Map.Entry<K, V>) node;
+                }
+                Object[] children = node instanceof Branch ? ((Branch) node).slots : ((Collision) node).entries;
+                for (int i = children.length - 1; i >= 0; i--) {
+                    pending.push(children[i]);
+                }
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
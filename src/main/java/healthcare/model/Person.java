@@ -1,11 +1,15 @@
 package healthcare.model;
 
+import java.io.Serializable;
+
 /**
  * Abstract base class for all people in the healthcare system.
  * Demonstrates inheritance and encapsulation principles.
  * This class provides common properties and methods for Staff and Patient.
  */
-public abstract class Person {
+public abstract class Person implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     protected String id;
     protected String name;
     protected String email;
@@ -10,6 +10,8 @@ import java.util.List;
  * Contains multiple medications with dosage and timing information.
  */
 public class Prescription implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String prescriptionId;
     private String patientId;
     private String doctorId;
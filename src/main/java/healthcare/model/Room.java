@@ -1,30 +1,51 @@
 package healthcare.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Room class represents individual rooms within wards.
  * Each room contains multiple beds (1-4 beds per room).
+ * Occupancy, gender and isolation counters are kept up to date by the beds,
+ * so admission checks and occupancy counts are constant-time.
  */
 public class Room implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String roomId;
     private String wardId;
     private int bedCount;
     private List<Bed> beds;
 
+    // Running counters, recomputed after deserialization
+    private transient int occupiedCount;
+    private transient int maleCount;
+    private transient int femaleCount;
+    private transient int isolationCount;
+    private transient BitSet freeBeds;
+    private transient Ward ward;
+    private transient RoomListener listener;
+
     public Room(String roomId, String wardId, int bedCount) {
         this.roomId = roomId;
         this.wardId = wardId;
         this.bedCount = bedCount;
         this.beds = new ArrayList<>();
+        this.freeBeds = new BitSet(bedCount);
 
         // Create beds for this room
         for (int i = 1; i <= bedCount; i++) {
             String bedId = roomId + "-B" + i;
-            beds.add(new Bed(bedId, roomId, wardId));
+            Bed bed = new Bed(bedId, roomId, wardId);
+            bed.setRoom(this, i - 1);
+            beds.add(bed);
         }
+        freeBeds.set(0, bedCount);
     }
 
     // Getters and Setters
@@ -36,7 +57,8 @@ public class Room implements Serializable {
 
     public int getBedCount() { return bedCount; }
 
-    public List<Bed> getBeds() { return new ArrayList<>(beds); }
+    // Beds are fixed when the room is created, so a read-only view is safe to share
+    public List<Bed> getBeds() { return Collections.unmodifiableList(beds); }
 
     public Bed getBed(String bedId) {
         return beds.stream()
@@ -46,11 +68,99 @@ public class Room implements Serializable {
     }
 
     public int getAvailableBeds() {
-        return (int) beds.stream().filter(bed -> !bed.isOccupied()).count();
+        return beds.size() - occupiedCount;
     }
 
     public int getOccupiedBeds() {
-        return (int) beds.stream().filter(bed -> bed.isOccupied()).count();
+        return occupiedCount;
+    }
+
+    /**
+     * Gender of the current occupants ("M" or "F"), or null if the room is empty.
+     */
+    public String getRoomGender() {
+        if (maleCount > 0 && femaleCount == 0) return "M";
+        if (femaleCount > 0 && maleCount == 0) return "F";
+        return null;
+    }
+
+    /**
+     * Check the one-gender-per-room rule for a new occupant.
+     */
+    public boolean canAcceptGender(String gender) {
+        if ("M".equals(gender)) return femaleCount == 0;
+        if ("F".equals(gender)) return maleCount == 0;
+        return true;
+    }
+
+    public boolean hasIsolationPatient() {
+        return isolationCount > 0;
+    }
+
+    /**
+     * First vacant bed in this room, or null if the room is full.
+     */
+    public Bed firstFreeBed() {
+        int slot = freeBeds.nextSetBit(0);
+        return slot < 0 ? null : beds.get(slot);
+    }
+
+    public Ward getWard() { return ward; }
+    void setWard(Ward ward) { this.ward = ward; }
+
+    public void setListener(RoomListener listener) { this.listener = listener; }
+
+    void fireRoomChanged() {
+        if (listener != null) {
+            listener.roomChanged(this);
+        }
+    }
+
+    // Called by Bed before its occupant changes
+    void removeOccupant(Bed bed) {
+        if (!bed.isOccupied()) return;
+        freeBeds.set(bed.getSlot());
+        occupiedCount--;
+        updateGenderCounts(bed, -1);
+        if (bed.occupantRequiresIsolation()) isolationCount--;
+        if (ward != null) ward.occupancyChanged(-1);
+    }
+
+    // Called by Bed after its occupant changes
+    void addOccupant(Bed bed) {
+        if (!bed.isOccupied()) return;
+        freeBeds.clear(bed.getSlot());
+        occupiedCount++;
+        updateGenderCounts(bed, 1);
+        if (bed.occupantRequiresIsolation()) isolationCount++;
+        if (ward != null) ward.occupancyChanged(1);
+    }
+
+    private void updateGenderCounts(Bed bed, int delta) {
+        if ("M".equals(bed.getOccupantGender())) {
+            maleCount += delta;
+        } else if ("F".equals(bed.getOccupantGender())) {
+            femaleCount += delta;
+        }
+    }
+
+    private void recount() {
+        occupiedCount = 0;
+        maleCount = 0;
+        femaleCount = 0;
+        isolationCount = 0;
+        freeBeds = new BitSet(beds.size());
+        freeBeds.set(0, beds.size());
+        for (int i = 0; i < beds.size(); i++) {
+            Bed bed = beds.get(i);
+            bed.setRoom(this, i);
+            addOccupant(bed);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        recount();
     }
 
     @Override
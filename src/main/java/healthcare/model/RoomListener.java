@@ -0,0 +1,8 @@
+package healthcare.model;
+
+/**
+ * Callback for components that need to know when a room's occupancy changes.
+ */
+public interface RoomListener {
+    void roomChanged(Room room);
+}
@@ -0,0 +1,212 @@
+package healthcare.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * RosterIndex answers "who is on duty at time T" (or at any point between two times)
+ * for the whole staff from their weekly shifts.
+ *
+ * The week is cut into segments at every shift start and end; each segment stores
+ * the staff on duty for its whole length. Segments are kept in a TreeMap keyed by
+ * their first minute of the week (Monday 0:00 = 0), so a point lookup is one floor
+ * search and a range lookup visits only the segments it overlaps. Changing one staff
+ * member's shifts only splits or merges the segments their shifts touch.
+ *
+ * Like the StaffDirectory buckets, a segment keeps a set plus a cached immutable copy
+ * of it: changes edit the set in place and drop the copy, and the next lookup rebuilds
+ * it once. So moving one nurse does not copy the hundreds of others on the same shift.
+ *
+ * The roster repeats every week, so only the day of week and time of day of a query
+ * matter. Staff without shifts (e.g. managers) are never listed.
+ */
+public class RosterIndex {
+    public static final int MINUTES_PER_WEEK = 7 * 24 * 60;
+
+    // Staff on duty from one boundary to the next; guarded by the index's lock
+    private static final class Segment {
+        final Set<Staff> members;
+        Set<Staff> view;
+
+        Segment(Set<Staff> members) {
+            this.members = members;
+        }
+
+        Set<Staff> view() {
+            if (view == null) {
+                view = Collections.unmodifiableSet(new LinkedHashSet<>(members));
+            }
+            return view;
+        }
+    }
+
+    private final Object lock = new Object();
+    // First minute of each segment -> the segment; key 0 is always present
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // Shifts each staff member is indexed with, as {start, end} minutes (end <= MINUTES_PER_WEEK)
+    private final Map<Staff, List<int[]>> indexed = new HashMap<>();
+
+    public RosterIndex() {
+        segments.put(0, new Segment(new LinkedHashSet<>()));
+    }
+
+    /**
+     * Index a staff member's current shifts, replacing what was indexed for them before.
+     */
+    public void update(Staff staff) {
+        List<int[]> intervals = new ArrayList<>();
+        WeeklyRoster.forEachShift(staff.getWeeklyShifts(), (firstHour, hours) -> {
+            int start = firstHour * 60;
+            int end = start + hours * 60;
+            if (end > MINUTES_PER_WEEK) {
+                // Runs from Sunday night into Monday morning
+                intervals.add(new int[]{start, MINUTES_PER_WEEK});
+                intervals.add(new int[]{0, end - MINUTES_PER_WEEK});
+            } else {
+                intervals.add(new int[]{start, end});
+            }
+        });
+        synchronized (lock) {
+            removeIntervals(staff);
+            for (int[] interval : intervals) {
+                apply(staff, interval[0], interval[1], true);
+            }
+            if (!intervals.isEmpty()) {
+                indexed.put(staff, intervals);
+            }
+        }
+    }
+
+    /**
+     * Take a staff member out of the index.
+     */
+    public void remove(Staff staff) {
+        synchronized (lock) {
+            removeIntervals(staff);
+        }
+    }
+
+    private void removeIntervals(Staff staff) {
+        List<int[]> previous = indexed.remove(staff);
+        if (previous != null) {
+            for (int[] interval : previous) {
+                apply(staff, interval[0], interval[1], false);
+            }
+        }
+    }
+
+    // Add or remove a staff member on every segment inside [start, end), splitting at both ends
+    private void apply(Staff staff, int start, int end, boolean add) {
+        split(start);
+        if (end < MINUTES_PER_WEEK) {
+            split(end);
+        }
+        for (Segment segment : segments.subMap(start, true, end, false).values()) {
+            boolean changed = add ? segment.members.add(staff) : segment.members.remove(staff);
+            if (changed) {
+                segment.view = null;
+            }
+        }
+        merge(start);
+        if (end < MINUTES_PER_WEEK) {
+            merge(end);
+        }
+    }
+
+    private void split(int minute) {
+        if (!segments.containsKey(minute)) {
+            segments.put(minute, new Segment(new LinkedHashSet<>(segments.floorEntry(minute).getValue().members)));
+        }
+    }
+
+    // Drop a boundary whose segment has the same staff as the one before it
+    private void merge(int minute) {
+        if (minute == 0) {
+            return;
+        }
+        Segment segment = segments.get(minute);
+        if (segment != null && segment.members.equals(segments.lowerEntry(minute).getValue().members)) {
+            segments.remove(minute);
+        }
+    }
+
+    // LOOKUPS
+
+    /**
+     * Staff on duty at a minute of the week (0 = Monday 0:00).
+     * @return an immutable set
+     */
+    public Set<Staff> onDutyAt(int minuteOfWeek) {
+        synchronized (lock) {
+            return segments.floorEntry(Math.floorMod(minuteOfWeek, MINUTES_PER_WEEK)).getValue().view();
+        }
+    }
+
+    public Set<Staff> onDutyAt(LocalDateTime time) {
+        return onDutyAt(minuteOfWeek(time));
+    }
+
+    /**
+     * Staff on duty at any point from one time up to (not including) another.
+     */
+    public Set<Staff> onDutyBetween(LocalDateTime from, LocalDateTime to) {
+        long minutes = ChronoUnit.MINUTES.between(from, to);
+        if (minutes <= 0) {
+            return Collections.emptySet();
+        }
+        int start = minuteOfWeek(from);
+        if (minutes >= MINUTES_PER_WEEK) {
+            return onDutyBetween(0, MINUTES_PER_WEEK);
+        }
+        int end = start + (int) minutes;
+        if (end <= MINUTES_PER_WEEK) {
+            return onDutyBetween(start, end);
+        }
+        // The range runs past Sunday midnight: look at both ends of the week
+        Set<Staff> result = new LinkedHashSet<>(onDutyBetween(start, MINUTES_PER_WEEK));
+        result.addAll(onDutyBetween(0, end - MINUTES_PER_WEEK));
+        return Collections.unmodifiableSet(result);
+    }
+
+    // Union of the segments overlapping [start, end) within one week
+    private Set<Staff> onDutyBetween(int start, int end) {
+        synchronized (lock) {
+            int first = segments.floorKey(start);
+            Map<Integer, Segment> overlapping = segments.subMap(first, true, end, false);
+            if (overlapping.size() == 1) {
+                return overlapping.values().iterator().next().view();
+            }
+            Set<Staff> result = new LinkedHashSet<>();
+            for (Segment segment : overlapping.values()) {
+                result.addAll(segment.members);
+            }
+            return Collections.unmodifiableSet(result);
+        }
+    }
+
+    /**
+     * Number of segments the week is currently cut into.
+     */
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public static int minuteOfWeek(LocalDateTime time) {
+        return minuteOfWeek(time.getDayOfWeek(), time.getHour(), time.getMinute());
+    }
+
+    public static int minuteOfWeek(DayOfWeek day, int hour, int minute) {
+        return ((day.getValue() - 1) * 24 + hour) * 60 + minute;
+    }
+}
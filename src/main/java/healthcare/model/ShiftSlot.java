@@ -0,0 +1,38 @@
+package healthcare.model;
+
+/**
+ * The shifts staff can be rostered on. Staff keep their week as bits per day and
+ * slot, and the label is the text used everywhere shifts appear as strings.
+ */
+public enum ShiftSlot {
+    MORNING("8AM-4PM"),
+    AFTERNOON("2PM-10PM"),
+    NIGHT("10PM-6AM"),
+    DOCTOR_HOUR("1HR");
+
+    private final String label;
+
+    ShiftSlot(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * The slot with a label, e.g. "8AM-4PM", or null if no slot has it.
+     */
+    public static ShiftSlot fromLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        switch (label) {
+            case "8AM-4PM": return MORNING;
+            case "2PM-10PM": return AFTERNOON;
+            case "10PM-6AM": return NIGHT;
+            case "1HR": return DOCTOR_HOUR;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package healthcare.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SnapshotCodec writes and reads the compact binary snapshot of a care home
+ * (wards, rooms, beds, staff, patients and their clinical history).
+ *
+ * File layout:
+ *   header      int magic "CHSN", varint schema version, long journal sequence number
+ *   strings     varint count, then each string as varint length + UTF-8 bytes
+ *   wards       varint count; per ward its ID, name and rooms (room ID + bed count)
+ *   staff       varint count; per staff member their kind, details, weekly shifts and
+ *               (since version 2) the changes recorded for particular calendar weeks
+ *   patients    varint count; per patient their details and bed ID, followed by a
+ *               length-prefixed block with their prescriptions and medication records
+ *
+ * Every string is written once in the string table and referenced by a varint index
+ * (0 = null), so repeated values such as staff IDs, medication names and shift slots
+ * cost one or two bytes each. Beds are not stored: their IDs follow from the room ID and
+ * bed count, and occupancy follows from each patient's bed ID. The clinical block of a
+ * patient can be skipped using its length without decoding it.
+ *
+ * Reading loads the file into one heap buffer and decodes only the wards, staff and
+ * patient details. Strings are decoded when first used and each patient's clinical block when their
+ * prescriptions or medication history are first accessed, so startup time depends on
+ * the number of residents but not on how much history they have.
+ *
+ * Bump SCHEMA_VERSION whenever the layout changes and keep a reader for older versions.
+ */
+public final class SnapshotCodec {
+    private static final int MAGIC = 0x4348534E;  // "CHSN"
+    static final int SCHEMA_VERSION = 2;
+
+    private static final int KIND_MANAGER = 0;
+    private static final int KIND_DOCTOR = 1;
+    private static final int KIND_NURSE = 2;
+
+    private SnapshotCodec() {}
+
+    /**
+     * Everything read back from a snapshot, ready to be installed into a CareHome.
+     * Beds of the returned wards are still vacant; patients carry their bed IDs.
+     */
+    public static final class Contents {
+        private final long journalSeq;
+        private final List<Ward> wards;
+        private final List<Staff> staff;
+        private final List<Patient> patients;
+
+        Contents(long journalSeq, List<Ward> wards, List<Staff> staff, List<Patient> patients) {
+            this.journalSeq = journalSeq;
+            this.wards = wards;
+            this.staff = staff;
+            this.patients = patients;
+        }
+
+        public long getJournalSeq() { return journalSeq; }
+        public List<Ward> getWards() { return wards; }
+        public List<Staff> getStaff() { return staff; }
+        public List<Patient> getPatients() { return patients; }
+    }
+
+    // WRITING
+
+    /**
+     * Encode the given state into a byte buffer ready to be written to disk.
+     * Call while the state cannot change (CareHome holds its write lock).
+     */
+    public static ByteBuffer encode(long journalSeq, List<Ward> wards, Collection<Staff> staff, Collection<Patient> patients) {
+        StringTable strings = new StringTable();
+        Output body = new Output(64 * 1024, strings);
+
+        body.writeVarint(wards.size());
+        for (Ward ward : wards) {
+            body.writeString(ward.getWardId());
+            body.writeString(ward.getWardName());
+            List<Room> rooms = ward.getRooms();
+            body.writeVarint(rooms.size());
+            for (Room room : rooms) {
+                body.writeString(room.getRoomId());
+                body.writeVarint(room.getBedCount());
+            }
+        }
+
+        body.writeVarint(staff.size());
+        for (Staff member : staff) {
+            writeStaff(body, member);
+        }
+
+        body.writeVarint(patients.size());
+        Output clinical = new Output(1024, strings);
+        List<Prescription> prescriptions = new ArrayList<>();
+        List<MedicationRecord> history = new ArrayList<>();
+        for (Patient patient : patients) {
+            writePatient(body, patient);
+            clinical.reset();
+            Patient.LazyHistory lazy = patient.getLazyHistory();
+            if (lazy != null) {
+                // Decode into scratch lists so saving does not keep the patient's history in memory
+                prescriptions.clear();
+                history.clear();
+                lazy.decodeInto(prescriptions, history);
+                writeClinicalHistory(clinical, prescriptions, history);
+            } else {
+                writeClinicalHistory(clinical, patient.getPrescriptions(), patient.getMedicationHistory());
+            }
+            body.writeVarint(clinical.size());
+            body.writeBytes(clinical);
+        }
+
+        Output header = new Output(body.size() / 4 + 64, null);
+        header.writeInt(MAGIC);
+        header.writeVarint(SCHEMA_VERSION);
+        header.writeLong(journalSeq);
+        header.writeVarint(strings.values.size());
+        for (String value : strings.values) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(utf8.length);
+            header.writeBytes(utf8, utf8.length);
+        }
+
+        ByteBuffer file = ByteBuffer.allocate(header.size() + body.size());
+        file.put(header.bytes, 0, header.size());
+        file.put(body.bytes, 0, body.size());
+        file.flip();
+        return file;
+    }
+
+    /**
+     * Atomically replace the snapshot file with already encoded contents.
+     * The data goes to a temporary file that is forced to disk and then renamed over
+     * the old snapshot, so a crash leaves either the old or the new snapshot.
+     */
+    public static void write(Path path, ByteBuffer encoded) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = encoded.duplicate();
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeStaff(Output out, Staff staff) {
+        if (staff instanceof Doctor) {
+            out.writeVarint(KIND_DOCTOR);
+        } else if (staff instanceof Nurse) {
+            out.writeVarint(KIND_NURSE);
+        } else {
+            out.writeVarint(KIND_MANAGER);
+        }
+        out.writeString(staff.getId());
+        out.writeString(staff.getName());
+        out.writeString(staff.getEmail());
+        out.writeString(staff.getPhone());
+        out.writeString(staff.getUsername());
+        out.writeString(staff.getPasswordHash());
+        if (staff instanceof Doctor) {
+            out.writeString(((Doctor) staff).getSpecialization());
+        } else if (staff instanceof Nurse) {
+            out.writeString(((Nurse) staff).getCertification());
+        }
+        Map<String, List<String>> shifts = staff.getWeeklyShifts();
+        out.writeVarint(shifts.size());
+        for (Map.Entry<String, List<String>> day : shifts.entrySet()) {
+            out.writeString(day.getKey());
+            out.writeVarint(day.getValue().size());
+            for (String slot : day.getValue()) {
+                out.writeString(slot);
+            }
+        }
+        DatedShifts weeks = staff.getDatedShifts();
+        int weekCount = weeks == null ? 0 : weeks.size();
+        out.writeVarint(weekCount);
+        for (int i = 0; i < weekCount; i++) {
+            out.writeSignedVarlong(weeks.weekAt(i));
+            out.writeVarlong(weeks.addedAt(i));
+            out.writeVarlong(weeks.removedAt(i));
+        }
+    }
+
+    private static void writePatient(Output out, Patient patient) {
+        out.writeString(patient.getId());
+        out.writeString(patient.getName());
+        out.writeString(patient.getEmail());
+        out.writeString(patient.getPhone());
+        out.writeSignedVarlong(patient.getDateOfBirth().toEpochDay());
+        out.writeString(patient.getGender());
+        out.writeString(patient.getMedicalCondition());
+        out.writeBoolean(patient.requiresIsolation());
+        out.writeString(patient.getBedId());
+    }
+
+    private static void writeClinicalHistory(Output out, List<Prescription> prescriptions, List<MedicationRecord> history) {
+        out.writeVarint(prescriptions.size());
+        for (Prescription prescription : prescriptions) {
+            out.writeString(prescription.getPrescriptionId());
+            out.writeString(prescription.getPatientId());
+            out.writeString(prescription.getDoctorId());
+            out.writeDateTime(prescription.getPrescriptionDate());
+            out.writeString(prescription.getNotes());
+            List<Medication> medications = prescription.getMedications();
+            out.writeVarint(medications.size());
+            for (Medication medication : medications) {
+                out.writeString(medication.getMedicationName());
+                out.writeString(medication.getDosage());
+                out.writeString(medication.getFrequency());
+                out.writeString(medication.getAdministrationTime());
+                out.writeString(medication.getInstructions());
+            }
+        }
+        out.writeVarint(history.size());
+        for (MedicationRecord record : history) {
+            out.writeString(record.getRecordId());
+            out.writeString(record.getPatientId());
+            out.writeString(record.getNurseId());
+            out.writeString(record.getMedicationName());
+            out.writeString(record.getDosageGiven());
+            out.writeDateTime(record.getAdministrationTime());
+            out.writeString(record.getNotes());
+            out.writeBoolean(record.isAdministered());
+        }
+    }
+
+    // READING
+
+    /**
+     * Read a snapshot file. The file is read into a heap buffer and the patients' clinical
+     * history is left in it, undecoded, until it is first accessed.
+     * @return the contents, or null if the file does not exist
+     */
+    public static Contents read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        if (Files.size(path) > Integer.MAX_VALUE - 8) {
+            throw new IOException("Snapshot " + path + " is too large");
+        }
+        // Not memory-mapped: undecoded history would keep the file mapped, and on Windows
+        // a mapped file cannot be replaced by the next write's rename
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            return decode(data);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot " + path + ": " + e, e);
+        }
+    }
+
+    static Contents decode(ByteBuffer data) throws IOException {
+        Input in = new Input(data);
+        if (data.getInt() != MAGIC) {
+            throw new IOException("Not a care home snapshot");
+        }
+        int version = in.readVarint();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new IOException("Unsupported snapshot schema version " + version);
+        }
+        long journalSeq = data.getLong();
+        int stringCount = in.readVarint();
+        StringPool strings = new StringPool(data, stringCount);
+        for (int i = 1; i <= stringCount; i++) {
+            int length = in.readVarint();
+            strings.offsets[i] = data.position();
+            strings.lengths[i] = length;
+            data.position(data.position() + length);
+        }
+        in.strings = strings;
+
+        int wardCount = in.readVarint();
+        List<Ward> wards = new ArrayList<>(wardCount);
+        for (int w = 0; w < wardCount; w++) {
+            Ward ward = new Ward(in.readString(), in.readString());
+            int roomCount = in.readVarint();
+            for (int r = 0; r < roomCount; r++) {
+                ward.addRoom(new Room(in.readString(), ward.getWardId(), in.readVarint()));
+            }
+            wards.add(ward);
+        }
+
+        int staffCount = in.readVarint();
+        List<Staff> staff = new ArrayList<>(staffCount);
+        for (int i = 0; i < staffCount; i++) {
+            staff.add(readStaff(in, version));
+        }
+
+        int patientCount = in.readVarint();
+        List<Patient> patients = new ArrayList<>(patientCount);
+        for (int i = 0; i < patientCount; i++) {
+            Patient patient = readPatient(in);
+            int blockLength = in.readVarint();
+            int blockStart = data.position();
+            if (blockLength < 0 || blockLength > data.limit() - blockStart) {
+                throw new IOException("Clinical history of patient " + patient.getId() + " runs past the end of the snapshot");
+            }
+            patient.setLazyHistory(new ClinicalBlock(data, strings, blockStart, blockLength));
+            data.position(blockStart + blockLength);
+            patients.add(patient);
+        }
+        return new Contents(journalSeq, wards, staff, patients);
+    }
+
+    private static Staff readStaff(Input in, int version) throws IOException {
+        int kind = in.readVarint();
+        String id = in.readString();
+        String name = in.readString();
+        String email = in.readString();
+        String phone = in.readString();
+        String username = in.readString();
+        String passwordHash = in.readString();
+        Staff staff;
+        if (kind == KIND_DOCTOR) {
+            staff = new Doctor(id, name, email, phone, username, null, in.readString());
+        } else if (kind == KIND_NURSE) {
+            staff = new Nurse(id, name, email, phone, username, null, in.readString());
+        } else if (kind == KIND_MANAGER) {
+            staff = new Manager(id, name, email, phone, username, null);
+        } else {
+            throw new IOException("Unknown staff kind " + kind);
+        }
+        staff.setPasswordHash(passwordHash);
+        int days = in.readVarint();
+        Map<String, List<String>> shifts = new HashMap<>();
+        for (int d = 0; d < days; d++) {
+            String day = in.readString();
+            int count = in.readVarint();
+            List<String> slots = new ArrayList<>(count);
+            for (int s = 0; s < count; s++) {
+                slots.add(in.readString());
+            }
+            shifts.put(day, slots);
+        }
+        staff.setWeeklyShifts(shifts);
+        if (version >= 2) {
+            int weeks = in.readVarint();
+            for (int w = 0; w < weeks; w++) {
+                staff.setWeekChanges(in.readSignedVarlong(), in.readVarlong(), in.readVarlong());
+            }
+        }
+        return staff;
+    }
+
+    private static Patient readPatient(Input in) {
+        Patient patient = new Patient(in.readString(), in.readString(), in.readString(), in.readString(),
+                LocalDate.ofEpochDay(in.readSignedVarlong()), in.readString(), in.readString(), in.readBoolean());
+        patient.setBedId(in.readString());
+        return patient;
+    }
+
+    // A patient's clinical history, still encoded in the snapshot buffer
+    private static final class ClinicalBlock implements Patient.LazyHistory {
+        private final ByteBuffer data;
+        private final StringPool strings;
+        private final int offset;
+        private final int length;
+
+        ClinicalBlock(ByteBuffer data, StringPool strings, int offset, int length) {
+            this.data = data;
+            this.strings = strings;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void decodeInto(List<Prescription> prescriptions, List<MedicationRecord> medicationHistory) {
+            // Each decode gets its own position, so patients can be loaded from several threads
+            ByteBuffer block = data.duplicate();
+            block.position(offset);
+            Input in = new Input(block);
+            in.strings = strings;
+            try {
+                readClinicalHistory(in, prescriptions, medicationHistory);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Corrupt clinical history in snapshot: " + e, e);
+            }
+            if (block.position() != offset + length) {
+                throw new IllegalStateException("Clinical history in snapshot has the wrong length");
+            }
+        }
+    }
+
+    private static void readClinicalHistory(Input in, List<Prescription> prescriptions, List<MedicationRecord> history) {
+        int prescriptionCount = in.readVarint();
+        for (int i = 0; i < prescriptionCount; i++) {
+            Prescription prescription = new Prescription(in.readString(), in.readString(), in.readString(), null);
+            prescription.setPrescriptionDate(in.readDateTime());
+            prescription.setNotes(in.readString());
+            int medicationCount = in.readVarint();
+            for (int m = 0; m < medicationCount; m++) {
+                prescription.addMedication(new Medication(in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readString()));
+            }
+            prescriptions.add(prescription);
+        }
+        int recordCount = in.readVarint();
+        for (int i = 0; i < recordCount; i++) {
+            MedicationRecord record = new MedicationRecord(in.readString(), in.readString(), in.readString(),
+                    in.readString(), in.readString());
+            record.setAdministrationTime(in.readDateTime());
+            record.setNotes(in.readString());
+            record.setAdministered(in.readBoolean());
+            history.add(record);
+        }
+    }
+
+    // ENCODING PRIMITIVES
+
+    // Strings of one snapshot in first-use order; index 0 is reserved for null
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                values.add(value);
+                index = values.size();
+                indexes.put(value, index);
+            }
+            return index;
+        }
+    }
+
+    // Growable byte array with varint and dictionary-string writers
+    private static final class Output {
+        private final StringTable strings;
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity, StringTable strings) {
+            this.bytes = new byte[capacity];
+            this.strings = strings;
+        }
+
+        int size() { return size; }
+
+        void reset() { size = 0; }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeSignedVarlong(long value) {
+            writeVarlong((value << 1) ^ (value >> 63));  // zigzag, so small negatives stay short
+        }
+
+        void writeBytes(byte[] source, int length) {
+            ensure(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeBytes(Output other) {
+            writeBytes(other.bytes, other.size);
+        }
+
+        void writeString(String value) {
+            writeVarint(value == null ? 0 : strings.indexOf(value));
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeSignedVarlong(value.toEpochSecond(ZoneOffset.UTC));
+                writeVarint(value.getNano());
+            }
+        }
+    }
+
+    // String table of a snapshot being read; each string is decoded on first use.
+    // Racing threads may both decode a string, which is harmless since strings are immutable.
+    private static final class StringPool {
+        private final ByteBuffer data;
+        private final int[] offsets;
+        private final int[] lengths;
+        private final String[] decoded;
+
+        StringPool(ByteBuffer data, int count) {
+            this.data = data;
+            this.offsets = new int[count + 1];
+            this.lengths = new int[count + 1];
+            this.decoded = new String[count + 1];
+        }
+
+        String get(int index) {
+            if (index == 0) {
+                return null;
+            }
+            String value = decoded[index];
+            if (value == null) {
+                byte[] utf8 = new byte[lengths[index]];
+                int offset = offsets[index];
+                for (int i = 0; i < utf8.length; i++) {
+                    utf8[i] = data.get(offset + i);
+                }
+                value = new String(utf8, StandardCharsets.UTF_8);
+                decoded[index] = value;
+            }
+            return value;
+        }
+    }
+
+    // Reads varints and dictionary strings from a buffer
+    private static final class Input {
+        private final ByteBuffer data;
+        private StringPool strings;
+
+        Input(ByteBuffer data) {
+            this.data = data;
+        }
+
+        boolean readBoolean() {
+            return data.get() != 0;
+        }
+
+        int readVarint() {
+            return (int) readVarlong();
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        long readSignedVarlong() {
+            long raw = readVarlong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            return strings.get(readVarint());
+        }
+
+        LocalDateTime readDateTime() {
+            if (!readBoolean()) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(readSignedVarlong(), readVarint(), ZoneOffset.UTC);
+        }
+    }
+}
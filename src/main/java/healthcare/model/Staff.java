@@ -1,13 +1,19 @@
 package healthcare.model;
 
+import healthcare.utils.PasswordHasher;
 import java.io.Serializable;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract Staff class that extends Person.
@@ -15,54 +21,104 @@ import java.util.Map;
  * Implements Serializable for data persistence.
  */
 public abstract class Staff extends Person implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     protected String username;
-    protected String password;
+    protected String passwordHash;   // salted hash, see PasswordHasher
     protected String staffType;
 
-    // Map of day ("MON", "TUE", ...) to list of shift time slots (e.g. "8AM-4PM")
-    protected Map<String, List<String>> weeklyShifts;
+    // Shift changes are synchronized on the staff member, so changes from several terminals are
+    // made (and journaled by the listener) one at a time. Readers take no lock: the fields below
+    // are volatile and the map and DatedShifts are replaced on change, never modified in place.
+
+    // The week's shifts packed one byte per day (MON lowest): bit 8 * day + slot ordinal
+    private volatile long shiftBits;
+    // Shifts that are not a ShiftSlot on a known day (free-form doctor shifts, old data); usually null
+    private volatile Map<String, List<String>> otherShifts;
+
+    // Changes to the pattern for particular calendar weeks (leave, swaps); null until the first
+    private volatile DatedShifts datedShifts;
+
+    // Read-only day -> shifts map and duty hours for the current shifts, built when first asked for
+    private transient volatile ShiftsView shiftsView;
+
+    // Duty hours of the last changed calendar week checked (usually the current one)
+    private transient volatile DatedRoster datedRoster;
+
+    // Told about every shift change (CareHome journals them), not serialized
+    private transient StaffListener listener;
+
+    private static final Clock SYSTEM_CLOCK = Clock.systemDefaultZone();
+
+    private static final String[] DAY_NAMES = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    private static final ShiftSlot[] SLOTS = ShiftSlot.values();
+    private static final long DAY_MASK = 0xFF;
+    // Read-only label lists for every combination of slots in a day, indexed by the day's bits
+    private static final List<List<String>> SLOT_LABELS = slotLabels();
 
     public Staff(String id, String name, String email, String phone, String username, String password, String staffType) {
         super(id, name, email, phone);
         this.username = username;
-        this.password = password;
+        this.passwordHash = password != null ? PasswordHasher.hash(password) : null;
         this.staffType = staffType;
-        this.weeklyShifts = new HashMap<>();
     }
 
     // Getters and Setters
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
 
-    public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
+    public void setUsername(String username) {
+        String oldUsername = this.username;
+        this.username = username;
+        if (listener != null) {
+            listener.usernameChanged(this, oldUsername);
+        }
+    }
+
+    // Only the hash is kept; the plain-text password cannot be read back
+    public String getPasswordHash() { return passwordHash; }
+    public void setPassword(String password) { this.passwordHash = PasswordHasher.hash(password); }
+
+    public boolean checkPassword(String password) {
+        return PasswordHasher.verify(password, passwordHash);
+    }
+
+    // Restore a stored hash; plain-text passwords from older data files are hashed now
+    void setPasswordHash(String storedHash) {
+        this.passwordHash = storedHash == null || PasswordHasher.isHash(storedHash)
+                ? storedHash : PasswordHasher.hash(storedHash);
+    }
 
     public String getStaffType() { return staffType; }
     public void setStaffType(String staffType) { this.staffType = staffType; }
 
     // Assign a shift for a specific day (e.g. "MON", "TUE") and time slot (e.g. "8AM-4PM")
-    public void assignShift(String day, String timeSlot) {
-        List<String> shifts = weeklyShifts.getOrDefault(day, new ArrayList<>());
+    public synchronized void assignShift(String day, String timeSlot) {
+        int count = getShiftCount(day);
 
         if (this instanceof Nurse) {
             // Only allow "8AM-4PM" or "2PM-10PM"
             if (!timeSlot.equals("8AM-4PM") && !timeSlot.equals("2PM-10PM")) {
                 throw new IllegalArgumentException("Nurse can only have '8AM-4PM' or '2PM-10PM' shifts.");
             }
-            if (shifts.size() >= 1) {
+            if (count >= 1) {
                 throw new IllegalArgumentException("Nurse can only have one shift per day (8 hours).");
             }
         } else if (this instanceof Doctor) {
             // Only one unique shift per day for doctor
-            if (shifts.size() >= 1) {
+            if (count >= 1) {
                 throw new IllegalArgumentException("Doctor can only have one shift per day.");
             }
-            if (shifts.contains(timeSlot)) {
-                throw new IllegalArgumentException("Doctor already has this shift for this day.");
-            }
         }
-        shifts.add(timeSlot);
-        weeklyShifts.put(day, shifts);
+        checkShiftsChange();
+        addShiftSlot(day, timeSlot);
+        fireShiftsChanged();
+    }
+
+    /**
+     * Assign a shift by day and slot; the same rules as assignShift(String, String) apply.
+     */
+    public void assignShift(DayOfWeek day, ShiftSlot slot) {
+        assignShift(DAY_NAMES[day.ordinal()], slot.getLabel());
     }
 
     // --- ADD SHIFT METHOD FOR CONTROLLER ---
@@ -73,90 +129,519 @@ public abstract class Staff extends Person implements Serializable {
     }
 
     // Remove a shift for a specific day and time slot
-    public void removeShift(String day, String timeSlot) {
-        if (weeklyShifts.containsKey(day)) {
-            weeklyShifts.get(day).remove(timeSlot);
+    public synchronized void removeShift(String day, String timeSlot) {
+        int dayIndex = dayIndex(day);
+        ShiftSlot slot = ShiftSlot.fromLabel(timeSlot);
+        if (dayIndex >= 0 && slot != null) {
+            long bit = bit(dayIndex, slot);
+            if ((shiftBits & bit) != 0) {
+                checkShiftsChange();
+                shiftBits &= ~bit;
+                fireShiftsChanged();
+            }
+        } else if (otherShifts != null && otherShifts.containsKey(day) && otherShifts.get(day).contains(timeSlot)) {
+            checkShiftsChange();
+            Map<String, List<String>> other = copyOtherShifts();
+            other.get(day).remove(timeSlot);
+            otherShifts = other;
+            fireShiftsChanged();
         }
     }
 
     // Clear all shifts for a specific day (NEW METHOD)
-    public void clearShiftsForDay(String day) {
-        if (weeklyShifts.containsKey(day)) {
-            weeklyShifts.get(day).clear();
+    public synchronized void clearShiftsForDay(String day) {
+        int dayIndex = dayIndex(day);
+        long dayBits = dayIndex >= 0 ? DAY_MASK << (8 * dayIndex) : 0;
+        boolean hasOther = otherShifts != null && otherShifts.containsKey(day);
+        if ((shiftBits & dayBits) != 0 || hasOther) {
+            checkShiftsChange();
+            if (hasOther) {
+                Map<String, List<String>> other = copyOtherShifts();
+                other.remove(day);
+                otherShifts = other;
+            }
+            shiftBits &= ~dayBits;
+            fireShiftsChanged();
         }
     }
 
-    // Get all shifts for a specific day
+    // Get all shifts for a specific day; a read-only list, shared and not copied where possible
     public List<String> getShiftsForDay(String day) {
-        return weeklyShifts.getOrDefault(day, new ArrayList<>());
+        return shiftsForDay(shiftBits, otherShifts, day);
+    }
+
+    private static List<String> shiftsForDay(long bits, Map<String, List<String>> otherShifts, String day) {
+        int dayIndex = dayIndex(day);
+        List<String> slots = dayIndex >= 0 ? SLOT_LABELS.get((int) ((bits >>> (8 * dayIndex)) & DAY_MASK)) : List.of();
+        List<String> other = otherShifts != null ? otherShifts.get(day) : null;
+        if (other == null || other.isEmpty()) {
+            return slots;
+        }
+        List<String> all = new ArrayList<>(slots);
+        all.addAll(other);
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * The slots rostered on a day, as a new set.
+     */
+    public Set<ShiftSlot> getShiftSlots(DayOfWeek day) {
+        return slotSet(daySlots(day.ordinal()));
+    }
+
+    private static Set<ShiftSlot> slotSet(int bits) {
+        EnumSet<ShiftSlot> slots = EnumSet.noneOf(ShiftSlot.class);
+        for (ShiftSlot slot : SLOTS) {
+            if ((bits & (1 << slot.ordinal())) != 0) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    public boolean hasShift(DayOfWeek day, ShiftSlot slot) {
+        return (shiftBits & bit(day.ordinal(), slot)) != 0;
+    }
+
+    // Number of shifts on a day, without copying the list
+    public int getShiftCount(String day) {
+        int dayIndex = dayIndex(day);
+        int count = dayIndex >= 0 ? Integer.bitCount(daySlots(dayIndex)) : 0;
+        Map<String, List<String>> extra = otherShifts;
+        if (extra != null) {
+            List<String> other = extra.get(day);
+            if (other != null) {
+                count += other.size();
+            }
+        }
+        return count;
     }
 
     // Get total number of shifts assigned in the week
     public int getTotalWeeklyShifts() {
-        int total = 0;
-        for (List<String> shifts : weeklyShifts.values()) {
-            total += shifts.size();
+        int total = Long.bitCount(shiftBits);
+        Map<String, List<String>> extra = otherShifts;
+        if (extra != null) {
+            for (List<String> shifts : extra.values()) {
+                total += shifts.size();
+            }
         }
         return total;
     }
 
     // Get total hours assigned for a specific day (assuming 8-hour shifts for nurses)
     public int getDailyHours(String day) {
-        return getShiftsForDay(day).size() * 8;
+        return getShiftCount(day) * 8;
     }
 
     // Get total hours assigned for the week (for doctors, 1 hour per shift)
     public int getTotalWeeklyHours(int hoursPerShift) {
-        int total = 0;
-        for (List<String> shifts : weeklyShifts.values()) {
-            total += shifts.size() * hoursPerShift;
-        }
-        return total;
+        return getTotalWeeklyShifts() * hoursPerShift;
     }
 
-    // Get all assigned shifts as a map
+    /**
+     * All assigned shifts as a read-only map of day to shifts, days with shifts only.
+     * The map is built once per change and shared between callers.
+     */
     public Map<String, List<String>> getWeeklyShifts() {
-        // Return a deep copy to prevent external modification
+        return currentView().days;
+    }
+
+    // The view of the current shifts; one built from older shifts (by a reader racing a change) is rebuilt
+    private ShiftsView currentView() {
+        long bits = shiftBits;
+        Map<String, List<String>> other = otherShifts;
+        ShiftsView view = shiftsView;
+        if (view == null || view.bits != bits || view.other != other) {
+            view = new ShiftsView(bits, other);
+            shiftsView = view;
+        }
+        return view;
+    }
+
+    // The weekly shifts as strings and as duty hours, for one value of shiftBits and otherShifts
+    private static final class ShiftsView {
+        final long bits;
+        final Map<String, List<String>> other;
+        final Map<String, List<String>> days;
+        // Hours of the week on duty (see WeeklyRoster)
+        final long[] roster;
+
+        ShiftsView(long bits, Map<String, List<String>> other) {
+            this.bits = bits;
+            this.other = other;
+            Map<String, List<String>> days = new LinkedHashMap<>();
+            for (String day : DAY_NAMES) {
+                List<String> shifts = shiftsForDay(bits, other, day);
+                if (!shifts.isEmpty()) {
+                    days.put(day, shifts);
+                }
+            }
+            if (other != null) {
+                for (Map.Entry<String, List<String>> entry : other.entrySet()) {
+                    if (dayIndex(entry.getKey()) < 0 && !entry.getValue().isEmpty()) {
+                        days.put(entry.getKey(), List.copyOf(entry.getValue()));
+                    }
+                }
+            }
+            this.days = Collections.unmodifiableMap(days);
+            this.roster = WeeklyRoster.build(this.days);
+        }
+    }
+
+    public synchronized void setWeeklyShifts(Map<String, List<String>> shifts) {
+        checkShiftsChange();
+        long bits = 0;
+        Map<String, List<String>> other = null;
+        for (Map.Entry<String, List<String>> entry : shifts.entrySet()) {
+            int dayIndex = dayIndex(entry.getKey());
+            for (String timeSlot : entry.getValue()) {
+                ShiftSlot slot = ShiftSlot.fromLabel(timeSlot);
+                if (dayIndex >= 0 && slot != null) {
+                    bits |= bit(dayIndex, slot);
+                } else {
+                    if (other == null) {
+                        other = new HashMap<>();
+                    }
+                    other.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(timeSlot);
+                }
+            }
+        }
+        shiftBits = bits;
+        otherShifts = other;
+        fireShiftsChanged();
+    }
+
+    // CALENDAR
+    // The weekly pattern repeats every week; these record what changes on particular dates.
+
+    /**
+     * The slots worked on a date: the pattern for that day of the week with any
+     * leave, swaps or extra shifts for the date applied. A new set.
+     */
+    public Set<ShiftSlot> getShiftSlots(LocalDate date) {
+        return slotSet(dateSlots(date));
+    }
+
+    public boolean hasShift(LocalDate date, ShiftSlot slot) {
+        return (dateSlots(date) & (1 << slot.ordinal())) != 0;
+    }
+
+    /**
+     * Number of shifts worked on a date. Free-form pattern shifts count too,
+     * unless the date is leave.
+     */
+    public int getShiftCount(LocalDate date) {
+        int day = DatedShifts.dayOf(date);
+        int count = Integer.bitCount(dateSlots(date));
+        Map<String, List<String>> extra = otherShifts;
+        if (extra != null && !isOnLeave(date)) {
+            List<String> other = extra.get(DAY_NAMES[day]);
+            if (other != null) {
+                count += other.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add a shift on one date only; the same rules as assignShift(String, String) apply.
+     */
+    public synchronized void assignShift(LocalDate date, ShiftSlot slot) {
+        int count = getShiftCount(date);
+        if (this instanceof Nurse) {
+            if (slot != ShiftSlot.MORNING && slot != ShiftSlot.AFTERNOON) {
+                throw new IllegalArgumentException("Nurse can only have '8AM-4PM' or '2PM-10PM' shifts.");
+            }
+            if (count >= 1) {
+                throw new IllegalArgumentException("Nurse can only have one shift per day (8 hours).");
+            }
+        } else if (this instanceof Doctor) {
+            if (count >= 1) {
+                throw new IllegalArgumentException("Doctor can only have one shift per day.");
+            }
+        }
+        long bit = bit(DatedShifts.dayOf(date), slot);
+        // Undo a removal of a pattern shift, otherwise add the shift for that week
+        changeWeek(date, (shiftBits & bit) != 0 ? 0 : bit, bit);
+    }
+
+    /**
+     * Drop a shift on one date only; the pattern is unchanged.
+     */
+    public synchronized void removeShift(LocalDate date, ShiftSlot slot) {
+        long bit = bit(DatedShifts.dayOf(date), slot);
+        long week = DatedShifts.weekOf(date);
+        long added = getAdded(week) & ~bit;
+        long removed = (shiftBits & bit) != 0 ? getRemoved(week) | bit : getRemoved(week);
+        setWeek(date, added, removed);
+    }
+
+    /**
+     * Take a date off: every shift that day, free-form ones included, is dropped.
+     */
+    public synchronized void setOnLeave(LocalDate date) {
+        long dayMask = DatedShifts.LEAVE_DAY << (8 * DatedShifts.dayOf(date));
+        long week = DatedShifts.weekOf(date);
+        setWeek(date, getAdded(week) & ~dayMask, getRemoved(week) | dayMask);
+    }
+
+    public boolean isOnLeave(LocalDate date) {
+        long leaveBit = 1L << (8 * DatedShifts.dayOf(date) + DatedShifts.LEAVE_BIT);
+        return (getRemoved(DatedShifts.weekOf(date)) & leaveBit) != 0;
+    }
+
+    /**
+     * Forget every change made for a date, so it follows the weekly pattern again.
+     */
+    public synchronized void resetToPattern(LocalDate date) {
+        long dayMask = DatedShifts.LEAVE_DAY << (8 * DatedShifts.dayOf(date));
+        long week = DatedShifts.weekOf(date);
+        setWeek(date, getAdded(week) & ~dayMask, getRemoved(week) & ~dayMask);
+    }
+
+    // A calendar week's slots (week numbers as in DatedShifts), laid out like the pattern
+    long getWeekBits(long week) {
+        return datedShifts == null ? shiftBits : datedShifts.apply(week, shiftBits);
+    }
+
+    // Shifts per day (MON first) in a calendar week, counted as getShiftCount(LocalDate) does
+    void countWeek(long week, int[] counts) {
+        long bits = getWeekBits(week);
+        long removed = getRemoved(week);
+        Map<String, List<String>> extra = otherShifts;
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            counts[d] = Long.bitCount((bits >>> (8 * d)) & DAY_MASK);
+            if (extra != null && (removed & (1L << (8 * d + DatedShifts.LEAVE_BIT))) == 0) {
+                List<String> other = extra.get(DAY_NAMES[d]);
+                if (other != null) {
+                    counts[d] += other.size();
+                }
+            }
+        }
+    }
+
+    // The recorded week changes, for saving; null if there are none
+    DatedShifts getDatedShifts() {
+        return datedShifts;
+    }
+
+    // Replace one week's changes (loading and journal replay)
+    synchronized void setWeekChanges(long week, long added, long removed) {
+        setWeek(DatedShifts.weekStart(week), added, removed);
+    }
+
+    private int dateSlots(LocalDate date) {
+        long bits = getWeekBits(DatedShifts.weekOf(date));
+        return (int) ((bits >>> (8 * DatedShifts.dayOf(date))) & DAY_MASK);
+    }
+
+    private long getAdded(long week) {
+        return datedShifts == null ? 0 : datedShifts.getAdded(week);
+    }
+
+    private long getRemoved(long week) {
+        return datedShifts == null ? 0 : datedShifts.getRemoved(week);
+    }
+
+    private void changeWeek(LocalDate date, long addBits, long unremoveBits) {
+        long week = DatedShifts.weekOf(date);
+        setWeek(date, getAdded(week) | addBits, getRemoved(week) & ~unremoveBits);
+    }
+
+    private void setWeek(LocalDate date, long added, long removed) {
+        long week = DatedShifts.weekOf(date);
+        if (added == getAdded(week) && removed == getRemoved(week)) {
+            return;
+        }
+        checkShiftsChange();
+        DatedShifts weeks = datedShifts != null ? datedShifts.copy() : new DatedShifts();
+        weeks.set(week, added, removed);
+        datedShifts = weeks;
+        if (listener != null) {
+            listener.datedShiftsChanged(this, DatedShifts.weekStart(week));
+        }
+    }
+
+    private void addShiftSlot(String day, String timeSlot) {
+        int dayIndex = dayIndex(day);
+        ShiftSlot slot = ShiftSlot.fromLabel(timeSlot);
+        if (dayIndex >= 0 && slot != null) {
+            shiftBits |= bit(dayIndex, slot);
+        } else {
+            Map<String, List<String>> other = copyOtherShifts();
+            other.computeIfAbsent(day, k -> new ArrayList<>()).add(timeSlot);
+            otherShifts = other;
+        }
+    }
+
+    // A copy of the free-form shifts to change and then publish
+    private Map<String, List<String>> copyOtherShifts() {
         Map<String, List<String>> copy = new HashMap<>();
-        for (String day : weeklyShifts.keySet()) {
-            copy.put(day, new ArrayList<>(weeklyShifts.get(day)));
+        if (otherShifts != null) {
+            for (Map.Entry<String, List<String>> entry : otherShifts.entrySet()) {
+                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
         }
         return copy;
     }
 
-    public void setWeeklyShifts(Map<String, List<String>> shifts) {
-        this.weeklyShifts = new HashMap<>();
-        for (String day : shifts.keySet()) {
-            this.weeklyShifts.put(day, new ArrayList<>(shifts.get(day)));
+    private int daySlots(int dayIndex) {
+        return (int) ((shiftBits >>> (8 * dayIndex)) & DAY_MASK);
+    }
+
+    private static long bit(int dayIndex, ShiftSlot slot) {
+        return 1L << (8 * dayIndex + slot.ordinal());
+    }
+
+    // "MON" -> 0 ... "SUN" -> 6, -1 for anything else
+    private static int dayIndex(String day) {
+        if (day == null) {
+            return -1;
+        }
+        switch (day) {
+            case "MON": return 0;
+            case "TUE": return 1;
+            case "WED": return 2;
+            case "THU": return 3;
+            case "FRI": return 4;
+            case "SAT": return 5;
+            case "SUN": return 6;
+            default: return -1;
+        }
+    }
+
+    private static List<List<String>> slotLabels() {
+        List<List<String>> labels = new ArrayList<>();
+        for (int mask = 0; mask < 1 << SLOTS.length; mask++) {
+            List<String> list = new ArrayList<>();
+            for (ShiftSlot slot : SLOTS) {
+                if ((mask & (1 << slot.ordinal())) != 0) {
+                    list.add(slot.getLabel());
+                }
+            }
+            labels.add(List.copyOf(list));
+        }
+        return List.copyOf(labels);
+    }
+
+    public void setListener(StaffListener listener) { this.listener = listener; }
+
+    // Let the listener refuse a shift change before anything is changed
+    private void checkShiftsChange() {
+        if (listener != null) {
+            listener.beforeShiftsChange(this);
+        }
+    }
+
+    private void fireShiftsChanged() {
+        currentView();
+        if (listener != null) {
+            listener.shiftsChanged(this);
         }
     }
 
-    // Abstract method for role-specific functionality
-    public abstract boolean canPerformAction(String action);
+    // Role-specific permissions as a bitmask of Action bits, fixed per role
+    protected abstract long permissions();
+
+    public final boolean canPerformAction(Action action) {
+        return (permissions() & action.bit()) != 0;
+    }
+
+    /**
+     * String form of canPerformAction, e.g. "add_patient". Names that are not
+     * an Action are decided by allowsUnknownActions().
+     */
+    public boolean canPerformAction(String action) {
+        Action parsed = Action.fromName(action);
+        return parsed != null ? canPerformAction(parsed) : allowsUnknownActions();
+    }
+
+    protected boolean allowsUnknownActions() {
+        return false;
+    }
 
     /**
      * Check if a staff member is rostered (scheduled) right now.
-     * For nurses: Only "8AM-4PM" or "2PM-10PM" shifts are valid.
-     * For doctors: Any day with any shift (e.g. "1HR") means they are rostered any time that day.
-     * Adjust as needed for your specific shift rules!
+     * For nurses: "8AM-4PM" or "2PM-10PM" cover those hours.
+     * For doctors: Any day with a "1HR" shift means they are rostered any time that day.
+     * Leave, swaps and extra shifts for today's date count. Shift strings are parsed once
+     * per change by WeeklyRoster, so this is a bit lookup.
      */
     public boolean isRosteredNow() {
-        LocalDateTime now = LocalDateTime.now();
-        // Returns short day name like "MON", "TUE"...
-        String currentDay = now.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH).toUpperCase();
-        int hour = now.getHour(); // 0-23
-
-        List<String> shifts = getShiftsForDay(currentDay);
-
-        for (String shift : shifts) {
-            // Nurse shift logic
-            if (shift.equals("8AM-4PM") && hour >= 8 && hour < 16) return true;
-            if (shift.equals("2PM-10PM") && hour >= 14 && hour < 22) return true;
-            // Doctor shift logic (default: any "1HR" means can act any time that day)
-            if (shift.equals("1HR")) return true;
-            // If you add other shift patterns, expand here!
-        }
-        return false; // Not on shift at this time
+        return isRosteredNow(SYSTEM_CLOCK);
+    }
+
+    /**
+     * Check if a staff member is rostered at the clock's current time (in the clock's time zone),
+     * with that date's leave, swaps and extra shifts applied.
+     */
+    public boolean isRosteredNow(Clock clock) {
+        return isRosteredAtHour(WeeklyRoster.hourAt(clock));
+    }
+
+    /**
+     * Check if a staff member is rostered during the hour of a date and time, with that
+     * date's leave, swaps and extra shifts applied.
+     */
+    public boolean isRosteredAt(LocalDateTime time) {
+        return isRosteredAtHour(time.toLocalDate().toEpochDay() * 24 + time.getHour());
+    }
+
+    // epochHour: hours from 1970-01-01 0:00 local time
+    protected boolean isRosteredAtHour(long epochHour) {
+        long[] bits = weekRoster(WeeklyRoster.weekOfHour(epochHour));
+        return WeeklyRoster.isSet(bits, WeeklyRoster.slotOfHour(epochHour));
+    }
+
+    // Duty hours of a calendar week: the pattern's, unless the week has changes of its own
+    private long[] weekRoster(long week) {
+        DatedShifts weeks = datedShifts;
+        long bits = shiftBits;
+        Map<String, List<String>> other = otherShifts;
+        long weekBits = weeks != null ? weeks.apply(week, bits) : bits;
+        long removed = weeks != null ? weeks.getRemoved(week) : 0;
+        if (weekBits == bits && removed == 0) {
+            return currentView().roster;
+        }
+        DatedRoster cached = datedRoster;
+        if (cached == null || cached.week != week || cached.bits != weekBits || cached.removed != removed
+                || cached.other != other) {
+            cached = new DatedRoster(week, weekBits, removed, other);
+            datedRoster = cached;
+        }
+        return cached.roster;
+    }
+
+    // Duty hours of one changed calendar week, for the shifts it was built from
+    private static final class DatedRoster {
+        final long week;
+        final long bits;
+        final long removed;
+        final Map<String, List<String>> other;
+        final long[] roster;
+
+        DatedRoster(long week, long bits, long removed, Map<String, List<String>> other) {
+            this.week = week;
+            this.bits = bits;
+            this.removed = removed;
+            this.other = other;
+            Map<String, List<String>> days = new LinkedHashMap<>();
+            for (int d = 0; d < DAY_NAMES.length; d++) {
+                boolean onLeave = (removed & (1L << (8 * d + DatedShifts.LEAVE_BIT))) != 0;
+                // Free-form shifts are dropped on days of leave, as getShiftCount(LocalDate) does
+                days.put(DAY_NAMES[d], shiftsForDay(bits, onLeave ? null : other, DAY_NAMES[d]));
+            }
+            this.roster = WeeklyRoster.build(days);
+        }
+    }
+
+    /**
+     * Check if a staff member is rostered during an hour (0-23) of a day of the week,
+     * going by the weekly pattern only.
+     */
+    public boolean isRosteredAt(DayOfWeek day, int hour) {
+        return WeeklyRoster.isSet(currentView().roster, WeeklyRoster.slot(day, hour));
     }
 
     @Override
@@ -0,0 +1,165 @@
+package healthcare.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StaffDirectory indexes staff by type ("Nurse", "Doctor", "Manager") and by the
+ * days they are rostered on, so questions like "all nurses" or "doctors rostered
+ * on TUE" do not have to scan every staff member.
+ *
+ * Each index entry keeps a set of staff plus a cached immutable list of it. Changes
+ * update the set and drop the cache; the next lookup rebuilds the list once and
+ * every lookup after that returns it as is. So a lookup costs O(result) at most, and
+ * a roster being edited one shift at a time does not rebuild anything until read.
+ *
+ * CareHome keeps the directory in sync by calling add() when staff are registered
+ * and update() when their shifts change.
+ */
+public class StaffDirectory {
+    private static final List<String> DAYS = Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+
+    // One index entry; guarded by the directory's lock except for the cached list
+    private static final class Bucket {
+        private final Set<Staff> members = new LinkedHashSet<>();
+        private volatile List<Staff> view = List.of();
+
+        void add(Staff staff) {
+            if (members.add(staff)) {
+                view = null;
+            }
+        }
+
+        void remove(Staff staff) {
+            if (members.remove(staff)) {
+                view = null;
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final Bucket all = new Bucket();
+    // Concurrent maps so lookups can find their bucket without taking the lock
+    private final Map<String, Bucket> byType = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byDay = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Bucket>> byTypeAndDay = new ConcurrentHashMap<>();
+    // Where each staff member is currently filed, so an update can take them out again
+    private final Map<Staff, String> indexedType = new HashMap<>();
+    private final Map<Staff, Set<String>> indexedDays = new HashMap<>();
+
+    /**
+     * Add a staff member, or re-file them if they are already in the directory.
+     */
+    public void add(Staff staff) {
+        synchronized (lock) {
+            all.add(staff);
+            file(staff);
+        }
+    }
+
+    /**
+     * Take a staff member out of every index.
+     */
+    public void remove(Staff staff) {
+        synchronized (lock) {
+            all.remove(staff);
+            unfile(staff);
+        }
+    }
+
+    /**
+     * Re-file a staff member after their shifts (or type) changed.
+     * Ignored for staff that are not in the directory.
+     */
+    public void update(Staff staff) {
+        synchronized (lock) {
+            if (indexedType.containsKey(staff)) {
+                unfile(staff);
+                file(staff);
+            }
+        }
+    }
+
+    private void file(Staff staff) {
+        String type = staff.getStaffType();
+        indexedType.put(staff, type);
+        bucket(byType, type).add(staff);
+        Set<String> days = new LinkedHashSet<>();
+        for (String day : DAYS) {
+            if (staff.getShiftCount(day) > 0) {
+                days.add(day);
+                bucket(byDay, day).add(staff);
+                bucket(byTypeAndDay.computeIfAbsent(type, k -> new ConcurrentHashMap<>()), day).add(staff);
+            }
+        }
+        indexedDays.put(staff, days);
+    }
+
+    private void unfile(Staff staff) {
+        String type = indexedType.remove(staff);
+        if (type == null) {
+            return;
+        }
+        byType.get(type).remove(staff);
+        for (String day : indexedDays.remove(staff)) {
+            byDay.get(day).remove(staff);
+            byTypeAndDay.get(type).get(day).remove(staff);
+        }
+    }
+
+    private static Bucket bucket(Map<String, Bucket> index, String key) {
+        return index.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    // LOOKUPS - all return immutable lists in the order staff were added
+
+    public List<Staff> getAll() {
+        return view(all);
+    }
+
+    public List<Staff> getByType(String staffType) {
+        return view(byType, staffType);
+    }
+
+    /**
+     * Staff with at least one shift on a day ("MON", "TUE", ...).
+     */
+    public List<Staff> getRosteredOn(String day) {
+        return view(byDay, day);
+    }
+
+    /**
+     * Staff of one type with at least one shift on a day.
+     */
+    public List<Staff> getRosteredOn(String staffType, String day) {
+        Map<String, Bucket> days = byTypeAndDay.get(staffType);
+        return days == null ? List.of() : view(days, day);
+    }
+
+    public int size() {
+        return getAll().size();
+    }
+
+    private List<Staff> view(Map<String, Bucket> index, String key) {
+        Bucket bucket = index.get(key);
+        return bucket == null ? List.of() : view(bucket);
+    }
+
+    private List<Staff> view(Bucket bucket) {
+        List<Staff> view = bucket.view;
+        if (view != null) {
+            return view;
+        }
+        synchronized (lock) {
+            if (bucket.view == null) {
+                bucket.view = List.copyOf(bucket.members);
+            }
+            return bucket.view;
+        }
+    }
+}
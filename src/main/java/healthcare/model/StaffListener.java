@@ -0,0 +1,18 @@
+package healthcare.model;
+
+import java.time.LocalDate;
+
+/**
+ * Callback for components that need to know when a staff member's shifts or username change.
+ */
+public interface StaffListener {
+    // Called before a shift (weekly or dated) is changed; throw IllegalStateException to refuse the change
+    void beforeShiftsChange(Staff staff);
+
+    void shiftsChanged(Staff staff);
+
+    // Leave, swaps or extra shifts changed in the calendar week starting on weekStart (a Monday)
+    void datedShiftsChanged(Staff staff, LocalDate weekStart);
+
+    void usernameChanged(Staff staff, String oldUsername);
+}
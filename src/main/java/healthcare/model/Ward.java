@@ -1,21 +1,34 @@
 package healthcare.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Ward class represents hospital wards containing multiple rooms.
+ * Bed totals and occupancy are tracked incrementally as rooms change.
  */
 public class Ward implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String wardId;
     private String wardName;
     private List<Room> rooms;
 
+    // Running counters, recomputed after deserialization
+    private transient int totalBeds;
+    private transient AtomicInteger occupiedBeds;
+
     public Ward(String wardId, String wardName) {
         this.wardId = wardId;
         this.wardName = wardName;
-        this.rooms = new ArrayList<>();
+        this.rooms = new CopyOnWriteArrayList<>();
+        this.occupiedBeds = new AtomicInteger();
     }
 
     // Getters and Setters
@@ -25,8 +38,12 @@ public class Ward implements Serializable {
     public String getWardName() { return wardName; }
     public void setWardName(String wardName) { this.wardName = wardName; }
 
-    public List<Room> getRooms() { return new ArrayList<>(rooms); }
-    public void addRoom(Room room) { this.rooms.add(room); }
+    // Rooms are copy-on-write, so callers get a read-only view rather than a copy
+    public List<Room> getRooms() { return Collections.unmodifiableList(rooms); }
+    public void addRoom(Room room) {
+        this.rooms.add(room);
+        linkRoom(room);
+    }
 
     public Room getRoom(String roomId) {
         return rooms.stream()
@@ -44,11 +61,36 @@ public class Ward implements Serializable {
     }
 
     public int getTotalBeds() {
-        return rooms.stream().mapToInt(Room::getBedCount).sum();
+        return totalBeds;
     }
 
     public int getAvailableBeds() {
-        return rooms.stream().mapToInt(Room::getAvailableBeds).sum();
+        return totalBeds - occupiedBeds.get();
+    }
+
+    public int getOccupiedBeds() {
+        return occupiedBeds.get();
+    }
+
+    // Called by Room whenever one of its beds is filled or vacated (rooms may change concurrently)
+    void occupancyChanged(int delta) {
+        occupiedBeds.addAndGet(delta);
+    }
+
+    private void linkRoom(Room room) {
+        room.setWard(this);
+        totalBeds += room.getBedCount();
+        occupiedBeds.addAndGet(room.getOccupiedBeds());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rooms = new CopyOnWriteArrayList<>(rooms);
+        totalBeds = 0;
+        occupiedBeds = new AtomicInteger();
+        for (Room room : rooms) {
+            linkRoom(room);
+        }
     }
 
     @Override
@@ -0,0 +1,174 @@
+package healthcare.model;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WeeklyRoster turns a staff member's shift strings into a bitmap of the hours
+ * they are on duty: 7 days x 24 hours = 168 bits, Monday 0:00 first.
+ * Staff rebuilds it whenever their shifts change, so checking whether someone is
+ * on duty is a bit lookup instead of parsing their shifts every time.
+ *
+ * Shift formats:
+ * - "8AM-4PM", "2PM-10PM", ... : the hours from start up to (not including) end;
+ *   a shift that ends after midnight ("10PM-6AM") runs into the next day
+ * - "1HR": on call all day (doctors)
+ * Other strings do not mark any hours.
+ */
+final class WeeklyRoster {
+    static final List<String> DAYS = List.of("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+    static final int HOURS_PER_WEEK = 7 * 24;
+
+    private static final int EPOCH_DAY_OF_WEEK = 3;   // 1970-01-01 was a Thursday (Monday = 0)
+
+    // UTC offset of the last zone looked up and the time span it holds for,
+    // so the hourly lookups do not have to consult the zone rules
+    private static final class CachedOffset {
+        final ZoneId zone;
+        final long validFrom;
+        final long validUntil;
+        final int offsetSeconds;
+
+        CachedOffset(ZoneId zone, long validFrom, long validUntil, int offsetSeconds) {
+            this.zone = zone;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+
+    private static volatile CachedOffset cachedOffset;
+
+    private WeeklyRoster() {}
+
+    /**
+     * Receives the hours of one shift: the first hour of the week and how many hours it lasts.
+     * A shift may run past the end of the week (Sunday night into Monday).
+     */
+    interface ShiftHours {
+        void accept(int firstHour, int hours);
+    }
+
+    /**
+     * Build the bitmap for a map of day ("MON", ...) to shift strings.
+     */
+    static long[] build(Map<String, List<String>> weeklyShifts) {
+        long[] bits = new long[(HOURS_PER_WEEK + 63) / 64];
+        forEachShift(weeklyShifts, (firstHour, hours) -> markHours(bits, firstHour, hours));
+        return bits;
+    }
+
+    /**
+     * Call the action for every shift string that describes hours.
+     */
+    static void forEachShift(Map<String, List<String>> weeklyShifts, ShiftHours action) {
+        for (Map.Entry<String, List<String>> entry : weeklyShifts.entrySet()) {
+            int day = DAYS.indexOf(entry.getKey());
+            if (day < 0) {
+                continue;
+            }
+            for (String shift : entry.getValue()) {
+                parseShift(day, shift, action);
+            }
+        }
+    }
+
+    private static void parseShift(int day, String shift, ShiftHours action) {
+        if ("1HR".equals(shift)) {
+            action.accept(day * 24, 24);
+            return;
+        }
+        int dash = shift.indexOf('-');
+        if (dash < 0) {
+            return;
+        }
+        int start = parseHour(shift.substring(0, dash));
+        int end = parseHour(shift.substring(dash + 1));
+        if (start < 0 || end < 0 || start == end) {
+            return;
+        }
+        int length = end > start ? end - start : end + 24 - start;
+        action.accept(day * 24 + start, length);
+    }
+
+    // "8AM" -> 8, "12PM" -> 12, "10PM" -> 22, "12AM" -> 0; -1 if not an hour
+    private static int parseHour(String text) {
+        String value = text.trim().toUpperCase();
+        if (value.length() < 3 || !(value.endsWith("AM") || value.endsWith("PM"))) {
+            return -1;
+        }
+        int hour;
+        try {
+            hour = Integer.parseInt(value.substring(0, value.length() - 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (hour < 1 || hour > 12) {
+            return -1;
+        }
+        return (hour % 12) + (value.endsWith("PM") ? 12 : 0);
+    }
+
+    private static void markHours(long[] bits, int first, int count) {
+        for (int i = 0; i < count; i++) {
+            int slot = (first + i) % HOURS_PER_WEEK;   // Sunday night runs into Monday
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    static boolean isSet(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    static int slot(DayOfWeek day, int hour) {
+        return (day.getValue() - 1) * 24 + hour;
+    }
+
+    /**
+     * The hour of the week the clock is at, in the clock's time zone.
+     */
+    static int slotAt(Clock clock) {
+        return slotOfHour(hourAt(clock));
+    }
+
+    /**
+     * Hours from 1970-01-01 0:00 to the clock's current hour, in the clock's time zone.
+     */
+    static long hourAt(Clock clock) {
+        long epochSecond = Math.floorDiv(clock.millis(), 1000L);
+        long local = epochSecond + offsetSeconds(clock.getZone(), epochSecond);
+        return Math.floorDiv(local, 3600L);
+    }
+
+    // Hour of the week (Monday 0:00 = 0) of an hour counted as hourAt() does
+    static int slotOfHour(long epochHour) {
+        long epochDay = Math.floorDiv(epochHour, 24L);
+        int dayOfWeek = (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, 7L);
+        return dayOfWeek * 24 + (int) Math.floorMod(epochHour, 24L);
+    }
+
+    // Calendar week (numbered as in DatedShifts) of an hour counted as hourAt() does
+    static long weekOfHour(long epochHour) {
+        return Math.floorDiv(Math.floorDiv(epochHour, 24L) + EPOCH_DAY_OF_WEEK, 7L);
+    }
+
+    private static int offsetSeconds(ZoneId zone, long epochSecond) {
+        CachedOffset cached = cachedOffset;
+        if (cached != null && cached.zone.equals(zone) && epochSecond >= cached.validFrom && epochSecond < cached.validUntil) {
+            return cached.offsetSeconds;
+        }
+        ZoneRules rules = zone.getRules();
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        cached = new CachedOffset(zone, epochSecond, next != null ? next.toEpochSecond() : Long.MAX_VALUE,
+                rules.getOffset(instant).getTotalSeconds());
+        cachedOffset = cached;
+        return cached.offsetSeconds;
+    }
+}
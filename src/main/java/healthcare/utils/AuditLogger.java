@@ -1,31 +1,75 @@
 package healthcare.utils;
 
-import java.io.File;
-import java.io.FileWriter;
+import healthcare.database.DatabaseManager;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * AuditLogger utility class for logging all system activities.
  * Implements Singleton pattern to ensure single instance.
+ * Logging and queries are synchronized because CareHome may be used from several threads.
+ * Records are written to the audit files by an AuditWriter on its own thread, so logging
+ * does not wait for the disk, and then saved to the database's audit_log table. The
+ * files are segments under data/audit (see AuditSegments): rotated by size and day,
+ * compressed once full, and read back by time range with getFileRecords().
+ * Memory holds only the most recent records (see AuditTrail); reads go through
+ * getPage(), which fetches older pages from the database, or query(), which filters
+ * by staff member, action and time using in-memory lists for recent records and the
+ * database's indexes for older ones.
  */
 public class AuditLogger {
     private static AuditLogger instance;
-    private List<AuditRecord> auditRecords;
     private static final String AUDIT_DIR = "data";
-    private static final String AUDIT_FILE = AUDIT_DIR + "/audit_log.txt";
+    private static final String AUDIT_SEGMENTS = AUDIT_DIR + "/audit";
+    // A segment is sealed and compressed at this size (or at midnight)
+    private static final long SEGMENT_BYTES = 16L * 1024 * 1024;
+    // Text per compressed block, so a time range read inflates at most this much it does not need
+    private static final int BLOCK_BYTES = 64 * 1024;
+    // Records that may wait for the writer before logAction blocks
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    // Force the audit file to disk at most once a second (see AuditWriter)
+    private static final long FSYNC_INTERVAL_MILLIS = 1000;
+    // Recent records kept in memory; older ones are read back from the database
+    private static final int CACHE_CAPACITY = 10_000;
+    // Page size used when a query has to walk the whole history
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    // Null if the database is unavailable; only the recent records can be read back then
+    private final AuditStore store;
+    private final AuditTrail trail;
+    // Null if the audit files could not be opened; records then go straight to the store
+    private final AuditSegments segments;
+    private final AuditWriter writer;
 
     private AuditLogger() {
-        this.auditRecords = new ArrayList<>();
-        // Ensure 'data' directory exists on instantiation
-        File dir = new File(AUDIT_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
+        DatabaseManager database = DatabaseManager.getInstance();
+        this.store = database.isAvailable() ? database : null;
+        this.trail = new AuditTrail(CACHE_CAPACITY, store);
+        AuditSegments files = null;
+        AuditWriter opened = null;
+        try {
+            // Creates the 'data/audit' directory if missing
+            files = new AuditSegments(Paths.get(AUDIT_SEGMENTS), SEGMENT_BYTES, BLOCK_BYTES);
+            opened = new AuditWriter(files, QUEUE_CAPACITY, FSYNC_INTERVAL_MILLIS, this::storeBatch);
+            AuditWriter toClose = opened;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    toClose.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing audit log: " + e.getMessage());
+                }
+            }, "audit-writer-shutdown"));
+        } catch (IOException e) {
+            System.err.println("Error opening audit log: " + e.getMessage());
+            files = null;
         }
+        this.segments = files;
+        this.writer = opened;
     }
 
     // Singleton pattern implementation
@@ -39,61 +83,116 @@ public class AuditLogger {
     /**
      * Log an action performed by a staff member
      */
-    public void logAction(String staffId, String action, String details) {
-        AuditRecord record = new AuditRecord(staffId, action, details, LocalDateTime.now());
-        auditRecords.add(record);
-        writeToFile(record);
+    public synchronized void logAction(String staffId, String action, String details) {
+        AuditRecord record = trail.add(staffId, action, details, LocalDateTime.now());
+        if (writer != null) {
+            writer.append(record);
+        } else {
+            storeBatch(List.of(record));
+        }
+    }
+
+    // Save records to the database once they are in the audit file (writer thread)
+    private void storeBatch(List<AuditRecord> batch) {
+        trail.save(batch);
+    }
+
+    /**
+     * Wait until every action logged so far is in the audit file and the database.
+     */
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * One page of audit records, newest first.
+     * @param cursor AuditTrail.LATEST for the newest page, otherwise the previous page's getNextCursor()
+     */
+    public AuditTrail.AuditPage getPage(long cursor, int pageSize) {
+        return trail.getPage(cursor, pageSize);
     }
 
     /**
-     * Get all audit records
+     * One page of the audit records matching a query, newest first, e.g. every
+     * DISCHARGE_PATIENT by one nurse last quarter:
+     * AuditQuery.all().byStaff(id).byAction("DISCHARGE_PATIENT").between(start, end)
+     * @param cursor AuditTrail.LATEST for the newest page, otherwise the previous page's getNextCursor()
+     */
+    public AuditTrail.AuditPage query(AuditQuery query, long cursor, int pageSize) {
+        return trail.query(query, cursor, pageSize);
+    }
+
+    /**
+     * Audit records from the audit files logged at or after from and before to, oldest
+     * first; either may be null for no limit. Only the segments covering the range are
+     * read. Empty if the files could not be opened.
+     */
+    public List<AuditRecord> getFileRecords(LocalDateTime from, LocalDateTime to) throws IOException {
+        if (segments == null) {
+            return Collections.emptyList();
+        }
+        flush();
+        return segments.read(from, to);
+    }
+
+    /**
+     * Number of actions logged, including earlier runs when the database is available.
+     */
+    public long getRecordCount() {
+        return trail.getRecordCount();
+    }
+
+    /**
+     * Get all audit records, oldest first. Walks the whole history page by page;
+     * use getPage() to show records.
      */
     public List<AuditRecord> getAllAuditRecords() {
-        return new ArrayList<>(auditRecords);
+        return getAuditRecords(AuditQuery.all());
     }
 
     /**
-     * Get audit records for a specific staff member
+     * Get audit records for a specific staff member, oldest first
      */
     public List<AuditRecord> getAuditRecordsForStaff(String staffId) {
-        List<AuditRecord> result = new ArrayList<>();
-        for (AuditRecord record : auditRecords) {
-            if (record.getStaffId().equals(staffId)) {
-                result.add(record);
-            }
-        }
-        return result;
+        return getAuditRecords(AuditQuery.all().byStaff(staffId));
     }
 
     /**
-     * Write audit record to file.
-     * Creates the 'data' directory and log file if missing.
+     * Get every audit record matching a query, oldest first
      */
-    private void writeToFile(AuditRecord record) {
-        try {
-            // Ensure directory exists just prior to writing
-            File dir = new File(AUDIT_DIR);
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
-            try (PrintWriter writer = new PrintWriter(new FileWriter(AUDIT_FILE, true))) {
-                writer.println(record.toString());
-            }
-        } catch (IOException e) {
-            System.err.println("Error writing to audit log: " + e.getMessage());
-        }
+    public List<AuditRecord> getAuditRecords(AuditQuery query) {
+        List<AuditRecord> result = new ArrayList<>();
+        long cursor = AuditTrail.LATEST;
+        AuditTrail.AuditPage page;
+        do {
+            page = trail.query(query, cursor, SCAN_PAGE_SIZE);
+            result.addAll(page.getRecords());
+            cursor = page.getNextCursor();
+        } while (page.hasMore());
+        Collections.reverse(result);
+        return result;
     }
 
     /**
      * Inner class representing an audit record
      */
     public static class AuditRecord {
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private long id;
         private String staffId;
         private String action;
         private String details;
         private LocalDateTime timestamp;
 
         public AuditRecord(String staffId, String action, String details, LocalDateTime timestamp) {
+            this(0, staffId, action, details, timestamp);
+        }
+
+        public AuditRecord(long id, String staffId, String action, String details, LocalDateTime timestamp) {
+            this.id = id;
             this.staffId = staffId;
             this.action = action;
             this.details = details;
@@ -101,6 +200,7 @@ public class AuditLogger {
         }
 
         // Getters
+        public long getId() { return id; }
         public String getStaffId() { return staffId; }
         public String getAction() { return action; }
         public String getDetails() { return details; }
@@ -108,8 +208,7 @@ public class AuditLogger {
 
         @Override
         public String toString() {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            return timestamp.format(formatter) + " | Staff: " + staffId + " | Action: " + action + " | Details: " + details;
+            return timestamp.format(FORMATTER) + " | Staff: " + staffId + " | Action: " + action + " | Details: " + details;
         }
     }
 }
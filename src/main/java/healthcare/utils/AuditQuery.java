@@ -0,0 +1,57 @@
+package healthcare.utils;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Filters for reading the audit trail: by staff member, by action and by a time
+ * window, in any combination. Each method returns a new query with one more filter,
+ * e.g. AuditQuery.all().byStaff("NUR001").byAction("DISCHARGE_PATIENT").between(from, to).
+ */
+public final class AuditQuery {
+    private static final AuditQuery ALL = new AuditQuery(null, null, null, null);
+
+    private final String staffId;
+    private final String action;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    private AuditQuery(String staffId, String action, LocalDateTime from, LocalDateTime to) {
+        this.staffId = staffId;
+        this.action = action;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Every record. */
+    public static AuditQuery all() {
+        return ALL;
+    }
+
+    public AuditQuery byStaff(String staffId) {
+        return new AuditQuery(Objects.requireNonNull(staffId), action, from, to);
+    }
+
+    public AuditQuery byAction(String action) {
+        return new AuditQuery(staffId, Objects.requireNonNull(action), from, to);
+    }
+
+    /**
+     * Records logged at or after from and before to; either may be null for no limit.
+     */
+    public AuditQuery between(LocalDateTime from, LocalDateTime to) {
+        return new AuditQuery(staffId, action, from, to);
+    }
+
+    public String getStaffId() { return staffId; }
+    public String getAction() { return action; }
+    public LocalDateTime getFrom() { return from; }
+    public LocalDateTime getTo() { return to; }
+
+    public boolean matches(AuditLogger.AuditRecord record) {
+        return (staffId == null || staffId.equals(record.getStaffId()))
+                && (action == null || action.equals(record.getAction()))
+                && (from == null || !record.getTimestamp().isBefore(from))
+                && (to == null || record.getTimestamp().isBefore(to));
+    }
+}
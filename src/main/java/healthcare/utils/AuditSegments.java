@@ -0,0 +1,654 @@
+package healthcare.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * AuditSegments keeps the audit file as a directory of segments, each covering a
+ * stretch of time, so reading the records between two times only opens the
+ * segments that overlap them and seeks straight to the first record.
+ *
+ * Records are appended to the active segment, audit-NNNNNN.log, one line each:
+ * id|timestamp|staff|action|details, with '\', '|' and line breaks escaped. A new
+ * segment starts when the active one reaches maxSegmentBytes or a record falls on
+ * a later day than its first record. The full segment is then sealed: its text is
+ * cut into blocks of about blockBytes (at line boundaries), each block is
+ * Deflate-compressed on its own, and the blocks are followed by a sparse index of
+ * each block's first timestamp and file offset. The sealed file is named
+ * audit-NNNNNN-FIRST-LAST.seg after its first and last timestamps (to the second),
+ * so a reader can skip it without opening it, and replaces the .log file.
+ *
+ * A read binary-searches a segment's index for the block holding the first record
+ * at or after the start time, inflates blocks from there and stops at the first
+ * record at or after the end time. The active segment keeps the same index in
+ * memory and is read without inflating. This relies on records arriving in time
+ * order, which AuditTrail guarantees.
+ *
+ * Opening the directory again continues the last active segment. Anything a crash
+ * left behind is tidied: a partly written last line is cut off, a segment sealed
+ * but not yet removed as .log is removed, and other .log files are sealed. A .log
+ * file with a line that cannot be parsed is renamed to .log.corrupt and left out.
+ *
+ * Writes come from one thread (AuditWriter's). Reads may come from any thread: they
+ * take the list of segments and the active segment's length and index under the
+ * lock, then read the files without it, so a long read does not hold up the writer.
+ * Sealed files never change, and the active file only grows past the length taken.
+ */
+public class AuditSegments implements AuditSink {
+    private static final String ACTIVE_SUFFIX = ".log";
+    private static final String SEALED_SUFFIX = ".seg";
+    private static final Pattern ACTIVE_NAME = Pattern.compile("audit-(\\d{6})\\.log");
+    private static final Pattern SEALED_NAME = Pattern.compile("audit-(\\d{6})-(\\d{8}T\\d{6})-(\\d{8}T\\d{6})\\.seg");
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    // Last bytes of a sealed segment: index offset, block count, magic
+    private static final int FOOTER_BYTES = 16;
+    private static final int SEALED_MAGIC = 0x41534547;    // "ASEG"
+    // Per block: first timestamp (epoch second, nano), offset, compressed length, text length
+    private static final int INDEX_ENTRY_BYTES = 28;
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final int blockBytes;
+
+    // Sealed segments by sequence number
+    private final TreeMap<Integer, Sealed> sealed = new TreeMap<>();
+    private int nextSequence = 1;
+
+    // The active segment; channel is null until its first record
+    private int activeSequence;
+    private FileChannel channel;
+    private long activeBytes;
+    private LocalDateTime activeFirst;
+    private LocalDateTime activeLast;
+    private final Index activeIndex = new Index();
+    private long lastIndexedOffset;
+
+    // Lines waiting to be written by the current write()
+    private final StringBuilder line = new StringBuilder(256);
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Open (or create) a segment directory.
+     * @param maxSegmentBytes size at which the active segment is sealed and a new one started
+     * @param blockBytes text per compressed block, and so per index entry
+     */
+    public AuditSegments(Path dir, long maxSegmentBytes, int blockBytes) throws IOException {
+        if (maxSegmentBytes < 1 || blockBytes < 1) {
+            throw new IllegalArgumentException("Segment and block sizes must be positive");
+        }
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.blockBytes = blockBytes;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    /**
+     * A sealed segment as named on disk.
+     */
+    private static final class Sealed {
+        final Path path;
+        final LocalDateTime first;  // to the second, rounded down
+        final LocalDateTime last;
+
+        Sealed(Path path, LocalDateTime first, LocalDateTime last) {
+            this.path = path;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Sparse index: each block's first timestamp and its offset in the segment.
+     */
+    private static final class Index {
+        long[] seconds = new long[16];
+        int[] nanos = new int[16];
+        long[] offsets = new long[16];
+        int size;
+
+        void add(LocalDateTime time, long offset) {
+            if (size == offsets.length) {
+                seconds = Arrays.copyOf(seconds, size * 2);
+                nanos = Arrays.copyOf(nanos, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            seconds[size] = time.toEpochSecond(ZoneOffset.UTC);
+            nanos[size] = time.getNano();
+            offsets[size] = offset;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        Index copy() {
+            Index copy = new Index();
+            copy.seconds = Arrays.copyOf(seconds, Math.max(size, 1));
+            copy.nanos = Arrays.copyOf(nanos, Math.max(size, 1));
+            copy.offsets = Arrays.copyOf(offsets, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        // The block to start reading at for records at or after from
+        int find(LocalDateTime from) {
+            if (from == null) {
+                return 0;
+            }
+            long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+            int fromNano = from.getNano();
+            // Last block whose first record is before from; equal timestamps may spill
+            // over from the block before, so a block starting at from is not enough
+            int low = 0;
+            int high = size - 1;
+            int found = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (seconds[mid] < fromSecond || (seconds[mid] == fromSecond && nanos[mid] < fromNano)) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        boolean startsAtOrAfter(int block, LocalDateTime to) {
+            return to != null && !time(block).isBefore(to);
+        }
+
+        LocalDateTime time(int block) {
+            return LocalDateTime.ofEpochSecond(seconds[block], nanos[block], ZoneOffset.UTC);
+        }
+    }
+
+    @Override
+    public synchronized void write(List<AuditLogger.AuditRecord> records) throws IOException {
+        pending.clear();
+        for (AuditLogger.AuditRecord record : records) {
+            LocalDateTime time = record.getTimestamp();
+            if (channel != null && activeFirst != null
+                    && (activeBytes + pending.position() >= maxSegmentBytes
+                    || !time.toLocalDate().equals(activeFirst.toLocalDate()))) {
+                writePending();
+                seal();
+            }
+            if (channel == null) {
+                startSegment();
+            }
+            byte[] bytes = encode(record);
+            long offset = activeBytes + pending.position();
+            if (activeIndex.size == 0 || offset - lastIndexedOffset >= blockBytes) {
+                activeIndex.add(time, offset);
+                lastIndexedOffset = offset;
+            }
+            if (activeFirst == null) {
+                activeFirst = time;
+            }
+            activeLast = time;
+            if (pending.remaining() < bytes.length) {
+                writePending();
+                if (pending.capacity() < bytes.length) {
+                    pending = ByteBuffer.allocate(bytes.length);
+                }
+            }
+            pending.put(bytes);
+        }
+        writePending();
+    }
+
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            activeBytes += channel.write(pending);
+        }
+        pending.clear();
+    }
+
+    private void startSegment() throws IOException {
+        activeSequence = nextSequence++;
+        channel = FileChannel.open(activePath(activeSequence), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBytes = 0;
+        activeFirst = null;
+        activeLast = null;
+        activeIndex.clear();
+        lastIndexedOffset = 0;
+    }
+
+    // Compress the active segment into its .seg file and remove the .log
+    private void seal() throws IOException {
+        channel.force(false);
+        channel.close();
+        channel = null;
+        Path log = activePath(activeSequence);
+        seal(activeSequence, log, activeIndex, activeFirst, activeLast);
+    }
+
+    private void seal(int sequence, Path log, Index index, LocalDateTime first, LocalDateTime last) throws IOException {
+        byte[] text = Files.readAllBytes(log);
+        Path target = dir.resolve(String.format("audit-%06d-%s-%s%s",
+                sequence, first.format(NAME_TIME), last.format(NAME_TIME), SEALED_SUFFIX));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer entries = ByteBuffer.allocate(index.size * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+            byte[] buffer = new byte[Math.max(1024, blockBytes + blockBytes / 2)];
+            long offset = 0;
+            for (int block = 0; block < index.size; block++) {
+                int start = (int) index.offsets[block];
+                int end = block + 1 < index.size ? (int) index.offsets[block + 1] : text.length;
+                deflater.reset();
+                deflater.setInput(text, start, end - start);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    length += deflater.deflate(buffer, length, buffer.length - length);
+                }
+                writeFully(out, ByteBuffer.wrap(buffer, 0, length));
+                entries.putLong(index.seconds[block]).putInt(index.nanos[block])
+                        .putLong(offset).putInt(length).putInt(end - start);
+                offset += length;
+            }
+            entries.putLong(offset).putInt(index.size).putInt(SEALED_MAGIC);
+            entries.flip();
+            writeFully(out, entries);
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(log);
+        sealed.put(sequence, new Sealed(target, first.withNano(0), last.withNano(0)));
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public synchronized void force() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public Path getPath() {
+        return dir;
+    }
+
+    /** Number of segments, sealed and active. */
+    public synchronized int getSegmentCount() {
+        return sealed.size() + (channel != null ? 1 : 0);
+    }
+
+    /** Number of sealed (compressed) segments. */
+    public synchronized int getSealedCount() {
+        return sealed.size();
+    }
+
+    /**
+     * Close the active segment; it stays uncompressed and is continued when the
+     * directory is opened again.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private Path activePath(int sequence) {
+        return dir.resolve(String.format("audit-%06d%s", sequence, ACTIVE_SUFFIX));
+    }
+
+    /**
+     * Every record logged at or after from and before to, oldest first; either may be
+     * null for no limit.
+     */
+    public List<AuditLogger.AuditRecord> read(LocalDateTime from, LocalDateTime to) throws IOException {
+        while (true) {
+            List<Sealed> segments;
+            Path activeLog = null;
+            long activeLength = 0;
+            Index index = null;
+            synchronized (this) {
+                segments = new ArrayList<>(sealed.values());
+                if (channel != null && activeIndex.size > 0) {
+                    activeLog = activePath(activeSequence);
+                    activeLength = activeBytes;
+                    index = activeIndex.copy();
+                }
+            }
+            List<AuditLogger.AuditRecord> records = new ArrayList<>();
+            if (readSealed(segments, from, to, records)
+                    && activeLog != null && !readActive(activeLog, activeLength, index, from, to, records)) {
+                // Sealed (and removed) since the list was taken; read the sealed copy instead
+                continue;
+            }
+            return records;
+        }
+    }
+
+    // False once a record at or after to is reached
+    private static boolean readSealed(List<Sealed> segments, LocalDateTime from, LocalDateTime to,
+                                      List<AuditLogger.AuditRecord> records) throws IOException {
+        for (Sealed segment : segments) {
+            if (to != null && !segment.first.isBefore(to)) {
+                return false;
+            }
+            // The last record is before last + 1s
+            if (from != null && !segment.last.plusSeconds(1).isAfter(from)) {
+                continue;
+            }
+            if (!readSealed(segment.path, from, to, records)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean readSealed(Path path, LocalDateTime from, LocalDateTime to,
+                                      List<AuditLogger.AuditRecord> records) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer footer = readAt(in, size - FOOTER_BYTES, FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            int blocks = footer.getInt();
+            if (footer.getInt() != SEALED_MAGIC) {
+                throw new IOException(path + " is not a sealed audit segment");
+            }
+            ByteBuffer entries = readAt(in, indexOffset, blocks * INDEX_ENTRY_BYTES);
+            Index index = new Index();
+            long[] lengths = new long[blocks];
+            int[] textLengths = new int[blocks];
+            for (int block = 0; block < blocks; block++) {
+                LocalDateTime first = LocalDateTime.ofEpochSecond(entries.getLong(), entries.getInt(), ZoneOffset.UTC);
+                index.add(first, entries.getLong());
+                lengths[block] = entries.getInt();
+                textLengths[block] = entries.getInt();
+            }
+            Inflater inflater = new Inflater();
+            try {
+                for (int block = index.find(from); block < blocks; block++) {
+                    if (index.startsAtOrAfter(block, to)) {
+                        return false;
+                    }
+                    ByteBuffer compressed = readAt(in, index.offsets[block], (int) lengths[block]);
+                    byte[] text = new byte[textLengths[block]];
+                    inflater.reset();
+                    inflater.setInput(compressed.array(), 0, compressed.limit());
+                    int length = 0;
+                    while (length < text.length && !inflater.finished()) {
+                        length += inflater.inflate(text, length, text.length - length);
+                        if (inflater.needsInput() && length < text.length) {
+                            throw new IOException(path + " has a truncated block");
+                        }
+                    }
+                    if (!decode(text, length, from, to, records)) {
+                        return false;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(path + " has a corrupt block: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+        return true;
+    }
+
+    // Read the active segment up to length; false if it has been sealed and removed meanwhile
+    private static boolean readActive(Path log, long length, Index index, LocalDateTime from, LocalDateTime to,
+                                      List<AuditLogger.AuditRecord> records) throws IOException {
+        int first = index.find(from);
+        if (index.startsAtOrAfter(first, to)) {
+            return true;
+        }
+        FileChannel in;
+        try {
+            in = FileChannel.open(log, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try {
+            long start = index.offsets[first];
+            // Read a block at a time so a late end time stops early
+            for (int block = first; block < index.size; block++) {
+                if (index.startsAtOrAfter(block, to)) {
+                    return true;
+                }
+                long end = block + 1 < index.size ? index.offsets[block + 1] : length;
+                ByteBuffer text = readAt(in, start, (int) (end - start));
+                if (!decode(text.array(), text.limit(), from, to, records)) {
+                    return true;
+                }
+                start = end;
+            }
+        } finally {
+            in.close();
+        }
+        return true;
+    }
+
+    private static ByteBuffer readAt(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Audit segment ends early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Parse whole lines; false once a record at or after to is reached
+    private static boolean decode(byte[] text, int length, LocalDateTime from, LocalDateTime to,
+                                  List<AuditLogger.AuditRecord> records) throws IOException {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (text[i] != '\n') {
+                continue;
+            }
+            AuditLogger.AuditRecord record = parse(new String(text, start, i - start, StandardCharsets.UTF_8));
+            start = i + 1;
+            if (to != null && !record.getTimestamp().isBefore(to)) {
+                return false;
+            }
+            if (from == null || !record.getTimestamp().isBefore(from)) {
+                records.add(record);
+            }
+        }
+        return true;
+    }
+
+    private byte[] encode(AuditLogger.AuditRecord record) {
+        line.setLength(0);
+        line.append(record.getId()).append('|')
+                .append(record.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append('|');
+        escape(record.getStaffId());
+        line.append('|');
+        escape(record.getAction());
+        line.append('|');
+        escape(record.getDetails());
+        line.append('\n');
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void escape(String value) {
+        if (value == null) {
+            line.append("\\0");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': line.append("\\\\"); break;
+                case '|': line.append("\\p"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                default: line.append(c);
+            }
+        }
+    }
+
+    private static AuditLogger.AuditRecord parse(String text) throws IOException {
+        String[] fields = new String[5];
+        StringBuilder field = new StringBuilder();
+        int count = 0;
+        boolean isNull = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '|';
+            if (c == '|') {
+                if (count == fields.length) {
+                    throw new IOException("Bad audit segment line: " + text);
+                }
+                fields[count++] = isNull ? null : field.toString();
+                field.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                switch (escaped) {
+                    case 'p': field.append('|'); break;
+                    case 'n': field.append('\n'); break;
+                    case 'r': field.append('\r'); break;
+                    case '0': isNull = true; break;
+                    default: field.append(escaped);
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        if (count != fields.length) {
+            throw new IOException("Bad audit segment line: " + text);
+        }
+        try {
+            return new AuditLogger.AuditRecord(Long.parseLong(fields[0]), fields[2], fields[3], fields[4],
+                    LocalDateTime.parse(fields[1], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } catch (RuntimeException e) {
+            throw new IOException("Bad audit segment line: " + text, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Integer, Path> logs = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "audit-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher;
+                if (name.endsWith(SEALED_SUFFIX + ".tmp")) {
+                    // Sealing was cut short; the .log is still there
+                    Files.delete(file);
+                } else if ((matcher = SEALED_NAME.matcher(name)).matches()) {
+                    int sequence = Integer.parseInt(matcher.group(1));
+                    sealed.put(sequence, new Sealed(file,
+                            LocalDateTime.parse(matcher.group(2), NAME_TIME),
+                            LocalDateTime.parse(matcher.group(3), NAME_TIME)));
+                } else if ((matcher = ACTIVE_NAME.matcher(name)).matches()) {
+                    logs.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        }
+        if (!sealed.isEmpty()) {
+            nextSequence = sealed.lastKey() + 1;
+        }
+        if (!logs.isEmpty()) {
+            nextSequence = Math.max(nextSequence, logs.lastKey() + 1);
+        }
+        for (Map.Entry<Integer, Path> entry : logs.entrySet()) {
+            int sequence = entry.getKey();
+            Path log = entry.getValue();
+            if (sealed.containsKey(sequence)) {
+                // Sealed just before a crash
+                Files.delete(log);
+                continue;
+            }
+            Index index = new Index();
+            LocalDateTime[] range = new LocalDateTime[2];
+            long valid;
+            try {
+                valid = scan(log, index, range);
+            } catch (IOException e) {
+                // Keep it for inspection but out of the way, and carry on without it
+                Path corrupt = log.resolveSibling(log.getFileName() + ".corrupt");
+                Files.move(log, corrupt, StandardCopyOption.REPLACE_EXISTING);
+                System.err.println("⚠ Warning: Moved unreadable audit segment to " + corrupt + ": " + e.getMessage());
+                continue;
+            }
+            if (sequence == logs.lastKey()) {
+                // Carry on writing the newest segment
+                channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.truncate(valid);
+                channel.position(valid);
+                activeSequence = sequence;
+                activeBytes = valid;
+                activeFirst = range[0];
+                activeLast = range[1];
+                for (int i = 0; i < index.size; i++) {
+                    activeIndex.add(index.time(i), index.offsets[i]);
+                }
+                lastIndexedOffset = index.size > 0 ? index.offsets[index.size - 1] : 0;
+            } else if (index.size > 0) {
+                seal(sequence, log, index, range[0], range[1]);
+            } else {
+                Files.delete(log);
+            }
+        }
+    }
+
+    // Rebuild an active segment's index; returns the length up to its last whole line
+    private long scan(Path log, Index index, LocalDateTime[] range) throws IOException {
+        byte[] text = Files.readAllBytes(log);
+        int start = 0;
+        long lastIndexed = 0;
+        for (int i = 0; i < text.length; i++) {
+            if (text[i] != '\n') {
+                continue;
+            }
+            LocalDateTime time = parse(new String(text, start, i - start, StandardCharsets.UTF_8)).getTimestamp();
+            if (index.size == 0 || start - lastIndexed >= blockBytes) {
+                index.add(time, start);
+                lastIndexed = start;
+            }
+            if (range[0] == null) {
+                range[0] = time;
+            }
+            range[1] = time;
+            start = i + 1;
+        }
+        return start;
+    }
+}
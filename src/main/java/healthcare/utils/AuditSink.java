@@ -0,0 +1,25 @@
+package healthcare.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where AuditWriter puts audit records: a plain text file, or AuditSegments.
+ * Only the writer thread calls write() and force().
+ */
+public interface AuditSink extends Closeable {
+    /**
+     * Write records in the order given; they need not be on disk until force().
+     */
+    void write(List<AuditLogger.AuditRecord> records) throws IOException;
+
+    /**
+     * Force everything written so far to disk.
+     */
+    void force() throws IOException;
+
+    /** The file or directory written to. */
+    Path getPath();
+}
@@ -0,0 +1,32 @@
+package healthcare.utils;
+
+import java.util.List;
+
+/**
+ * Long-term storage for audit records (the audit_log table, see DatabaseManager).
+ * Records carry the IDs AuditTrail gave them, so stored and in-memory records agree.
+ */
+public interface AuditStore {
+    /**
+     * Save records in ID order, all or none. Called from the audit writer thread.
+     * @return false if none were saved; the caller keeps them and tries again later
+     */
+    boolean saveAuditLogs(List<AuditLogger.AuditRecord> records);
+
+    /**
+     * Up to limit records with an ID below beforeId, newest first.
+     */
+    List<AuditLogger.AuditRecord> getAuditRecordsBefore(long beforeId, int limit);
+
+    /**
+     * Up to limit records matching a query with an ID below beforeId, newest first.
+     * Record timestamps never decrease with ID (see AuditTrail), which a store may
+     * rely on to read them in time order.
+     */
+    List<AuditLogger.AuditRecord> findAuditRecords(AuditQuery query, long beforeId, int limit);
+
+    /**
+     * The highest record ID stored, or 0 if there are none.
+     */
+    long getLastAuditId();
+}
@@ -0,0 +1,324 @@
+package healthcare.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuditTrail gives every audit record an ID and keeps the most recent ones in a
+ * fixed-size ring, so memory use does not grow with the life of the process. Every
+ * record is also saved to an AuditStore, which holds the full history.
+ *
+ * Records are read a page at a time, newest first. A page starts below a cursor (the
+ * ID of the last record of the previous page, or LATEST for the first page), so
+ * pages stay stable while new records arrive. Pages within the ring are served from
+ * memory and older ones from the store.
+ *
+ * IDs count up from 1 across restarts: a new trail continues after the store's last
+ * ID and refills the ring from it, so the first pages after a restart match the
+ * stored history. Without a store, only the ring is kept.
+ *
+ * query() reads pages filtered by an AuditQuery. For the ring, records are also kept
+ * in posting lists per staff member and per action (oldest first, trimmed as the ring
+ * overwrites records), so a filtered page walks only the matching records. Older
+ * pages come from the store's indexes. Timestamps never go backwards from one ID to
+ * the next (a record logged after the clock stepped back keeps the previous time), so
+ * newest-first by ID is also newest-first by time and a time window is one run of IDs.
+ */
+public class AuditTrail {
+    /** Cursor for the first (newest) page. */
+    public static final long LATEST = Long.MAX_VALUE;
+    // How long a read waits for the store to catch up before giving up
+    private static final long STORE_WAIT_MILLIS = 5000;
+    // Records kept for another try while the store is failing; older ones are given up on
+    private static final int MAX_UNSAVED = 64 * 1024;
+
+    /**
+     * One page of records, newest first, and where the next (older) page starts.
+     */
+    public static final class AuditPage {
+        private final List<AuditLogger.AuditRecord> records;
+        private final long nextCursor;
+        private final boolean hasMore;
+
+        AuditPage(List<AuditLogger.AuditRecord> records, long nextCursor, boolean hasMore) {
+            this.records = records;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<AuditLogger.AuditRecord> getRecords() { return records; }
+        public long getNextCursor() { return nextCursor; }
+        public boolean hasMore() { return hasMore; }
+    }
+
+    private final AuditStore store;
+    private final long storeWaitMillis;
+    private final AuditLogger.AuditRecord[] ring;
+    private int head;       // slot of the next record
+    private int size;
+    private long nextId;
+    private LocalDateTime lastTimestamp;
+    // Records in the ring by staff ID and by action, oldest first
+    private final Map<String, ArrayDeque<AuditLogger.AuditRecord>> byStaff = new HashMap<>();
+    private final Map<String, ArrayDeque<AuditLogger.AuditRecord>> byAction = new HashMap<>();
+
+    // Highest ID the store has saved; records above it may not be stored yet
+    private final Object storedLock = new Object();
+    private long storedId;
+    // Records the store has not taken yet, oldest first; only used by the thread calling save()
+    private final List<AuditLogger.AuditRecord> unsaved = new ArrayList<>();
+
+    /**
+     * @param capacity how many recent records to keep in memory
+     * @param store where every record is saved; null to keep only the ring
+     */
+    public AuditTrail(int capacity, AuditStore store) {
+        this(capacity, store, STORE_WAIT_MILLIS);
+    }
+
+    /**
+     * @param storeWaitMillis how long a read of older pages waits for records still
+     *                        being saved before it fails
+     */
+    public AuditTrail(int capacity, AuditStore store, long storeWaitMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.store = store;
+        this.storeWaitMillis = storeWaitMillis;
+        this.ring = new AuditLogger.AuditRecord[capacity];
+        long lastId = store != null ? store.getLastAuditId() : 0;
+        this.nextId = lastId + 1;
+        this.storedId = lastId;
+        if (store != null && lastId > 0) {
+            List<AuditLogger.AuditRecord> recent = store.getAuditRecordsBefore(nextId, capacity);
+            // Only a run of IDs ending at lastId can go in the ring
+            int usable = 0;
+            while (usable < recent.size() && recent.get(usable).getId() == lastId - usable) {
+                usable++;
+            }
+            for (int i = usable - 1; i >= 0; i--) {
+                put(recent.get(i));
+            }
+            if (!recent.isEmpty()) {
+                lastTimestamp = recent.get(0).getTimestamp();
+            }
+        }
+    }
+
+    /**
+     * Create the next record and keep it in the ring.
+     */
+    public synchronized AuditLogger.AuditRecord add(String staffId, String action, String details, LocalDateTime timestamp) {
+        if (lastTimestamp != null && timestamp.isBefore(lastTimestamp)) {
+            timestamp = lastTimestamp;
+        }
+        lastTimestamp = timestamp;
+        AuditLogger.AuditRecord record = new AuditLogger.AuditRecord(nextId++, staffId, action, details, timestamp);
+        put(record);
+        return record;
+    }
+
+    private void put(AuditLogger.AuditRecord record) {
+        AuditLogger.AuditRecord evicted = ring[head];
+        if (evicted != null) {
+            // The oldest record in the ring is the first of both its lists
+            unlink(byStaff, evicted.getStaffId());
+            unlink(byAction, evicted.getAction());
+        }
+        ring[head] = record;
+        head = (head + 1) % ring.length;
+        if (size < ring.length) {
+            size++;
+        }
+        byStaff.computeIfAbsent(record.getStaffId(), key -> new ArrayDeque<>()).addLast(record);
+        byAction.computeIfAbsent(record.getAction(), key -> new ArrayDeque<>()).addLast(record);
+    }
+
+    private static void unlink(Map<String, ArrayDeque<AuditLogger.AuditRecord>> postings, String key) {
+        ArrayDeque<AuditLogger.AuditRecord> records = postings.get(key);
+        records.pollFirst();
+        if (records.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    /**
+     * Save records to the store, in ID order, from one thread (the audit writer's).
+     * A batch the store rejects is kept and saved together with the next one, and IDs
+     * are only marked stored once they are, so pages never skip records the store
+     * does not have. Without a store the records are just marked stored.
+     */
+    public void save(List<AuditLogger.AuditRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (store == null) {
+            markStored(batch.get(batch.size() - 1).getId());
+            return;
+        }
+        unsaved.addAll(batch);
+        boolean saved;
+        try {
+            saved = store.saveAuditLogs(unsaved);
+        } catch (RuntimeException e) {
+            System.err.println("Error saving audit records: " + e.getMessage());
+            saved = false;
+        }
+        if (saved) {
+            markStored(unsaved.get(unsaved.size() - 1).getId());
+            unsaved.clear();
+        } else if (unsaved.size() > MAX_UNSAVED) {
+            // The dropped records are still in the audit files
+            int dropped = unsaved.size() - MAX_UNSAVED;
+            System.err.println("⚠ Warning: " + dropped + " audit records could not be saved to the database");
+            unsaved.subList(0, dropped).clear();
+        }
+    }
+
+    /** Number of records waiting for the store to accept them. */
+    public int getUnsavedCount() {
+        return unsaved.size();
+    }
+
+    /**
+     * Tell the trail that the store now holds every record up to an ID.
+     */
+    public void markStored(long id) {
+        synchronized (storedLock) {
+            if (id > storedId) {
+                storedId = id;
+                storedLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Up to pageSize records with an ID below the cursor, newest first.
+     */
+    public AuditPage getPage(long cursor, int pageSize) {
+        return query(AuditQuery.all(), cursor, pageSize);
+    }
+
+    /**
+     * Up to pageSize records matching a query with an ID below the cursor, newest first.
+     * @throws UncheckedIOException if the page needs records the store has not saved
+     *                              within the wait given to the constructor
+     */
+    public AuditPage query(AuditQuery query, long cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        List<AuditLogger.AuditRecord> records = new ArrayList<>(Math.min(pageSize, 1024));
+        long top;
+        long oldestInRing;
+        // Set when the ring reaches records older than the query's window
+        boolean passedFrom = false;
+        synchronized (this) {
+            top = Math.min(cursor, nextId) - 1;
+            oldestInRing = nextId - size;
+            Iterator<AuditLogger.AuditRecord> candidates = candidates(query, top);
+            while (candidates.hasNext() && records.size() < pageSize) {
+                AuditLogger.AuditRecord record = candidates.next();
+                if (record.getId() > top) {
+                    continue;
+                }
+                if (query.getFrom() != null && record.getTimestamp().isBefore(query.getFrom())) {
+                    passedFrom = true;
+                    break;
+                }
+                if (query.matches(record)) {
+                    records.add(record);
+                }
+            }
+        }
+        // Every record from here down is older than the ring
+        long below = Math.min(top + 1, oldestInRing);
+        if (records.size() < pageSize && !passedFrom && below > 1 && store != null) {
+            // Wait until the store has those records, then read them
+            awaitStored(below - 1);
+            int limit = pageSize - records.size();
+            records.addAll(query == AuditQuery.all()
+                    ? store.getAuditRecordsBefore(below, limit)
+                    : store.findAuditRecords(query, below, limit));
+        }
+        long nextCursor = records.isEmpty() ? Math.max(1, top + 1) : records.get(records.size() - 1).getId();
+        boolean hasMore = records.size() == pageSize && nextCursor > 1
+                && (store != null || nextCursor > oldestInRing);
+        return new AuditPage(Collections.unmodifiableList(records), nextCursor, hasMore);
+    }
+
+    // Ring records that may match, newest first: the shorter of the query's posting lists,
+    // or the whole ring from top down
+    private Iterator<AuditLogger.AuditRecord> candidates(AuditQuery query, long top) {
+        ArrayDeque<AuditLogger.AuditRecord> postings = null;
+        if (query.getStaffId() != null) {
+            postings = byStaff.getOrDefault(query.getStaffId(), new ArrayDeque<>());
+        }
+        if (query.getAction() != null) {
+            ArrayDeque<AuditLogger.AuditRecord> actions = byAction.getOrDefault(query.getAction(), new ArrayDeque<>());
+            if (postings == null || actions.size() < postings.size()) {
+                postings = actions;
+            }
+        }
+        if (postings != null) {
+            return postings.descendingIterator();
+        }
+        long oldest = nextId - size;
+        return new Iterator<AuditLogger.AuditRecord>() {
+            private long id = Math.min(top, nextId - 1);
+
+            @Override
+            public boolean hasNext() {
+                return id >= oldest;
+            }
+
+            @Override
+            public AuditLogger.AuditRecord next() {
+                int slot = Math.floorMod(head - (int) (nextId - id), ring.length);
+                id--;
+                return ring[slot];
+            }
+        };
+    }
+
+    // Wait (at most storeWaitMillis) until the store holds every record up to an ID
+    private void awaitStored(long id) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(storeWaitMillis);
+        synchronized (storedLock) {
+            while (storedId < id) {
+                long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (wait <= 0) {
+                    throw new UncheckedIOException(new IOException(
+                            "Audit records up to " + id + " are not saved to the database yet"));
+                }
+                try {
+                    storedLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the audit store"));
+                }
+            }
+        }
+    }
+
+    /** Number of records logged, including those only in the store. */
+    public synchronized long getRecordCount() {
+        return nextId - 1;
+    }
+
+    /** Number of records held in memory. */
+    public synchronized int getCachedCount() {
+        return size;
+    }
+}
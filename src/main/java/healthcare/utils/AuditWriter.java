@@ -0,0 +1,304 @@
+package healthcare.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * AuditWriter appends audit records to a text file (or another AuditSink, such as
+ * AuditSegments) from a background thread, so logging an action costs the caller a
+ * queue insert instead of opening, writing and closing the file.
+ *
+ * Records go into a bounded queue. The writer thread takes everything queued so
+ * far (up to MAX_BATCH records) and hands it to the sink in one call; the text file
+ * sink formats it and writes it to the file it keeps open with one write call. When
+ * the queue is full, callers wait for the writer rather than dropping records.
+ *
+ * Durability is set by fsyncIntervalMillis:
+ * - negative: every batch is handed to the operating system, which survives the
+ *   application crashing but not the machine losing power
+ * - 0: every batch is also forced to disk before the next one is written
+ * - N > 0: batches are forced to disk at most every N ms, and within N ms of
+ *   the last write
+ *
+ * flush() waits until everything logged so far is in the file; close() writes
+ * out the queue, forces the file and stops the thread.
+ *
+ * An optional batch listener is handed each batch on the writer thread once it is in
+ * the file (AuditLogger saves it to the database there), and flush() waits for it too.
+ */
+public class AuditWriter implements Closeable {
+    private static final int MAX_BATCH = 4096;
+    // Queued by close() after the last record so the writer knows to stop
+    private static final AuditLogger.AuditRecord END = new AuditLogger.AuditRecord(null, null, null, null);
+
+    private final AuditSink sink;
+    private final BlockingQueue<AuditLogger.AuditRecord> queue;
+    private final long fsyncIntervalMillis;
+    private final Consumer<List<AuditLogger.AuditRecord>> batchListener;
+    private final Thread writer;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final Object lock = new Object();
+    private long written;       // records written (or given up on); guarded by lock
+    private long batchCount;    // guarded by lock
+    private volatile boolean closed;
+
+    /**
+     * Open (or create) the file for appending and start the writer thread.
+     * @param capacity how many records may wait in the queue
+     * @param fsyncIntervalMillis see the class comment
+     */
+    public AuditWriter(Path path, int capacity, long fsyncIntervalMillis) throws IOException {
+        this(path, capacity, fsyncIntervalMillis, null);
+    }
+
+    /**
+     * @param batchListener called on the writer thread with each batch after it is written; may be null
+     */
+    public AuditWriter(Path path, int capacity, long fsyncIntervalMillis,
+                       Consumer<List<AuditLogger.AuditRecord>> batchListener) throws IOException {
+        this(new TextFile(path), capacity, fsyncIntervalMillis, batchListener);
+    }
+
+    /**
+     * Write to a sink instead of a text file; the writer closes it.
+     */
+    public AuditWriter(AuditSink sink, int capacity, long fsyncIntervalMillis,
+                       Consumer<List<AuditLogger.AuditRecord>> batchListener) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.batchListener = batchListener;
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a record for writing. Returns straight away unless the queue is full.
+     */
+    public void append(AuditLogger.AuditRecord record) {
+        if (closed) {
+            throw new IllegalStateException("Audit writer for " + sink.getPath() + " is closed");
+        }
+        enqueued.incrementAndGet();
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Not queued, so do not leave flush() waiting for it
+            recordWritten(1, false);
+        }
+    }
+
+    /**
+     * Block until every record appended before this call has been written to the file.
+     */
+    public void flush() throws IOException {
+        long target = enqueued.get();
+        synchronized (lock) {
+            while (written < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the audit log");
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditLogger.AuditRecord> batch = new ArrayList<>(MAX_BATCH);
+        long lastSync = System.nanoTime();
+        boolean unsynced = false;
+        while (true) {
+            AuditLogger.AuditRecord first;
+            try {
+                if (unsynced) {
+                    long wait = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis) - (System.nanoTime() - lastSync);
+                    first = queue.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                } else {
+                    first = queue.take();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                // Nothing more arrived before the fsync was due
+                force();
+                unsynced = false;
+                lastSync = System.nanoTime();
+                continue;
+            }
+
+            batch.clear();
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            // Records are compared by identity, so this only finds END
+            boolean stop = batch.remove(END);
+            int records = batch.size();
+
+            boolean ok = write(batch);
+            if (ok && fsyncIntervalMillis >= 0) {
+                if (fsyncIntervalMillis == 0 || System.nanoTime() - lastSync >= TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis)) {
+                    force();
+                    unsynced = false;
+                    lastSync = System.nanoTime();
+                } else {
+                    unsynced = true;
+                }
+            }
+            notifyListener(batch);
+            recordWritten(records, true);
+            if (stop) {
+                if (unsynced) {
+                    force();
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean write(List<AuditLogger.AuditRecord> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            sink.write(batch);
+            return true;
+        } catch (IOException e) {
+            // The records stay in memory (AuditLogger keeps them); carry on with the next batch
+            System.err.println("Error writing to audit log: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void notifyListener(List<AuditLogger.AuditRecord> batch) {
+        if (batchListener == null || batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchListener.accept(batch);
+        } catch (RuntimeException e) {
+            System.err.println("Error handling audit records: " + e.getMessage());
+        }
+    }
+
+    // A failed fsync is reported and not retried; the next one covers the same data
+    private void force() {
+        try {
+            sink.force();
+        } catch (IOException e) {
+            System.err.println("Error writing to audit log: " + e.getMessage());
+        }
+    }
+
+    private void recordWritten(int records, boolean batch) {
+        synchronized (lock) {
+            written += records;
+            if (batch) {
+                batchCount++;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /** Number of batches written so far; records divided by this gives the batch size. */
+    public long getBatchCount() {
+        synchronized (lock) {
+            return batchCount;
+        }
+    }
+
+    public Path getPath() {
+        return sink.getPath();
+    }
+
+    /**
+     * Write out everything queued, force it to disk, then stop the writer thread and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Records that raced with closing, queued behind END
+        List<AuditLogger.AuditRecord> late = new ArrayList<>();
+        queue.drainTo(late);
+        if (write(late)) {
+            force();
+        }
+        notifyListener(late);
+        recordWritten(late.size(), false);
+        sink.close();
+    }
+
+    /**
+     * One line per record (AuditRecord.toString()) appended to a single text file.
+     */
+    private static final class TextFile implements AuditSink {
+        private final Path path;
+        private final FileChannel channel;
+        private final StringBuilder text = new StringBuilder(64 * 1024);
+
+        TextFile(Path path) throws IOException {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void write(List<AuditLogger.AuditRecord> records) throws IOException {
+            text.setLength(0);
+            for (AuditLogger.AuditRecord record : records) {
+                text.append(record).append(System.lineSeparator());
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+
+        @Override
+        public void force() throws IOException {
+            channel.force(false);
+        }
+
+        @Override
+        public Path getPath() {
+            return path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
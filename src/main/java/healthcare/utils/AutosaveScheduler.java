@@ -0,0 +1,165 @@
+package healthcare.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AutosaveScheduler runs a save on a background thread some time after the data changes.
+ * Every change calls markDirty(); the first change of a burst schedules one save after
+ * the delay, and later changes in the same burst ride along with it. Saves never run
+ * on the caller's thread, so the UI does not wait for the disk.
+ *
+ * Tracks how long the last save took and how long the oldest unsaved change waited.
+ */
+public class AutosaveScheduler {
+
+    /**
+     * The work to do when a save is due.
+     */
+    public interface Saver {
+        void save() throws Exception;
+    }
+
+    private final Saver saver;
+    private final long delayMillis;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Object lock = new Object();
+    private boolean dirty;
+    private long dirtySinceNanos;   // when the oldest unsaved change happened
+    private boolean scheduled;
+    private boolean closed;
+
+    private volatile long lastSaveMillis = -1;
+    private volatile long lastChangeToSaveMillis = -1;
+    private volatile long maxChangeToSaveMillis = -1;
+    private volatile long saveCount;
+    private volatile long failureCount;
+
+    public AutosaveScheduler(String name, long delayMillis, Saver saver) {
+        this.saver = saver;
+        this.delayMillis = delayMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // A save waiting for its delay is dropped on close; a running one finishes
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Record that the data changed. Cheap enough to call on every change.
+     */
+    public void markDirty() {
+        synchronized (lock) {
+            if (!dirty) {
+                dirty = true;
+                dirtySinceNanos = System.nanoTime();
+            }
+            scheduleLocked(delayMillis);
+        }
+    }
+
+    /**
+     * Save as soon as possible without waiting for the delay (e.g. on logout).
+     * @return completes when the save has finished
+     */
+    public Future<?> requestSave() {
+        synchronized (lock) {
+            if (!dirty) {
+                dirty = true;
+                dirtySinceNanos = System.nanoTime();
+            }
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return executor.submit(this::runSave);
+        }
+    }
+
+    private void scheduleLocked(long delay) {
+        if (!scheduled && !closed) {
+            scheduled = true;
+            executor.schedule(this::runSave, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runSave() {
+        long dirtySince;
+        synchronized (lock) {
+            scheduled = false;
+            if (!dirty) {
+                return;
+            }
+            // Clear before saving, so changes made during the save schedule another one
+            dirty = false;
+            dirtySince = dirtySinceNanos;
+        }
+        long start = System.nanoTime();
+        try {
+            saver.save();
+        } catch (Exception e) {
+            failureCount++;
+            System.err.println("⚠ Autosave failed, will retry: " + e.getMessage());
+            synchronized (lock) {
+                if (!dirty) {
+                    dirty = true;
+                    dirtySinceNanos = dirtySince;
+                }
+                scheduleLocked(delayMillis);
+            }
+            return;
+        }
+        long end = System.nanoTime();
+        lastSaveMillis = (end - start) / 1_000_000;
+        lastChangeToSaveMillis = (end - dirtySince) / 1_000_000;
+        maxChangeToSaveMillis = Math.max(maxChangeToSaveMillis, lastChangeToSaveMillis);
+        saveCount++;
+    }
+
+    /**
+     * Stop scheduling saves and wait for a running save to finish. Unsaved changes are not saved.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        // No interrupt: it would abort file channels in the middle of a save
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Save now and wait for it to finish.
+     */
+    public void flush() throws ExecutionException, InterruptedException {
+        requestSave().get();
+    }
+
+    public boolean isDirty() {
+        synchronized (lock) {
+            return dirty;
+        }
+    }
+
+    /** Duration of the last successful save in milliseconds, or -1 before the first save. */
+    public long getLastSaveMillis() { return lastSaveMillis; }
+
+    /** Time from the oldest change to the end of the save that stored it, for the last save. */
+    public long getLastChangeToSaveMillis() { return lastChangeToSaveMillis; }
+
+    /** Largest change-to-save time seen so far. */
+    public long getMaxChangeToSaveMillis() { return maxChangeToSaveMillis; }
+
+    public long getSaveCount() { return saveCount; }
+
+    public long getFailureCount() { return failureCount; }
+}
@@ -0,0 +1,76 @@
+package healthcare.utils;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher stores passwords as salted PBKDF2 hashes instead of plain text.
+ * Hashes are written as "pbkdf2-sha256$iterations$salt$hash" (salt and hash in Base64),
+ * so the iteration count can be raised later without breaking existing accounts.
+ *
+ * Verifying a password deliberately takes a few milliseconds; callers on the UI
+ * thread should verify on a worker thread.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int ITERATIONS = 20_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Hash a password with a new random salt
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, ITERATIONS);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + "$" + ITERATIONS + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Check a password against a stored hash. The comparison takes the same time
+     * wherever the first differing byte is.
+     */
+    public static boolean verify(String password, String storedHash) {
+        if (password == null || !isHash(storedHash)) {
+            return false;
+        }
+        String[] parts = storedHash.split("\\$");
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a stored value is a hash written by this class (and not a
+     * plain-text password from older data files)
+     */
+    public static boolean isHash(String value) {
+        return value != null && value.startsWith(PREFIX + "$") && value.split("\\$").length == 4;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // Every Java 8+ runtime provides PBKDF2WithHmacSHA256
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package healthcare.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RosterSolver builds a week of shifts for a pool of nurses and doctors.
+ *
+ * The hard rules hold by construction: every nurse works exactly one 8-hour shift
+ * (8AM-4PM or 2PM-10PM) each day, and every doctor has their hour every day. What is
+ * left is choosing morning or afternoon for each nurse and day, which a local search
+ * (simulated annealing over single-shift flips) does against these costs:
+ * - a day slot with fewer than the minimum number of nurses (must be zero)
+ * - morning and afternoon nurses of a day differing by more than one
+ * - an afternoon shift followed by a morning shift the next day (only 10 hours off)
+ * - a nurse's mornings and afternoons differing by more than one over the week
+ *
+ * Each flip changes the costs of one day and one nurse only, so a move is O(1).
+ * Independent searches with different seeds run on separate threads until the time
+ * budget runs out or one of them reaches the lowest possible cost; the best wins.
+ */
+public class RosterSolver {
+    public static final List<String> DAYS = List.of("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+    public static final String MORNING_SHIFT = "8AM-4PM";
+    public static final String AFTERNOON_SHIFT = "2PM-10PM";
+    public static final String DOCTOR_SHIFT = "1HR";
+
+    private static final int UNCOVERED_COST = 1000;
+    private static final int DAY_IMBALANCE_COST = 2;
+    private static final int TURNAROUND_COST = 10;
+    private static final int NURSE_IMBALANCE_COST = 2;
+
+    // Cheapest week a single nurse can have: either one turnaround (the week repeats, so
+    // mixing mornings and afternoons means at least one afternoon-then-morning) or all
+    // seven shifts in one slot
+    private static final int MIN_NURSE_COST = Math.min(TURNAROUND_COST, 6 * NURSE_IMBALANCE_COST);
+
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final int minPerSlot;
+
+    /**
+     * @param minPerSlot nurses needed on each shift of each day
+     */
+    public RosterSolver(int minPerSlot) {
+        if (minPerSlot < 1) {
+            throw new IllegalArgumentException("At least one nurse is needed per shift");
+        }
+        this.minPerSlot = minPerSlot;
+    }
+
+    /**
+     * A solved week.
+     */
+    public static final class Roster {
+        private final Map<String, Map<String, List<String>>> shifts;
+        private final int cost;
+        private final int lowerBound;
+        private final int uncoveredSlots;
+        private final int turnarounds;
+        private final long moves;
+        private final long elapsedMillis;
+
+        Roster(Map<String, Map<String, List<String>>> shifts, int cost, int lowerBound, int uncoveredSlots,
+               int turnarounds, long moves, long elapsedMillis) {
+            this.shifts = shifts;
+            this.cost = cost;
+            this.lowerBound = lowerBound;
+            this.uncoveredSlots = uncoveredSlots;
+            this.turnarounds = turnarounds;
+            this.moves = moves;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Staff ID -> day ("MON", ...) -> shifts, in the form Staff.setWeeklyShifts() takes.
+         */
+        public Map<String, Map<String, List<String>>> getShifts() { return shifts; }
+
+        public int getCost() { return cost; }
+
+        /**
+         * No week can cost less than this, so a roster at the bound is optimal.
+         */
+        public int getLowerBound() { return lowerBound; }
+
+        public boolean isOptimal() { return cost == lowerBound; }
+
+        /**
+         * Whether every day has the minimum number of nurses on both shifts.
+         */
+        public boolean isCovered() { return uncoveredSlots == 0; }
+
+        /**
+         * Nurses missing over all shifts of the week, counted on the week itself rather than
+         * read off the cost, which also grows with the number of nurses.
+         */
+        public int getUncoveredSlots() { return uncoveredSlots; }
+
+        public int getTurnarounds() { return turnarounds; }
+
+        /**
+         * Moves tried over all searches.
+         */
+        public long getMoves() { return moves; }
+
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+
+    /**
+     * Solve a week for the given staff.
+     * @param budgetMillis time to search for before taking the best week found
+     * @param threads number of searches to run in parallel
+     * @throws IllegalArgumentException if there are too few nurses to cover both shifts, or no doctors
+     */
+    public Roster solve(List<String> nurseIds, List<String> doctorIds, long budgetMillis, int threads) {
+        if (nurseIds.size() < 2 * minPerSlot) {
+            throw new IllegalArgumentException("Need at least " + (2 * minPerSlot) + " nurses to cover both shifts every day, have " + nurseIds.size());
+        }
+        if (doctorIds.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one doctor to cover every day");
+        }
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000L;
+        int lowerBound = nurseIds.size() * MIN_NURSE_COST;
+        int searches = Math.max(1, threads);
+
+        AtomicBoolean optimumFound = new AtomicBoolean();
+        List<Search> results = new ArrayList<>();
+        if (searches == 1) {
+            results.add(new Search(nurseIds.size(), new SplittableRandom(start)).run(deadline, lowerBound, optimumFound));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(searches, runnable -> {
+                Thread thread = new Thread(runnable, "roster-solver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                SplittableRandom seeds = new SplittableRandom(start);
+                List<Future<Search>> futures = new ArrayList<>();
+                for (int i = 0; i < searches; i++) {
+                    Search search = new Search(nurseIds.size(), seeds.split());
+                    futures.add(executor.submit(() -> search.run(deadline, lowerBound, optimumFound)));
+                }
+                for (Future<Search> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Roster search was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Roster search failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        Search best = Collections.min(results, (a, b) -> Integer.compare(a.bestCost, b.bestCost));
+        long moves = results.stream().mapToLong(search -> search.moves).sum();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new Roster(toShifts(nurseIds, doctorIds, best.best), best.bestCost, lowerBound,
+                countUncovered(best.best, minPerSlot), countTurnarounds(best.best), moves, elapsedMillis);
+    }
+
+    private static Map<String, Map<String, List<String>>> toShifts(List<String> nurseIds, List<String> doctorIds,
+                                                                 boolean[][] afternoon) {
+        Map<String, Map<String, List<String>>> shifts = new LinkedHashMap<>();
+        for (int i = 0; i < nurseIds.size(); i++) {
+            Map<String, List<String>> week = new LinkedHashMap<>();
+            for (int d = 0; d < 7; d++) {
+                week.put(DAYS.get(d), List.of(afternoon[i][d] ? AFTERNOON_SHIFT : MORNING_SHIFT));
+            }
+            shifts.put(nurseIds.get(i), week);
+        }
+        for (String doctorId : doctorIds) {
+            Map<String, List<String>> week = new LinkedHashMap<>();
+            for (String day : DAYS) {
+                week.put(day, List.of(DOCTOR_SHIFT));
+            }
+            shifts.put(doctorId, week);
+        }
+        return shifts;
+    }
+
+    private static int countUncovered(boolean[][] afternoon, int minPerSlot) {
+        int count = 0;
+        for (int d = 0; d < 7; d++) {
+            int afternoons = 0;
+            for (boolean[] week : afternoon) {
+                if (week[d]) {
+                    afternoons++;
+                }
+            }
+            count += uncoveredOnDay(afternoon.length, afternoons, minPerSlot);
+        }
+        return count;
+    }
+
+    private static int countTurnarounds(boolean[][] afternoon) {
+        int count = 0;
+        for (boolean[] week : afternoon) {
+            for (int d = 0; d < 7; d++) {
+                if (week[d] && !week[(d + 1) % 7]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // One annealing run; owned by a single thread
+    private final class Search {
+        private final int nurses;
+        private final SplittableRandom random;
+        private final boolean[][] afternoon;      // [nurse][day]
+        private final int[] afternoonsOnDay;
+        private final int[] afternoonsOfNurse;
+        private int cost;
+        // The current week is the best one seen and has not been copied yet
+        private boolean atBest;
+
+        boolean[][] best;
+        int bestCost;
+        long moves;
+
+        Search(int nurses, SplittableRandom random) {
+            this.nurses = nurses;
+            this.random = random;
+            this.afternoon = new boolean[nurses][7];
+            this.afternoonsOnDay = new int[7];
+            this.afternoonsOfNurse = new int[nurses];
+            for (int i = 0; i < nurses; i++) {
+                for (int d = 0; d < 7; d++) {
+                    if (random.nextBoolean()) {
+                        afternoon[i][d] = true;
+                        afternoonsOnDay[d]++;
+                        afternoonsOfNurse[i]++;
+                    }
+                }
+            }
+            for (int d = 0; d < 7; d++) {
+                cost += dayCost(afternoonsOnDay[d]);
+            }
+            for (int i = 0; i < nurses; i++) {
+                cost += nurseImbalanceCost(afternoonsOfNurse[i]);
+                for (int d = 0; d < 7; d++) {
+                    cost += turnaroundCost(afternoon[i], d);
+                }
+            }
+            bestCost = cost;
+            atBest = true;
+        }
+
+        Search run(long deadline, int lowerBound, AtomicBoolean optimumFound) {
+            double startTemperature = TURNAROUND_COST;
+            long startNanos = System.nanoTime();
+            double span = Math.max(1, deadline - startNanos);
+            double temperature = startTemperature;
+            while (bestCost > lowerBound) {
+                if (moves % TIME_CHECK_INTERVAL == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline || optimumFound.get()) {
+                        break;
+                    }
+                    // Cool linearly over the budget, but never quite to zero
+                    temperature = Math.max(0.05, startTemperature * (1 - (now - startNanos) / span));
+                }
+                moves++;
+                int nurse = random.nextInt(nurses);
+                int day = random.nextInt(7);
+                int delta = flipDelta(nurse, day);
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    if (delta > 0 && atBest) {
+                        // About to leave the best week: copy it only now, not on every improvement
+                        keepBest();
+                    }
+                    flip(nurse, day);
+                    cost += delta;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        atBest = true;
+                    }
+                }
+            }
+            if (atBest) {
+                keepBest();
+            }
+            if (bestCost == lowerBound) {
+                optimumFound.set(true);
+            }
+            return this;
+        }
+
+        private int flipDelta(int nurse, int day) {
+            boolean[] week = afternoon[nurse];
+            int before = afternoonsOnDay[day];
+            int after = week[day] ? before - 1 : before + 1;
+            int nurseBefore = afternoonsOfNurse[nurse];
+            int nurseAfter = week[day] ? nurseBefore - 1 : nurseBefore + 1;
+            int previousDay = (day + 6) % 7;
+            int oldTurnarounds = turnaroundCost(week, previousDay) + turnaroundCost(week, day);
+            week[day] = !week[day];
+            int newTurnarounds = turnaroundCost(week, previousDay) + turnaroundCost(week, day);
+            week[day] = !week[day];
+            return dayCost(after) - dayCost(before)
+                    + nurseImbalanceCost(nurseAfter) - nurseImbalanceCost(nurseBefore)
+                    + newTurnarounds - oldTurnarounds;
+        }
+
+        private void flip(int nurse, int day) {
+            boolean nowAfternoon = !afternoon[nurse][day];
+            afternoon[nurse][day] = nowAfternoon;
+            int change = nowAfternoon ? 1 : -1;
+            afternoonsOnDay[day] += change;
+            afternoonsOfNurse[nurse] += change;
+        }
+
+        private int dayCost(int afternoons) {
+            int mornings = nurses - afternoons;
+            return uncoveredOnDay(nurses, afternoons, minPerSlot) * UNCOVERED_COST + Math.max(0, Math.abs(mornings - afternoons) - 1) * DAY_IMBALANCE_COST;
+        }
+
+        private void keepBest() {
+            if (best == null) {
+                best = new boolean[nurses][];
+            }
+            for (int i = 0; i < nurses; i++) {
+                best[i] = Arrays.copyOf(afternoon[i], 7);
+            }
+            atBest = false;
+        }
+    }
+
+    // Cost of the change from one day to the next (the week repeats, so SUN is followed by MON)
+    private static int turnaroundCost(boolean[] week, int day) {
+        return week[day] && !week[(day + 1) % 7] ? TURNAROUND_COST : 0;
+    }
+
+    private static int uncoveredOnDay(int nurses, int afternoons, int minPerSlot) {
+        int mornings = nurses - afternoons;
+        return Math.max(0, minPerSlot - mornings) + Math.max(0, minPerSlot - afternoons);
+    }
+
+    private static int nurseImbalanceCost(int afternoons) {
+        return Math.max(0, Math.abs(7 - 2 * afternoons) - 1) * NURSE_IMBALANCE_COST;
+    }
+}
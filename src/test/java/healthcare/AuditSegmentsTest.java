@@ -0,0 +1,207 @@
+package healthcare;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditSegments;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JUnit tests for the segmented, compressed audit files and their time range reads.
+ */
+public class AuditSegmentsTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 9, 30);
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("audit-segments");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // Records a minute apart, several sharing each timestamp
+    private static List<AuditLogger.AuditRecord> records(int first, int count) {
+        List<AuditLogger.AuditRecord> records = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            records.add(new AuditLogger.AuditRecord(i, "NUR00" + (i % 4), "ACTION" + (i % 3),
+                    "Record " + i, TIME.plusMinutes(i / 3).plusNanos(i % 3 == 2 ? 500_000 : 0)));
+        }
+        return records;
+    }
+
+    private static void write(AuditSegments segments, List<AuditLogger.AuditRecord> records) throws IOException {
+        // In batches, as AuditWriter hands them over
+        for (int i = 0; i < records.size(); i += 50) {
+            segments.write(records.subList(i, Math.min(records.size(), i + 50)));
+        }
+    }
+
+    private static List<String> text(List<AuditLogger.AuditRecord> records) {
+        return records.stream().map(record -> record.getId() + " " + record.getTimestamp() + " " + record)
+                .collect(Collectors.toList());
+    }
+
+    private static List<AuditLogger.AuditRecord> between(List<AuditLogger.AuditRecord> records,
+                                                         LocalDateTime from, LocalDateTime to) {
+        return records.stream()
+                .filter(record -> from == null || !record.getTimestamp().isBefore(from))
+                .filter(record -> to == null || record.getTimestamp().isBefore(to))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(suffix))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Test segments rotate by size and day and time ranges read back exactly")
+    void testRotationAndRanges() throws Exception {
+        // 6000 records over about four days
+        List<AuditLogger.AuditRecord> records = records(0, 6000);
+        try (AuditSegments segments = new AuditSegments(dir, 32 * 1024, 1024)) {
+            write(segments, records);
+            assertTrue(segments.getSealedCount() >= 4, "At least one segment per day");
+            assertEquals(segments.getSealedCount() + 1, segments.getSegmentCount());
+            assertEquals(1, files(".log").size(), "Only the active segment is uncompressed");
+            for (String name : files(".seg")) {
+                assertTrue(Files.size(dir.resolve(name)) < 32 * 1024 / 2, name + " is compressed");
+            }
+
+            assertEquals(text(records), text(segments.read(null, null)));
+            LocalDateTime[][] ranges = {
+                    {TIME.plusMinutes(100), TIME.plusMinutes(160)},
+                    {TIME.plusMinutes(100).plusNanos(500_000), TIME.plusHours(30)},
+                    {TIME.plusDays(1).withHour(0), TIME.plusDays(2).withHour(0)},
+                    {TIME.plusMinutes(1999), null},
+                    {null, TIME.plusMinutes(5)},
+                    {TIME.minusDays(1), TIME},
+                    {TIME.plusDays(10), null},
+            };
+            for (LocalDateTime[] range : ranges) {
+                assertEquals(text(between(records, range[0], range[1])), text(segments.read(range[0], range[1])),
+                        range[0] + " to " + range[1]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test separators and line breaks in a record survive the round trip")
+    void testEscaping() throws Exception {
+        AuditLogger.AuditRecord odd = new AuditLogger.AuditRecord(7, null, "NOTE|ADD",
+                "Line one\nline two\r\n| back\\slash \\p", TIME);
+        try (AuditSegments segments = new AuditSegments(dir, 1024 * 1024, 1024)) {
+            segments.write(List.of(odd));
+            AuditLogger.AuditRecord read = segments.read(null, null).get(0);
+            assertNull(read.getStaffId());
+            assertEquals(odd.getAction(), read.getAction());
+            assertEquals(odd.getDetails(), read.getDetails());
+            assertEquals(7, read.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Test reopening continues the active segment and tidies up after a crash")
+    void testReopen() throws Exception {
+        List<AuditLogger.AuditRecord> records = records(0, 1500);
+        try (AuditSegments segments = new AuditSegments(dir, 16 * 1024, 1024)) {
+            write(segments, records.subList(0, 1000));
+        }
+        String active = files(".log").get(0);
+        // A line cut short by a crash
+        Files.write(dir.resolve(active), "1000|2024-01-0".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (AuditSegments segments = new AuditSegments(dir, 16 * 1024, 1024)) {
+            assertEquals(List.of(active), files(".log"));
+            write(segments, records.subList(1000, 1500));
+            assertEquals(text(records), text(segments.read(null, null)));
+        }
+
+        // A crash just after the next segment was started leaves two .log files
+        Files.write(dir.resolve("audit-999998.log"),
+                ("1500|" + TIME.plusDays(3) + "|NUR001|LOGIN|Next day\n").getBytes(StandardCharsets.UTF_8));
+        try (AuditSegments segments = new AuditSegments(dir, 16 * 1024, 1024)) {
+            assertEquals(List.of("audit-999998.log"), files(".log"), "Only the newest stays active");
+            List<AuditLogger.AuditRecord> all = segments.read(null, null);
+            assertEquals(1501, all.size());
+            assertEquals(text(records), text(all.subList(0, 1500)));
+            assertEquals("Next day", all.get(1500).getDetails());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a segment with a bad line is set aside and the rest still open")
+    void testCorruptSegmentQuarantined() throws Exception {
+        List<AuditLogger.AuditRecord> records = records(0, 300);
+        try (AuditSegments segments = new AuditSegments(dir, 1024 * 1024, 1024)) {
+            write(segments, records);
+        }
+        // An older segment left as .log with a line that is not a record
+        Files.write(dir.resolve("audit-000000.log"),
+                ("not a record\n").getBytes(StandardCharsets.UTF_8));
+
+        try (AuditSegments segments = new AuditSegments(dir, 1024 * 1024, 1024)) {
+            assertEquals(List.of("audit-000000.log.corrupt"), files(".corrupt"));
+            assertEquals(text(records), text(segments.read(null, null)));
+        }
+
+        // The same for the newest segment: a new one is started
+        Files.write(dir.resolve("audit-999999.log"), ("bad|line\n").getBytes(StandardCharsets.UTF_8));
+        try (AuditSegments segments = new AuditSegments(dir, 1024 * 1024, 1024)) {
+            assertEquals(2, files(".corrupt").size());
+            List<AuditLogger.AuditRecord> more = records(300, 10);
+            segments.write(more);
+            List<AuditLogger.AuditRecord> all = new ArrayList<>(records);
+            all.addAll(more);
+            assertEquals(text(all), text(segments.read(null, null)));
+        }
+    }
+
+    @Test
+    @DisplayName("Test reads during writes and rotation see a whole prefix of the records")
+    void testReadsWhileWriting() throws Exception {
+        List<AuditLogger.AuditRecord> records = records(0, 6000);
+        try (AuditSegments segments = new AuditSegments(dir, 8 * 1024, 1024)) {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    write(segments, records);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                List<AuditLogger.AuditRecord> read = segments.read(null, null);
+                assertEquals(text(records.subList(0, read.size())), text(read));
+            }
+            writer.join();
+            assertNull(failure.get());
+            assertEquals(text(records), text(segments.read(null, null)));
+        }
+    }
+}
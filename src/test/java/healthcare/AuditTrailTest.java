@@ -0,0 +1,293 @@
+package healthcare;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditQuery;
+import healthcare.utils.AuditStore;
+import healthcare.utils.AuditTrail;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * JUnit tests for the bounded audit cache and its paged reads.
+ */
+public class AuditTrailTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 9, 30);
+
+    // Stands in for the audit_log table
+    private static class MemoryStore implements AuditStore {
+        final NavigableMap<Long, AuditLogger.AuditRecord> rows = new TreeMap<>();
+        int reads;
+        boolean failing;
+
+        @Override
+        public synchronized boolean saveAuditLogs(List<AuditLogger.AuditRecord> records) {
+            if (failing) {
+                return false;
+            }
+            for (AuditLogger.AuditRecord record : records) {
+                rows.put(record.getId(), record);
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized List<AuditLogger.AuditRecord> getAuditRecordsBefore(long beforeId, int limit) {
+            reads++;
+            List<AuditLogger.AuditRecord> result = new ArrayList<>();
+            for (AuditLogger.AuditRecord record : rows.headMap(beforeId, false).descendingMap().values()) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(record);
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized List<AuditLogger.AuditRecord> findAuditRecords(AuditQuery query, long beforeId, int limit) {
+            reads++;
+            List<AuditLogger.AuditRecord> result = new ArrayList<>();
+            for (AuditLogger.AuditRecord record : rows.headMap(beforeId, false).descendingMap().values()) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (query.matches(record)) {
+                    result.add(record);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized long getLastAuditId() {
+            return rows.isEmpty() ? 0 : rows.lastKey();
+        }
+    }
+
+    private static void log(AuditTrail trail, AuditStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            AuditLogger.AuditRecord record = trail.add("STAFF" + (i % 3), "ACTION", "Record", TIME);
+            if (store != null) {
+                store.saveAuditLogs(List.of(record));
+                trail.markStored(record.getId());
+            }
+        }
+    }
+
+    // Every record ID from the newest page to the oldest
+    private static List<Long> readAll(AuditTrail trail, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        long cursor = AuditTrail.LATEST;
+        AuditTrail.AuditPage page;
+        do {
+            page = trail.getPage(cursor, pageSize);
+            assertTrue(page.getRecords().size() <= pageSize);
+            page.getRecords().forEach(record -> ids.add(record.getId()));
+            cursor = page.getNextCursor();
+        } while (page.hasMore());
+        return ids;
+    }
+
+    // Every record ID matching a query, newest first, a page at a time
+    private static List<Long> queryAll(AuditTrail trail, AuditQuery query, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        long cursor = AuditTrail.LATEST;
+        AuditTrail.AuditPage page;
+        do {
+            page = trail.query(query, cursor, pageSize);
+            assertTrue(page.getRecords().size() <= pageSize);
+            page.getRecords().forEach(record -> ids.add(record.getId()));
+            cursor = page.getNextCursor();
+        } while (page.hasMore());
+        return ids;
+    }
+
+    private static List<Long> descending(long from) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id >= 1; id--) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Test recent pages come from memory and older ones from the store")
+    void testPagesAcrossRingAndStore() {
+        MemoryStore store = new MemoryStore();
+        AuditTrail trail = new AuditTrail(100, store);
+        log(trail, store, 250);
+        assertEquals(250, trail.getRecordCount());
+        assertEquals(100, trail.getCachedCount());
+
+        AuditTrail.AuditPage first = trail.getPage(AuditTrail.LATEST, 40);
+        assertEquals(250, first.getRecords().get(0).getId());
+        assertEquals(0, store.reads, "The newest page should not touch the store");
+
+        for (int pageSize : new int[]{1, 7, 40, 100, 1000}) {
+            assertEquals(descending(250), readAll(trail, pageSize), "Page size " + pageSize);
+        }
+
+        // A page that starts in the ring and ends in the store
+        AuditTrail.AuditPage mixed = trail.getPage(160, 20);
+        assertEquals(159, mixed.getRecords().get(0).getId());
+        assertEquals(140, mixed.getNextCursor());
+        assertTrue(mixed.hasMore());
+
+        // New records do not shift pages already being read
+        AuditTrail.AuditPage before = trail.getPage(first.getNextCursor(), 40);
+        log(trail, store, 5);
+        assertEquals(before.getRecords(), trail.getPage(first.getNextCursor(), 40).getRecords());
+        assertThrows(IllegalArgumentException.class, () -> trail.getPage(AuditTrail.LATEST, 0));
+    }
+
+    @Test
+    @DisplayName("Test a new trail continues from the stored history")
+    void testRestart() {
+        MemoryStore store = new MemoryStore();
+        log(new AuditTrail(50, store), store, 120);
+
+        AuditTrail restarted = new AuditTrail(50, store);
+        assertEquals(120, restarted.getRecordCount());
+        assertEquals(50, restarted.getCachedCount());
+        store.reads = 0;
+        assertEquals(120, restarted.getPage(AuditTrail.LATEST, 10).getRecords().get(0).getId());
+        assertEquals(0, store.reads, "Recent records are reloaded into memory");
+
+        assertEquals(121, restarted.add("MGR001", "LOGIN", "Restarted", TIME).getId());
+    }
+
+    @Test
+    @DisplayName("Test without a store only the ring is kept")
+    void testWithoutStore() {
+        AuditTrail trail = new AuditTrail(30, null);
+        log(trail, null, 75);
+        assertEquals(75, trail.getRecordCount());
+        assertEquals(descending(75).subList(0, 30), readAll(trail, 8));
+        assertTrue(new AuditTrail(5, null).getPage(AuditTrail.LATEST, 5).getRecords().isEmpty());
+        assertFalse(new AuditTrail(5, null).getPage(AuditTrail.LATEST, 5).hasMore());
+    }
+
+    @Test
+    @DisplayName("Test reading past the ring waits for records still being stored")
+    void testWaitsForStore() throws Exception {
+        MemoryStore store = new MemoryStore();
+        AuditTrail trail = new AuditTrail(10, store);
+        List<AuditLogger.AuditRecord> unsaved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            unsaved.add(trail.add("STAFF", "ACTION", "Record", TIME));
+        }
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            store.saveAuditLogs(unsaved);
+            trail.markStored(25);
+        });
+        writer.start();
+        assertEquals(descending(25), readAll(trail, 20));
+        writer.join();
+    }
+
+    @Test
+    @DisplayName("Test a batch the store rejects is kept and saved with the next one")
+    void testRetriesFailedSave() {
+        MemoryStore store = new MemoryStore();
+        AuditTrail trail = new AuditTrail(10, store, 50);
+        List<AuditLogger.AuditRecord> first = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            first.add(trail.add("STAFF", "ACTION", "Record", TIME));
+        }
+        store.failing = true;
+        trail.save(first);
+        assertEquals(15, trail.getUnsavedCount());
+        assertTrue(store.rows.isEmpty());
+        // Records 1-5 are only in the store, which does not have them: fail, don't skip
+        assertThrows(UncheckedIOException.class, () -> readAll(trail, 20));
+
+        store.failing = false;
+        List<AuditLogger.AuditRecord> second = List.of(trail.add("STAFF", "ACTION", "Record", TIME));
+        trail.save(second);
+        assertEquals(0, trail.getUnsavedCount());
+        assertEquals(16, store.rows.size());
+        assertEquals(descending(16), readAll(trail, 20));
+    }
+
+    @Test
+    @DisplayName("Test reading past the ring gives up when the store does not catch up")
+    void testStoreWaitTimesOut() {
+        AuditTrail trail = new AuditTrail(10, new MemoryStore(), 50);
+        for (int i = 0; i < 25; i++) {
+            trail.add("STAFF", "ACTION", "Record", TIME);
+        }
+        long start = System.nanoTime();
+        assertThrows(UncheckedIOException.class, () -> readAll(trail, 20));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+
+    @Test
+    @DisplayName("Test queries by staff, action and time across the ring and the store")
+    void testQueries() {
+        MemoryStore store = new MemoryStore();
+        AuditTrail trail = new AuditTrail(100, store);
+        String[] actions = {"LOGIN", "ADMIT_PATIENT", "DISCHARGE_PATIENT", "ADMINISTER_MEDICATION"};
+        List<AuditLogger.AuditRecord> all = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            AuditLogger.AuditRecord record = trail.add("NUR00" + (i % 5), actions[(i / 5) % actions.length],
+                    "Record " + i, TIME.plusHours(i));
+            all.add(record);
+            store.saveAuditLogs(List.of(record));
+            trail.markStored(record.getId());
+        }
+
+        List<AuditQuery> queries = List.of(
+                AuditQuery.all(),
+                AuditQuery.all().byStaff("NUR003"),
+                AuditQuery.all().byAction("DISCHARGE_PATIENT"),
+                AuditQuery.all().byStaff("NUR001").byAction("DISCHARGE_PATIENT"),
+                AuditQuery.all().byStaff("NUR002").between(TIME.plusHours(50), TIME.plusHours(350)),
+                AuditQuery.all().between(TIME.plusHours(320), null),
+                AuditQuery.all().between(null, TIME.plusHours(10)),
+                AuditQuery.all().byStaff("NOBODY"));
+        for (AuditQuery query : queries) {
+            List<Long> expected = new ArrayList<>();
+            for (int i = all.size() - 1; i >= 0; i--) {
+                if (query.matches(all.get(i))) {
+                    expected.add(all.get(i).getId());
+                }
+            }
+            for (int pageSize : new int[]{1, 3, 25, 1000}) {
+                assertEquals(expected, queryAll(trail, query, pageSize), "Page size " + pageSize);
+            }
+        }
+
+        // Recent matches come from the ring's lists without touching the store
+        store.reads = 0;
+        AuditTrail.AuditPage recent = trail.query(AuditQuery.all().byStaff("NUR004"), AuditTrail.LATEST, 10);
+        assertEquals(400, recent.getRecords().get(0).getId());
+        assertEquals(0, store.reads);
+        AuditTrail.AuditPage window = trail.query(AuditQuery.all().between(TIME.plusHours(350), null), AuditTrail.LATEST, 100);
+        assertEquals(50, window.getRecords().size());
+        assertFalse(window.hasMore());
+        assertEquals(0, store.reads, "A window inside the ring ends without reading the store");
+    }
+
+    @Test
+    @DisplayName("Test timestamps never go backwards")
+    void testMonotonicTimestamps() {
+        AuditTrail trail = new AuditTrail(10, null);
+        trail.add("STAFF", "ACTION", "Before", TIME);
+        AuditLogger.AuditRecord stepped = trail.add("STAFF", "ACTION", "Clock stepped back", TIME.minusMinutes(5));
+        assertEquals(TIME, stepped.getTimestamp());
+        assertEquals(TIME.plusMinutes(1), trail.add("STAFF", "ACTION", "After", TIME.plusMinutes(1)).getTimestamp());
+    }
+}
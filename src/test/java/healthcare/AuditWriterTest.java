@@ -0,0 +1,104 @@
+package healthcare;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JUnit tests for the background audit file writer.
+ */
+public class AuditWriterTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 9, 30);
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("audit-writer");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static AuditLogger.AuditRecord record(int i) {
+        return new AuditLogger.AuditRecord("STAFF" + (i % 7), "ACTION", "Record " + i, TIME);
+    }
+
+    @Test
+    @DisplayName("Test every record is written once and in order under each durability setting")
+    void testRecordsInOrder() throws Exception {
+        for (long fsyncMillis : new long[]{-1, 0, 50}) {
+            Path file = dir.resolve("audit_" + (fsyncMillis + 1) + ".txt");
+            try (AuditWriter writer = new AuditWriter(file, 256, fsyncMillis)) {
+                for (int i = 0; i < 5000; i++) {
+                    writer.append(record(i));
+                }
+                writer.flush();
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                assertEquals(5000, lines.size(), "fsync " + fsyncMillis);
+                for (int i = 0; i < lines.size(); i++) {
+                    assertEquals(record(i).toString(), lines.get(i));
+                }
+                assertTrue(writer.getBatchCount() <= 5000);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test records from several threads all reach the file")
+    void testConcurrentAppends() throws Exception {
+        Path file = dir.resolve("logs").resolve("audit_log.txt");
+        AuditWriter writer = new AuditWriter(file, 64, 10);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 1000;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    writer.append(record(offset + i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // close() writes out whatever is still queued
+        writer.close();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(4000, lines.size());
+        assertEquals(4000, lines.stream().distinct().count());
+        assertThrows(IllegalStateException.class, () -> writer.append(record(0)));
+    }
+
+    @Test
+    @DisplayName("Test reopening appends to the existing file")
+    void testAppendsAcrossOpens() throws Exception {
+        Path file = dir.resolve("audit_log.txt");
+        try (AuditWriter writer = new AuditWriter(file, 16, -1)) {
+            writer.append(record(1));
+        }
+        try (AuditWriter writer = new AuditWriter(file, 16, -1)) {
+            writer.append(record(2));
+        }
+        assertEquals(List.of(record(1).toString(), record(2).toString()), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import healthcare.utils.PasswordHasher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit tests for password hashing and staff login.
+ */
+public class AuthenticationTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test passwords are stored as salted hashes")
+    void testPasswordHashing() {
+        String first = PasswordHasher.hash("secret");
+        String second = PasswordHasher.hash("secret");
+        assertNotEquals(first, second, "Each hash should use its own salt");
+        assertFalse(first.contains("secret"));
+        assertTrue(PasswordHasher.verify("secret", first));
+        assertTrue(PasswordHasher.verify("secret", second));
+        assertFalse(PasswordHasher.verify("Secret", first));
+        assertFalse(PasswordHasher.verify("secret", "secret"), "Plain text is not a valid stored hash");
+
+        Staff nurse = careHome.getStaff("NUR001");
+        assertTrue(PasswordHasher.isHash(nurse.getPasswordHash()));
+    }
+
+    @Test
+    @DisplayName("Test login finds staff by username and checks the password")
+    void testAuthenticate() throws Exception {
+        Staff nurse = careHome.getStaff("NUR001");
+        nurse.setPassword("changed");
+        assertSame(nurse, careHome.authenticateStaff(nurse.getUsername(), "changed"));
+        assertNull(careHome.authenticateStaff(nurse.getUsername(), "wrong"));
+        assertNull(careHome.authenticateStaff("nobody", "changed"));
+
+        String oldUsername = nurse.getUsername();
+        nurse.setUsername("renamed");
+        assertNull(careHome.authenticateStaff(oldUsername, "changed"), "Old username should no longer log in");
+        assertSame(nurse, careHome.authenticateStaff("renamed", "changed"));
+
+        assertSame(nurse, careHome.authenticateStaffAsync("renamed", "changed").get(10, TimeUnit.SECONDS));
+        assertNull(careHome.authenticateStaffAsync("renamed", "wrong").get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,123 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.time.LocalDate;
+
+/**
+ * JUnit tests for the BedAllocator free-bed index.
+ */
+public class BedAllocatorTest {
+    private BedAllocator allocator;
+    private Room singleRoom;
+    private Room twinRoom;
+    private Room fourBedRoom;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new BedAllocator();
+        Ward ward = new Ward("TW", "Test Ward");
+        singleRoom = new Room("TW-R1", "TW", 1);
+        twinRoom = new Room("TW-R2", "TW", 2);
+        fourBedRoom = new Room("TW-R3", "TW", 4);
+        for (Room room : new Room[]{singleRoom, twinRoom, fourBedRoom}) {
+            ward.addRoom(room);
+            room.setListener(allocator);
+            allocator.addRoom(room);
+        }
+    }
+
+    private Patient patient(String id, String gender, boolean isolation) {
+        return new Patient(id, "Patient " + id, id + "@test.com", "1234567890",
+                LocalDate.of(1950, 1, 1), gender, "Condition", isolation);
+    }
+
+    // Place the patient in the bed the allocator picks, as CareHome.admitPatient does
+    private Bed reserve(Patient patient, String wardId) {
+        Bed bed = allocator.findBestBed(patient.getGender(), patient.requiresIsolation(), wardId);
+        if (bed != null) {
+            bed.assignPatient(patient);
+        }
+        return bed;
+    }
+
+    @Test
+    @DisplayName("Test isolation patients get the smallest empty room")
+    void testIsolationPatientGetsSmallestEmptyRoom() {
+        Bed bed = reserve(patient("PAT001", "F", true), null);
+        assertNotNull(bed);
+        assertEquals("TW-R1", bed.getRoomId(), "Isolation patient should get the single room");
+        assertTrue(bed.isOccupied());
+    }
+
+    @Test
+    @DisplayName("Test patients fill rooms of their own gender first")
+    void testPatientsFillSameGenderRoomsFirst() {
+        Bed first = reserve(patient("PAT001", "M", false), null);
+        assertEquals("TW-R3", first.getRoomId(), "First patient should get the largest empty room");
+
+        Bed second = reserve(patient("PAT002", "M", false), null);
+        assertEquals("TW-R3", second.getRoomId(), "Same gender should share the partly filled room");
+
+        Bed third = reserve(patient("PAT003", "F", false), null);
+        assertNotEquals("TW-R3", third.getRoomId(), "Other gender must not join the male room");
+        assertEquals("F", third.getRoom().getRoomGender());
+    }
+
+    @Test
+    @DisplayName("Test allocator returns null when no bed satisfies the constraints")
+    void testNoSuitableBed() {
+        reserve(patient("PAT001", "M", true), null);
+        reserve(patient("PAT002", "M", true), null);
+        reserve(patient("PAT003", "M", true), null);
+        assertNull(allocator.findBestBed("F", true, null), "No empty rooms should be left");
+        assertNull(allocator.findBestBed("F", false, "TW"), "Rooms with isolation patients are closed");
+        assertNull(allocator.findBestBed("M", false, "NOPE"), "Unknown ward has no beds");
+    }
+
+    @Test
+    @DisplayName("Test vacated beds become available again")
+    void testVacatedBedIsReused() {
+        Bed bed = reserve(patient("PAT001", "F", true), "TW");
+        assertEquals("TW-R1", bed.getRoomId());
+        bed.vacateBed();
+        assertEquals(bed, allocator.findBestBed("M", true, "TW"), "Vacated single room should be offered again");
+    }
+
+    @Test
+    @DisplayName("Test the care home admits through the allocator and keeps isolation rooms closed")
+    void testCareHomeAdmissionsKeepIsolation() throws Exception {
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        Ward ward = new Ward("W9", "Test Ward");
+        ward.addRoom(new Room("W9-R1", "W9", 1));
+        ward.addRoom(new Room("W9-R2", "W9", 3));
+        careHome.addWard(ward);
+
+        assertEquals("W9-R1-B1", careHome.admitPatient(patient("PAT101", "F", true), "W9", "MGR001"),
+                "Isolation patient should get the single room");
+        assertEquals("W9-R2-B1", careHome.admitPatient(patient("PAT102", "F", false), "W9", "MGR001"));
+        assertEquals("PAT102", careHome.findBed("W9-R2-B1").getPatientId());
+        assertThrows(IllegalStateException.class, () -> careHome.admitPatient(patient("PAT103", "M", true), "W9", "MGR001"),
+                "No empty room is left for another isolation patient");
+
+        // Beds picked by hand follow the same isolation rules
+        assertThrows(IllegalArgumentException.class,
+                () -> careHome.addPatient(patient("PAT104", "F", true), "W9-R2-B2", "MGR001"));
+        careHome.dischargePatient("PAT102", "Recovered", "", "MGR001");
+        careHome.addPatient(patient("PAT105", "M", true), "W9-R2-B2", "MGR001");
+        assertThrows(IllegalArgumentException.class,
+                () -> careHome.addPatient(patient("PAT106", "M", false), "W9-R2-B3", "MGR001"));
+        assertThrows(IllegalArgumentException.class, () -> careHome.movePatient("PAT002", "W9-R2-B1", "MGR001"));
+        assertNull(careHome.getPatient("PAT106"));
+        assertFalse(careHome.findBed("W9-R2-B1").isOccupied());
+
+        // An isolation patient may move within their own room
+        careHome.movePatient("PAT105", "W9-R2-B3", "MGR001");
+        assertEquals("W9-R2-B3", careHome.getPatient("PAT105").getBedId());
+    }
+}
@@ -0,0 +1,61 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.time.LocalDate;
+
+/**
+ * JUnit tests for looking up beds and rooms by bed ID.
+ */
+public class BedLookupTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test bed and room lookup by bed ID")
+    void testBedAndRoomLookup() {
+        Bed bed = careHome.findBed("W1-R3-B1");
+        assertNotNull(bed, "Known bed should be found");
+        assertEquals("W1-R3-B1", bed.getBedId());
+
+        Room room = careHome.findRoomForBed("W1-R3-B1");
+        assertNotNull(room, "Room for known bed should be found");
+        assertEquals("W1-R3", room.getRoomId());
+
+        assertNull(careHome.findBed("W9-R1-B1"), "Unknown bed should not be found");
+        assertNull(careHome.findRoomForBed("W9-R1-B1"), "Unknown bed should have no room");
+        assertNull(careHome.findBed(null), "Null bed ID should not be found");
+    }
+
+    @Test
+    @DisplayName("Test wards and rooms added at runtime can be looked up")
+    void testLookupAfterAddingWardsAndRooms() throws Exception {
+        Ward ward = new Ward("W9", "New Ward");
+        ward.addRoom(new Room("W9-R1", "W9", 2));
+        careHome.addWard(ward);
+        Room added = new Room("W9-R2", "W9", 1);
+        careHome.addRoom("W9", added);
+
+        assertEquals("W9-R1-B2", careHome.findBed("W9-R1-B2").getBedId());
+        assertEquals("W9-R1", careHome.findRoomForBed("W9-R1-B2").getRoomId());
+        assertSame(added.getBeds().get(0), careHome.findBed("W9-R2-B1"));
+        assertSame(added, careHome.findRoomForBed("W9-R2-B1"));
+        assertNull(careHome.findBed("W9-R2-B2"), "Room W9-R2 has one bed");
+        assertThrows(IllegalArgumentException.class, () -> careHome.addRoom("W8", new Room("W8-R1", "W8", 1)));
+
+        // Beds found through the index are the ones patients are placed in
+        careHome.addPatient(new Patient("PAT900", "New Patient", "np@test.com", "1234567890",
+                LocalDate.of(1950, 1, 1), "F", "Flu", false), "W9-R2-B1", "MGR001");
+        assertEquals("PAT900", careHome.findBed("W9-R2-B1").getPatientId());
+        assertEquals(1, careHome.getWard("W9").getOccupiedBeds());
+    }
+}
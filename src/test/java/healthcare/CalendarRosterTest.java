@@ -0,0 +1,207 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.exceptions.StaffNotAuthorizedException;
+import healthcare.exceptions.StaffNotRosteredException;
+import healthcare.model.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JUnit tests for dated rosters: leave, swaps and coverage over calendar dates.
+ */
+public class CalendarRosterTest {
+    // 2024-01-01 was a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test dates follow the weekly pattern until changed")
+    void testPatternRepeats() {
+        Staff nurse = careHome.getStaff("NUR001");
+        for (int d = 0; d < 60; d++) {
+            assertEquals(Set.of(ShiftSlot.MORNING), nurse.getShiftSlots(MONDAY.plusDays(d)));
+        }
+        // Dates before 1970 work too
+        assertTrue(nurse.hasShift(LocalDate.of(1969, 12, 29), ShiftSlot.MORNING));
+
+        // Changing the pattern changes every date that has no change of its own
+        nurse.clearShiftsForDay("TUE");
+        assertEquals(0, nurse.getShiftCount(MONDAY.plusDays(1)));
+        assertEquals(0, nurse.getShiftCount(MONDAY.plusDays(8)));
+    }
+
+    @Test
+    @DisplayName("Test leave and extra shifts change one date only")
+    void testDatedChanges() {
+        Staff nurse = careHome.getStaff("NUR001");
+        LocalDate wednesday = MONDAY.plusDays(2);
+
+        nurse.setOnLeave(wednesday);
+        assertTrue(nurse.isOnLeave(wednesday));
+        assertEquals(0, nurse.getShiftCount(wednesday));
+        assertTrue(nurse.hasShift(wednesday.plusDays(1), ShiftSlot.MORNING), "The rest of the week is unchanged");
+        assertTrue(nurse.hasShift(wednesday.plusWeeks(1), ShiftSlot.MORNING), "Other weeks are unchanged");
+        assertEquals(List.of("8AM-4PM"), nurse.getShiftsForDay("WED"), "The pattern is unchanged");
+
+        nurse.assignShift(wednesday, ShiftSlot.AFTERNOON);
+        assertEquals(Set.of(ShiftSlot.AFTERNOON), nurse.getShiftSlots(wednesday));
+        assertThrows(IllegalArgumentException.class, () -> nurse.assignShift(wednesday, ShiftSlot.MORNING),
+                "Still one shift per day");
+        assertThrows(IllegalArgumentException.class, () -> nurse.assignShift(wednesday.plusDays(7), ShiftSlot.NIGHT));
+
+        nurse.resetToPattern(wednesday);
+        assertFalse(nurse.isOnLeave(wednesday));
+        assertEquals(Set.of(ShiftSlot.MORNING), nurse.getShiftSlots(wednesday));
+
+        // Free-form doctor shifts repeat too, except on leave
+        Staff doctor = careHome.getStaff("DOC001");
+        doctor.clearShiftsForDay("FRI");
+        doctor.assignShift("FRI", "9AM-11AM");
+        assertEquals(1, doctor.getShiftCount(MONDAY.plusDays(4)));
+        doctor.setOnLeave(MONDAY.plusDays(4));
+        assertEquals(0, doctor.getShiftCount(MONDAY.plusDays(4)));
+        assertEquals(1, doctor.getShiftCount(MONDAY.plusDays(11)));
+    }
+
+    @Test
+    @DisplayName("Test managers swap shifts between staff")
+    void testSwap() throws Exception {
+        LocalDate date = MONDAY.plusDays(30);
+        careHome.grantLeave("MGR001", "NUR002", date);
+        careHome.swapShift("MGR001", "NUR001", "NUR002", date, ShiftSlot.MORNING);
+        assertFalse(careHome.getStaff("NUR001").hasShift(date, ShiftSlot.MORNING));
+        assertTrue(careHome.getStaff("NUR002").hasShift(date, ShiftSlot.MORNING));
+
+        // NUR003 already works that morning, so nothing changes
+        assertThrows(IllegalArgumentException.class,
+                () -> careHome.swapShift("MGR001", "NUR002", "NUR003", date, ShiftSlot.MORNING));
+        assertTrue(careHome.getStaff("NUR002").hasShift(date, ShiftSlot.MORNING));
+        assertThrows(IllegalArgumentException.class,
+                () -> careHome.swapShift("MGR001", "NUR001", "NUR003", date, ShiftSlot.MORNING),
+                "NUR001 no longer works that shift");
+
+        assertThrows(StaffNotAuthorizedException.class, () -> careHome.grantLeave("NUR001", "NUR002", date));
+        assertThrows(IllegalArgumentException.class, () -> careHome.grantLeave("MGR001", "NOBODY", date));
+    }
+
+    @Test
+    @DisplayName("Test leave and swaps decide who is on duty")
+    void testDutyFollowsLeaveAndSwaps() throws Exception {
+        LocalDate date = MONDAY.plusDays(14);
+        Clock clock = Clock.fixed(date.atTime(9, 30).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        careHome.setClock(clock);
+        Staff nurse1 = careHome.getStaff("NUR001");
+        Staff nurse2 = careHome.getStaff("NUR002");
+        assertTrue(nurse1.isRosteredNow(clock));
+
+        careHome.grantLeave("MGR001", "NUR002", date);
+        assertFalse(nurse2.isRosteredNow(clock), "A nurse on leave is not on duty");
+        assertTrue(nurse2.isRosteredAt(DayOfWeek.MONDAY, 9), "The weekly pattern is unchanged");
+        assertTrue(nurse2.isRosteredAt(date.plusDays(7).atTime(9, 30)), "Leave covers one date only");
+        assertThrows(StaffNotRosteredException.class, () -> careHome.administerMedication("PAT001",
+                new MedicationRecord("MR1", "PAT001", "NUR002", "Aspirin", "100mg"), "NUR002"));
+
+        careHome.swapShift("MGR001", "NUR001", "NUR002", date, ShiftSlot.MORNING);
+        assertFalse(nurse1.isRosteredNow(clock), "The shift was swapped away");
+        assertTrue(nurse2.isRosteredNow(clock), "The swapped shift is worked");
+        careHome.administerMedication("PAT001", new MedicationRecord("MR2", "PAT001", "NUR002", "Aspirin", "100mg"), "NUR002");
+        assertThrows(StaffNotRosteredException.class, () -> careHome.administerMedication("PAT001",
+                new MedicationRecord("MR3", "PAT001", "NUR001", "Aspirin", "100mg"), "NUR001"));
+        assertTrue(careHome.getStaff("MGR001").isRosteredAt(date.atTime(3, 0)), "Managers are always on duty");
+    }
+
+    @Test
+    @DisplayName("Test coverage over a range of dates")
+    void testCoverage() throws Exception {
+        LocalDate from = MONDAY.plusDays(3);
+        careHome.grantLeave("MGR001", "NUR001", from.plusDays(10));
+        careHome.grantLeave("MGR001", "NUR002", from.plusDays(10));
+        careHome.assignShiftOn("MGR001", "NUR002", from.plusDays(10), ShiftSlot.AFTERNOON);
+
+        CalendarRoster.Coverage coverage = careHome.getCoverage("Nurse", from, 30);
+        assertEquals(30, coverage.getDays());
+        for (int d = 0; d < 30; d++) {
+            LocalDate date = from.plusDays(d);
+            int expected = d == 10 ? 1 : 3;
+            assertEquals(expected, coverage.get(date, ShiftSlot.MORNING), date.toString());
+            assertEquals(d == 10 ? 1 : 0, coverage.get(date, ShiftSlot.AFTERNOON), date.toString());
+        }
+        assertEquals(List.of(from.plusDays(10)), coverage.getDatesBelow(ShiftSlot.MORNING, 2));
+        assertThrows(IllegalArgumentException.class, () -> coverage.get(from.minusDays(1), ShiftSlot.MORNING));
+
+        CalendarRoster.Coverage doctors = careHome.getCoverage("Doctor", from, 7);
+        assertEquals(2, doctors.get(from, ShiftSlot.DOCTOR_HOUR));
+        assertEquals(0, careHome.getCoverage("Nurse", from, 0).getDays());
+    }
+
+    @Test
+    @DisplayName("Test compliance of a calendar week")
+    void testWeekCompliance() throws Exception {
+        LocalDate thursday = MONDAY.plusDays(3);
+        assertTrue(careHome.getComplianceViolations(thursday).isEmpty());
+
+        careHome.grantLeave("MGR001", "NUR001", thursday);
+        careHome.grantLeave("MGR001", "DOC001", thursday.plusDays(1));
+        List<ComplianceTracker.Violation> violations = careHome.getComplianceViolations(MONDAY);
+        assertEquals(3, violations.size());
+        for (ComplianceTracker.Violation violation : violations) {
+            switch (violation.getRule()) {
+                case NURSE_WEEKLY_SHIFTS:
+                    assertEquals("NUR001", violation.getStaffId());
+                    break;
+                case DOCTOR_WEEKLY_HOURS:
+                    assertEquals("DOC001", violation.getStaffId());
+                    break;
+                case DOCTOR_DAILY_SHIFT:
+                    assertEquals("FRI", violation.getDay());
+                    break;
+                default:
+                    fail("Unexpected violation " + violation.getMessage());
+            }
+        }
+
+        assertTrue(careHome.getComplianceViolations(MONDAY.plusWeeks(1)).isEmpty(), "Other weeks are unaffected");
+        assertTrue(careHome.getComplianceViolations().isEmpty(), "The weekly pattern is still compliant");
+    }
+
+    @Test
+    @DisplayName("Test dated shifts survive Java serialization")
+    void testSerializeDatedShifts() throws Exception {
+        Staff nurse = careHome.getStaff("NUR001");
+        nurse.setOnLeave(MONDAY);
+        nurse.removeShift(MONDAY.plusDays(8), ShiftSlot.MORNING);
+        nurse.assignShift(MONDAY.plusDays(8), ShiftSlot.AFTERNOON);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(nurse);
+        }
+        Staff copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Staff) in.readObject();
+        }
+        assertTrue(copy.isOnLeave(MONDAY));
+        assertEquals(Set.of(ShiftSlot.AFTERNOON), copy.getShiftSlots(MONDAY.plusDays(8)));
+        assertEquals(Set.of(ShiftSlot.MORNING), copy.getShiftSlots(MONDAY.plusDays(7)));
+    }
+}
@@ -0,0 +1,246 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.exceptions.BedOccupiedException;
+import healthcare.model.*;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded stress tests for CareHome admissions and moves.
+ * Several "terminals" drive one CareHome at once; afterwards every bed,
+ * patient and counter must still agree with each other.
+ */
+public class CareHomeConcurrencyTest {
+    private static final int THREADS = 8;
+    private CareHome careHome;
+    private List<String> bedIds;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        Ward ward = new Ward("W9", "Stress Ward");
+        for (int i = 1; i <= 40; i++) {
+            ward.addRoom(new Room("W9-R" + i, "W9", 1 + i % 4));
+        }
+        careHome.addWard(ward);
+        bedIds = new ArrayList<>();
+        for (Ward w : careHome.getWards()) {
+            for (Bed bed : w.getAllBeds()) {
+                bedIds.add(bed.getBedId());
+            }
+        }
+    }
+
+    private Patient newPatient(String id, Random random) {
+        return new Patient(id, "Patient " + id, "p@test.com", "1234567890",
+                LocalDate.of(1950, 1, 1), random.nextBoolean() ? "M" : "F", "Condition", false);
+    }
+
+    // One terminal's work; anything it throws fails the test
+    private interface Terminal {
+        void run() throws Exception;
+    }
+
+    private void runConcurrently(Terminal task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS), "Stress run should finish");
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                fail("A terminal failed: " + e.getCause(), e.getCause());
+            }
+        }
+    }
+
+    private void assertConsistent() {
+        Set<String> seenPatients = new HashSet<>();
+        int occupied = 0;
+        for (Ward ward : careHome.getWards()) {
+            int wardOccupied = 0;
+            for (Room room : ward.getRooms()) {
+                int roomOccupied = 0;
+                Set<String> genders = new HashSet<>();
+                for (Bed bed : room.getBeds()) {
+                    if (!bed.isOccupied()) continue;
+                    roomOccupied++;
+                    Patient patient = careHome.getPatient(bed.getPatientId());
+                    assertNotNull(patient, "Occupied bed " + bed.getBedId() + " must hold a known patient");
+                    assertEquals(bed.getBedId(), patient.getBedId(), "Patient and bed must agree");
+                    assertTrue(seenPatients.add(patient.getId()), "Patient " + patient.getId() + " is in two beds");
+                    genders.add(patient.getGender());
+                }
+                assertTrue(genders.size() <= 1, "Room " + room.getRoomId() + " mixes genders");
+                assertEquals(roomOccupied, room.getOccupiedBeds(), "Room counter for " + room.getRoomId());
+                wardOccupied += roomOccupied;
+            }
+            assertEquals(wardOccupied, ward.getOccupiedBeds(), "Ward counter for " + ward.getWardId());
+            occupied += wardOccupied;
+        }
+        assertEquals(careHome.getAllPatients().size(), occupied, "Every patient should occupy exactly one bed");
+    }
+
+    @Test
+    @DisplayName("Test concurrent admissions never double-book a bed")
+    void testConcurrentAdmissions() throws Exception {
+        AtomicInteger ids = new AtomicInteger();
+        AtomicInteger admitted = new AtomicInteger();
+        runConcurrently(() -> {
+            Random random = new Random();
+            for (int i = 0; i < 100; i++) {
+                Patient patient = newPatient("C" + ids.incrementAndGet(), random);
+                try {
+                    if (random.nextBoolean()) {
+                        careHome.addPatient(patient, bedIds.get(random.nextInt(bedIds.size())), "MGR001");
+                    } else {
+                        careHome.admitPatient(patient, null, "MGR001");
+                    }
+                    admitted.incrementAndGet();
+                } catch (BedOccupiedException | IllegalArgumentException | IllegalStateException expected) {
+                    // Occupied bed, wrong gender or care home full - all fine under contention
+                }
+            }
+        });
+        assertEquals(6 + admitted.get(), careHome.getAllPatients().size());
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Test concurrent moves keep beds and patients consistent")
+    void testConcurrentMoves() throws Exception {
+        Random seed = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            careHome.admitPatient(newPatient("M" + i, seed), null, "MGR001");
+        }
+        List<Patient> patients = careHome.getAllPatients();
+        runConcurrently(() -> {
+            Random random = new Random();
+            for (int i = 0; i < 300; i++) {
+                Patient patient = patients.get(random.nextInt(patients.size()));
+                try {
+                    careHome.movePatient(patient.getId(), bedIds.get(random.nextInt(bedIds.size())), "MGR001");
+                } catch (BedOccupiedException | IllegalArgumentException expected) {
+                    // Occupied bed, wrong gender or isolation room - all fine under contention
+                }
+            }
+        });
+        assertEquals(patients.size(), careHome.getAllPatients().size());
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Test published snapshots match the live beds and never change afterwards")
+    void testSnapshotsMatchLiveState() throws Exception {
+        Random seed = new Random(11);
+        for (int i = 0; i < 30; i++) {
+            careHome.admitPatient(newPatient("S" + i, seed), null, "MGR001");
+        }
+        CareHomeSnapshot before = careHome.getSnapshot();
+        int occupiedBefore = before.getOccupiedBeds();
+        List<Patient> patients = careHome.getAllPatients();
+        Map<String, String> bedsBefore = new HashMap<>();
+        for (Patient patient : patients) {
+            bedsBefore.put(patient.getId(), before.getPatient(patient.getId()).getBedId());
+        }
+        runConcurrently(() -> {
+            Random random = new Random();
+            for (int i = 0; i < 200; i++) {
+                Patient patient = patients.get(random.nextInt(patients.size()));
+                try {
+                    careHome.movePatient(patient.getId(), bedIds.get(random.nextInt(bedIds.size())), "MGR001");
+                } catch (BedOccupiedException | IllegalArgumentException expected) {
+                    // Occupied bed, wrong gender or isolation room - all fine under contention
+                }
+            }
+        });
+
+        assertEquals(occupiedBefore, before.getOccupiedBeds(), "Old snapshot must not change");
+        CareHomeSnapshot after = careHome.getSnapshot();
+        assertTrue(after.getVersion() >= before.getVersion());
+        assertEquals(patients.size(), after.getPatients().size());
+        for (CareHomeSnapshot.WardView ward : after.getWards()) {
+            for (CareHomeSnapshot.RoomView room : ward.getRooms()) {
+                for (CareHomeSnapshot.BedView bed : room.getBeds()) {
+                    assertEquals(careHome.findBed(bed.getBedId()).isOccupied(), bed.isOccupied(),
+                            "Snapshot bed " + bed.getBedId() + " should match the live bed");
+                }
+            }
+        }
+        assertEquals(careHome.getWard("W9").getOccupiedBeds(),
+                after.getWards().get(after.getWards().size() - 1).getOccupiedBeds());
+        for (Patient patient : patients) {
+            assertEquals(patient.getBedId(), after.getPatient(patient.getId()).getBedId(),
+                    "Snapshot of " + patient.getId() + " should match the live patient");
+            assertEquals(bedsBefore.get(patient.getId()), before.getPatient(patient.getId()).getBedId(),
+                    "Old snapshot of " + patient.getId() + " must not change");
+        }
+    }
+
+    @Test
+    @DisplayName("Test snapshots track admissions, discharges and clinical changes")
+    void testSnapshotPatientViews() throws Exception {
+        Random seed = new Random(5);
+        for (int i = 0; i < 60; i++) {
+            careHome.admitPatient(newPatient("V" + i, seed), null, "MGR001");
+        }
+        for (int i = 0; i < 60; i += 3) {
+            careHome.dischargePatient("V" + i, "Recovered", "Home care", "MGR001");
+        }
+        CareHomeSnapshot snapshot = careHome.getSnapshot();
+        Set<String> live = new HashSet<>();
+        for (Patient patient : careHome.getAllPatients()) {
+            live.add(patient.getId());
+        }
+        assertEquals(live, snapshot.getPatients().keySet());
+        assertNull(snapshot.getPatient("V0"));
+        assertEquals("Patient V1", snapshot.getPatient("V1").getName());
+        assertEquals(careHome.getAllStaff().size(), snapshot.getStaff().size());
+        assertEquals("Nurse", snapshot.getStaffMember("NUR001").getStaffType());
+
+        // Nurses work 8AM-4PM
+        careHome.setClock(Clock.fixed(Instant.parse("2024-01-01T09:30:00Z"), ZoneOffset.UTC));
+        careHome.administerMedication("V1", new MedicationRecord("MR1", "V1", "NUR001", "Aspirin", "100mg"), "NUR001");
+        CareHomeSnapshot after = careHome.getSnapshot();
+        assertTrue(after.getVersion() > snapshot.getVersion(), "A clinical change publishes a new version");
+        assertEquals(1, after.getPatient("V1").getMedicationHistory().size());
+        assertTrue(snapshot.getPatient("V1").getMedicationHistory().isEmpty(), "Old snapshot must not change");
+        assertSame(snapshot.getPatient("V2"), after.getPatient("V2"), "Other patients are shared");
+
+        careHome.getStaff("NUR002").clearShiftsForDay("MON");
+        assertFalse(careHome.getSnapshot().getStaffMember("NUR002").getWeeklyShifts().containsKey("MON"));
+        assertTrue(after.getStaffMember("NUR002").getWeeklyShifts().containsKey("MON"));
+    }
+}
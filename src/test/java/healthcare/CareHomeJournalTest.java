@@ -0,0 +1,314 @@
+package healthcare;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditQuery;
+import healthcare.utils.AuditTrail;
+import healthcare.utils.AutosaveScheduler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JUnit tests for CareHome persistence through the command journal and snapshots.
+ * Each test changes a care home, "restarts" it by recovering from the same
+ * directory, and checks that nothing was lost.
+ */
+public class CareHomeJournalTest {
+    private Path dataDir;
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("carehome-journal");
+        careHome = CareHome.recover(dataDir);
+        careHome.createSampleData();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        careHome.closeJournal();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private CareHome restart() throws IOException {
+        careHome.closeJournal();
+        careHome = CareHome.recover(dataDir);
+        return careHome;
+    }
+
+    private void makeChanges() throws Exception {
+        Patient patient = new Patient("PAT100", "Journal Patient", "jp@test.com", "1234567890",
+                LocalDate.of(1940, 2, 3), "M", "Asthma", false);
+        careHome.admitPatient(patient, "W2", "MGR001");
+        careHome.movePatient("PAT002", "W2-R6-B1", "MGR001");
+        careHome.dischargePatient("PAT005", "Recovered", "Home care", "MGR001");
+
+        Prescription prescription = new Prescription("RX100", "PAT100", "DOC001", "Inhaler");
+        prescription.addMedication(new Medication("Salbutamol", "100mcg", "As needed", "08:00", "Two puffs"));
+        careHome.addPrescription("PAT100", prescription, "DOC001");
+
+        Staff nurse = careHome.getStaff("NUR001");
+        nurse.clearShiftsForDay("MON");
+        nurse.assignShift("MON", "2PM-10PM");
+
+        // One date off, and one date on the afternoon shift instead of the morning
+        careHome.grantLeave("MGR001", "NUR002", LocalDate.of(2024, 3, 6));
+        careHome.grantLeave("MGR001", "NUR003", LocalDate.of(2024, 3, 6));
+        careHome.assignShiftOn("MGR001", "NUR003", LocalDate.of(2024, 3, 6), ShiftSlot.AFTERNOON);
+    }
+
+    private void assertChangesRestored(CareHome restored) {
+        assertEquals(6, restored.getAllStaff().size());
+        assertEquals(6, restored.getAllPatients().size());
+        assertNull(restored.getPatient("PAT005"), "Discharged patient should stay discharged");
+        assertFalse(restored.findBed("W1-R5-B1").isOccupied());
+
+        assertEquals("W2-R6-B1", restored.getPatient("PAT002").getBedId());
+        assertFalse(restored.findBed("W1-R2-B1").isOccupied());
+        assertEquals("PAT002", restored.findBed("W2-R6-B1").getPatientId());
+
+        Patient admitted = restored.getPatient("PAT100");
+        assertNotNull(admitted);
+        assertEquals(LocalDate.of(1940, 2, 3), admitted.getDateOfBirth());
+        assertEquals(admitted.getId(), restored.findBed(admitted.getBedId()).getPatientId());
+        assertEquals(1, admitted.getPrescriptions().size());
+        assertEquals("Salbutamol", admitted.getPrescriptions().get(0).getMedications().get(0).getMedicationName());
+        assertEquals(2, restored.getPatient("PAT001").getPrescriptions().get(0).getMedications().size());
+
+        assertEquals(List.of("2PM-10PM"), restored.getStaff("NUR001").getShiftsForDay("MON"));
+        assertEquals(7, restored.getStaff("NUR001").getTotalWeeklyShifts());
+        assertEquals(0, restored.getStaff("NUR002").getShiftCount(LocalDate.of(2024, 3, 6)));
+        assertEquals(Set.of(ShiftSlot.AFTERNOON), restored.getStaff("NUR003").getShiftSlots(LocalDate.of(2024, 3, 6)));
+        assertEquals(Set.of(ShiftSlot.MORNING), restored.getStaff("NUR003").getShiftSlots(LocalDate.of(2024, 3, 13)));
+        assertEquals(restored.getAllPatients().size(), restored.getSnapshot().getOccupiedBeds());
+    }
+
+    @Test
+    @DisplayName("Test changes survive a restart by replaying the journal")
+    void testJournalReplay() throws Exception {
+        makeChanges();
+        assertChangesRestored(restart());
+    }
+
+    @Test
+    @DisplayName("Test a snapshot empties the journal and keeps the state")
+    void testSnapshotThenJournal() throws Exception {
+        careHome.saveData();
+        assertEquals(0, Files.size(dataDir.resolve("carehome_journal.log")), "Snapshot should empty the journal");
+        makeChanges();
+        assertChangesRestored(restart());
+
+        // A second restart after a snapshot must not apply any record twice
+        restart().saveData();
+        assertChangesRestored(restart());
+    }
+
+    @Test
+    @DisplayName("Test concurrent shift changes to one staff member replay to the same week")
+    void testConcurrentShiftChangesReplay() throws Exception {
+        Staff nurse = careHome.getStaff("NUR001");
+        LocalDate monday = LocalDate.of(2024, 3, 4);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            Random random = new Random(t);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Map<String, List<String>> week = new LinkedHashMap<>();
+                    for (String day : List.of("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN")) {
+                        week.put(day, List.of(random.nextBoolean() ? "8AM-4PM" : "2PM-10PM"));
+                    }
+                    nurse.setWeeklyShifts(week);
+                    LocalDate date = monday.plusDays(random.nextInt(14));
+                    if (random.nextBoolean()) {
+                        nurse.setOnLeave(date);
+                    } else {
+                        nurse.resetToPattern(date);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, List<String>> week = nurse.getWeeklyShifts();
+        List<Set<ShiftSlot>> dates = new ArrayList<>();
+        for (int d = 0; d < 14; d++) {
+            dates.add(nurse.getShiftSlots(monday.plusDays(d)));
+        }
+        Staff restored = restart().getStaff("NUR001");
+        assertEquals(week, restored.getWeeklyShifts(), "The last change made must be the last one replayed");
+        for (int d = 0; d < 14; d++) {
+            assertEquals(dates.get(d), restored.getShiftSlots(monday.plusDays(d)), "Slots on " + monday.plusDays(d));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a torn record at the end of the journal is ignored")
+    void testTornJournalTail() throws Exception {
+        makeChanges();
+        careHome.closeJournal();
+        Files.write(dataDir.resolve("carehome_journal.log"), new byte[]{0, 0, 0, 40, 1, 2, 3},
+                StandardOpenOption.APPEND);
+        assertChangesRestored(restart());
+
+        // The journal must still accept new records after the tail was cut off
+        careHome.dischargePatient("PAT100", "Transferred", "", "MGR001");
+        assertNull(restart().getPatient("PAT100"));
+    }
+
+    // ID of the newest SAVE_DATA audit record, or 0
+    private static long lastSaveLogged() {
+        List<AuditLogger.AuditRecord> records = AuditLogger.getInstance()
+                .query(AuditQuery.all().byAction("SAVE_DATA"), AuditTrail.LATEST, 1).getRecords();
+        return records.isEmpty() ? 0 : records.get(0).getId();
+    }
+
+    @Test
+    @DisplayName("Test a burst of changes is saved by one background snapshot")
+    void testAutosaveCoalesces() throws Exception {
+        AutosaveScheduler autosave = careHome.getAutosave();
+        makeChanges();
+        assertTrue(autosave.isDirty());
+        assertEquals(0, autosave.getSaveCount(), "Autosave should wait for the burst to end");
+
+        long savesLogged = lastSaveLogged();
+        autosave.flush();
+        assertEquals(1, autosave.getSaveCount());
+        assertFalse(autosave.isDirty());
+        assertEquals(savesLogged, lastSaveLogged(), "Background saves are not audited");
+        assertTrue(autosave.getLastChangeToSaveMillis() >= autosave.getLastSaveMillis());
+        assertEquals(0, Files.size(dataDir.resolve("carehome_journal.log")));
+        assertChangesRestored(restart());
+    }
+
+    @Test
+    @DisplayName("Test records of a snapshot that never finished are replayed")
+    void testUnfinishedSnapshot() throws Exception {
+        makeChanges();
+        careHome.closeJournal();
+        // State after the journal rotated but before the snapshot file was replaced
+        Files.move(dataDir.resolve("carehome_journal.log"), dataDir.resolve("carehome_journal.log.prev"));
+        Files.createFile(dataDir.resolve("carehome_journal.log"));
+        assertChangesRestored(restart());
+
+        careHome.saveData();
+        assertFalse(Files.exists(dataDir.resolve("carehome_journal.log.prev")));
+        assertChangesRestored(restart());
+    }
+
+    @Test
+    @DisplayName("Test records after a corrupt previous segment are not replayed over the gap")
+    void testGapInJournal() throws Exception {
+        makeChanges();
+        careHome.closeJournal();
+        Files.move(dataDir.resolve("carehome_journal.log"), dataDir.resolve("carehome_journal.log.prev"));
+        careHome = CareHome.recover(dataDir);
+        careHome.dischargePatient("PAT100", "Transferred", "", "MGR001");
+        careHome.closeJournal();
+
+        // Damage a record in the middle of the previous segment
+        Path previous = dataDir.resolve("carehome_journal.log.prev");
+        byte[] bytes = Files.readAllBytes(previous);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(previous, bytes);
+        assertThrows(IOException.class, () -> CareHome.recover(dataDir));
+        assertFalse(Files.exists(previous), "The journal is moved aside instead of being replayed");
+
+        careHome = CareHome.recover(dataDir);
+        assertTrue(careHome.getAllStaff().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test a snapshot keeps wards added at runtime")
+    void testSnapshotKeepsWardLayout() throws Exception {
+        Ward ward = new Ward("W3", "Rehabilitation Ward");
+        ward.addRoom(new Room("W3-R1", "W3", 2));
+        careHome.addWard(ward);
+        careHome.admitPatient(new Patient("PAT300", "Rehab Patient", "rp@test.com", "1234567890",
+                LocalDate.of(1950, 6, 1), "F", "Hip fracture", false), "W3", "MGR001");
+        careHome.saveData();
+
+        CareHome restored = restart();
+        assertEquals(3, restored.getWards().size());
+        assertEquals("W3-R1-B1", restored.getPatient("PAT300").getBedId());
+        assertEquals(1, restored.getWard("W3").getOccupiedBeds());
+    }
+
+    @Test
+    @DisplayName("Test unreadable data is moved aside, not overwritten")
+    void testUnreadableDataKept() throws Exception {
+        careHome.saveData();
+        makeChanges();
+        careHome.closeJournal();
+        Files.write(dataDir.resolve("carehome_snapshot.dat"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> CareHome.recover(dataDir));
+
+        List<String> kept;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            kept = files.map(path -> path.getFileName().toString()).filter(name -> name.contains(".unreadable-"))
+                    .collect(Collectors.toList());
+        }
+        assertEquals(2, kept.size(), "Snapshot and journal are kept: " + kept);
+
+        // Starting again gives an empty care home whose saves leave the old files alone
+        careHome = CareHome.recover(dataDir);
+        assertTrue(careHome.getAllStaff().isEmpty());
+        careHome.createSampleData();
+        careHome.saveData();
+        for (String name : kept) {
+            assertTrue(Files.size(dataDir.resolve(name)) > 0, name);
+        }
+    }
+
+    @Test
+    @DisplayName("Test changes are refused once the journal cannot be written")
+    void testJournalFailureIsReadOnly() throws Exception {
+        // Stopping the writer thread is a journal failure like a failed write
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("command-journal-writer")) {
+                thread.interrupt();
+            }
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!careHome.isReadOnly() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(careHome.isReadOnly());
+
+        Patient patient = new Patient("PAT200", "Unsaved Patient", "up@test.com", "1234567890",
+                LocalDate.of(1945, 1, 1), "F", "Flu", false);
+        assertThrows(IllegalStateException.class, () -> careHome.admitPatient(patient, "W2", "MGR001"));
+        assertNull(careHome.getPatient("PAT200"), "A refused change is not made in memory");
+        Staff nurse = careHome.getStaff("NUR001");
+        List<String> monday = nurse.getShiftsForDay("MON");
+        assertFalse(monday.isEmpty());
+        assertThrows(IllegalStateException.class, () -> nurse.clearShiftsForDay("MON"),
+                "Changes made through Staff report the failure");
+        assertEquals(monday, nurse.getShiftsForDay("MON"), "A refused shift change is not made in memory");
+        assertEquals(monday, careHome.getSnapshot().getStaffMember("NUR001").getWeeklyShifts().get("MON"));
+        assertThrows(IllegalStateException.class, () -> nurse.setOnLeave(LocalDate.of(2026, 3, 2)));
+        assertFalse(nurse.isOnLeave(LocalDate.of(2026, 3, 2)));
+    }
+}
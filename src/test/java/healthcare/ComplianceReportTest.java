@@ -0,0 +1,75 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.io.StringWriter;
+import java.util.Iterator;
+
+/**
+ * JUnit tests for the streaming compliance report.
+ */
+public class ComplianceReportTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        careHome.getStaff("NUR002").clearShiftsForDay("WED");
+    }
+
+    @Test
+    @DisplayName("Test streamed and paged reports match the full report")
+    void testStreamingMatches() throws Exception {
+        String full = careHome.generateComplianceReport();
+        assertTrue(full.contains("STAFF SHIFT COMPLIANCE REPORT"));
+        assertTrue(full.trim().endsWith("━"));
+
+        StringWriter out = new StringWriter();
+        careHome.complianceReport(false).writeTo(out);
+        assertEquals(full, out.toString());
+
+        for (int staffPerPage : new int[]{1, 2, 4, 100}) {
+            StringBuilder joined = new StringBuilder();
+            Iterator<String> pages = careHome.complianceReport(false).pages(staffPerPage);
+            int count = 0;
+            while (pages.hasNext()) {
+                joined.append(pages.next());
+                count++;
+            }
+            assertEquals(full, joined.toString(), "Pages of " + staffPerPage);
+            // 5 nurses and doctors, plus possibly a last page with just the footer
+            assertTrue(count >= (5 + staffPerPage - 1) / staffPerPage && count <= 5 / staffPerPage + 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> careHome.complianceReport(false).pages(0));
+    }
+
+    @Test
+    @DisplayName("Test the first page is rendered without the rest")
+    void testFirstPage() {
+        Iterator<String> pages = careHome.complianceReport(false).pages(1);
+        String first = pages.next();
+        assertTrue(first.contains("STAFF SHIFT COMPLIANCE REPORT"));
+        assertTrue(first.contains("(NUR001)"));
+        assertFalse(first.contains("(NUR002)"));
+
+        // Changes made before a page is rendered show up on it
+        careHome.getStaff("NUR002").assignShift("WED", "8AM-4PM");
+        assertTrue(pages.next().contains("✓ COMPLIANT"));
+    }
+
+    @Test
+    @DisplayName("Test the non-compliant filter")
+    void testNonCompliantOnly() {
+        String report = careHome.complianceReport(true).render();
+        assertTrue(report.contains("(NUR002)"));
+        assertFalse(report.contains("(NUR001)"));
+        assertFalse(report.contains("(DOC001)"));
+        assertFalse(report.contains("✓ COMPLIANT"));
+        assertTrue(report.contains("DOCTORS - Required"), "Section headings stay even when empty");
+    }
+}
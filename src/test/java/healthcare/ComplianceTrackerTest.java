@@ -0,0 +1,123 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * JUnit tests for the incremental compliance tracker.
+ */
+public class ComplianceTrackerTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test compliance follows shift changes")
+    void testCareHomeCompliance() {
+        careHome.checkCompliance();
+        assertTrue(careHome.getComplianceViolations().isEmpty());
+
+        Staff nurse = careHome.getStaff("NUR002");
+        nurse.clearShiftsForDay("WED");
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> careHome.checkCompliance());
+        assertEquals("Nurse NUR002 does not have exactly 7 shifts assigned.", error.getMessage());
+
+        nurse.assignShift("WED", "2PM-10PM");
+        careHome.checkCompliance();
+
+        Staff doctor = careHome.getStaff("DOC001");
+        doctor.removeShift("SAT", "1HR");
+        List<ComplianceTracker.Violation> violations = careHome.getComplianceViolations();
+        assertEquals(2, violations.size());
+        assertEquals("Doctor DOC001 does not have 7 hours assigned.", violations.get(0).getMessage());
+        assertEquals("SAT", violations.get(1).getDay());
+        assertSame(violations, careHome.getComplianceViolations(), "Unchanged violations should reuse the same list");
+
+        doctor.setWeeklyShifts(careHome.getStaff("DOC002").getWeeklyShifts());
+        careHome.checkCompliance();
+    }
+
+    @Test
+    @DisplayName("Test the parallel evaluator matches the sequential one")
+    void testParallelEvaluation() {
+        List<Staff> pool = new ArrayList<>();
+        Random random = new Random(42);
+        String[] days = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+        for (int i = 0; i < 20_000; i++) {
+            Staff staff = i % 3 == 0
+                    ? new Doctor("D" + i, "Doctor " + i, "d@test.com", "1234567890", "d" + i, null, "GP")
+                    : new Nurse("N" + i, "Nurse " + i, "n@test.com", "1234567890", "n" + i, null, "RN");
+            for (String day : days) {
+                // Leave about one day in ten empty so some staff break the rules
+                if (random.nextInt(10) != 0) {
+                    staff.assignShift(day, staff instanceof Doctor ? "1HR" : "8AM-4PM");
+                }
+            }
+            pool.add(staff);
+        }
+        List<ComplianceTracker.Violation> sequential = ComplianceEvaluator.evaluate(pool);
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, ComplianceEvaluator.evaluateParallel(pool));
+        assertEquals(sequential, ComplianceEvaluator.evaluateParallel(pool, new ForkJoinPool(3)));
+
+        ComplianceTracker tracker = new ComplianceTracker();
+        pool.forEach(tracker::update);
+        assertEquals(sequential, tracker.getViolations(), "The tracker should hold the same violations");
+
+        ComplianceTracker.Violation first = sequential.get(0);
+        assertNotNull(first.getRule());
+        assertEquals(first.getStaff().getId(), first.getStaffId());
+
+        careHome.getStaff("DOC002").clearShiftsForDay("MON");
+        assertEquals(careHome.getComplianceViolations(), careHome.evaluateCompliance());
+    }
+
+    @Test
+    @DisplayName("Test per-day violations and shift counts")
+    void testTracker() {
+        ComplianceTracker tracker = new ComplianceTracker();
+        Nurse nurse = new Nurse("NUR901", "Test Nurse", "n@test.com", "1234567890", "nurse901", null, "RN");
+        tracker.update(nurse);
+        assertEquals(1, tracker.getNonCompliantCount());
+
+        // Bypass assignShift's one-shift rule to get two shifts on a day
+        nurse.setWeeklyShifts(Map.of("MON", List.of("8AM-4PM", "2PM-10PM"), "TUE", List.of("8AM-4PM"),
+                "WED", List.of("8AM-4PM"), "THU", List.of("8AM-4PM"), "FRI", List.of("8AM-4PM"),
+                "SAT", List.of("8AM-4PM")));
+        tracker.update(nurse);
+        assertEquals(2, tracker.getShiftCount(nurse, "MON"));
+        assertEquals(0, tracker.getShiftCount(nurse, "SUN"));
+        assertEquals(List.of("Nurse NUR901 has more than one shift on MON"),
+                tracker.getViolations(nurse).stream().map(ComplianceTracker.Violation::getMessage).collect(Collectors.toList()));
+        assertTrue(tracker.getViolatorsOn("MON").contains(nurse));
+
+        nurse.removeShift("MON", "2PM-10PM");
+        nurse.assignShift("SUN", "8AM-4PM");
+        tracker.update(nurse);
+        assertTrue(tracker.isCompliant());
+        assertTrue(tracker.getViolatorsOn("MON").isEmpty());
+        assertNull(tracker.firstViolation());
+
+        Manager manager = new Manager("MGR901", "Test Manager", "m@test.com", "1234567890", "mgr901", null);
+        tracker.update(manager);
+        assertTrue(tracker.isCompliant(), "Managers have no shift rules");
+        nurse.clearShiftsForDay("SUN");
+        tracker.update(nurse);
+        tracker.remove(nurse);
+        assertTrue(tracker.isCompliant());
+    }
+}
@@ -0,0 +1,117 @@
+package healthcare;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.database.DatabaseManager;
+import healthcare.utils.AuditLogger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JUnit tests for saving audit records to SQLite in batches.
+ * They pass trivially when the SQLite driver is not on the classpath.
+ */
+public class DatabaseManagerAuditTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 9, 30);
+
+    private Path dir;
+    private DatabaseManager database;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("audit-db");
+        database = DatabaseManager.newStandaloneInstance(dir.resolve("audit.db"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        database.closeConnection();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static List<AuditLogger.AuditRecord> records(long firstId, int count) {
+        List<AuditLogger.AuditRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new AuditLogger.AuditRecord(firstId + i, "NUR00" + (i % 3), "ACTION",
+                    "Record " + (firstId + i), TIME.plusMinutes(firstId + i)));
+        }
+        return records;
+    }
+
+    private List<Long> savedIds() {
+        return database.getAuditRecordsBefore(Long.MAX_VALUE, 1000).stream()
+                .map(AuditLogger.AuditRecord::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Test a batch of records is saved in one transaction")
+    void testBatchSaved() {
+        if (!database.isAvailable()) {
+            return;
+        }
+        assertTrue(database.saveAuditLogs(records(1, 50)));
+
+        assertEquals(1, database.getAuditFlushCount());
+        assertEquals(50, database.getAuditRowCount());
+        assertEquals(50, database.getLastAuditFlushSize());
+        assertTrue(database.getLastAuditFlushNanos() > 0);
+        assertEquals(50, database.getLastAuditId());
+        List<Long> ids = savedIds();
+        assertEquals(50, ids.size());
+        assertEquals(Long.valueOf(50), ids.get(0));
+        assertEquals(Long.valueOf(1), ids.get(ids.size() - 1));
+
+        AuditLogger.AuditRecord first = database.getAuditRecordsBefore(2, 1).get(0);
+        assertEquals("NUR000", first.getStaffId());
+        assertEquals("Record 1", first.getDetails());
+        assertEquals(TIME.plusMinutes(1), first.getTimestamp());
+
+        assertTrue(database.saveAuditLogs(records(51, 10)));
+        assertEquals(2, database.getAuditFlushCount());
+        assertEquals(60, database.getAuditRowCount());
+        assertEquals(10, database.getLastAuditFlushSize());
+        assertTrue(database.getAuditFlushStats().startsWith("2 batches, 60 rows,"));
+        assertTrue(database.getAuditFlushStats().contains("last 10 rows"));
+    }
+
+    @Test
+    @DisplayName("Test a batch with one bad row is rolled back as a whole")
+    void testBatchRolledBack() {
+        if (!database.isAvailable()) {
+            return;
+        }
+        assertTrue(database.saveAuditLogs(records(1, 5)));
+        long lastNanos = database.getLastAuditFlushNanos();
+
+        // Ten new records, then one whose ID (3) is already saved
+        List<AuditLogger.AuditRecord> batch = records(6, 10);
+        batch.add(records(3, 1).get(0));
+        assertFalse(database.saveAuditLogs(batch));
+
+        assertEquals(5, database.getLastAuditId());
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), savedIds());
+        assertEquals(1, database.getAuditFlushCount());
+        assertEquals(5, database.getAuditRowCount());
+        assertEquals(5, database.getLastAuditFlushSize());
+        assertEquals(lastNanos, database.getLastAuditFlushNanos());
+
+        // The statement is usable again afterwards
+        assertTrue(database.saveAuditLogs(records(6, 10)));
+        assertEquals(15, database.getLastAuditId());
+        assertEquals(2, database.getAuditFlushCount());
+    }
+}
@@ -0,0 +1,48 @@
+package healthcare;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JUnit tests for the occupancy, gender and isolation state kept by rooms and wards.
+ */
+public class RoomOccupancyTest {
+
+    @Test
+    @DisplayName("Test room and ward occupancy counters track bed changes")
+    void testRoomAndWardOccupancyCounters() {
+        Ward ward = new Ward("TW", "Test Ward");
+        Room room = new Room("TW-R1", "TW", 3);
+        ward.addRoom(room);
+        List<Bed> beds = room.getBeds();
+
+        Patient patient = new Patient("PAT001", "Test Patient", "pat@test.com", "1234567893",
+                LocalDate.of(1980, 1, 1), "M", "Diabetes", false);
+        beds.get(0).assignPatient(patient);
+        assertEquals(1, room.getOccupiedBeds());
+        assertEquals(2, room.getAvailableBeds());
+        assertEquals(2, ward.getAvailableBeds());
+        assertEquals("M", room.getRoomGender());
+        assertTrue(room.canAcceptGender("M"));
+        assertFalse(room.canAcceptGender("F"), "Room with a male patient should not accept female patients");
+
+        Patient isolated = new Patient("PAT009", "Isolated Patient", "iso@test.com", "1234567895",
+                LocalDate.of(1960, 2, 2), "M", "Influenza", true);
+        beds.get(1).assignPatient(isolated);
+        assertTrue(room.hasIsolationPatient());
+        assertEquals(1, ward.getAvailableBeds());
+
+        beds.get(0).vacateBed();
+        beds.get(1).vacateBed();
+        assertEquals(0, room.getOccupiedBeds());
+        assertEquals(3, ward.getAvailableBeds());
+        assertNull(room.getRoomGender());
+        assertFalse(room.hasIsolationPatient());
+        assertTrue(room.canAcceptGender("F"), "Empty room should accept either gender");
+    }
+}
@@ -0,0 +1,97 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * JUnit tests for the on-duty roster index.
+ */
+public class RosterIndexTest {
+    // 2024-01-01 was a Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test on-duty lookups at a time")
+    void testOnDutyAt() {
+        Staff nurse = careHome.getStaff("NUR001");
+        Staff doctor = careHome.getStaff("DOC001");
+        Set<Staff> morning = careHome.getStaffOnDutyAt(MONDAY.plusHours(9));
+        assertTrue(morning.contains(nurse));
+        assertTrue(morning.contains(doctor));
+        assertFalse(morning.contains(careHome.getStaff("MGR001")), "Managers have no shifts to index");
+        assertEquals(3, careHome.getStaffOnDutyAt("Nurse", MONDAY.plusHours(9)).size());
+
+        assertFalse(careHome.getStaffOnDutyAt(MONDAY.plusHours(16)).contains(nurse), "Shift ends at 4PM");
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusHours(15).plusMinutes(59)).contains(nurse));
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusHours(23)).contains(doctor), "1HR covers the whole day");
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusWeeks(3).plusHours(9)).contains(nurse), "The roster repeats weekly");
+    }
+
+    @Test
+    @DisplayName("Test the index follows shift changes")
+    void testIncrementalUpdates() {
+        Staff nurse = careHome.getStaff("NUR001");
+        LocalDateTime tuesdayMorning = MONDAY.plusDays(1).plusHours(9);
+
+        nurse.clearShiftsForDay("TUE");
+        assertFalse(careHome.getStaffOnDutyAt(tuesdayMorning).contains(nurse));
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusHours(9)).contains(nurse));
+
+        nurse.assignShift("TUE", "2PM-10PM");
+        assertFalse(careHome.getStaffOnDutyAt(tuesdayMorning).contains(nurse));
+        assertTrue(careHome.getStaffOnDutyAt(tuesdayMorning.plusHours(12)).contains(nurse));
+
+        nurse.removeShift("TUE", "2PM-10PM");
+        assertFalse(careHome.getStaffOnDutyAt(tuesdayMorning.plusHours(12)).contains(nurse));
+
+        // A night shift on Sunday runs into Monday morning
+        Staff doctor = careHome.getStaff("DOC001");
+        doctor.clearShiftsForDay("SUN");
+        doctor.clearShiftsForDay("MON");
+        doctor.assignShift("SUN", "10PM-6AM");
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusDays(6).plusHours(23)).contains(doctor));
+        assertTrue(careHome.getStaffOnDutyAt(MONDAY.plusHours(5)).contains(doctor));
+        assertFalse(careHome.getStaffOnDutyAt(MONDAY.plusHours(6)).contains(doctor));
+    }
+
+    @Test
+    @DisplayName("Test on-duty lookups over a range")
+    void testOnDutyBetween() {
+        RosterIndex index = new RosterIndex();
+        Nurse early = new Nurse("NUR901", "Early", "e@test.com", "1234567890", "early", null, "RN");
+        Doctor late = new Doctor("DOC902", "Dr. Late", "l@test.com", "1234567890", "late", null, "GP");
+        early.assignShift("MON", "8AM-4PM");
+        late.assignShift("SUN", "10PM-6AM");
+        index.update(early);
+        index.update(late);
+
+        assertEquals(Set.of(early), index.onDutyBetween(MONDAY.plusHours(7), MONDAY.plusHours(9)));
+        assertEquals(Set.of(late), index.onDutyBetween(MONDAY.plusHours(4), MONDAY.plusHours(8)));
+        assertEquals(Set.of(early, late), index.onDutyBetween(MONDAY.plusHours(5), MONDAY.plusHours(9)));
+        assertTrue(index.onDutyBetween(MONDAY.plusHours(16), MONDAY.plusHours(22)).isEmpty());
+        assertEquals(Set.of(early, late), index.onDutyBetween(MONDAY.plusDays(6), MONDAY.plusDays(7).plusHours(9)),
+                "A range across Sunday midnight covers both ends of the week");
+        assertTrue(index.onDutyBetween(MONDAY.plusHours(9), MONDAY.plusHours(9)).isEmpty());
+
+        // Segments: 0-6 late, 6-8 none, 8-16 early, 16-SUN 22 none, SUN 22- late
+        assertEquals(5, index.getSegmentCount());
+        index.remove(late);
+        index.remove(early);
+        assertEquals(1, index.getSegmentCount(), "Removing every shift merges the week back into one segment");
+        assertTrue(index.onDutyAt(MONDAY.plusHours(9)).isEmpty());
+    }
+}
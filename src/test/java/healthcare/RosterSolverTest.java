@@ -0,0 +1,101 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.exceptions.StaffNotAuthorizedException;
+import healthcare.model.*;
+import healthcare.utils.RosterSolver;
+import healthcare.utils.ShiftScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JUnit tests for the automatic roster generator.
+ */
+public class RosterSolverTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test a generated week follows the shift rules")
+    void testGeneratedWeek() {
+        List<String> nurseIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            nurseIds.add("N" + i);
+        }
+        RosterSolver.Roster roster = new RosterSolver(5).solve(nurseIds, List.of("D1"), 5000, 2);
+        assertTrue(roster.isCovered());
+        assertTrue(roster.getCost() >= roster.getLowerBound());
+
+        for (String day : RosterSolver.DAYS) {
+            int mornings = 0;
+            int afternoons = 0;
+            for (String nurseId : nurseIds) {
+                List<String> shifts = roster.getShifts().get(nurseId).get(day);
+                assertEquals(1, shifts.size(), "One shift per nurse per day");
+                if (shifts.get(0).equals(RosterSolver.MORNING_SHIFT)) {
+                    mornings++;
+                } else {
+                    assertEquals(RosterSolver.AFTERNOON_SHIFT, shifts.get(0));
+                    afternoons++;
+                }
+            }
+            assertTrue(mornings >= 5 && afternoons >= 5, "Both shifts covered on " + day);
+            assertEquals(List.of(RosterSolver.DOCTOR_SHIFT), roster.getShifts().get("D1").get(day));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new RosterSolver(5).solve(nurseIds.subList(0, 9), List.of("D1"), 100, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RosterSolver(1).solve(nurseIds, List.of(), 100, 1));
+    }
+
+    @Test
+    @DisplayName("Test a large pool is reported as covered")
+    void testLargePoolCovered() {
+        List<String> nurseIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            nurseIds.add("N" + i);
+        }
+        RosterSolver.Roster roster = new RosterSolver(5).solve(nurseIds, List.of("D1"), 2000, 2);
+        assertTrue(roster.getCost() >= 1000, "Soft costs alone pass the old cut-off");
+        assertEquals(0, roster.getUncoveredSlots());
+        assertTrue(roster.isCovered());
+
+        ShiftScheduler scheduler = new ShiftScheduler();
+        scheduler.generateRoster(nurseIds, List.of("D1"), 5, 2000, 2);
+        assertEquals(7, scheduler.getShifts("N199", "Nurse").size());
+    }
+
+    @Test
+    @DisplayName("Test the scheduler keeps the generated week")
+    void testSchedulerKeepsWeek() {
+        ShiftScheduler scheduler = new ShiftScheduler();
+        scheduler.generateRoster(List.of("N1", "N2", "N3", "N4"), List.of("D1"), 1, 2000, 1);
+        assertEquals(7, scheduler.getShifts("N1", "Nurse").size());
+        assertEquals(7, scheduler.getShifts("D1", "Doctor").size());
+        scheduler.checkCompliance();
+    }
+
+    @Test
+    @DisplayName("Test generating the care home roster passes the compliance check")
+    void testCareHomeRoster() throws Exception {
+        Staff nurse = careHome.getStaff("NUR001");
+        nurse.clearShiftsForDay("MON");
+        assertThrows(IllegalStateException.class, () -> careHome.checkCompliance());
+
+        assertThrows(StaffNotAuthorizedException.class, () -> careHome.generateRoster("NUR001", 100));
+        RosterSolver.Roster roster = careHome.generateRoster("MGR001", 2000);
+        careHome.checkCompliance();
+        Map<String, List<String>> week = roster.getShifts().get("NUR001");
+        assertEquals(week.get("MON"), nurse.getShiftsForDay("MON"));
+        assertTrue(careHome.getStaffRosteredOn("Doctor", "SUN").contains(careHome.getStaff("DOC002")));
+    }
+}
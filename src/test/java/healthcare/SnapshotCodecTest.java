@@ -0,0 +1,128 @@
+package healthcare;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JUnit tests for the binary snapshot format.
+ */
+public class SnapshotCodecTest {
+    private Path file;
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("carehome-snapshot", ".dat");
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private SnapshotCodec.Contents roundTrip() throws IOException {
+        SnapshotCodec.write(file, SnapshotCodec.encode(42, careHome.getWards(), careHome.getAllStaff(), careHome.getAllPatients()));
+        return SnapshotCodec.read(file);
+    }
+
+    @Test
+    @DisplayName("Test a snapshot reads back the same wards, staff, patients and history")
+    void testRoundTrip() throws Exception {
+        Ward ward = new Ward("W9", "Annex Ward");
+        ward.addRoom(new Room("W9-R1", "W9", 2));
+        careHome.addWard(ward);
+        Patient patient = new Patient("PAT200", "Zoë Ångström", null, "0400000000",
+                LocalDate.of(1899, 12, 31), "F", "Frailty", false);
+        careHome.addPatient(patient, "W9-R1-B2", "MGR001");
+        MedicationRecord record = new MedicationRecord("MR1", "PAT200", "NUR001", "Paracetamol", "500mg");
+        record.setAdministrationTime(LocalDateTime.of(2024, 3, 1, 8, 30, 15, 123_000_000));
+        record.setNotes(null);
+        record.setAdministered(true);
+        patient.addMedicationRecord(record);
+
+        SnapshotCodec.Contents contents = roundTrip();
+
+        assertEquals(42, contents.getJournalSeq());
+        assertEquals(3, contents.getWards().size());
+        Ward annex = contents.getWards().get(2);
+        assertEquals("Annex Ward", annex.getWardName());
+        assertEquals(2, annex.getRoom("W9-R1").getBedCount());
+        assertEquals(careHome.getAllStaff().size(), contents.getStaff().size());
+        assertEquals(careHome.getAllPatients().size(), contents.getPatients().size());
+
+        Staff nurse = contents.getStaff().stream().filter(s -> s.getId().equals("NUR001")).findFirst().orElseThrow();
+        assertTrue(nurse instanceof Nurse);
+        assertEquals("RN", ((Nurse) nurse).getCertification());
+        assertEquals(List.of("8AM-4PM"), nurse.getShiftsForDay("SUN"));
+
+        Patient restored = contents.getPatients().stream().filter(p -> p.getId().equals("PAT200")).findFirst().orElseThrow();
+        assertEquals("Zoë Ångström", restored.getName());
+        assertNull(restored.getEmail());
+        assertEquals(LocalDate.of(1899, 12, 31), restored.getDateOfBirth());
+        assertEquals("W9-R1-B2", restored.getBedId());
+        MedicationRecord restoredRecord = restored.getMedicationHistory().get(0);
+        assertEquals(record.getAdministrationTime(), restoredRecord.getAdministrationTime());
+        assertNull(restoredRecord.getNotes());
+        assertTrue(restoredRecord.isAdministered());
+
+        Patient alice = contents.getPatients().stream().filter(p -> p.getId().equals("PAT001")).findFirst().orElseThrow();
+        Prescription prescription = alice.getPrescriptions().get(0);
+        assertEquals("DOC001", prescription.getDoctorId());
+        assertEquals(2, prescription.getMedications().size());
+        assertEquals("Lisinopril", prescription.getMedications().get(1).getMedicationName());
+    }
+
+    @Test
+    @DisplayName("Test history left undecoded after loading is kept by changes and by the next snapshot")
+    void testLazyHistory() throws Exception {
+        SnapshotCodec.Contents contents = roundTrip();
+        Patient alice = contents.getPatients().stream().filter(p -> p.getId().equals("PAT001")).findFirst().orElseThrow();
+        alice.addMedicationRecord(new MedicationRecord("MR2", "PAT001", "NUR001", "Aspirin", "100mg"));
+        assertEquals(1, alice.getPrescriptions().size(), "Adding a record must not drop the stored history");
+        assertEquals(1, alice.getMedicationHistory().size());
+
+        // Encode the loaded patients again without touching the others' history
+        SnapshotCodec.write(file, SnapshotCodec.encode(43, contents.getWards(), contents.getStaff(), contents.getPatients()));
+        SnapshotCodec.Contents again = SnapshotCodec.read(file);
+        for (Patient original : careHome.getAllPatients()) {
+            Patient restored = again.getPatients().stream().filter(p -> p.getId().equals(original.getId())).findFirst().orElseThrow();
+            assertEquals(original.getPrescriptions().stream().map(Prescription::getPrescriptionId).collect(Collectors.toList()),
+                    restored.getPrescriptions().stream().map(Prescription::getPrescriptionId).collect(Collectors.toList()));
+        }
+        Patient aliceAgain = again.getPatients().stream().filter(p -> p.getId().equals("PAT001")).findFirst().orElseThrow();
+        assertEquals("Aspirin", aliceAgain.getMedicationHistory().get(0).getMedicationName());
+
+        // History still undecoded from the first read does not need the file any more
+        Files.delete(file);
+        Patient bob = contents.getPatients().stream().filter(p -> p.getId().equals("PAT002")).findFirst().orElseThrow();
+        assertEquals(careHome.getPatient("PAT002").getPrescriptions().size(), bob.getPrescriptions().size());
+    }
+
+    @Test
+    @DisplayName("Test files that are not snapshots are rejected")
+    void testRejectsForeignFile() throws Exception {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> SnapshotCodec.read(file));
+
+        ByteBuffer encoded = SnapshotCodec.encode(0, careHome.getWards(), careHome.getAllStaff(), careHome.getAllPatients());
+        byte[] truncated = new byte[encoded.remaining() / 2];
+        encoded.get(truncated);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> SnapshotCodec.read(file));
+    }
+}
@@ -0,0 +1,59 @@
+package healthcare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import healthcare.model.*;
+import java.util.List;
+
+/**
+ * JUnit tests for the staff directory indexes.
+ */
+public class StaffDirectoryTest {
+    private CareHome careHome;
+
+    @BeforeEach
+    void setUp() {
+        careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+    }
+
+    @Test
+    @DisplayName("Test staff are indexed by type")
+    void testByType() {
+        List<Staff> nurses = careHome.getStaffByType("Nurse");
+        assertEquals(3, nurses.size());
+        assertTrue(nurses.stream().allMatch(staff -> staff instanceof Nurse));
+        assertEquals(2, careHome.getStaffByType("Doctor").size());
+        assertEquals(1, careHome.getStaffByType("Manager").size());
+        assertTrue(careHome.getStaffByType("Porter").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> nurses.add(nurses.get(0)));
+    }
+
+    @Test
+    @DisplayName("Test rostered-on lookups follow shift changes")
+    void testRosteredOn() throws Exception {
+        Staff nurse = careHome.getStaff("NUR001");
+        assertTrue(careHome.getStaffRosteredOn("Nurse", "MON").contains(nurse));
+        List<Staff> before = careHome.getStaffRosteredOn("Nurse", "MON");
+        assertSame(before, careHome.getStaffRosteredOn("Nurse", "MON"), "Unchanged lookups should reuse the same list");
+
+        nurse.clearShiftsForDay("MON");
+        assertFalse(careHome.getStaffRosteredOn("Nurse", "MON").contains(nurse));
+        assertTrue(before.contains(nurse), "Lists already handed out must not change");
+        assertTrue(careHome.getStaffRosteredOn("Nurse", "TUE").contains(nurse));
+
+        nurse.assignShift("MON", "2PM-10PM");
+        assertTrue(careHome.getStaffRosteredOn("Nurse", "MON").contains(nurse));
+        assertFalse(careHome.getStaffRosteredOn("Doctor", "MON").contains(nurse));
+
+        Doctor doctor = new Doctor("DOC900", "Dr. New", "new@test.com", "1234567890", "drnew", "pass123", "GP");
+        doctor.assignShift("TUE", "1HR");
+        careHome.addStaff(doctor, "MGR001");
+        assertTrue(careHome.getStaffRosteredOn("Doctor", "TUE").contains(doctor));
+        assertFalse(careHome.getStaffRosteredOn("Doctor", "WED").contains(doctor));
+        assertTrue(careHome.getStaffByType("Doctor").contains(doctor));
+    }
+}
@@ -4,7 +4,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
+import healthcare.exceptions.StaffNotRosteredException;
 import healthcare.model.*;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 
 /**
  * JUnit tests for Staff hierarchy classes.
@@ -29,6 +37,79 @@ public class StaffTest {
         assertFalse(doctor.canPerformAction("unknown_action"));
     }
 
+    @Test
+    @DisplayName("Test typed actions agree with the string form")
+    void testActionPermissions() {
+        Staff[] staffArray = {
+                new Doctor("DOC001", "Dr. Test", "doc@test.com", "1234567890", "testdoc", null, "General Medicine"),
+                new Nurse("NUR001", "Test Nurse", "nurse@test.com", "1234567890", "testnur", null, "RN"),
+                new Manager("MGR001", "Test Manager", "mgr@test.com", "1234567890", "testmgr", null)};
+        for (Staff staff : staffArray) {
+            for (Action action : Action.values()) {
+                assertEquals(staff.canPerformAction(action), staff.canPerformAction(action.getName()));
+                assertEquals(staff.canPerformAction(action), staff.canPerformAction(action.getName().toUpperCase()));
+            }
+        }
+        assertEquals(Action.ADMINISTER_MEDICATION, Action.fromName("Administer_Medication"));
+        assertNull(Action.fromName("unknown_action"));
+
+        assertTrue(staffArray[1].canPerformAction(Action.ADMINISTER_MEDICATION));
+        assertFalse(staffArray[0].canPerformAction(Action.ADMINISTER_MEDICATION));
+        assertFalse(staffArray[2].canPerformAction(Action.ADMINISTER_MEDICATION));
+        assertTrue(staffArray[2].canPerformAction(Action.ADD_STAFF));
+    }
+
+    @Test
+    @DisplayName("Test the roster bitmap covers the hours of each shift")
+    void testRosteredHours() {
+        Nurse nurse = new Nurse("NUR001", "Test Nurse", "nurse@test.com", "1234567890", "testnur", null, "RN");
+        nurse.assignShift("MON", "8AM-4PM");
+        assertFalse(nurse.isRosteredAt(DayOfWeek.MONDAY, 7));
+        assertTrue(nurse.isRosteredAt(DayOfWeek.MONDAY, 8));
+        assertTrue(nurse.isRosteredAt(DayOfWeek.MONDAY, 15));
+        assertFalse(nurse.isRosteredAt(DayOfWeek.MONDAY, 16));
+        assertFalse(nurse.isRosteredAt(DayOfWeek.TUESDAY, 9));
+
+        nurse.clearShiftsForDay("MON");
+        assertFalse(nurse.isRosteredAt(DayOfWeek.MONDAY, 9), "Roster should follow shift changes");
+        nurse.assignShift("MON", "2PM-10PM");
+        assertTrue(nurse.isRosteredAt(DayOfWeek.MONDAY, 21));
+
+        Doctor doctor = new Doctor("DOC001", "Dr. Test", "doc@test.com", "1234567890", "testdoc", null, "GP");
+        doctor.assignShift("TUE", "1HR");
+        assertTrue(doctor.isRosteredAt(DayOfWeek.TUESDAY, 0));
+        assertTrue(doctor.isRosteredAt(DayOfWeek.TUESDAY, 23));
+        assertFalse(doctor.isRosteredAt(DayOfWeek.WEDNESDAY, 0));
+
+        // Night shifts run into the next day, Sunday night into Monday
+        doctor.assignShift("SUN", "10PM-6AM");
+        assertTrue(doctor.isRosteredAt(DayOfWeek.SUNDAY, 23));
+        assertTrue(doctor.isRosteredAt(DayOfWeek.MONDAY, 5));
+        assertFalse(doctor.isRosteredAt(DayOfWeek.MONDAY, 6));
+    }
+
+    @Test
+    @DisplayName("Test roster checks use the care home clock")
+    void testRosterCheckUsesClock() throws Exception {
+        ZoneId zone = ZoneId.of("Australia/Melbourne");
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        Staff nurse = careHome.getStaff("NUR001");   // 8AM-4PM every day
+
+        // Monday 9:30 local time, during daylight saving
+        Clock onShift = Clock.fixed(LocalDateTime.of(2024, 1, 1, 9, 30).atZone(zone).toInstant(), zone);
+        assertTrue(nurse.isRosteredNow(onShift));
+        careHome.setClock(onShift);
+        careHome.administerMedication("PAT001", new MedicationRecord("MR1", "PAT001", "NUR001", "Aspirin", "100mg"), "NUR001");
+
+        Clock offShift = Clock.fixed(LocalDateTime.of(2024, 7, 2, 3, 0).atZone(zone).toInstant(), zone);
+        assertFalse(nurse.isRosteredNow(offShift));
+        careHome.setClock(offShift);
+        assertThrows(StaffNotRosteredException.class, () -> careHome.administerMedication("PAT001",
+                new MedicationRecord("MR2", "PAT001", "NUR001", "Aspirin", "100mg"), "NUR001"));
+        assertTrue(careHome.getStaff("MGR001").isRosteredNow(offShift), "Managers are always on duty");
+    }
+
     @Test
     @DisplayName("Test Nurse permissions")
     void testNursePermissions() {
@@ -132,4 +213,46 @@ public class StaffTest {
             }
         }
     }
+
+    @Test
+    @DisplayName("Test compact shift storage keeps the string views")
+    void testCompactShifts() {
+        Nurse nurse = new Nurse("NUR001", "Test Nurse", "nurse@test.com", "1234567890",
+                "testnur", null, "RN");
+        nurse.assignShift("WED", "2PM-10PM");
+        nurse.assignShift(DayOfWeek.MONDAY, ShiftSlot.MORNING);
+
+        assertEquals(List.of("8AM-4PM"), nurse.getShiftsForDay("MON"));
+        assertEquals(1, nurse.getShiftCount("WED"));
+        assertEquals(2, nurse.getTotalWeeklyShifts());
+        assertEquals(16, nurse.getTotalWeeklyHours(8));
+        assertTrue(nurse.hasShift(DayOfWeek.WEDNESDAY, ShiftSlot.AFTERNOON));
+        assertEquals(EnumSet.of(ShiftSlot.MORNING), nurse.getShiftSlots(DayOfWeek.MONDAY));
+
+        // Days in week order, days with no shifts left out, and the views are read-only
+        assertEquals(List.of("MON", "WED"), new ArrayList<>(nurse.getWeeklyShifts().keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> nurse.getShiftsForDay("MON").add("2PM-10PM"));
+        assertThrows(UnsupportedOperationException.class, () -> nurse.getWeeklyShifts().remove("MON"));
+
+        nurse.clearShiftsForDay("MON");
+        assertFalse(nurse.getWeeklyShifts().containsKey("MON"));
+        assertEquals(0, nurse.getShiftCount("MON"));
+
+        // Doctors may be given shifts that are not a known slot
+        Doctor doctor = new Doctor("DOC001", "Dr. Test", "doc@test.com", "1234567890",
+                "testdoc", null, "General Medicine");
+        doctor.assignShift("TUE", "9AM-11AM");
+        doctor.assignShift("THU", "1HR");
+        assertEquals(List.of("9AM-11AM"), doctor.getShiftsForDay("TUE"));
+        assertEquals(2, doctor.getTotalWeeklyShifts());
+        assertThrows(IllegalArgumentException.class, () -> doctor.assignShift("TUE", "1HR"));
+        doctor.removeShift("TUE", "9AM-11AM");
+        assertEquals(1, doctor.getTotalWeeklyShifts());
+
+        // setWeeklyShifts round trips through getWeeklyShifts
+        Doctor copy = new Doctor("DOC002", "Dr. Copy", "doc@test.com", "1234567890",
+                "copydoc", null, "General Medicine");
+        copy.setWeeklyShifts(doctor.getWeeklyShifts());
+        assertEquals(doctor.getWeeklyShifts(), copy.getWeeklyShifts());
+    }
 }
@@ -0,0 +1,52 @@
+package healthcare.benchmark;
+
+import healthcare.database.DatabaseManager;
+import healthcare.utils.AuditLogger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures audit rows saved to SQLite per second when they are written in JDBC
+ * batches of 1, 10, 100 and 1000 rows (one transaction per batch), on a fresh
+ * database file for each batch size.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.AuditBatchBenchmark
+ */
+public class AuditBatchBenchmark {
+    private static final int[] BATCH_SIZES = {1, 10, 100, 1000};
+    // Single-row commits are slow, so each batch size runs for about as long instead of as many rows
+    private static final long RUN_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("audit-batch-benchmark");
+        System.out.printf("%-12s %12s %14s%n", "batch size", "rows/s", "ms per batch");
+        for (int batchSize : BATCH_SIZES) {
+            DatabaseManager database = DatabaseManager.newStandaloneInstance(dir.resolve("audit_" + batchSize + ".db"));
+            if (!database.isAvailable()) {
+                throw new IllegalStateException("SQLite is not available");
+            }
+            long nextId = 1;
+            long rows = 0;
+            long start = System.nanoTime();
+            long end = start + RUN_MILLIS * 1_000_000;
+            while (System.nanoTime() < end) {
+                List<AuditLogger.AuditRecord> batch = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    batch.add(new AuditLogger.AuditRecord(nextId++, "NUR00" + (i % 10), "MOVE_PATIENT",
+                            "Moved patient PAT" + i + " from W1-R1-B1 to W2-R3-B2", LocalDateTime.now()));
+                }
+                database.saveAuditLogs(batch);
+                rows += batchSize;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (database.getAuditRowCount() != rows) {
+                throw new IllegalStateException("Saved " + database.getAuditRowCount() + " of " + rows + " rows");
+            }
+            System.out.printf("%-12d %12.0f %14.3f%n", batchSize, rows / seconds,
+                    seconds * 1000 / database.getAuditFlushCount());
+            database.closeConnection();
+        }
+    }
+}
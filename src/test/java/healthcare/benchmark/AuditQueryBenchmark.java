@@ -0,0 +1,104 @@
+package healthcare.benchmark;
+
+import healthcare.database.DatabaseManager;
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditQuery;
+import healthcare.utils.AuditTrail;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures filtered audit queries against SQLite as the audit_log table grows to
+ * 10k, 100k and 1M rows: the first page of "one action by one nurse last quarter",
+ * the first and tenth pages of one nurse's records, and a one-day window, each
+ * through the indexes, next to the old approach of scanning every page and filtering.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.AuditQueryBenchmark
+ */
+public class AuditQueryBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final String[] ACTIONS = {"LOGIN", "ADMIT_PATIENT", "DISCHARGE_PATIENT", "MOVE_PATIENT",
+            "ADMINISTER_MEDICATION", "ADD_PRESCRIPTION", "ASSIGN_SHIFT", "LOGOUT"};
+    private static final int STAFF = 40;
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 50;
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("audit-query-benchmark");
+        DatabaseManager database = DatabaseManager.newStandaloneInstance(dir.resolve("audit.db"));
+        if (!database.isAvailable()) {
+            throw new IllegalStateException("SQLite is not available");
+        }
+        System.out.printf("%-10s %14s %14s %14s %14s %14s%n",
+                "rows", "quarter ms", "staff ms", "staff p10 ms", "one day ms", "scan ms");
+        long rows = 0;
+        for (int size : SIZES) {
+            while (rows < size) {
+                List<AuditLogger.AuditRecord> batch = new ArrayList<>(1000);
+                for (int i = 0; i < 1000; i++) {
+                    long id = ++rows;
+                    // Thirty seconds apart, so a million rows cover most of a year
+                    batch.add(new AuditLogger.AuditRecord(id, "NUR" + (id % STAFF), ACTIONS[(int) (id / STAFF % ACTIONS.length)],
+                            "Record " + id, START.plusSeconds(id * 30)));
+                }
+                database.saveAuditLogs(batch);
+            }
+            LocalDateTime last = START.plusSeconds(rows * 30);
+            AuditQuery quarter = AuditQuery.all().byStaff("NUR7").byAction("DISCHARGE_PATIENT")
+                    .between(last.minusDays(90), last);
+            AuditQuery staff = AuditQuery.all().byStaff("NUR7");
+            AuditQuery day = AuditQuery.all().between(last.minusDays(2), last.minusDays(1));
+
+            long tenthCursor = AuditTrail.LATEST;
+            for (int page = 0; page < 9; page++) {
+                List<AuditLogger.AuditRecord> records = database.findAuditRecords(staff, tenthCursor, PAGE_SIZE);
+                if (!records.isEmpty()) {
+                    tenthCursor = records.get(records.size() - 1).getId();
+                }
+            }
+            System.out.printf("%-10d %14.3f %14.3f %14.3f %14.3f %14.1f%n", rows,
+                    time(database, quarter, AuditTrail.LATEST),
+                    time(database, staff, AuditTrail.LATEST),
+                    time(database, staff, tenthCursor),
+                    time(database, day, AuditTrail.LATEST),
+                    scan(database, quarter));
+        }
+        database.closeConnection();
+    }
+
+    // Average milliseconds for one page
+    private static double time(DatabaseManager database, AuditQuery query, long cursor) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (int run = 0; run < RUNS; run++) {
+            found += database.findAuditRecords(query, cursor, PAGE_SIZE).size();
+        }
+        if (found == 0) {
+            throw new IllegalStateException("No records found");
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    // Milliseconds to find the first page by reading every page of the log and filtering
+    private static double scan(DatabaseManager database, AuditQuery query) {
+        long start = System.nanoTime();
+        List<AuditLogger.AuditRecord> found = new ArrayList<>();
+        long cursor = AuditTrail.LATEST;
+        List<AuditLogger.AuditRecord> page;
+        do {
+            page = database.getAuditRecordsBefore(cursor, 1000);
+            for (AuditLogger.AuditRecord record : page) {
+                if (query.matches(record) && found.size() < PAGE_SIZE) {
+                    found.add(record);
+                }
+            }
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 1000);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
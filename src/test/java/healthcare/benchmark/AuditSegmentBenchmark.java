@@ -0,0 +1,100 @@
+package healthcare.benchmark;
+
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditSegments;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes a year of audit records (one every ten seconds, about 3.2M) as segments and
+ * as the old single text file, then compares disk use and the time to read every
+ * record in a one-hour and a one-day window: the segments seek through their
+ * indexes, while the text file has to be read from the start.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.AuditSegmentBenchmark
+ */
+public class AuditSegmentBenchmark {
+    private static final int RECORDS = 365 * 24 * 360;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final DateTimeFormatter TEXT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("audit-segment-benchmark");
+        Path text = dir.resolve("audit_log.txt");
+        Path segmentDir = dir.resolve("audit");
+
+        long start = System.nanoTime();
+        try (AuditSegments segments = new AuditSegments(segmentDir, 16L * 1024 * 1024, 64 * 1024)) {
+            List<AuditLogger.AuditRecord> batch = new ArrayList<>(4096);
+            for (int i = 1; i <= RECORDS; i++) {
+                batch.add(record(i));
+                if (batch.size() == 4096 || i == RECORDS) {
+                    segments.write(batch);
+                    batch.clear();
+                }
+            }
+            System.out.printf("Segments: %d written in %.1f s (%d segments)%n",
+                    RECORDS, (System.nanoTime() - start) / 1e9, segments.getSegmentCount());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(text, StandardCharsets.UTF_8))) {
+            for (int i = 1; i <= RECORDS; i++) {
+                out.println(record(i));
+            }
+        }
+        System.out.printf("Disk: text file %.1f MB, segments %.1f MB%n", Files.size(text) / 1e6, size(segmentDir) / 1e6);
+
+        try (AuditSegments segments = new AuditSegments(segmentDir, 16L * 1024 * 1024, 64 * 1024)) {
+            System.out.printf("%-28s %12s %14s %12s%n", "window", "records", "segments ms", "text ms");
+            window(segments, text, "one hour in March", START.plusDays(70).withHour(14), 1);
+            window(segments, text, "one day in March", START.plusDays(70), 24);
+            window(segments, text, "one hour, last day", START.plusDays(364).withHour(14), 1);
+        }
+    }
+
+    private static AuditLogger.AuditRecord record(int i) {
+        return new AuditLogger.AuditRecord(i, "NUR00" + (i % 10), "MOVE_PATIENT",
+                "Moved patient PAT" + (i % 500) + " from W1-R1-B1 to W2-R3-B2", START.plusSeconds(i * 10L));
+    }
+
+    private static void window(AuditSegments segments, Path text, String name, LocalDateTime from, int hours) throws IOException {
+        LocalDateTime to = from.plusHours(hours);
+        int found = 0;
+        long start = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            found = segments.read(from, to).size();
+        }
+        double segmentMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        int scanned = 0;
+        start = System.nanoTime();
+        try (BufferedReader in = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                LocalDateTime time = LocalDateTime.parse(line.substring(0, 19), TEXT_TIME);
+                if (!time.isBefore(from) && time.isBefore(to)) {
+                    scanned++;
+                }
+            }
+        }
+        double textMillis = (System.nanoTime() - start) / 1e6;
+        if (scanned != found) {
+            throw new IllegalStateException("Segments found " + found + " records, text file " + scanned);
+        }
+        System.out.printf("%-28s %12d %14.2f %12.1f%n", name, found, segmentMillis, textMillis);
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
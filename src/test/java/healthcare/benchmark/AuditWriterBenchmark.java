@@ -0,0 +1,71 @@
+package healthcare.benchmark;
+
+import healthcare.utils.AuditLogger;
+import healthcare.utils.AuditWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Compares writing audit records by opening the file for each one (as AuditLogger used
+ * to) with the queued AuditWriter under each durability setting: records per second,
+ * and how long the caller spends per record.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.AuditWriterBenchmark
+ */
+public class AuditWriterBenchmark {
+    private static final int OPEN_PER_RECORD = 5_000;
+    private static final int QUEUED = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("audit-benchmark");
+        System.out.printf("%-24s %12s %16s%n", "", "records/s", "caller us/record");
+
+        Path file = dir.resolve("open_per_record.txt");
+        long start = System.nanoTime();
+        for (int i = 0; i < OPEN_PER_RECORD; i++) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(file.toFile(), true))) {
+                writer.println(record(i));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        print("open per record", OPEN_PER_RECORD, elapsed, elapsed);
+
+        for (long fsyncMillis : new long[]{-1, 1000, 0}) {
+            run(dir.resolve("queued_" + (fsyncMillis + 1) + ".txt"), fsyncMillis);
+        }
+    }
+
+    private static void run(Path file, long fsyncMillis) throws IOException {
+        try (AuditWriter writer = new AuditWriter(file, 64 * 1024, fsyncMillis)) {
+            // Warm up
+            for (int i = 0; i < 10_000; i++) {
+                writer.append(record(i));
+            }
+            writer.flush();
+            long batches = writer.getBatchCount();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < QUEUED; i++) {
+                writer.append(record(i));
+            }
+            long callerNanos = System.nanoTime() - start;
+            writer.flush();
+            long elapsed = System.nanoTime() - start;
+            String name = fsyncMillis < 0 ? "queued, no fsync" : fsyncMillis == 0 ? "queued, fsync per batch" : "queued, fsync " + fsyncMillis + "ms";
+            print(name, QUEUED, elapsed, callerNanos);
+            System.out.printf("%-24s %d records per batch%n", "", QUEUED / Math.max(1, writer.getBatchCount() - batches));
+        }
+    }
+
+    private static AuditLogger.AuditRecord record(int i) {
+        return new AuditLogger.AuditRecord("NUR00" + (i % 10), "MOVE_PATIENT", "Moved patient PAT" + i + " from W1-R1-B1 to W2-R3-B2",
+                LocalDateTime.now());
+    }
+
+    private static void print(String name, int records, long elapsedNanos, long callerNanos) {
+        System.out.printf("%-24s %12.0f %16.2f%n", name, records / (elapsedNanos / 1e9), callerNanos / 1e3 / records);
+    }
+}
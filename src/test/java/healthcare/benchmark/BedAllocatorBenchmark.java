@@ -0,0 +1,75 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures BedAllocator reserve/vacate latency as the number of beds grows.
+ * Each care home is kept around 80% occupied so allocations have to search.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.BedAllocatorBenchmark
+ */
+public class BedAllocatorBenchmark {
+    private static final int[] BED_COUNTS = {50, 1_000, 10_000, 100_000};
+    private static final int ROOMS_PER_WARD = 50;
+    private static final int OPERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s%n", "beds", "ns/allocation");
+        for (int beds : BED_COUNTS) {
+            run(beds); // warm-up
+            System.out.printf("%10d %14.1f%n", beds, run(beds));
+        }
+    }
+
+    private static double run(int totalBeds) {
+        BedAllocator allocator = new BedAllocator();
+        int created = 0;
+        int roomNumber = 0;
+        Ward ward = null;
+        while (created < totalBeds) {
+            if (roomNumber % ROOMS_PER_WARD == 0) {
+                ward = new Ward("W" + (roomNumber / ROOMS_PER_WARD), "Ward");
+            }
+            int size = Math.min(1 + roomNumber % 4, totalBeds - created);
+            Room room = new Room(ward.getWardId() + "-R" + roomNumber, ward.getWardId(), size);
+            ward.addRoom(room);
+            room.setListener(allocator);
+            allocator.addRoom(room);
+            created += size;
+            roomNumber++;
+        }
+
+        Random random = new Random(42);
+        Patient[] patients = new Patient[64];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Patient("P" + i, "Patient", "p@test.com", "1234567890",
+                    LocalDate.of(1950, 1, 1), i % 2 == 0 ? "M" : "F", "Condition", i % 16 == 0);
+        }
+
+        List<Bed> occupied = new ArrayList<>();
+        int target = totalBeds * 8 / 10;
+        long elapsed = 0;
+        for (int op = 0; op < OPERATIONS; op++) {
+            Patient patient = patients[random.nextInt(patients.length)];
+            long start = System.nanoTime();
+            Bed bed = allocator.findBestBed(patient.getGender(), patient.requiresIsolation(), null);
+            if (bed != null) {
+                bed.assignPatient(patient);
+            }
+            elapsed += System.nanoTime() - start;
+            if (bed != null) {
+                occupied.add(bed);
+            }
+            if (occupied.size() > target || bed == null) {
+                int victim = random.nextInt(occupied.size());
+                Bed last = occupied.remove(occupied.size() - 1);
+                Bed freed = victim < occupied.size() ? occupied.set(victim, last) : last;
+                freed.vacateBed();
+            }
+        }
+        return (double) elapsed / OPERATIONS;
+    }
+}
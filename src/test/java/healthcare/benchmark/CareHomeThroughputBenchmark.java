@@ -0,0 +1,75 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures patient-move throughput with 1, 2, 4, ... threads driving one CareHome.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.CareHomeThroughputBenchmark
+ */
+public class CareHomeThroughputBenchmark {
+    private static final int WARDS = 20;
+    private static final int ROOMS_PER_WARD = 50;
+    private static final long RUN_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        List<String> bedIds = new ArrayList<>();
+        for (int w = 0; w < WARDS; w++) {
+            Ward ward = new Ward("B" + w, "Benchmark Ward " + w);
+            for (int r = 0; r < ROOMS_PER_WARD; r++) {
+                ward.addRoom(new Room("B" + w + "-R" + r, ward.getWardId(), 4));
+            }
+            careHome.addWard(ward);
+            for (Bed bed : ward.getAllBeds()) {
+                bedIds.add(bed.getBedId());
+            }
+        }
+        List<String> patientIds = new ArrayList<>();
+        for (int i = 0; i < bedIds.size() / 2; i++) {
+            Patient patient = new Patient("BP" + i, "Patient", "p@test.com", "1234567890",
+                    LocalDate.of(1950, 1, 1), "M", "Condition", false);
+            careHome.admitPatient(patient, null, "MGR001");
+            patientIds.add(patient.getId());
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%8s %14s%n", "threads", "moves/sec");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            System.out.printf("%8d %14.0f%n", threads, run(careHome, bedIds, patientIds, threads));
+        }
+    }
+
+    private static double run(CareHome careHome, List<String> bedIds, List<String> patientIds, int threads)
+            throws InterruptedException {
+        AtomicLong moves = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.currentTimeMillis() + RUN_MILLIS;
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                Random random = new Random();
+                long count = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        careHome.movePatient(patientIds.get(random.nextInt(patientIds.size())),
+                                bedIds.get(random.nextInt(bedIds.size())), "MGR001");
+                        count++;
+                    } catch (Exception ignored) {
+                        // Occupied destination - pick again
+                    }
+                }
+                moves.addAndGet(count);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        return moves.get() * 1000.0 / RUN_MILLIS;
+    }
+}
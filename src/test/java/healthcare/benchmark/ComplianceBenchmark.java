@@ -0,0 +1,90 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares CareHome.checkCompliance, which reads the violations the compliance tracker
+ * keeps, with the full rescan of every roster it replaces, for 10,000 compliant staff.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.ComplianceBenchmark
+ */
+public class ComplianceBenchmark {
+    private static final int STAFF = 10_000;
+    // Rescans are slow, so they get fewer rounds than the tracker
+    private static final int RESCAN_ITERATIONS = 200;
+    private static final int TRACKER_ITERATIONS = 200_000;
+    private static final List<String> DAYS = Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        for (int i = 0; i < STAFF; i++) {
+            // No password, so building the roster does not spend its time hashing
+            Staff staff;
+            if (i % 5 == 0) {
+                staff = new Doctor("BD" + i, "Doctor " + i, "d@test.com", "1234567890", "bd" + i, null, "GP");
+                for (String day : DAYS) {
+                    staff.assignShift(day, "1HR");
+                }
+            } else {
+                staff = new Nurse("BN" + i, "Nurse " + i, "n@test.com", "1234567890", "bn" + i, null, "RN");
+                for (String day : DAYS) {
+                    staff.assignShift(day, i % 2 == 0 ? "8AM-4PM" : "2PM-10PM");
+                }
+            }
+            careHome.addStaff(staff, "MGR001");
+        }
+        List<Staff> nurses = careHome.getStaffByType("Nurse");
+        List<Staff> doctors = careHome.getStaffByType("Doctor");
+        Staff nurse = careHome.getStaff("BN1");
+
+        System.out.printf("%d nurses, %d doctors%n%n", nurses.size(), doctors.size());
+        System.out.printf("%-34s %14s%n", "", "ns/check");
+        report("full rescan", RESCAN_ITERATIONS, () -> rescan(nurses, doctors));
+        report("tracker", TRACKER_ITERATIONS, careHome::checkCompliance);
+        report("shift change + tracker", TRACKER_ITERATIONS / 10, () -> {
+            nurse.clearShiftsForDay("MON");
+            nurse.assignShift("MON", "8AM-4PM");
+            careHome.checkCompliance();
+        });
+    }
+
+    // The check as it was before the tracker: every day of every nurse and doctor
+    private static void rescan(List<Staff> nurses, List<Staff> doctors) {
+        for (Staff staff : nurses) {
+            if (staff.getTotalWeeklyShifts() != 7) {
+                throw new IllegalStateException("Nurse " + staff.getId() + " does not have exactly 7 shifts assigned.");
+            }
+            for (String day : DAYS) {
+                if (staff.getShiftsForDay(day).size() > 1 || staff.getDailyHours(day) > 8) {
+                    throw new IllegalStateException("Nurse " + staff.getId() + " breaks the rules on " + day);
+                }
+            }
+        }
+        for (Staff staff : doctors) {
+            if (staff.getTotalWeeklyHours(1) < 7) {
+                throw new IllegalStateException("Doctor " + staff.getId() + " does not have 7 hours assigned.");
+            }
+            for (String day : DAYS) {
+                if (staff.getShiftsForDay(day).isEmpty()) {
+                    throw new IllegalStateException("Doctor " + staff.getId() + " does not have a shift on " + day);
+                }
+            }
+        }
+        sink++;
+    }
+
+    private static void report(String name, int iterations, Runnable check) {
+        for (int i = 0; i < iterations; i++) {
+            check.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            check.run();
+        }
+        System.out.printf("%-34s %14.1f%n", name, (System.nanoTime() - start) / (double) iterations);
+    }
+}
@@ -0,0 +1,68 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Times a full compliance evaluation of 50,000 staff (a multi-site pool where about
+ * one staff member in three breaks a rule), sequentially and on ForkJoinPools of
+ * 1, 2, 4, ... threads up to the core count.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.ComplianceEvaluationBenchmark
+ */
+public class ComplianceEvaluationBenchmark {
+    private static final int STAFF = 50_000;
+    private static final int ITERATIONS = 50;
+    private static final List<String> DAYS = Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        List<Staff> pool = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < STAFF; i++) {
+            // No password, so building the pool does not spend its time hashing
+            Staff staff = i % 4 == 0
+                    ? new Doctor("D" + i, "Doctor " + i, "d@test.com", "1234567890", "d" + i, null, "GP")
+                    : new Nurse("N" + i, "Nurse " + i, "n@test.com", "1234567890", "n" + i, null, "RN");
+            for (String day : DAYS) {
+                if (random.nextInt(20) != 0) {
+                    staff.assignShift(day, staff instanceof Doctor ? "1HR" : "8AM-4PM");
+                }
+            }
+            pool.add(staff);
+        }
+
+        List<ComplianceTracker.Violation> expected = ComplianceEvaluator.evaluate(pool);
+        System.out.printf("%d staff, %d violations, %d cores%n%n", STAFF, expected.size(),
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-20s %14s %10s%n", "", "ms/evaluation", "speedup");
+
+        double sequential = time(() -> ComplianceEvaluator.evaluate(pool));
+        System.out.printf("%-20s %14.2f %10s%n", "sequential", sequential, "1.00x");
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool forkJoinPool = new ForkJoinPool(threads);
+            if (!ComplianceEvaluator.evaluateParallel(pool, forkJoinPool).equals(expected)) {
+                throw new IllegalStateException("Parallel evaluation does not match the sequential one");
+            }
+            double millis = time(() -> ComplianceEvaluator.evaluateParallel(pool, forkJoinPool));
+            System.out.printf("%-20s %14.2f %9.2fx%n", "fork-join x" + threads, millis, sequential / millis);
+            forkJoinPool.shutdown();
+        }
+    }
+
+    private static double time(Supplier<List<ComplianceTracker.Violation>> evaluation) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += evaluation.get().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += evaluation.get().size();
+        }
+        return (System.nanoTime() - start) / 1e6 / ITERATIONS;
+    }
+}
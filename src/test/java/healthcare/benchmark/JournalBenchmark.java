@@ -0,0 +1,87 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures journaled patient moves per second with 1, 2, 4, ... 16 threads, and how many
+ * records share each fsync. Moves wait for the disk, so more threads mean bigger group commits.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.JournalBenchmark
+ */
+public class JournalBenchmark {
+    private static final int WARDS = 10;
+    private static final int ROOMS_PER_WARD = 50;
+    private static final long RUN_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("journal-benchmark");
+        CareHome careHome = CareHome.recover(dir);
+        careHome.createSampleData();
+        List<String> bedIds = new ArrayList<>();
+        for (int w = 0; w < WARDS; w++) {
+            Ward ward = new Ward("B" + w, "Benchmark Ward " + w);
+            for (int r = 0; r < ROOMS_PER_WARD; r++) {
+                ward.addRoom(new Room("B" + w + "-R" + r, ward.getWardId(), 4));
+            }
+            careHome.addWard(ward);
+            for (Bed bed : ward.getAllBeds()) {
+                bedIds.add(bed.getBedId());
+            }
+        }
+        List<String> patientIds = new ArrayList<>();
+        for (int i = 0; i < bedIds.size() / 2; i++) {
+            Patient patient = new Patient("BP" + i, "Patient", "p@test.com", "1234567890",
+                    LocalDate.of(1950, 1, 1), "M", "Condition", false);
+            careHome.admitPatient(patient, "B" + (i % WARDS), "MGR001");
+            patientIds.add(patient.getId());
+        }
+        careHome.saveData();
+
+        Path journal = dir.resolve("carehome_journal.log");
+        System.out.printf("%8s %14s %14s %14s%n", "threads", "moves/sec", "records/fsync", "bytes/record");
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            long before = Files.size(journal);
+            long[] result = run(careHome, bedIds, patientIds, threads);
+            long bytes = Files.size(journal) - before;
+            System.out.printf("%8d %14.0f %14.1f %14.1f%n", threads, result[0] * 1000.0 / RUN_MILLIS,
+                    result[1] == 0 ? 0.0 : (double) result[0] / result[1], result[0] == 0 ? 0.0 : (double) bytes / result[0]);
+        }
+        careHome.closeJournal();
+    }
+
+    // Returns {moves, fsyncs}
+    private static long[] run(CareHome careHome, List<String> bedIds, List<String> patientIds, int threads)
+            throws InterruptedException {
+        AtomicLong moves = new AtomicLong();
+        long commitsBefore = careHome.getJournalCommitCount();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.currentTimeMillis() + RUN_MILLIS;
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                Random random = new Random();
+                long count = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        careHome.movePatient(patientIds.get(random.nextInt(patientIds.size())),
+                                bedIds.get(random.nextInt(bedIds.size())), "MGR001");
+                        count++;
+                    } catch (Exception ignored) {
+                        // Occupied destination - pick again
+                    }
+                }
+                moves.addAndGet(count);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        return new long[]{moves.get(), careHome.getJournalCommitCount() - commitsBefore};
+    }
+}
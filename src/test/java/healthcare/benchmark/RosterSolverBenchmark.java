@@ -0,0 +1,42 @@
+package healthcare.benchmark;
+
+import healthcare.utils.RosterSolver;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the roster solver on synthetic staff pools of different sizes, once with a
+ * single search and once with one search per core, and reports how close each week
+ * gets to the lowest possible cost within the time budget.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.RosterSolverBenchmark
+ */
+public class RosterSolverBenchmark {
+    private static final int[] NURSES = {20, 200, 2_000};
+    private static final long BUDGET_MILLIS = 2_000;
+
+    public static void main(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("budget %d ms, %d cores%n%n", BUDGET_MILLIS, cores);
+        System.out.printf("%-8s %-8s %10s %10s %12s %10s %14s%n",
+                "nurses", "threads", "cost", "best", "turnarounds", "ms", "moves/s");
+        for (int nurses : NURSES) {
+            List<String> nurseIds = new ArrayList<>();
+            for (int i = 0; i < nurses; i++) {
+                nurseIds.add("N" + i);
+            }
+            List<String> doctorIds = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, nurses / 10); i++) {
+                doctorIds.add("D" + i);
+            }
+            // Ask for a tenth of the pool on each shift, as a multi-ward home would
+            RosterSolver solver = new RosterSolver(Math.max(1, nurses / 10));
+            solver.solve(nurseIds, doctorIds, 200, 1);   // warm up
+            for (int threads : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+                RosterSolver.Roster roster = solver.solve(nurseIds, doctorIds, BUDGET_MILLIS, threads);
+                System.out.printf("%-8d %-8d %10d %10d %12d %10d %14.0f%n", nurses, threads,
+                        roster.getCost(), roster.getLowerBound(), roster.getTurnarounds(), roster.getElapsedMillis(),
+                        roster.getMoves() * 1000.0 / Math.max(1, roster.getElapsedMillis()));
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Compares the binary snapshot (SnapshotCodec) with the old ObjectOutputStream .ser format
+ * for a care home with 10,000 residents, each with prescriptions and medication history.
+ * Reports file size, save time, load time and bytes allocated per load. Loading a CareHome
+ * leaves clinical history undecoded, so the last row shows what that defers.
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.SnapshotBenchmark
+ */
+public class SnapshotBenchmark {
+    private static final int PATIENTS = 10_000;
+    private static final int ROOMS_PER_WARD = 100;
+    private static final int PRESCRIPTIONS_PER_PATIENT = 2;
+    private static final int RECORDS_PER_PATIENT = 20;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CareHome careHome = buildCareHome();
+        Path dir = Files.createTempDirectory("snapshot-benchmark");
+        Path serFile = dir.resolve("carehome_data.ser");
+        Path snapshotFile = dir.resolve("carehome_snapshot.dat");
+
+        Task saveSer = () -> {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serFile)))) {
+                out.writeObject(careHome);
+            }
+        };
+        Task loadSer = () -> {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(serFile)))) {
+                in.readObject();
+            }
+        };
+        Task saveSnapshot = () -> SnapshotCodec.write(snapshotFile,
+                SnapshotCodec.encode(0, careHome.getWards(), careHome.getAllStaff(), careHome.getAllPatients()));
+        Task decodeSnapshot = () -> SnapshotCodec.read(snapshotFile);
+        Task recoverSnapshot = () -> CareHome.recover(dir).closeJournal();
+        Task recoverAndReadHistory = () -> {
+            CareHome loaded = CareHome.recover(dir);
+            for (Patient patient : loaded.getAllPatients()) {
+                patient.getPrescriptions();
+            }
+            loaded.closeJournal();
+        };
+
+        System.out.printf("%d patients, %d prescriptions and %d medication records each%n%n",
+                PATIENTS, PRESCRIPTIONS_PER_PATIENT, RECORDS_PER_PATIENT);
+        System.out.printf("%-28s %12s %12s %14s%n", "", "size (KB)", "median ms", "alloc (MB)");
+        report(".ser save", saveSer, serFile);
+        report(".ser load (readObject)", loadSer, serFile);
+        report("snapshot save", saveSnapshot, snapshotFile);
+        report("snapshot load (decode)", decodeSnapshot, snapshotFile);
+        report("snapshot load (CareHome)", recoverSnapshot, snapshotFile);
+        report("  + decode all history", recoverAndReadHistory, snapshotFile);
+    }
+
+    private static CareHome buildCareHome() throws Exception {
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        int wards = (PATIENTS + ROOMS_PER_WARD * 4 - 1) / (ROOMS_PER_WARD * 4);
+        for (int w = 0; w < wards; w++) {
+            Ward ward = new Ward("B" + w, "Benchmark Ward " + w);
+            for (int r = 0; r < ROOMS_PER_WARD; r++) {
+                ward.addRoom(new Room("B" + w + "-R" + r, ward.getWardId(), 4));
+            }
+            careHome.addWard(ward);
+        }
+        String[] medications = {"Paracetamol", "Metformin", "Amlodipine", "Atorvastatin", "Omeprazole"};
+        for (int i = 0; i < PATIENTS; i++) {
+            String id = "BP" + i;
+            Patient patient = new Patient(id, "Resident " + i, "resident" + i + "@email.com", "04" + (10_000_000 + i),
+                    LocalDate.of(1930 + i % 50, 1 + i % 12, 1 + i % 28), i % 4 < 2 ? "M" : "F", "Condition " + i % 20, false);
+            careHome.admitPatient(patient, "B" + (i / (ROOMS_PER_WARD * 4)), "MGR001");
+            for (int p = 0; p < PRESCRIPTIONS_PER_PATIENT; p++) {
+                Prescription prescription = new Prescription(id + "-RX" + p, id, "DOC00" + (1 + p % 2), "Ongoing treatment");
+                prescription.addMedication(new Medication(medications[(i + p) % medications.length], "500mg",
+                        "Twice daily", "08:00, 20:00", "Take with food"));
+                prescription.addMedication(new Medication(medications[(i + p + 1) % medications.length], "10mg",
+                        "Once daily", "08:00", "Take in the morning"));
+                patient.addPrescription(prescription);
+            }
+            for (int m = 0; m < RECORDS_PER_PATIENT; m++) {
+                MedicationRecord record = new MedicationRecord(id + "-MR" + m, id, "NUR00" + (1 + m % 3),
+                        medications[(i + m) % medications.length], "500mg");
+                record.setAdministered(true);
+                patient.addMedicationRecord(record);
+            }
+        }
+        return careHome;
+    }
+
+    private static void report(String name, Task task, Path file) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long[] millis = new long[RUNS];
+        long allocated = 0;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            task.run();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+            allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-28s %12d %12d %14.1f%n", name, Files.size(file) / 1024, millis[RUNS / 2],
+                allocated / (double) RUNS / (1024 * 1024));
+    }
+}
@@ -0,0 +1,78 @@
+package healthcare.benchmark;
+
+import healthcare.model.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Compares staff lookups through the StaffDirectory with the full scans they replace,
+ * for a care home with 5,000 staff (70% nurses, 25% doctors, 5% managers).
+ * Run with: gradle benchmark -PbenchClass=healthcare.benchmark.StaffDirectoryBenchmark
+ */
+public class StaffDirectoryBenchmark {
+    private static final int STAFF = 5_000;
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+    private static final List<String> DAYS = Arrays.asList("MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN");
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        CareHome careHome = CareHome.newStandaloneInstance();
+        careHome.createSampleData();
+        for (int i = 0; i < STAFF; i++) {
+            // No password, so building the directory does not spend its time hashing
+            Staff staff;
+            if (i % 20 == 0) {
+                staff = new Manager("BM" + i, "Manager " + i, "m@test.com", "1234567890", "bm" + i, null);
+            } else if (i % 4 == 0) {
+                staff = new Doctor("BD" + i, "Doctor " + i, "d@test.com", "1234567890", "bd" + i, null, "GP");
+                staff.assignShift(DAYS.get(i % 7), "1HR");
+            } else {
+                staff = new Nurse("BN" + i, "Nurse " + i, "n@test.com", "1234567890", "bn" + i, null, "RN");
+                for (int d = 0; d < 5; d++) {
+                    staff.assignShift(DAYS.get((i + d) % 7), d % 2 == 0 ? "8AM-4PM" : "2PM-10PM");
+                }
+            }
+            careHome.addStaff(staff, "MGR001");
+        }
+        List<Staff> allStaff = careHome.getAllStaff();
+
+        System.out.printf("%d staff%n%n", allStaff.size());
+        System.out.printf("%-34s %14s%n", "", "ns/lookup");
+        report("all nurses (type scan)", () -> allStaff.stream()
+                .filter(staff -> staff.getStaffType().equals("Nurse")).collect(Collectors.toList()));
+        report("all nurses (directory)", () -> careHome.getStaffByType("Nurse"));
+        report("doctors on TUE (instanceof scan)", () -> {
+            List<Staff> result = new ArrayList<>();
+            for (Staff staff : allStaff) {
+                if (staff instanceof Doctor && !staff.getShiftsForDay("TUE").isEmpty()) {
+                    result.add(staff);
+                }
+            }
+            return result;
+        });
+        report("doctors on TUE (directory)", () -> careHome.getStaffRosteredOn("Doctor", "TUE"));
+        report("doctors on TUE after a change", () -> {
+            // Worst case for the directory: every lookup follows a shift change
+            Staff doctor = careHome.getStaff("BD4");
+            doctor.clearShiftsForDay("TUE");
+            doctor.assignShift("TUE", "1HR");
+            return careHome.getStaffRosteredOn("Doctor", "TUE");
+        });
+    }
+
+    private static void report(String name, Supplier<List<Staff>> lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += lookup.get().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += lookup.get().size();
+        }
+        System.out.printf("%-34s %14.1f%n", name, (System.nanoTime() - start) / (double) ITERATIONS);
+    }
+}